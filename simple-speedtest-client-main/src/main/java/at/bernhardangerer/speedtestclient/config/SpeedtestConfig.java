@@ -0,0 +1,75 @@
+package at.bernhardangerer.speedtestclient.config;
+
+import at.bernhardangerer.speedtestclient.exception.ConfigurationException;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.type.DownloadEngineType;
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import at.bernhardangerer.speedtestclient.type.UploadEngineType;
+import at.bernhardangerer.speedtestclient.type.UploadPayloadType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+
+@Value
+@Builder(toBuilder = true)
+public final class SpeedtestConfig {
+
+    private final DistanceUnit distanceUnit;
+    private final int downloadMaxBufferSize;
+    private final DownloadEngineType downloadEngine;
+    private final int uploadMaxBufferSize;
+    private final UploadEngineType uploadEngine;
+    private final UploadPayloadType uploadPayload;
+    private final long sampleIntervalInMs;
+    private final boolean convergenceEnabled;
+    private final int convergenceWindowSamples;
+    private final double convergenceMaxCoefficientOfVariation;
+    private final int convergenceConsecutiveWindows;
+    private final boolean rampEnabled;
+    private final int rampInitialStreams;
+    private final int rampMaxStreams;
+    private final double rampMinGain;
+    private final int rampStepSamples;
+    private final MeasurementWindowMode windowMode;
+    private final long windowWarmupInMs;
+    private final int windowThresholdPercent;
+    private final int latencyTestsPerServer;
+    private final long latencyRaceTimeoutInMs;
+    private final int latencyRaceMinSamples;
+    private final boolean loadedLatencyEnabled;
+    private final long loadedLatencyIntervalInMs;
+    private final int closestServersMaxNumber;
+    private final String serverFilterCountry;
+    private final String serverFilterSponsor;
+    private final boolean cacheEnabled;
+    private final Path cacheDirectory;
+    private final long serverListCacheTtlInMinutes;
+    private final long configCacheTtlInMinutes;
+    private final long daemonIntervalInSeconds;
+    private final long daemonJitterInSeconds;
+    private final int daemonLatencyDriftPercent;
+    private final boolean historyEnabled;
+    private final Path historyDirectory;
+    private final int historySegmentRecords;
+    private final boolean metricsEnabled;
+    private final String metricsBindAddress;
+    private final int metricsPort;
+
+    public static SpeedtestConfig getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        private static final SpeedtestConfig INSTANCE = loadDefault();
+
+        private static SpeedtestConfig loadDefault() {
+            try {
+                return SpeedtestConfigLoader.load();
+            } catch (ConfigurationException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+}
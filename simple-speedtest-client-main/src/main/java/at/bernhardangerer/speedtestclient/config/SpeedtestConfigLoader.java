@@ -0,0 +1,265 @@
+package at.bernhardangerer.speedtestclient.config;
+
+import at.bernhardangerer.speedtestclient.exception.ConfigurationException;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.type.DownloadEngineType;
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import at.bernhardangerer.speedtestclient.type.UploadEngineType;
+import at.bernhardangerer.speedtestclient.type.UploadPayloadType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+// layers: bundled config.properties, external file, speedtest.<key> system properties, SPEEDTEST_<KEY> env vars, overrides; later wins
+public final class SpeedtestConfigLoader {
+    public static final String DISTANCE_UNIT_DEFAULT = "DistanceUnit.default";
+    public static final String DOWNLOAD_MAX_BUFFER_SIZE = "Download.maxBufferSize";
+    public static final String DOWNLOAD_ENGINE = "Download.engine";
+    public static final String UPLOAD_MAX_BUFFER_SIZE = "Upload.maxBufferSize";
+    public static final String UPLOAD_ENGINE = "Upload.engine";
+    public static final String UPLOAD_PAYLOAD = "Upload.payload";
+    public static final String TRANSFER_SAMPLE_INTERVAL = "Transfer.sampleIntervalMs";
+    public static final String CONVERGENCE_ENABLED = "Transfer.convergence.enabled";
+    public static final String CONVERGENCE_WINDOW_SAMPLES = "Transfer.convergence.windowSamples";
+    public static final String CONVERGENCE_MAX_CV = "Transfer.convergence.maxCoefficientOfVariation";
+    public static final String CONVERGENCE_CONSECUTIVE_WINDOWS = "Transfer.convergence.consecutiveWindows";
+    public static final String RAMP_ENABLED = "Transfer.ramp.enabled";
+    public static final String RAMP_INITIAL_STREAMS = "Transfer.ramp.initialStreams";
+    public static final String RAMP_MAX_STREAMS = "Transfer.ramp.maxStreams";
+    public static final String RAMP_MIN_GAIN = "Transfer.ramp.minGain";
+    public static final String RAMP_STEP_SAMPLES = "Transfer.ramp.stepSamples";
+    public static final String WINDOW_MODE = "Transfer.window.mode";
+    public static final String WINDOW_WARMUP = "Transfer.window.warmupMs";
+    public static final String WINDOW_THRESHOLD_PERCENT = "Transfer.window.thresholdPercent";
+    public static final String LATENCY_TESTS_PER_SERVER = "Latency.testsPerServer.maxNumber";
+    public static final String LATENCY_RACE_TIMEOUT = "Latency.race.timeoutMs";
+    public static final String LATENCY_RACE_MIN_SAMPLES = "Latency.race.minSamples";
+    public static final String LOADED_LATENCY_ENABLED = "Latency.loaded.enabled";
+    public static final String LOADED_LATENCY_INTERVAL = "Latency.loaded.intervalMs";
+    public static final String CLOSEST_SERVERS_MAX_NUMBER = "ClosestServers.maxNumber";
+    public static final String SERVER_FILTER_COUNTRY = "ServerFilter.country";
+    public static final String SERVER_FILTER_SPONSOR = "ServerFilter.sponsor";
+    public static final String CACHE_ENABLED = "Cache.enabled";
+    public static final String CACHE_DIRECTORY = "Cache.directory";
+    public static final String CACHE_SERVER_LIST_TTL = "Cache.serverList.ttlMinutes";
+    public static final String CACHE_CONFIG_TTL = "Cache.config.ttlMinutes";
+    public static final String DAEMON_INTERVAL = "Daemon.intervalSeconds";
+    public static final String DAEMON_JITTER = "Daemon.jitterSeconds";
+    public static final String DAEMON_LATENCY_DRIFT = "Daemon.latencyDriftPercent";
+    public static final String HISTORY_ENABLED = "History.enabled";
+    public static final String HISTORY_DIRECTORY = "History.directory";
+    public static final String HISTORY_SEGMENT_RECORDS = "History.segmentRecords";
+    public static final String METRICS_ENABLED = "Metrics.enabled";
+    public static final String METRICS_BIND_ADDRESS = "Metrics.bindAddress";
+    public static final String METRICS_PORT = "Metrics.port";
+    static final String SYSTEM_PROPERTY_PREFIX = "speedtest.";
+    static final String ENVIRONMENT_PREFIX = "SPEEDTEST_";
+    private static final String RESOURCE = "config.properties";
+    private static final int MAX_PERCENT = 100;
+    private static final int MAX_PORT = 65535;
+    private static final Set<String> KEYS = Set.of(DISTANCE_UNIT_DEFAULT, DOWNLOAD_MAX_BUFFER_SIZE, DOWNLOAD_ENGINE, UPLOAD_MAX_BUFFER_SIZE,
+            UPLOAD_ENGINE, UPLOAD_PAYLOAD, TRANSFER_SAMPLE_INTERVAL, CONVERGENCE_ENABLED, CONVERGENCE_WINDOW_SAMPLES, CONVERGENCE_MAX_CV,
+            CONVERGENCE_CONSECUTIVE_WINDOWS, RAMP_ENABLED, RAMP_INITIAL_STREAMS, RAMP_MAX_STREAMS, RAMP_MIN_GAIN, RAMP_STEP_SAMPLES,
+            WINDOW_MODE, WINDOW_WARMUP, WINDOW_THRESHOLD_PERCENT, LATENCY_TESTS_PER_SERVER, LATENCY_RACE_TIMEOUT, LATENCY_RACE_MIN_SAMPLES,
+            LOADED_LATENCY_ENABLED, LOADED_LATENCY_INTERVAL, CLOSEST_SERVERS_MAX_NUMBER, SERVER_FILTER_COUNTRY, SERVER_FILTER_SPONSOR,
+            CACHE_ENABLED, CACHE_DIRECTORY, CACHE_SERVER_LIST_TTL, CACHE_CONFIG_TTL, DAEMON_INTERVAL, DAEMON_JITTER, DAEMON_LATENCY_DRIFT,
+            HISTORY_ENABLED, HISTORY_DIRECTORY, HISTORY_SEGMENT_RECORDS, METRICS_ENABLED, METRICS_BIND_ADDRESS, METRICS_PORT);
+
+    private SpeedtestConfigLoader() {
+    }
+
+    public static SpeedtestConfig load() throws ConfigurationException {
+        return load(null, Map.of());
+    }
+
+    public static SpeedtestConfig load(final Path file, final Map<String, String> overrides) throws ConfigurationException {
+        if (overrides != null) {
+            return parse(resolve(file, System.getProperties(), System.getenv(), overrides));
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static Properties resolve(final Path file, final Properties systemProperties, final Map<String, String> environment,
+                              final Map<String, String> overrides) throws ConfigurationException {
+        final Properties properties = loadResource();
+        if (file != null) {
+            properties.putAll(loadFile(file));
+        }
+        for (final String key : KEYS) {
+            final String systemProperty = systemProperties.getProperty(SYSTEM_PROPERTY_PREFIX + key);
+            if (systemProperty != null) {
+                properties.setProperty(key, systemProperty);
+            }
+            final String environmentVariable = environment.get(toEnvironmentName(key));
+            if (environmentVariable != null) {
+                properties.setProperty(key, environmentVariable);
+            }
+        }
+        overrides.forEach(properties::setProperty);
+        return properties;
+    }
+
+    static SpeedtestConfig parse(final Properties properties) throws ConfigurationException {
+        if (properties != null) {
+            for (final String key : properties.stringPropertyNames()) {
+                if (!KEYS.contains(key)) {
+                    throw new ConfigurationException(String.format("Unknown configuration key \"%s\"", key));
+                }
+            }
+            return SpeedtestConfig.builder()
+                    .distanceUnit(parseValue(properties, DISTANCE_UNIT_DEFAULT, DistanceUnit::fromAbbreviation))
+                    .downloadMaxBufferSize(parsePositiveInt(properties, DOWNLOAD_MAX_BUFFER_SIZE))
+                    .downloadEngine(parseValue(properties, DOWNLOAD_ENGINE, DownloadEngineType::fromString))
+                    .uploadMaxBufferSize(parsePositiveInt(properties, UPLOAD_MAX_BUFFER_SIZE))
+                    .uploadEngine(parseValue(properties, UPLOAD_ENGINE, UploadEngineType::fromString))
+                    .uploadPayload(parseValue(properties, UPLOAD_PAYLOAD, UploadPayloadType::fromString))
+                    .sampleIntervalInMs(parsePositiveInt(properties, TRANSFER_SAMPLE_INTERVAL))
+                    .convergenceEnabled(parseValue(properties, CONVERGENCE_ENABLED, SpeedtestConfigLoader::parseBoolean))
+                    .convergenceWindowSamples(parsePositiveInt(properties, CONVERGENCE_WINDOW_SAMPLES))
+                    .convergenceMaxCoefficientOfVariation(parsePositiveDouble(properties, CONVERGENCE_MAX_CV))
+                    .convergenceConsecutiveWindows(parsePositiveInt(properties, CONVERGENCE_CONSECUTIVE_WINDOWS))
+                    .rampEnabled(parseValue(properties, RAMP_ENABLED, SpeedtestConfigLoader::parseBoolean))
+                    .rampInitialStreams(parsePositiveInt(properties, RAMP_INITIAL_STREAMS))
+                    .rampMaxStreams(parsePositiveInt(properties, RAMP_MAX_STREAMS))
+                    .rampMinGain(parsePositiveDouble(properties, RAMP_MIN_GAIN))
+                    .rampStepSamples(parsePositiveInt(properties, RAMP_STEP_SAMPLES))
+                    .windowMode(parseValue(properties, WINDOW_MODE, MeasurementWindowMode::fromString))
+                    .windowWarmupInMs(parseNonNegativeInt(properties, WINDOW_WARMUP))
+                    .windowThresholdPercent(parsePercent(properties, WINDOW_THRESHOLD_PERCENT))
+                    .latencyTestsPerServer(parsePositiveInt(properties, LATENCY_TESTS_PER_SERVER))
+                    .latencyRaceTimeoutInMs(parsePositiveInt(properties, LATENCY_RACE_TIMEOUT))
+                    .latencyRaceMinSamples(parsePositiveInt(properties, LATENCY_RACE_MIN_SAMPLES))
+                    .loadedLatencyEnabled(parseValue(properties, LOADED_LATENCY_ENABLED, SpeedtestConfigLoader::parseBoolean))
+                    .loadedLatencyIntervalInMs(parsePositiveInt(properties, LOADED_LATENCY_INTERVAL))
+                    .closestServersMaxNumber(parsePositiveInt(properties, CLOSEST_SERVERS_MAX_NUMBER))
+                    .serverFilterCountry(parseValue(properties, SERVER_FILTER_COUNTRY, value -> value))
+                    .serverFilterSponsor(parseValue(properties, SERVER_FILTER_SPONSOR, value -> value))
+                    .cacheEnabled(parseValue(properties, CACHE_ENABLED, SpeedtestConfigLoader::parseBoolean))
+                    .cacheDirectory(parseValue(properties, CACHE_DIRECTORY, SpeedtestConfigLoader::parseDirectory))
+                    .serverListCacheTtlInMinutes(parseNonNegativeInt(properties, CACHE_SERVER_LIST_TTL))
+                    .configCacheTtlInMinutes(parseNonNegativeInt(properties, CACHE_CONFIG_TTL))
+                    .daemonIntervalInSeconds(parsePositiveInt(properties, DAEMON_INTERVAL))
+                    .daemonJitterInSeconds(parseNonNegativeInt(properties, DAEMON_JITTER))
+                    .daemonLatencyDriftPercent(parsePositiveInt(properties, DAEMON_LATENCY_DRIFT))
+                    .historyEnabled(parseValue(properties, HISTORY_ENABLED, SpeedtestConfigLoader::parseBoolean))
+                    .historyDirectory(parseValue(properties, HISTORY_DIRECTORY, SpeedtestConfigLoader::parseDirectory))
+                    .historySegmentRecords(parsePositiveInt(properties, HISTORY_SEGMENT_RECORDS))
+                    .metricsEnabled(parseValue(properties, METRICS_ENABLED, SpeedtestConfigLoader::parseBoolean))
+                    .metricsBindAddress(parseValue(properties, METRICS_BIND_ADDRESS, value -> value))
+                    .metricsPort(parsePort(properties, METRICS_PORT))
+                    .build();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static String toEnvironmentName(final String key) {
+        return ENVIRONMENT_PREFIX + key.replace('.', '_').toUpperCase(Locale.ROOT);
+    }
+
+    private static int parsePositiveInt(final Properties properties, final String key) throws ConfigurationException {
+        final int value = parseValue(properties, key, Integer::parseInt);
+        if (value <= 0) {
+            throw new ConfigurationException(String.format("Configuration key \"%s\" must be greater than 0 but was %d", key, value));
+        }
+        return value;
+    }
+
+    private static int parsePositiveInt(final Properties properties, final String key, final int max) throws ConfigurationException {
+        final int value = parsePositiveInt(properties, key);
+        if (value > max) {
+            throw new ConfigurationException(String.format("Configuration key \"%s\" must be at most %d but was %d", key, max, value));
+        }
+        return value;
+    }
+
+    private static int parseNonNegativeInt(final Properties properties, final String key) throws ConfigurationException {
+        final int value = parseValue(properties, key, Integer::parseInt);
+        if (value < 0) {
+            throw new ConfigurationException(String.format("Configuration key \"%s\" must not be negative but was %d", key, value));
+        }
+        return value;
+    }
+
+    private static int parsePercent(final Properties properties, final String key) throws ConfigurationException {
+        return parsePositiveInt(properties, key, MAX_PERCENT);
+    }
+
+    private static int parsePort(final Properties properties, final String key) throws ConfigurationException {
+        return parsePositiveInt(properties, key, MAX_PORT);
+    }
+
+    private static double parsePositiveDouble(final Properties properties, final String key) throws ConfigurationException {
+        final double value = parseValue(properties, key, Double::parseDouble);
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new ConfigurationException(String.format("Configuration key \"%s\" must be a finite number greater than 0 but was %s",
+                    key, value));
+        }
+        return value;
+    }
+
+    private static boolean parseBoolean(final String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException("Invalid boolean: " + value);
+        };
+    }
+
+    // relative directories are resolved against the user's home directory
+    private static Path parseDirectory(final String value) {
+        final Path path = Path.of(value);
+        return path.isAbsolute() ? path : Path.of(System.getProperty("user.home")).resolve(path);
+    }
+
+    private static <T> T parseValue(final Properties properties, final String key, final Function<String, T> parser)
+            throws ConfigurationException {
+        final String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new ConfigurationException(String.format("Missing value for configuration key \"%s\"", key));
+        }
+        try {
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(String.format("Invalid value \"%s\" for configuration key \"%s\"", value, key), e);
+        }
+    }
+
+    private static Properties loadResource() throws ConfigurationException {
+        try (InputStream is = SpeedtestConfigLoader.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (is == null) {
+                throw new ConfigurationException(String.format("Missing property file \"%s\"", RESOURCE));
+            }
+            final Properties properties = new Properties();
+            properties.load(is);
+            return properties;
+        } catch (IOException e) {
+            throw loadingFailed(RESOURCE, e);
+        }
+    }
+
+    static Properties loadFile(final Path file) throws ConfigurationException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final Properties properties = new Properties();
+            properties.load(reader);
+            return properties;
+        } catch (IOException e) {
+            throw loadingFailed(file, e);
+        }
+    }
+
+    private static ConfigurationException loadingFailed(final Object source, final IOException cause) {
+        return new ConfigurationException(String.format("Loading property file \"%s\" was not possible", source), cause);
+    }
+
+}
@@ -0,0 +1,103 @@
+package at.bernhardangerer.speedtestclient.config;
+
+import at.bernhardangerer.speedtestclient.exception.ConfigurationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// an invalid file keeps the previous config active; an empty file is treated as a write in progress
+public final class SpeedtestConfigWatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SpeedtestConfigWatcher.class);
+    private final Path file;
+    private final Map<String, String> overrides;
+    private final Consumer<SpeedtestConfig> listener;
+    private final AtomicReference<SpeedtestConfig> config;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private SpeedtestConfigWatcher(final Path file, final Map<String, String> overrides, final Consumer<SpeedtestConfig> listener,
+                                   final SpeedtestConfig config, final WatchService watchService) {
+        this.file = file;
+        this.overrides = overrides;
+        this.listener = listener;
+        this.config = new AtomicReference<>(config);
+        this.watchService = watchService;
+        this.thread = new Thread(this::processEvents, "speedtest-config-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public static SpeedtestConfigWatcher watch(final Path file, final Map<String, String> overrides,
+                                               final Consumer<SpeedtestConfig> listener)
+            throws ConfigurationException, IOException {
+        if (file != null && overrides != null && listener != null) {
+            final Path absoluteFile = file.toAbsolutePath();
+            final SpeedtestConfig config = SpeedtestConfigLoader.load(absoluteFile, overrides);
+            final WatchService watchService = absoluteFile.getFileSystem().newWatchService();
+            absoluteFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            final SpeedtestConfigWatcher watcher = new SpeedtestConfigWatcher(absoluteFile, Map.copyOf(overrides), listener,
+                    config, watchService);
+            watcher.thread.start();
+            return watcher;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public SpeedtestConfig getConfig() {
+        return config.get();
+    }
+
+    synchronized boolean reload() {
+        try {
+            if (Files.size(file) == 0) {
+                return false;
+            }
+            final SpeedtestConfig reloaded = SpeedtestConfigLoader.load(file, overrides);
+            if (!reloaded.equals(config.getAndSet(reloaded))) {
+                listener.accept(reloaded);
+            }
+            return true;
+        } catch (IOException | ConfigurationException e) {
+            logger.error("Keeping previous configuration, reloading \"{}\" failed: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private void processEvents() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final WatchKey key = watchService.take();
+                boolean changed = false;
+                for (final WatchEvent<?> event : key.pollEvents()) {
+                    changed = changed || file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching \"{}\"", file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+}
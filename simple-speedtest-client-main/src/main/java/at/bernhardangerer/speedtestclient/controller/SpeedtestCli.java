@@ -1,17 +1,30 @@
 package at.bernhardangerer.speedtestclient.controller;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfigLoader;
+import at.bernhardangerer.speedtestclient.jfr.FlightRecording;
+import at.bernhardangerer.speedtestclient.metrics.MetricsServer;
 import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.service.HistoryStore;
 import at.bernhardangerer.speedtestclient.service.SpeedtestCliService;
-import at.bernhardangerer.speedtestclient.type.DistanceUnit;
 import at.bernhardangerer.speedtestclient.type.OutputFormat;
-import at.bernhardangerer.speedtestclient.util.Util;
 import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.ParseException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static at.bernhardangerer.speedtestclient.controller.SpeedtestController.runSpeedTest;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.CONFIG;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.DAEMON;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.DEDICATED_SERVER_HOST;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.FLIGHT_RECORDING;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HISTORY_QUERY;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HISTORY_ROLLUP;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.LIST_SERVER_HOSTS;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.NO_DOWNLOAD;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.NO_UPLOAD;
@@ -31,37 +44,109 @@ public final class SpeedtestCli {
         try {
             final CommandLine cmd = getCommandLine(createOptions(), args);
             if (cmd != null) {
-                OutputFormat outputFormat = OutputFormat.CONSOLE;
-                if (SpeedtestCliService.isValidOptionAndOptionValue(cmd, OUTPUT_FORMAT)) {
-                    outputFormat = OutputFormat.fromString(cmd.getParsedOptionValue(OUTPUT_FORMAT).toString().trim());
+                try (FlightRecording recording = startFlightRecording(cmd)) {
+                    run(cmd);
                 }
+            }
+        } catch (Exception e) {
+            System.err.println("Sorry, an unexpected exception occurred!");
+            logger.error(e.getMessage(), e);
+        }
+    }
 
-                if (cmd.hasOption(LIST_SERVER_HOSTS)) {
-                    SpeedtestCliService.processListServerHostsOption(outputFormat);
-                    return;
-                }
+    // main catches whatever the run throws
+    private static void run(final CommandLine cmd) throws Exception {
+        OutputFormat outputFormat = OutputFormat.CONSOLE;
+        if (SpeedtestCliService.isValidOptionAndOptionValue(cmd, OUTPUT_FORMAT)) {
+            outputFormat = OutputFormat.fromString(cmd.getParsedOptionValue(OUTPUT_FORMAT).toString().trim());
+        }
 
-                Server dedicatedServer = null;
-                if (SpeedtestCliService.isValidOptionAndOptionValue(cmd, DEDICATED_SERVER_HOST)) {
-                    dedicatedServer = SpeedtestCliService.getDedicatedServer(cmd);
+        if (cmd.hasOption(LIST_SERVER_HOSTS)) {
+            SpeedtestCliService.processListServerHostsOption(outputFormat);
+            return;
+        }
 
-                    if (dedicatedServer == null) {
-                        System.err.println("The provided host is not in the list of valid server hosts!");
-                        return;
-                    }
-                }
+        final SpeedtestConfig config = SpeedtestConfigLoader.load(null, SpeedtestCliService.getConfigOverrides(cmd, CONFIG));
+        if (cmd.hasOption(HISTORY_QUERY) || cmd.hasOption(HISTORY_ROLLUP)) {
+            try {
+                SpeedtestCliService.processHistoryOptions(cmd, config, outputFormat);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+            return;
+        }
 
-                final SpeedtestResult result = runSpeedTest(DistanceUnit.fromAbbreviation(Util.getConfigProperty("DistanceUnit.default")),
-                        !cmd.hasOption(NO_DOWNLOAD), !cmd.hasOption(NO_UPLOAD), cmd.hasOption(SHARE),
-                        outputFormat == OutputFormat.CONSOLE, dedicatedServer);
+        Server dedicatedServer = null;
+        if (SpeedtestCliService.isValidOptionAndOptionValue(cmd, DEDICATED_SERVER_HOST)) {
+            dedicatedServer = SpeedtestCliService.getDedicatedServer(cmd);
 
-                if (outputFormat != OutputFormat.CONSOLE) {
-                    SpeedtestCliService.processSpeedtestResult(result, outputFormat);
-                }
+            if (dedicatedServer == null) {
+                System.err.println("The provided host is not in the list of valid server hosts!");
+                return;
             }
-        } catch (Exception e) {
-            System.err.println("Sorry, an unexpected exception occurred!");
-            logger.error(e.getMessage(), e);
+        }
+
+        if (cmd.hasOption(DAEMON)) {
+            runDaemon(cmd, config, outputFormat, dedicatedServer);
+            return;
+        }
+        final SpeedtestResult result = runSpeedTest(config,
+                !cmd.hasOption(NO_DOWNLOAD), !cmd.hasOption(NO_UPLOAD), cmd.hasOption(SHARE),
+                outputFormat == OutputFormat.CONSOLE, dedicatedServer);
+        if (config.isHistoryEnabled() && result != null) {
+            try (HistoryStore history = HistoryStore.open(config)) {
+                appendToHistory(history, result);
+            }
+        }
+
+        if (outputFormat != OutputFormat.CONSOLE) {
+            SpeedtestCliService.processSpeedtestResult(result, outputFormat);
+        }
+    }
+
+    // null without the option, so the run is not recorded
+    private static FlightRecording startFlightRecording(final CommandLine cmd) throws ParseException, IOException {
+        if (SpeedtestCliService.isValidOptionAndOptionValue(cmd, FLIGHT_RECORDING)) {
+            return FlightRecording.start(Path.of(cmd.getParsedOptionValue(FLIGHT_RECORDING).toString().trim()));
+        }
+        return null;
+    }
+
+    private static void runDaemon(final CommandLine cmd, final SpeedtestConfig config, final OutputFormat outputFormat,
+                                  final Server dedicatedServer) throws IOException {
+        final AtomicBoolean first = new AtomicBoolean(true);
+        final HistoryStore history = config.isHistoryEnabled() ? HistoryStore.open(config) : null;
+        final SpeedtestDaemon daemon = new SpeedtestDaemon(config, !cmd.hasOption(NO_DOWNLOAD), !cmd.hasOption(NO_UPLOAD),
+                cmd.hasOption(SHARE), outputFormat == OutputFormat.CONSOLE, dedicatedServer, result -> {
+                    if (outputFormat != OutputFormat.CONSOLE) {
+                        SpeedtestCliService.processStreamedSpeedtestResult(result, outputFormat, first.getAndSet(false));
+                    }
+                    if (history != null) {
+                        appendToHistory(history, result);
+                    }
+                });
+        // SIGTERM and SIGINT run the shutdown hooks, which let a running test finish
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close, "speedtest-daemon-shutdown"));
+        // scraped for as long as the daemon runs
+        final MetricsServer metricsServer = config.isMetricsEnabled() ? MetricsServer.start(config) : null;
+        try {
+            daemon.run();
+        } finally {
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
+            if (history != null) {
+                history.close();
+            }
+        }
+    }
+
+    // a result that cannot be recorded is still reported
+    private static void appendToHistory(final HistoryStore history, final SpeedtestResult result) {
+        try {
+            history.append(result);
+        } catch (IOException e) {
+            logger.error("Failed to record the result in the history: {}", e.getMessage(), e);
         }
     }
 
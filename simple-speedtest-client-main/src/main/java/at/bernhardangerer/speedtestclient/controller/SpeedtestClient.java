@@ -0,0 +1,132 @@
+package at.bernhardangerer.speedtestclient.controller;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.event.SpeedtestEvent;
+import at.bernhardangerer.speedtestclient.event.SpeedtestEventPublisher;
+import at.bernhardangerer.speedtestclient.exception.SpeedtestException;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.service.TransferExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// one run at a time; slow event subscribers lose the oldest samples instead of stalling a transfer
+public final class SpeedtestClient implements AutoCloseable {
+    private static final String CLOSED = "Speedtest client is closed";
+    private final SpeedtestConfig config;
+    private final Runner runner;
+    private final ExecutorService executor;
+    // like SubmissionPublisher, events are delivered on the common pool, which outlives the client for the final onComplete
+    private final SpeedtestEventPublisher events = new SpeedtestEventPublisher(ForkJoinPool.commonPool());
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public SpeedtestClient() {
+        this(SpeedtestConfig.getDefault());
+    }
+
+    public SpeedtestClient(final SpeedtestConfig config) {
+        this(config, (runConfig, testDownload, testUpload, generateShareUrl, dedicatedServer, listener) ->
+                SpeedtestController.runSpeedTest(runConfig, testDownload, testUpload, generateShareUrl, false, dedicatedServer, listener));
+    }
+
+    SpeedtestClient(final SpeedtestConfig config, final Runner runner) {
+        this(config, runner, TransferExecutors.newVirtualThreadPerTaskExecutor());
+    }
+
+    SpeedtestClient(final SpeedtestConfig config, final Runner runner, final ExecutorService executor) {
+        if (config != null && config.getDistanceUnit() != null && runner != null && executor != null) {
+            this.config = config;
+            this.runner = runner;
+            this.executor = executor;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public Flow.Publisher<SpeedtestEvent> getEvents() {
+        return events;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public CompletableFuture<SpeedtestResult> run() {
+        return run(true, true, false, null);
+    }
+
+    public CompletableFuture<SpeedtestResult> run(final boolean testDownload, final boolean testUpload, final boolean generateShareUrl,
+                                                  final Server dedicatedServer) {
+        if (closed.get()) {
+            throw new IllegalStateException(CLOSED);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A speedtest is already running");
+        }
+        final CompletableFuture<SpeedtestResult> result = new CompletableFuture<>();
+        // whoever claims the run first releases the running flag: the task once it starts, or a cancel before that
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    execute(result, testDownload, testUpload, generateShareUrl, dedicatedServer);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw new IllegalStateException(CLOSED, e);
+        }
+        result.whenComplete((speedtestResult, throwable) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+                if (claimed.compareAndSet(false, true)) {
+                    running.set(false);
+                }
+            }
+        });
+        return result;
+    }
+
+    // completes all event subscribers and stops a running speedtest
+    @Override
+    public void close() {
+        closed.set(true);
+        events.close();
+        executor.shutdownNow();
+    }
+
+    private void execute(final CompletableFuture<SpeedtestResult> result, final boolean testDownload, final boolean testUpload,
+                         final boolean generateShareUrl, final Server dedicatedServer) {
+        SpeedtestResult speedtestResult = null;
+        Exception failure = null;
+        try {
+            speedtestResult = runner.run(config, testDownload, testUpload, generateShareUrl, dedicatedServer, events::publish);
+        } catch (SpeedtestException | RuntimeException e) {
+            failure = e;
+        }
+        // released before completing, so a dependent stage may start the next run right away
+        running.set(false);
+        if (failure == null) {
+            result.complete(speedtestResult);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    // one speedtest run, replaceable for tests
+    @FunctionalInterface
+    interface Runner {
+        SpeedtestResult run(SpeedtestConfig config, boolean testDownload, boolean testUpload, boolean generateShareUrl,
+                            Server dedicatedServer, Consumer<SpeedtestEvent> listener) throws SpeedtestException;
+    }
+
+}
@@ -1,33 +1,50 @@
 package at.bernhardangerer.speedtestclient.controller;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.event.LatencySampleEvent;
+import at.bernhardangerer.speedtestclient.event.PhaseFinishedEvent;
+import at.bernhardangerer.speedtestclient.event.PhaseStartedEvent;
+import at.bernhardangerer.speedtestclient.event.ServerChosenEvent;
+import at.bernhardangerer.speedtestclient.event.SpeedtestEvent;
+import at.bernhardangerer.speedtestclient.event.ThroughputSampleEvent;
 import at.bernhardangerer.speedtestclient.exception.SpeedtestException;
+import at.bernhardangerer.speedtestclient.metrics.SpeedtestMetrics;
 import at.bernhardangerer.speedtestclient.model.ConfigSetting;
 import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.ResponsivenessResult;
 import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
-import at.bernhardangerer.speedtestclient.service.ConfigSettingsService;
 import at.bernhardangerer.speedtestclient.service.DownloadService;
-import at.bernhardangerer.speedtestclient.service.LatencyService;
-import at.bernhardangerer.speedtestclient.service.ServerSettingsService;
+import at.bernhardangerer.speedtestclient.service.LoadedLatencyMonitor;
 import at.bernhardangerer.speedtestclient.service.ShareUrlService;
+import at.bernhardangerer.speedtestclient.service.StartupPipeline;
+import at.bernhardangerer.speedtestclient.service.TransferExecutors;
 import at.bernhardangerer.speedtestclient.service.UploadService;
 import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import at.bernhardangerer.speedtestclient.util.ThroughputListener;
 import at.bernhardangerer.speedtestclient.util.Util;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public final class SpeedtestController {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
 
     private SpeedtestController() {
     }
 
     public static SpeedtestResult runSpeedTest() throws SpeedtestException {
-        return runSpeedTest(DistanceUnit.fromAbbreviation(Util.getConfigProperty("DistanceUnit.default")),
-                true, true, false, false, null);
+        return runSpeedTest(SpeedtestConfig.getDefault(), true, true, false, false, null);
+    }
+
+    public static SpeedtestResult runSpeedTest(final SpeedtestConfig config, final boolean testDownload, final boolean testUpload,
+                                               final boolean generateShareUrl, final Server dedicatedServer) throws SpeedtestException {
+        return runSpeedTest(config, testDownload, testUpload, generateShareUrl, false, dedicatedServer);
     }
 
     public static SpeedtestResult runSpeedTest(final DistanceUnit distanceUnit, final boolean testDownload, final boolean testUpload,
@@ -40,40 +57,76 @@ public final class SpeedtestController {
         return runSpeedTest(distanceUnit, testDownload, testUpload, generateShareUrl, false, dedicatedServer);
     }
 
-    @SuppressWarnings("checkstyle:MagicNumber")
     static SpeedtestResult runSpeedTest(final DistanceUnit distanceUnit, final boolean testDownload, final boolean testUpload,
                                         final boolean generateShareUrl, final boolean consoleOutput, final Server dedicatedServer)
             throws SpeedtestException {
         if (distanceUnit != null) {
-            try {
-                final LocalDateTime startTime = LocalDateTime.now();
-                if (consoleOutput) {
-                    System.out.println("Retrieving speedtest.net configuration...");
+            return runSpeedTest(SpeedtestConfig.getDefault().toBuilder().distanceUnit(distanceUnit).build(),
+                    testDownload, testUpload, generateShareUrl, consoleOutput, dedicatedServer);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static SpeedtestResult runSpeedTest(final SpeedtestConfig config, final boolean testDownload, final boolean testUpload,
+                                        final boolean generateShareUrl, final boolean consoleOutput, final Server dedicatedServer)
+            throws SpeedtestException {
+        return runSpeedTest(config, testDownload, testUpload, generateShareUrl, consoleOutput, dedicatedServer, event -> {
+        });
+    }
+
+    // every progress event of the run is handed to the listener on the thread that produced it
+    static SpeedtestResult runSpeedTest(final SpeedtestConfig config, final boolean testDownload, final boolean testUpload,
+                                        final boolean generateShareUrl, final boolean consoleOutput, final Server dedicatedServer,
+                                        final Consumer<SpeedtestEvent> listener)
+            throws SpeedtestException {
+        if (config != null && config.getDistanceUnit() != null && listener != null) {
+            // configuration, server list and latency probing run as one dependency graph in the background
+            listener.accept(new PhaseStartedEvent(SpeedtestPhase.SERVER_SELECTION));
+            final StartupPipeline startup = StartupPipeline.start(config, dedicatedServer, (server, roundTrip) ->
+                    listener.accept(new LatencySampleEvent(SpeedtestPhase.SERVER_SELECTION, server, roundTrip / NANOS_PER_MILLI)));
+            if (consoleOutput) {
+                System.out.println("Retrieving speedtest.net configuration...");
+                if (dedicatedServer == null) {
+                    System.out.println("Retrieving speedtest.net server list...");
                 }
-                final ConfigSetting configSetting = ConfigSettingsService.requestSetting();
+            }
+            return runSpeedTest(startup, config, testDownload, testUpload, generateShareUrl, consoleOutput, listener);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // runs the transfers against the server of an already started startup
+    @SuppressWarnings("checkstyle:MagicNumber")
+    static SpeedtestResult runSpeedTest(final StartupPipeline startup, final SpeedtestConfig config, final boolean testDownload,
+                                        final boolean testUpload, final boolean generateShareUrl, final boolean consoleOutput,
+                                        final Consumer<SpeedtestEvent> listener)
+            throws SpeedtestException {
+        if (startup != null && config != null && config.getDistanceUnit() != null && listener != null) {
+            final DistanceUnit distanceUnit = config.getDistanceUnit();
+            final SpeedtestMetrics metrics = SpeedtestMetrics.shared();
+            // the phase that is running and the server it runs against, for the failure metrics
+            final AtomicReference<SpeedtestPhase> transferPhase = new AtomicReference<>();
+            Server server = null;
+            try {
+                // the run starts with its startup, which a daemon checks or selects before calling this method
+                final long startNanos = startup.getStartNanos();
+                final LocalDateTime startTime = LocalDateTime.now().minusNanos(System.nanoTime() - startNanos);
+                final ConfigSetting configSetting = StartupPipeline.await(startup.getConfigSetting());
                 if (consoleOutput) {
                     System.out.printf("Testing from %s (%s, %s)...\n", configSetting.getClient().getIsp(),
                             configSetting.getClient().getIpAddress(), configSetting.getClient().getIsoAlpha2CountryCode());
                 }
 
-                final List<Server> serverList;
-                if (dedicatedServer == null) {
-                    if (consoleOutput) {
-                        System.out.println("Retrieving speedtest.net server list...");
-                    }
-                    serverList = ServerSettingsService.requestServerList(configSetting.getDownload().getThreadsPerUrl());
-                } else {
-                    serverList = List.of(dedicatedServer);
-                }
-                final Map<Double, Server> closestServers = ServerSettingsService.findClosestServers(configSetting.getClient().getLat(),
-                        configSetting.getClient().getLon(),
-                        Integer.parseInt(Objects.requireNonNull(Util.getConfigProperty("ClosestServers.maxNumber"))),
-                        distanceUnit, serverList);
-
-                if (consoleOutput && dedicatedServer == null) {
+                if (consoleOutput && startup.isSelectingServer()) {
                     System.out.println("Selecting best server based on ping...");
                 }
-                final Map.Entry<Server, LatencyTestResult> fastestServer = LatencyService.getFastestServer(closestServers);
+                final Map.Entry<Server, LatencyTestResult> fastestServer = StartupPipeline.await(startup.getFastestServer());
+                server = fastestServer.getKey();
+                metrics.recordPhaseDuration(SpeedtestPhase.SERVER_SELECTION, System.nanoTime() - startNanos);
+                listener.accept(new ServerChosenEvent(fastestServer.getKey(), fastestServer.getValue()));
+                listener.accept(new PhaseFinishedEvent(SpeedtestPhase.SERVER_SELECTION, null));
                 if (consoleOutput) {
                     System.out.printf("Hosted by %s (%s, %s) [%,.2f %s]: %,.2f ms\n",
                             fastestServer.getKey().getSponsor(), fastestServer.getKey().getCity(),
@@ -81,31 +134,77 @@ public final class SpeedtestController {
                             distanceUnit.getAbbreviation(), fastestServer.getValue().getLatency());
                 }
 
+                final LoadedLatencyMonitor loadedLatencyMonitor = config.isLoadedLatencyEnabled() && (testDownload || testUpload)
+                        ? LoadedLatencyMonitor.start(fastestServer.getKey().getUrl(), config.getLoadedLatencyIntervalInMs(),
+                                roundTrip -> listener.accept(new LatencySampleEvent(transferPhase.get(), fastestServer.getKey(),
+                                        roundTrip / NANOS_PER_MILLI))) : null;
+                ResponsivenessResult responsiveness = null;
+                if (loadedLatencyMonitor != null) {
+                    responsiveness = new ResponsivenessResult();
+                    responsiveness.setIdleLatencyInMs(fastestServer.getValue().getLatency());
+                }
+
                 TransferTestResult downloadResult = null;
-                if (testDownload) {
-                    if (consoleOutput) {
-                        System.out.print("Testing download speed");
+                TransferTestResult uploadResult = null;
+                final long transferStartNanos = System.nanoTime();
+                try {
+                    if (testDownload) {
+                        if (consoleOutput) {
+                            System.out.print("Testing download speed");
+                        }
+                        transferPhase.set(SpeedtestPhase.DOWNLOAD);
+                        listener.accept(new PhaseStartedEvent(SpeedtestPhase.DOWNLOAD));
+                        final long downloadStartNanos = System.nanoTime();
+                        if (loadedLatencyMonitor != null) {
+                            loadedLatencyMonitor.beginPhase();
+                        }
+                        downloadResult = DownloadService.testDownload(fastestServer.getKey().getUrl(),
+                                configSetting.getDownload(), config, TransferExecutors.shared(), consoleOutput ? Util::printDot : () -> {
+                                }, throughputListener(SpeedtestPhase.DOWNLOAD, listener));
+                        metrics.recordPhaseDuration(SpeedtestPhase.DOWNLOAD, System.nanoTime() - downloadStartNanos);
+                        if (loadedLatencyMonitor != null) {
+                            responsiveness.setDownload(loadedLatencyMonitor.endPhase());
+                        }
+                        listener.accept(new PhaseFinishedEvent(SpeedtestPhase.DOWNLOAD, downloadResult));
+                        if (consoleOutput) {
+                            System.out.printf("\nDownload: %,.2f Mbits/s\n", downloadResult.getRateInMbps());
+                        }
                     }
-                    downloadResult = DownloadService.testDownload(fastestServer.getKey().getUrl(),
-                            configSetting.getDownload(), consoleOutput ? Util::printDot : () -> {
-                            });
-                    if (consoleOutput) {
-                        System.out.printf("\nDownload: %,.2f Mbits/s\n", downloadResult.getRateInMbps());
+
+                    if (testUpload) {
+                        if (consoleOutput) {
+                            System.out.print("Testing upload speed");
+                        }
+                        transferPhase.set(SpeedtestPhase.UPLOAD);
+                        listener.accept(new PhaseStartedEvent(SpeedtestPhase.UPLOAD));
+                        final long uploadStartNanos = System.nanoTime();
+                        if (loadedLatencyMonitor != null) {
+                            loadedLatencyMonitor.beginPhase();
+                        }
+                        uploadResult = UploadService.testUpload(fastestServer.getKey().getUrl(),
+                                configSetting.getUpload(), (downloadResult != null && downloadResult.getRateInMbps() > 0.1)
+                                        ? 8 : configSetting.getUpload().getThreads(), config, TransferExecutors.shared(),
+                                consoleOutput ? Util::printDot : () -> {
+                                }, throughputListener(SpeedtestPhase.UPLOAD, listener));
+                        metrics.recordPhaseDuration(SpeedtestPhase.UPLOAD, System.nanoTime() - uploadStartNanos);
+                        if (loadedLatencyMonitor != null) {
+                            responsiveness.setUpload(loadedLatencyMonitor.endPhase());
+                        }
+                        listener.accept(new PhaseFinishedEvent(SpeedtestPhase.UPLOAD, uploadResult));
+                        if (consoleOutput) {
+                            System.out.printf("\nUpload: %,.2f Mbits/s\n", uploadResult.getRateInMbps());
+                        }
+                    }
+                } finally {
+                    if (loadedLatencyMonitor != null) {
+                        loadedLatencyMonitor.close();
                     }
                 }
 
-                TransferTestResult uploadResult = null;
-                if (testUpload) {
-                    if (consoleOutput) {
-                        System.out.print("Testing upload speed");
-                    }
-                    uploadResult = UploadService.testUpload(fastestServer.getKey().getUrl(),
-                            configSetting.getUpload(), (downloadResult != null && downloadResult.getRateInMbps() > 0.1)
-                                    ? 8 : configSetting.getUpload().getThreads(),
-                            consoleOutput ? Util::printDot : () -> {
-                            });
-                    if (consoleOutput) {
-                        System.out.printf("\nUpload: %,.2f Mbits/s\n", uploadResult.getRateInMbps());
+                if (loadedLatencyMonitor != null) {
+                    loadedLatencyMonitor.applyTo(responsiveness);
+                    if (consoleOutput && responsiveness.getRpm() != null) {
+                        System.out.printf("Responsiveness: %,.0f RPM\n", responsiveness.getRpm());
                     }
                 }
 
@@ -118,9 +217,17 @@ public final class SpeedtestController {
                     }
                 }
 
-                return new SpeedtestResult(startTime, LocalDateTime.now(), configSetting.getClient(), fastestServer.getKey(),
-                        fastestServer.getValue(), downloadResult, uploadResult, shareUrl);
+                final TransferTestResult firstTransfer = downloadResult != null ? downloadResult : uploadResult;
+                final Long timeToFirstByte = firstTransfer != null && firstTransfer.getTimeToFirstByteInMs() != null
+                        ? TimeUnit.NANOSECONDS.toMillis(transferStartNanos - startNanos) + firstTransfer.getTimeToFirstByteInMs() : null;
+
+                final SpeedtestResult result = new SpeedtestResult(startTime, LocalDateTime.now(), configSetting.getClient(),
+                        fastestServer.getKey(), fastestServer.getValue(), downloadResult, uploadResult, responsiveness, timeToFirstByte,
+                        shareUrl);
+                metrics.recordSuccess(result);
+                return result;
             } catch (Exception e) {
+                metrics.recordFailure(transferPhase.get() != null ? transferPhase.get() : SpeedtestPhase.SERVER_SELECTION, server);
                 if (consoleOutput) {
                     System.err.println("Something went wrong");
                 }
@@ -131,4 +238,8 @@ public final class SpeedtestController {
         }
     }
 
+    private static ThroughputListener throughputListener(final SpeedtestPhase phase, final Consumer<SpeedtestEvent> listener) {
+        return (bytes, intervalInMs, rateInMbps) -> listener.accept(new ThroughputSampleEvent(phase, bytes, intervalInMs, rateInMbps));
+    }
+
 }
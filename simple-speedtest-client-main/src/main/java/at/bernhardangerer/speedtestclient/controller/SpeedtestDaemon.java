@@ -0,0 +1,176 @@
+package at.bernhardangerer.speedtestclient.controller;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.metrics.SpeedtestMetrics;
+import at.bernhardangerer.speedtestclient.model.ConfigSetting;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.service.LatencyService;
+import at.bernhardangerer.speedtestclient.service.StartupPipeline;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// keeps config, candidates and chosen server between runs; reselects on latency drift, starts over after a failure
+public final class SpeedtestDaemon implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SpeedtestDaemon.class);
+    // long enough for a running test to finish and be reported before the JVM exits
+    private static final long SHUTDOWN_GRACE_IN_SECONDS = 30;
+    private static final double PERCENT = 100d;
+    private final SpeedtestConfig config;
+    private final boolean testDownload;
+    private final boolean testUpload;
+    private final boolean generateShareUrl;
+    private final boolean consoleOutput;
+    private final Server dedicatedServer;
+    private final Consumer<SpeedtestResult> sink;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicReference<Thread> runner = new AtomicReference<>();
+    // only touched by the running thread
+    private ConfigSetting configSetting;
+    private Map<Server, Double> closestServers;
+    private Map.Entry<Server, LatencyTestResult> chosenServer;
+
+    public SpeedtestDaemon(final SpeedtestConfig config, final boolean testDownload, final boolean testUpload,
+                           final boolean generateShareUrl, final boolean consoleOutput, final Server dedicatedServer,
+                           final Consumer<SpeedtestResult> sink) {
+        if (config != null && config.getDistanceUnit() != null && config.getDaemonIntervalInSeconds() > 0 && sink != null) {
+            this.config = config;
+            this.testDownload = testDownload;
+            this.testUpload = testUpload;
+            this.generateShareUrl = generateShareUrl;
+            this.consoleOutput = consoleOutput;
+            this.dedicatedServer = dedicatedServer;
+            this.sink = sink;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // runs speedtests on the calling thread until the daemon is closed
+    public void run() {
+        if (!runner.compareAndSet(null, Thread.currentThread())) {
+            throw new IllegalStateException("Speedtest daemon is already running");
+        }
+        try {
+            while (stopped.getCount() > 0) {
+                final long startNanos = System.nanoTime();
+                runOnce();
+                final long elapsedInMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                final long delayInMs = delayInMs(TimeUnit.SECONDS.toMillis(config.getDaemonIntervalInSeconds()),
+                        TimeUnit.SECONDS.toMillis(config.getDaemonJitterInSeconds()), elapsedInMs,
+                        ThreadLocalRandom.current().nextDouble());
+                if (stopped.await(delayInMs, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    // stops scheduling and gives a running test the grace period to finish, e.g. from a shutdown hook on SIGTERM
+    @Override
+    public void close() {
+        stopped.countDown();
+        final Thread thread = runner.get();
+        if (thread == null || thread == Thread.currentThread()) {
+            return;
+        }
+        try {
+            if (!finished.await(SHUTDOWN_GRACE_IN_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Speedtest still running after {} s, interrupting it", SHUTDOWN_GRACE_IN_SECONDS);
+                thread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // one run with the state kept from the previous ones; failures are logged and the state is dropped except for the last
+    // configuration, whose client position lets the next startup parse only the closest servers
+    SpeedtestResult runOnce() {
+        final long startNanos = System.nanoTime();
+        try {
+            final SpeedtestResult result = SpeedtestController.runSpeedTest(startup(startNanos), config, testDownload, testUpload,
+                    generateShareUrl, consoleOutput, event -> {
+                    });
+            sink.accept(result);
+            return result;
+        } catch (Exception e) {
+            logger.error("Speedtest failed, starting the next one from scratch: {}", e.getMessage(), e);
+            closestServers = null;
+            chosenServer = null;
+            return null;
+        }
+    }
+
+    // the delay until the next run starts, measured from the start of the previous one
+    static long delayInMs(final long intervalInMs, final long jitterInMs, final long elapsedInMs, final double random) {
+        return Math.max(0, intervalInMs + (long) (jitterInMs * random) - elapsedInMs);
+    }
+
+    // the controller only records failures once the startup is handed over, so those of the startup are recorded here
+    private StartupPipeline startup(final long startNanos) throws Exception {
+        try {
+            return selectServer(startNanos);
+        } catch (Exception e) {
+            SpeedtestMetrics.shared().recordFailure(SpeedtestPhase.SERVER_SELECTION, chosenServer != null ? chosenServer.getKey() : null);
+            throw e;
+        }
+    }
+
+    private StartupPipeline selectServer(final long startNanos) throws Exception {
+        if (chosenServer == null) {
+            final StartupPipeline startup = StartupPipeline.start(config, dedicatedServer, configSetting, LatencyListener.NONE);
+            configSetting = StartupPipeline.await(startup.getConfigSetting());
+            closestServers = StartupPipeline.await(startup.getClosestServers());
+            chosenServer = StartupPipeline.await(startup.getFastestServer());
+            return startup;
+        }
+        final Server server = chosenServer.getKey();
+        final LatencyTestResult latency = probe(server);
+        if (latency != null && !hasDrifted(latency)) {
+            return StartupPipeline.completed(configSetting, Map.entry(server, latency), startNanos);
+        }
+        if (closestServers.size() > 1) {
+            logger.info("Latency of {} drifted from {} ms, selecting the server again", server.getHost(),
+                    chosenServer.getValue().getLatency());
+            chosenServer = LatencyService.getFastestServer(closestServers, config);
+        } else if (latency != null) {
+            // nothing to choose from, the drifted latency becomes the new reference
+            chosenServer = Map.entry(server, latency);
+        } else {
+            throw new MissingResultException("No valid latency response from " + server.getHost());
+        }
+        return StartupPipeline.completed(configSetting, chosenServer, startNanos);
+    }
+
+    private LatencyTestResult probe(final Server server) {
+        try {
+            return LatencyService.probeLatency(server.getUrl(), config.getLatencyTestsPerServer(), chosenServer.getValue().getDistance());
+        } catch (ServerRequestException | MissingResultException e) {
+            logger.warn("Probing {} failed: {}", server.getHost(), e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean hasDrifted(final LatencyTestResult latency) {
+        return latency.getLatency() > chosenServer.getValue().getLatency() * (1 + config.getDaemonLatencyDriftPercent() / PERCENT);
+    }
+
+}
@@ -0,0 +1,20 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import lombok.Value;
+
+// idle round trips to the candidates while selecting the server, loaded round trips to the chosen one while transferring
+@Value
+public final class LatencySampleEvent implements SpeedtestEvent {
+
+    private final SpeedtestPhase phase;
+    private final Server server;
+    private final double roundTripInMs;
+
+    @Override
+    public boolean isSample() {
+        return true;
+    }
+
+}
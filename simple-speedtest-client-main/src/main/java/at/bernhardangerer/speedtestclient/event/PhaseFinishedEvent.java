@@ -0,0 +1,14 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import lombok.Value;
+
+// the transfer result is only set for the download and upload phases
+@Value
+public final class PhaseFinishedEvent implements SpeedtestEvent {
+
+    private final SpeedtestPhase phase;
+    private final TransferTestResult result;
+
+}
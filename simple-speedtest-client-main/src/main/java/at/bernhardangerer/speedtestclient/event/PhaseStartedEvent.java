@@ -0,0 +1,11 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import lombok.Value;
+
+@Value
+public final class PhaseStartedEvent implements SpeedtestEvent {
+
+    private final SpeedtestPhase phase;
+
+}
@@ -0,0 +1,19 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import lombok.Value;
+
+@Value
+public final class ServerChosenEvent implements SpeedtestEvent {
+
+    private final Server server;
+    private final LatencyTestResult latency;
+
+    @Override
+    public SpeedtestPhase getPhase() {
+        return SpeedtestPhase.SERVER_SELECTION;
+    }
+
+}
@@ -0,0 +1,14 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+
+// samples may be dropped for a slow subscriber, all other events are always delivered
+public interface SpeedtestEvent {
+
+    SpeedtestPhase getPhase();
+
+    default boolean isSample() {
+        return false;
+    }
+
+}
@@ -0,0 +1,210 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// never blocks the publisher: a full subscriber queue drops its oldest sample, lifecycle events are always queued
+public final class SpeedtestEventPublisher implements Flow.Publisher<SpeedtestEvent>, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SpeedtestEventPublisher.class);
+    private final Executor executor;
+    private final int capacity;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public SpeedtestEventPublisher(final Executor executor) {
+        this(executor, Flow.defaultBufferSize());
+    }
+
+    public SpeedtestEventPublisher(final Executor executor, final int capacity) {
+        if (executor != null && capacity > 0) {
+            this.executor = executor;
+            this.capacity = capacity;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super SpeedtestEvent> subscriber) {
+        if (subscriber != null) {
+            final EventSubscription subscription = new EventSubscription(subscriber);
+            subscriptions.add(subscription);
+            // a subscriber arriving after close still sees onSubscribe followed by onComplete
+            if (closed.get()) {
+                subscription.complete();
+            }
+            subscription.schedule();
+        } else {
+            throw new NullPointerException("subscriber");
+        }
+    }
+
+    public void publish(final SpeedtestEvent event) {
+        if (event != null) {
+            if (!closed.get()) {
+                for (final EventSubscription subscription : subscriptions) {
+                    subscription.offer(event);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    // completes every subscriber once its queue is drained, later events are ignored
+    @Override
+    public void close() {
+        closed.set(true);
+        for (final EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    private final class EventSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super SpeedtestEvent> subscriber;
+        private final Deque<SpeedtestEvent> queue = new ArrayDeque<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private long demand;
+        private long droppedSamples;
+        private boolean completed;
+        private boolean cancelled;
+        private Throwable failure;
+        // only touched by the draining thread
+        private boolean subscribed;
+
+        EventSubscription(final Flow.Subscriber<? super SpeedtestEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long count) {
+            synchronized (this) {
+                if (count <= 0) {
+                    failure = new IllegalArgumentException("Non-positive request: " + count);
+                } else {
+                    demand = demand + count < 0 ? Long.MAX_VALUE : demand + count;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                queue.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        void offer(final SpeedtestEvent event) {
+            synchronized (this) {
+                if (cancelled || completed) {
+                    return;
+                }
+                if (queue.size() >= capacity && !removeOldestSample() && event.isSample()) {
+                    droppedSamples++;
+                    return;
+                }
+                queue.add(event);
+            }
+            schedule();
+        }
+
+        void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        private boolean removeOldestSample() {
+            final Iterator<SpeedtestEvent> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isSample()) {
+                    iterator.remove();
+                    droppedSamples++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void drain() {
+            if (!subscribed) {
+                subscribed = true;
+                subscriber.onSubscribe(this);
+            }
+            while (true) {
+                final SpeedtestEvent next;
+                final Throwable error;
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    error = failure;
+                    next = error == null && demand > 0 ? queue.poll() : null;
+                    if (next != null) {
+                        demand--;
+                    } else if (error == null && !(completed && queue.isEmpty())) {
+                        return;
+                    }
+                }
+                if (next != null) {
+                    deliver(next);
+                } else {
+                    cancel();
+                    if (error != null) {
+                        subscriber.onError(error);
+                    } else {
+                        if (droppedSamples > 0) {
+                            logger.debug("Dropped {} stale samples for a slow subscriber", droppedSamples);
+                        }
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void deliver(final SpeedtestEvent event) {
+            try {
+                subscriber.onNext(event);
+            } catch (RuntimeException e) {
+                // a failing subscriber is dropped instead of failing the speedtest
+                logger.error(e.getMessage(), e);
+                cancel();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import lombok.Value;
+
+@Value
+public final class ThroughputSampleEvent implements SpeedtestEvent {
+
+    private final SpeedtestPhase phase;
+    private final long bytes;
+    private final long intervalInMs;
+    private final double rateInMbps;
+
+    @Override
+    public boolean isSample() {
+        return true;
+    }
+
+}
@@ -0,0 +1,11 @@
+package at.bernhardangerer.speedtestclient.exception;
+
+public final class ConfigurationException extends Exception {
+    public ConfigurationException(final String message) {
+        super(message);
+    }
+
+    public ConfigurationException(final String message, final Exception exception) {
+        super(message, exception);
+    }
+}
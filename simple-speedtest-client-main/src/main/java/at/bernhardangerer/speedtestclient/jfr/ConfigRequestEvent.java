@@ -0,0 +1,35 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(FlightRecording.PREFIX + "ConfigRequest")
+@Label("Config Request")
+@Category({FlightRecording.CATEGORY, "Settings"})
+@Description("Client configuration requested from speedtest.net")
+public final class ConfigRequestEvent extends Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Cache Enabled")
+    private boolean cacheEnabled;
+
+    public void complete(final String requestUrl, final long receivedBytes, final boolean cache) {
+        if (shouldCommit()) {
+            url = requestUrl;
+            bytes = receivedBytes;
+            cacheEnabled = cache;
+            commit();
+        }
+    }
+
+}
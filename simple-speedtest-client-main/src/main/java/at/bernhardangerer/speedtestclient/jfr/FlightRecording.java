@@ -0,0 +1,62 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+// the speedtest events are enabled without a threshold and cost next to nothing while no recording runs
+public final class FlightRecording implements AutoCloseable {
+    static final String PREFIX = "at.bernhardangerer.speedtestclient.";
+    static final String CATEGORY = "Speedtest Client";
+    static final List<Class<? extends Event>> EVENTS = List.of(HttpRequestEvent.class, LatencyTestEvent.class,
+            ServerListRequestEvent.class, ConfigRequestEvent.class, TransferTaskEvent.class);
+    private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+    private final Recording recording;
+    private final Path file;
+
+    private FlightRecording(final Recording recording, final Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    public static FlightRecording start(final Path file) throws IOException {
+        if (file != null) {
+            final Recording recording = new Recording(defaultConfiguration());
+            recording.setName("simple-speedtest-client");
+            for (final Class<? extends Event> event : EVENTS) {
+                recording.enable(event).withoutThreshold();
+            }
+            recording.setDestination(file);
+            // the daemon is stopped by a shutdown hook, which may not leave time to close the recording
+            recording.setDumpOnExit(true);
+            recording.start();
+            return new FlightRecording(recording, file);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void close() {
+        // stopping writes the recording to its destination
+        recording.stop();
+        recording.close();
+        logger.info("Flight recording written to {}", file);
+    }
+
+    private static Configuration defaultConfiguration() throws IOException {
+        try {
+            return Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(FlightRecording.PREFIX + "HttpRequest")
+@Label("HTTP Request")
+@Category({FlightRecording.CATEGORY, "HTTP"})
+@Description("Request of the speedtest HTTP clients")
+public final class HttpRequestEvent extends Event {
+
+    @Label("Method")
+    private String method;
+
+    @Label("URL")
+    private String url;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    // the fields are only filled in while a recording has the event enabled
+    public void complete(final String requestMethod, final String requestUrl, final long transferredBytes, final boolean success) {
+        if (shouldCommit()) {
+            method = requestMethod;
+            url = requestUrl;
+            bytes = transferredBytes;
+            succeeded = success;
+            commit();
+        }
+    }
+
+}
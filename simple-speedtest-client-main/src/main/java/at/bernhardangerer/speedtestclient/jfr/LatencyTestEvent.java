@@ -0,0 +1,33 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(FlightRecording.PREFIX + "LatencyTest")
+@Label("Latency Test")
+@Category({FlightRecording.CATEGORY, "Latency"})
+@Description("Latency probes against a server")
+public final class LatencyTestEvent extends Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Samples")
+    private long samples;
+
+    @Label("Losses")
+    private long losses;
+
+    public void complete(final String serverUrl, final long validSamples, final long lostProbes) {
+        if (shouldCommit()) {
+            url = serverUrl;
+            samples = validSamples;
+            losses = lostProbes;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// requests of the single endpoints show up as HttpRequestEvents unless served from the cache
+@Name(FlightRecording.PREFIX + "ServerListRequest")
+@Label("Server List Request")
+@Category({FlightRecording.CATEGORY, "Settings"})
+@Description("Server lists fetched from all endpoints and merged")
+public final class ServerListRequestEvent extends Event {
+
+    @Label("Endpoints")
+    private int endpoints;
+
+    @Label("Servers")
+    private int servers;
+
+    public void complete(final int requestedEndpoints, final int mergedServers) {
+        if (shouldCommit()) {
+            endpoints = requestedEndpoints;
+            servers = mergedServers;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// streams still waiting to start when the phase ended are not recorded
+@Name(FlightRecording.PREFIX + "TransferTask")
+@Label("Transfer Task")
+@Category({FlightRecording.CATEGORY, "Transfer"})
+@Description("Download or upload stream of a transfer phase")
+public final class TransferTaskEvent extends Event {
+    public static final String DOWNLOAD = "download";
+    public static final String UPLOAD = "upload";
+
+    @Label("Direction")
+    private String direction;
+
+    @Label("URL")
+    private String url;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    public void complete(final String transferDirection, final String transferUrl, final long transferredBytes, final boolean success) {
+        if (shouldCommit()) {
+            direction = transferDirection;
+            url = transferUrl;
+            bytes = transferredBytes;
+            succeeded = success;
+            commit();
+        }
+    }
+
+}
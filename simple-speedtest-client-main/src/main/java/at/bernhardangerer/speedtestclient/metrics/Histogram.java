@@ -0,0 +1,49 @@
+package at.bernhardangerer.speedtestclient.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// buckets are LongAdders, cumulative counts are only summed up when written
+final class Histogram {
+    private final double[] upperBounds;
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(final double... upperBounds) {
+        if (upperBounds != null && upperBounds.length > 0) {
+            this.upperBounds = upperBounds.clone();
+            // the last bucket is +Inf
+            this.buckets = new LongAdder[upperBounds.length + 1];
+            for (int index = 0; index < buckets.length; index++) {
+                buckets[index] = new LongAdder();
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    void observe(final double value) {
+        int index = 0;
+        while (index < upperBounds.length && value > upperBounds[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        sum.add(value);
+    }
+
+    // the _bucket, _sum and _count samples; labels are rendered without braces and may be empty
+    void write(final StringBuilder out, final String name, final String labels) {
+        final String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int index = 0; index < buckets.length; index++) {
+            cumulative += buckets[index].sum();
+            final String bound = index < upperBounds.length ? SpeedtestMetrics.format(upperBounds[index]) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(separator).append("le=\"").append(bound).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        final String braces = SpeedtestMetrics.braces(labels);
+        out.append(name).append("_sum").append(braces).append(' ').append(SpeedtestMetrics.format(sum.sum())).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+
+}
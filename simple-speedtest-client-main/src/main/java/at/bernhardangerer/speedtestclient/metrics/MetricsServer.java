@@ -0,0 +1,81 @@
+package at.bernhardangerer.speedtestclient.metrics;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+// scrapers accepting application/openmetrics-text get OpenMetrics, all others the Prometheus text format
+public final class MetricsServer implements AutoCloseable {
+    static final String PATH = "/metrics";
+    static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    static final String OPEN_METRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private static final Logger logger = LogManager.getLogger(MetricsServer.class);
+    private static final String OPEN_METRICS = "application/openmetrics-text";
+    private static final String HEAD = "HEAD";
+    private final HttpServer server;
+
+    private MetricsServer(final HttpServer server) {
+        this.server = server;
+    }
+
+    public static MetricsServer start(final SpeedtestConfig config) throws IOException {
+        if (config != null) {
+            return start(new InetSocketAddress(config.getMetricsBindAddress(), config.getMetricsPort()), SpeedtestMetrics.shared());
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static MetricsServer start(final InetSocketAddress address, final SpeedtestMetrics metrics) throws IOException {
+        if (address != null && metrics != null) {
+            final HttpServer server = HttpServer.create(address, 0);
+            server.createContext(PATH, exchange -> handle(exchange, metrics));
+            server.start();
+            logger.info("Serving metrics at http://{}:{}{}", address.getHostString(), server.getAddress().getPort(), PATH);
+            return new MetricsServer(server);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void handle(final HttpExchange exchange, final SpeedtestMetrics metrics) throws IOException {
+        try (exchange) {
+            final String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !HEAD.equals(method)) {
+                exchange.getResponseHeaders().add("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                return;
+            }
+            final String accept = exchange.getRequestHeaders().getFirst("Accept");
+            final boolean openMetrics = accept != null && accept.contains(OPEN_METRICS);
+            final byte[] body = metrics.write(openMetrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", openMetrics ? OPEN_METRICS_CONTENT_TYPE : TEXT_CONTENT_TYPE);
+            if (HEAD.equals(method)) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package at.bernhardangerer.speedtestclient.metrics;
+
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// lock-free: last-run gauges are rendered once and swapped in, counters and histograms are LongAdders
+public final class SpeedtestMetrics {
+    private static final SpeedtestMetrics SHARED = new SpeedtestMetrics();
+    private static final double[] PHASE_BUCKETS_IN_SECONDS = {0.5, 1, 2.5, 5, 10, 15, 20, 30, 60};
+    private static final double[] ROUND_TRIP_BUCKETS_IN_SECONDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1};
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final double MILLIS_PER_SECOND = 1000d;
+    private static final String COUNTER = "counter";
+    private static final String GAUGE = "gauge";
+    private static final String SERVER = "server";
+    private static final String PHASE = "phase";
+    private static final String OUTCOME = "outcome";
+    private static final String TOTAL = "_total";
+    private final AtomicReference<String> lastRun = new AtomicReference<>("");
+    private final Map<String, LongAdder> runs = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> lostProbes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> transferStreams = new ConcurrentHashMap<>();
+    private final LongAdder transferredBytes = new LongAdder();
+    private final Map<String, Histogram> phaseDurations = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> roundTrips = new ConcurrentHashMap<>();
+
+    SpeedtestMetrics() {
+    }
+
+    public static SpeedtestMetrics shared() {
+        return SHARED;
+    }
+
+    public void recordPhaseDuration(final SpeedtestPhase phase, final long durationInNanos) {
+        if (phase != null) {
+            phaseDurations.computeIfAbsent(labels(PHASE, phaseName(phase)), key -> new Histogram(PHASE_BUCKETS_IN_SECONDS))
+                    .observe(durationInNanos / NANOS_PER_SECOND);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // replaces the gauges of the previous run
+    public void recordSuccess(final SpeedtestResult result) {
+        if (result != null) {
+            increment(runs, labels(OUTCOME, "success"));
+            lastRun.set(renderLastRun(result));
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // the phase that failed and the server it ran against, if one had been chosen
+    public void recordFailure(final SpeedtestPhase phase, final Server server) {
+        if (phase != null) {
+            increment(runs, labels(OUTCOME, "failure"));
+            increment(failures, labels(PHASE, phaseName(phase), SERVER, server != null ? server.getHost() : ""));
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public void recordRoundTrip(final String server, final long roundTripInNanos) {
+        roundTrips.computeIfAbsent(labels(SERVER, server), key -> new Histogram(ROUND_TRIP_BUCKETS_IN_SECONDS))
+                .observe(roundTripInNanos / NANOS_PER_SECOND);
+    }
+
+    public void recordLostProbe(final String server) {
+        increment(lostProbes, labels(SERVER, server));
+    }
+
+    // skipped streams were still waiting to start when the phase ended
+    public void recordTransfer(final long bytes, final int completedStreams, final int skippedStreams) {
+        transferredBytes.add(bytes);
+        transferStreams.computeIfAbsent(labels(OUTCOME, "completed"), key -> new LongAdder()).add(completedStreams);
+        transferStreams.computeIfAbsent(labels(OUTCOME, "skipped"), key -> new LongAdder()).add(skippedStreams);
+    }
+
+    public void recordFailedStream() {
+        increment(transferStreams, labels(OUTCOME, "failed"));
+    }
+
+    // OpenMetrics names the counter family without the _total suffix and ends the exposition with # EOF
+    public String write(final boolean openMetrics) {
+        final StringBuilder out = new StringBuilder(lastRun.get());
+        writeCounters(out, "speedtest_runs", "Completed speedtest runs by outcome.", runs, openMetrics);
+        writeCounters(out, "speedtest_failures", "Failed speedtest runs by phase and server.", failures, openMetrics);
+        writeCounters(out, "speedtest_latency_lost_probes", "Latency probes without a valid response by server.", lostProbes,
+                openMetrics);
+        writeCounters(out, "speedtest_transfer_streams", "Transfer streams by outcome.", transferStreams, openMetrics);
+        writeCounters(out, "speedtest_transferred_bytes", "Bytes transferred by all download and upload streams.",
+                Map.of("", transferredBytes), openMetrics);
+        writeHistograms(out, "speedtest_phase_duration_seconds", "Duration of the speedtest phases.", phaseDurations);
+        writeHistograms(out, "speedtest_latency_round_trip_seconds", "Round trips of the latency probes by server.", roundTrips);
+        if (openMetrics) {
+            out.append("# EOF\n");
+        }
+        return out.toString();
+    }
+
+    static String format(final double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    static String braces(final String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String renderLastRun(final SpeedtestResult result) {
+        final StringBuilder out = new StringBuilder();
+        final String labels = result.getServer() != null ? labels(SERVER, result.getServer().getHost()) : "";
+        final LatencyTestResult latency = result.getLatency();
+        final TransferTestResult download = result.getDownload();
+        final TransferTestResult upload = result.getUpload();
+        if (result.getEndTime() != null) {
+            writeGauge(out, "speedtest_last_run_timestamp_seconds", "End of the last successful run as Unix time.", labels,
+                    result.getEndTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / MILLIS_PER_SECOND);
+        }
+        writeGauge(out, "speedtest_download_mbps", "Download rate of the last run in Mbit/s.", labels,
+                download != null ? download.getRateInMbps() : null);
+        writeGauge(out, "speedtest_download_bytes", "Bytes downloaded in the last run.", labels,
+                download != null && download.getBytes() != null ? download.getBytes().doubleValue() : null);
+        writeGauge(out, "speedtest_upload_mbps", "Upload rate of the last run in Mbit/s.", labels,
+                upload != null ? upload.getRateInMbps() : null);
+        writeGauge(out, "speedtest_upload_bytes", "Bytes uploaded in the last run.", labels,
+                upload != null && upload.getBytes() != null ? upload.getBytes().doubleValue() : null);
+        if (latency != null) {
+            writeGauge(out, "speedtest_latency_ms", "Mean latency of the last run in ms.", labels, latency.getLatency());
+            writeGauge(out, "speedtest_latency_p50_ms", "Median latency of the last run in ms.", labels, latency.getP50InMs());
+            writeGauge(out, "speedtest_latency_p90_ms", "90th percentile latency of the last run in ms.", labels, latency.getP90InMs());
+            writeGauge(out, "speedtest_latency_p99_ms", "99th percentile latency of the last run in ms.", labels, latency.getP99InMs());
+            writeGauge(out, "speedtest_jitter_ms", "Latency jitter of the last run in ms.", labels, latency.getJitterInMs());
+        }
+        return out.toString();
+    }
+
+    // figures the run did not measure are left out
+    private static void writeGauge(final StringBuilder out, final String name, final String help, final String labels,
+                                   final Double value) {
+        if (value != null) {
+            writeHeader(out, name, help, GAUGE);
+            out.append(name).append(braces(labels)).append(' ').append(format(value)).append('\n');
+        }
+    }
+
+    private static void writeCounters(final StringBuilder out, final String name, final String help, final Map<String, LongAdder> counters,
+                                      final boolean openMetrics) {
+        if (!counters.isEmpty()) {
+            writeHeader(out, openMetrics ? name : name + TOTAL, help, COUNTER);
+            new TreeMap<>(counters).forEach((labels, counter) -> out.append(name).append(TOTAL).append(braces(labels)).append(' ')
+                    .append(counter.sum()).append('\n'));
+        }
+    }
+
+    private static void writeHistograms(final StringBuilder out, final String name, final String help,
+                                        final Map<String, Histogram> histograms) {
+        if (!histograms.isEmpty()) {
+            writeHeader(out, name, help, "histogram");
+            new TreeMap<>(histograms).forEach((labels, histogram) -> histogram.write(out, name, labels));
+        }
+    }
+
+    private static void writeHeader(final StringBuilder out, final String name, final String help, final String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void increment(final Map<String, LongAdder> counters, final String labels) {
+        counters.computeIfAbsent(labels, key -> new LongAdder()).increment();
+    }
+
+    private static String phaseName(final SpeedtestPhase phase) {
+        return phase.name().toLowerCase(Locale.ROOT);
+    }
+
+    // name="value" pairs without braces, with backslashes, quotes and line feeds escaped
+    private static String labels(final String... namesAndValues) {
+        final StringBuilder labels = new StringBuilder();
+        for (int index = 0; index + 1 < namesAndValues.length; index += 2) {
+            final String value = namesAndValues[index + 1] != null ? namesAndValues[index + 1] : "";
+            labels.append(index > 0 ? "," : "").append(namesAndValues[index]).append("=\"")
+                    .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return labels.toString();
+    }
+
+}
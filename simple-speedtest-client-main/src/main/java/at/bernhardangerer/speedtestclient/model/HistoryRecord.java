@@ -0,0 +1,28 @@
+package at.bernhardangerer.speedtestclient.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// rates in kbit/s, latencies in µs, byte counts in KiB
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class HistoryRecord {
+
+    private LocalDateTime startTime;
+    private Long durationInMs;
+    private Integer serverId;
+    private Double latencyInMs;
+    private Double latencyP50InMs;
+    private Double latencyP90InMs;
+    private Double latencyP99InMs;
+    private Double latencyJitterInMs;
+    private Double downloadRateInMbps;
+    private Long downloadBytes;
+    private Double uploadRateInMbps;
+    private Long uploadBytes;
+
+}
@@ -0,0 +1,26 @@
+package at.bernhardangerer.speedtestclient.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// averages, minimums and maximums only cover records that measured the figure, null if none did
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class HistoryRollup {
+
+    private LocalDateTime periodStart;
+    private long count;
+    private Double downloadAvgInMbps;
+    private Double downloadMinInMbps;
+    private Double downloadMaxInMbps;
+    private Double uploadAvgInMbps;
+    private Double uploadMinInMbps;
+    private Double uploadMaxInMbps;
+    private Double latencyAvgInMs;
+    private Double latencyMaxInMs;
+
+}
@@ -11,5 +11,19 @@ public final class LatencyTestResult {
 
     private Double latency;
     private Double distance;
+    private Double connectRttInMs;
+    private Double httpRttInMs;
+    private Double minInMs;
+    private Double p50InMs;
+    private Double p90InMs;
+    private Double p99InMs;
+    private Double maxInMs;
+    private Double jitterInMs;
+    private Long lossCount;
+
+    public LatencyTestResult(final Double latency, final Double distance) {
+        this.latency = latency;
+        this.distance = distance;
+    }
 
 }
@@ -0,0 +1,15 @@
+package at.bernhardangerer.speedtestclient.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class RampStep {
+
+    private Integer streams;
+    private Double rateInMbps;
+
+}
@@ -0,0 +1,17 @@
+package at.bernhardangerer.speedtestclient.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class ResponsivenessResult {
+
+    private Double idleLatencyInMs;
+    private LatencyTestResult download;
+    private LatencyTestResult upload;
+    private Double rpm;
+
+}
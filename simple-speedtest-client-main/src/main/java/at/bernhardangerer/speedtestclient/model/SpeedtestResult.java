@@ -20,6 +20,8 @@ public final class SpeedtestResult {
     private LatencyTestResult latency;
     private TransferTestResult download;
     private TransferTestResult upload;
+    private ResponsivenessResult responsiveness;
+    private Long timeToFirstByteInMs;
     private String shareUrl;
 
 }
@@ -1,19 +1,45 @@
 package at.bernhardangerer.speedtestclient.model;
 
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import at.bernhardangerer.speedtestclient.type.TransferStopReason;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public final class TransferTestResult {
 
     private Double rateInMbps;
-    private Integer bytes;
+    private Long bytes;
     private Long durationInMs;
+    private Long sampleIntervalInMs;
+    private List<Double> samplesInMbps;
+    private Double peakRateInMbps;
+    private Double medianRateInMbps;
+    private Double stableRateInMbps;
+    private TransferStopReason stopReason;
+    private Long timeSavedInMs;
+    private Long bytesSaved;
+    private Integer streams;
+    private List<RampStep> rampTrace;
+    private MeasurementWindowMode windowMode;
+    private Long windowStartInMs;
+    private Double windowedRateInMbps;
+    private Long windowedBytes;
+    private Long windowedDurationInMs;
+    private Long timeToFirstByteInMs;
+
+    public TransferTestResult(final Double rateInMbps, final Long bytes, final Long durationInMs) {
+        this.rateInMbps = rateInMbps;
+        this.bytes = bytes;
+        this.durationInMs = durationInMs;
+    }
 
-    public TransferTestResult(final Integer bytes, final Long durationInMs) {
+    public TransferTestResult(final Long bytes, final Long durationInMs) {
         this.bytes = bytes;
         this.durationInMs = durationInMs;
     }
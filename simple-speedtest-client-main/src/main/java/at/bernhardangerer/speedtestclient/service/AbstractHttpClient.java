@@ -5,15 +5,17 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 
 public abstract class AbstractHttpClient {
+    static final String USER_AGENT = "speedtest-client";
+    static final String NO_CACHE = "no-cache";
 
     static HttpURLConnection createConnection(final URL url, final String requestMethod) throws IOException {
         if (url != null && requestMethod != null) {
             final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
             conn.setUseCaches(false);
             conn.setRequestMethod(requestMethod);
-            conn.setRequestProperty("User-Agent", "speedtest-client");
+            conn.setRequestProperty("User-Agent", USER_AGENT);
             conn.setRequestProperty("Connection", "Keep-Alive");
-            conn.setRequestProperty("Cache-Control", "no-cache");
+            conn.setRequestProperty("Cache-Control", NO_CACHE);
             return conn;
         } else {
             throw new IllegalArgumentException();
@@ -1,38 +1,123 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.metrics.SpeedtestMetrics;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.util.ThroughputListener;
+import at.bernhardangerer.speedtestclient.util.ThroughputStatistics;
 import at.bernhardangerer.speedtestclient.util.Util;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
 
 public abstract class AbstractTransferService {
+    private static final int EXTRA_SAMPLES = 16;
 
     public static TransferTestResult testTransfer(final List<Callable<TransferTestResult>> callables, final int threats)
             throws InterruptedException, MissingResultException {
-        if (callables != null && !callables.isEmpty() && threats > 0) {
-            final List<TransferTestResult> results = Executors.newWorkStealingPool(threats).invokeAll(callables)
+        return testTransfer(callables, threats, TransferExecutors.shared());
+    }
+
+    public static TransferTestResult testTransfer(final List<Callable<TransferTestResult>> callables, final int threats,
+                                                  final TransferExecutor executor)
+            throws InterruptedException, MissingResultException {
+        if (callables != null && !callables.isEmpty() && threats > 0 && executor != null) {
+            final List<TransferTestResult> results = executor.invokeAll(callables, threats)
                     .stream()
                     .map(future -> {
                         try {
                             return future.get();
                         } catch (Exception e) {
+                            SpeedtestMetrics.shared().recordFailedStream();
                             throw new IllegalStateException(e);
                         }
                     })
                     .filter(Objects::nonNull)
                     .toList();
+            final long bytes = results.stream().map(TransferTestResult::getBytes).mapToLong(Long::longValue).sum();
+            SpeedtestMetrics.shared().recordTransfer(bytes, results.size(), callables.size() - results.size());
             if (results.isEmpty()) {
                 throw new MissingResultException("Empty list for transfer results");
             }
-            final int bytes = results.stream().map(TransferTestResult::getBytes).mapToInt(Integer::intValue).sum();
             final long durationInMs = results.stream().map(TransferTestResult::getDurationInMs).mapToLong(Long::longValue).sum() / threats;
             return new TransferTestResult(Util.calculateMbps(bytes, durationInMs), bytes, durationInMs);
         } else {
             throw new IllegalArgumentException();
         }
     }
+
+    public static TransferTestResult testTransfer(final List<Callable<TransferTestResult>> callables, final int threats,
+                                                  final TransferExecutor executor, final ThroughputSampler sampler)
+            throws InterruptedException, MissingResultException {
+        if (sampler != null) {
+            final TransferTestResult result;
+            sampler.start();
+            try {
+                result = testTransfer(callables, threats, executor);
+            } finally {
+                sampler.stop();
+            }
+            final double[] samples = sampler.getSamplesInMbps();
+            result.setSampleIntervalInMs(sampler.getIntervalInMs());
+            result.setSamplesInMbps(Arrays.stream(samples).boxed().toList());
+            result.setTimeToFirstByteInMs(sampler.getTimeToFirstByteInMs());
+            if (samples.length > 0) {
+                result.setPeakRateInMbps(ThroughputStatistics.peak(samples));
+                result.setMedianRateInMbps(ThroughputStatistics.median(samples));
+                result.setStableRateInMbps(ThroughputStatistics.stableRate(samples));
+            }
+            return result;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static TransferTestResult testTransfer(final List<Callable<TransferTestResult>> callables, final int threats,
+                                                  final TransferExecutor executor, final ThroughputSampler sampler,
+                                                  final ConvergenceMonitor monitor)
+            throws InterruptedException, MissingResultException {
+        if (monitor != null) {
+            final TransferTestResult result = testTransfer(callables, threats, executor, sampler);
+            monitor.applyTo(result, System.currentTimeMillis());
+            return result;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // With a ramp the stream count varies over the phase, so the duration is the elapsed wall-clock time of the phase.
+    public static TransferTestResult testTransfer(final List<Callable<TransferTestResult>> callables, final TransferExecutor executor,
+                                                  final ThroughputSampler sampler, final ConvergenceMonitor monitor,
+                                                  final ConnectionRamp ramp)
+            throws InterruptedException, MissingResultException {
+        if (callables != null && ramp != null) {
+            final long startNanos = System.nanoTime();
+            final TransferTestResult result = testTransfer(ramp.limit(callables), ramp.getMaxStreams(), executor, sampler, monitor);
+            if (ramp.isEnabled()) {
+                final long durationInMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                result.setDurationInMs(durationInMs);
+                result.setRateInMbps(Util.calculateMbps(result.getBytes(), durationInMs));
+            }
+            ramp.applyTo(result);
+            return result;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static ThroughputSampler createSampler(final SpeedtestConfig config, final Integer testLength, final DoubleConsumer listener) {
+        return createSampler(config, testLength, listener, ThroughputListener.NONE);
+    }
+
+    static ThroughputSampler createSampler(final SpeedtestConfig config, final Integer testLength, final DoubleConsumer listener,
+                                           final ThroughputListener sampleListener) {
+        final long intervalInMs = config.getSampleIntervalInMs();
+        final long testLengthInMs = testLength != null ? TimeUnit.SECONDS.toMillis(testLength) : 0L;
+        return new ThroughputSampler(intervalInMs, (int) (testLengthInMs / intervalInMs) + EXTRA_SAMPLES, listener, sampleListener);
+    }
 }
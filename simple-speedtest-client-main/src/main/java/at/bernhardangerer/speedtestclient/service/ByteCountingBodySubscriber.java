@@ -0,0 +1,61 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.LongConsumer;
+
+// demand is signalled one batch at a time so the transfer can be cancelled at the deadline
+final class ByteCountingBodySubscriber implements HttpResponse.BodySubscriber<Long> {
+    private final TransferDeadline deadline;
+    private final LongConsumer progress;
+    private final CompletableFuture<Long> body = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long bytesReceived;
+
+    ByteCountingBodySubscriber(final TransferDeadline deadline, final LongConsumer progress) {
+        this.deadline = deadline;
+        this.progress = progress;
+    }
+
+    @Override
+    public CompletionStage<Long> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription newSubscription) {
+        this.subscription = newSubscription;
+        newSubscription.request(1);
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> items) {
+        int batchBytes = 0;
+        for (final ByteBuffer item : items) {
+            batchBytes = batchBytes + item.remaining();
+        }
+        bytesReceived = bytesReceived + batchBytes;
+        progress.accept(batchBytes);
+        if (deadline.isReached()) {
+            subscription.cancel();
+            body.complete(bytesReceived);
+        } else {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        body.complete(bytesReceived);
+    }
+
+}
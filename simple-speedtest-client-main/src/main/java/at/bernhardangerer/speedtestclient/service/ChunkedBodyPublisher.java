@@ -0,0 +1,89 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+final class ChunkedBodyPublisher implements Flow.Publisher<ByteBuffer> {
+    private final UploadBody body;
+    private final int chunkSize;
+    private final TransferDeadline deadline;
+    private final LongConsumer progress;
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    ChunkedBodyPublisher(final UploadBody body, final int chunkSize, final TransferDeadline deadline, final LongConsumer progress) {
+        if (body != null && chunkSize > 0 && deadline != null && progress != null) {
+            this.body = body;
+            this.chunkSize = chunkSize;
+            this.deadline = deadline;
+            this.progress = progress;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        bytesSent.set(0);
+        subscriber.onSubscribe(new ChunkSubscription(subscriber));
+    }
+
+    long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private final class ChunkSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private int offset;
+
+        private ChunkSubscription(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long count) {
+            if (count <= 0) {
+                done.set(true);
+                subscriber.onError(new IllegalArgumentException("Non-positive demand: " + count));
+            } else {
+                demand.getAndUpdate(current -> current + count < 0 ? Long.MAX_VALUE : current + count);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+        }
+
+        private void drain() {
+            if (pending.getAndIncrement() == 0) {
+                do {
+                    while (!done.get()) {
+                        if (offset >= body.length() || deadline.isReached()) {
+                            done.set(true);
+                            subscriber.onComplete();
+                        } else if (demand.get() > 0) {
+                            final int length = Math.min(chunkSize, body.length() - offset);
+                            final ByteBuffer chunk = body.chunk(offset, length);
+                            offset = offset + length;
+                            bytesSent.addAndGet(length);
+                            progress.accept(length);
+                            demand.decrementAndGet();
+                            subscriber.onNext(chunk);
+                        } else {
+                            break;
+                        }
+                    }
+                } while (pending.decrementAndGet() != 0);
+            }
+        }
+    }
+
+}
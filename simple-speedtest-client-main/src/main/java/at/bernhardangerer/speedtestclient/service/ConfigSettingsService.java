@@ -1,16 +1,21 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.exception.ParsingException;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.ConfigRequestEvent;
 import at.bernhardangerer.speedtestclient.model.ConfigSetting;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
+import org.apache.commons.io.IOUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class ConfigSettingsService {
     private static final String CONFIG_URL = "https://www.speedtest.net/speedtest-config.php";
@@ -21,8 +26,7 @@ public final class ConfigSettingsService {
     static ConfigSetting getSettingFromXml(final byte[] xml) throws ParsingException {
         if (xml != null) {
             try (InputStream is = new ByteArrayInputStream(xml)) {
-                final JAXBContext jaxbContext = JAXBContext.newInstance(ConfigSetting.class);
-                final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+                final Unmarshaller jaxbUnmarshaller = JaxbContextHolder.CONTEXT.createUnmarshaller();
                 return (ConfigSetting) jaxbUnmarshaller.unmarshal(is);
             } catch (IOException | JAXBException e) {
                 throw new ParsingException(e);
@@ -33,11 +37,67 @@ public final class ConfigSettingsService {
     }
 
     public static ConfigSetting requestSetting() throws MissingResultException, ServerRequestException, ParsingException {
-        final byte[] bytes = HttpGetClient.get(CONFIG_URL);
-        if (bytes != null) {
+        return requestSetting(SpeedtestConfig.getDefault());
+    }
+
+    public static ConfigSetting requestSetting(final SpeedtestConfig config)
+            throws MissingResultException, ServerRequestException, ParsingException {
+        if (config != null) {
+            return requestSetting(CONFIG_URL, config);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static ConfigSetting requestSetting(final String url, final SpeedtestConfig config)
+            throws MissingResultException, ServerRequestException, ParsingException {
+        final ConfigRequestEvent event = new ConfigRequestEvent();
+        event.begin();
+        final AtomicLong receivedBytes = new AtomicLong();
+        final HttpCache.BodyReader<ConfigSetting> reader = body -> {
+            final byte[] bytes = IOUtils.toByteArray(body);
+            receivedBytes.set(bytes.length);
             return getSettingFromXml(bytes);
+        };
+        try {
+            if (config.isCacheEnabled()) {
+                return new HttpCache(config.getCacheDirectory()).get(url, cacheTtl(config), reader);
+            }
+            final byte[] bytes = HttpGetClient.get(url);
+            if (bytes != null) {
+                receivedBytes.set(bytes.length);
+                return getSettingFromXml(bytes);
+            } else {
+                throw new MissingResultException("Missing result for config settings request");
+            }
+        } finally {
+            event.complete(url, receivedBytes.get(), config.isCacheEnabled());
+        }
+    }
+
+    // the configuration of a cache entry younger than the TTL without any network access, or null if there is none
+    public static ConfigSetting cachedSetting(final SpeedtestConfig config) {
+        if (config != null) {
+            return config.isCacheEnabled() ? new HttpCache(config.getCacheDirectory())
+                    .getFresh(CONFIG_URL, cacheTtl(config), body -> getSettingFromXml(IOUtils.toByteArray(body))) : null;
         } else {
-            throw new MissingResultException("Missing result for config settings request");
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static Duration cacheTtl(final SpeedtestConfig config) {
+        return Duration.ofMinutes(config.getConfigCacheTtlInMinutes());
+    }
+
+    private static final class JaxbContextHolder {
+        private static final JAXBContext CONTEXT = createContext();
+
+        private static JAXBContext createContext() {
+            try {
+                return JAXBContext.newInstance(ConfigSetting.class);
+            } catch (JAXBException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
         }
     }
 
@@ -0,0 +1,149 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.model.RampStep;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+// doubles the streams while each step gains more than minGain, then holds the last count that did
+public final class ConnectionRamp implements DoubleConsumer {
+    private static final long ACQUIRE_POLL_IN_MS = 50L;
+    private final TransferDeadline deadline;
+    private final boolean enabled;
+    private final int maxStreams;
+    private final double minGain;
+    private final int stepSamples;
+    private final RampSemaphore semaphore;
+    private final List<RampStep> trace = new ArrayList<>();
+    private int streams;
+    private int previousStreams;
+    private double previousRateInMbps;
+    private double stepSum;
+    private int stepCount;
+    private boolean holding;
+
+    public ConnectionRamp(final TransferDeadline deadline, final boolean enabled, final int initialStreams, final int maxStreams,
+                          final double minGain, final int stepSamples) {
+        if (deadline != null && initialStreams > 0 && maxStreams > 0 && minGain >= 0 && stepSamples > 0) {
+            this.deadline = deadline;
+            this.enabled = enabled;
+            this.maxStreams = enabled ? maxStreams : initialStreams;
+            this.minGain = minGain;
+            this.stepSamples = stepSamples;
+            this.streams = Math.min(initialStreams, this.maxStreams);
+            this.semaphore = new RampSemaphore(streams);
+            this.holding = !enabled;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static ConnectionRamp create(final SpeedtestConfig config, final TransferDeadline deadline, final int fixedStreams) {
+        if (config != null) {
+            return config.isRampEnabled()
+                    ? new ConnectionRamp(deadline, true, config.getRampInitialStreams(), config.getRampMaxStreams(),
+                            config.getRampMinGain(), config.getRampStepSamples())
+                    : new ConnectionRamp(deadline, false, fixedStreams, fixedStreams, 0, 1);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // Called on the sampler thread with every full-interval sample.
+    @Override
+    public synchronized void accept(final double sample) {
+        if (holding) {
+            return;
+        }
+        stepSum += sample;
+        stepCount++;
+        if (stepCount < stepSamples) {
+            return;
+        }
+        final double rateInMbps = stepSum / stepCount;
+        stepSum = 0;
+        stepCount = 0;
+        trace.add(new RampStep(streams, rateInMbps));
+        if (previousRateInMbps > 0 && rateInMbps <= previousRateInMbps * (1 + minGain)) {
+            semaphore.reduce(streams - previousStreams);
+            streams = previousStreams;
+            holding = true;
+        } else if (streams >= maxStreams) {
+            holding = true;
+        } else {
+            final int next = Math.min(maxStreams, streams * 2);
+            semaphore.release(next - streams);
+            previousStreams = streams;
+            previousRateInMbps = rateInMbps;
+            streams = next;
+        }
+    }
+
+    public List<Callable<TransferTestResult>> limit(final List<Callable<TransferTestResult>> callables) {
+        if (callables != null) {
+            return enabled ? callables.stream().map(this::gate).toList() : callables;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    public synchronized int getStreams() {
+        return streams;
+    }
+
+    public synchronized List<RampStep> getTrace() {
+        return List.copyOf(trace);
+    }
+
+    void applyTo(final TransferTestResult result) {
+        result.setStreams(getStreams());
+        if (enabled) {
+            result.setRampTrace(getTrace());
+        }
+    }
+
+    private Callable<TransferTestResult> gate(final Callable<TransferTestResult> task) {
+        return () -> runWithPermit(task);
+    }
+
+    // Tasks still waiting for a permit when the phase ends are skipped.
+    private TransferTestResult runWithPermit(final Callable<TransferTestResult> task) throws Exception {
+        while (!deadline.isReached()) {
+            if (semaphore.tryAcquire(ACQUIRE_POLL_IN_MS, TimeUnit.MILLISECONDS)) {
+                try {
+                    return task.call();
+                } finally {
+                    semaphore.release();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class RampSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        RampSemaphore(final int initialPermits) {
+            super(initialPermits, true);
+        }
+
+        void reduce(final int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+}
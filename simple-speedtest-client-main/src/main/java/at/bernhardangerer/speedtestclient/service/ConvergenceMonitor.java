@@ -0,0 +1,91 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.TransferStopReason;
+import at.bernhardangerer.speedtestclient.util.ThroughputStatistics;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+// stops the phase once the coefficient of variation stays below the threshold for consecutiveWindows windows
+public final class ConvergenceMonitor implements DoubleConsumer {
+    private static final double BYTES_PER_MEGABIT_MILLISECOND = 125.0;
+    private final TransferDeadline deadline;
+    private final boolean enabled;
+    private final double[] window;
+    private final double maxCoefficientOfVariation;
+    private final int consecutiveWindows;
+    private int count;
+    private int stableWindows;
+    private long convergedAt;
+    private double convergedRateInMbps;
+
+    public ConvergenceMonitor(final TransferDeadline deadline, final boolean enabled, final int windowSamples,
+                              final double maxCoefficientOfVariation, final int consecutiveWindows) {
+        if (deadline != null && windowSamples > 0 && maxCoefficientOfVariation > 0 && consecutiveWindows > 0) {
+            this.deadline = deadline;
+            this.enabled = enabled;
+            this.window = new double[windowSamples];
+            this.maxCoefficientOfVariation = maxCoefficientOfVariation;
+            this.consecutiveWindows = consecutiveWindows;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static ConvergenceMonitor create(final SpeedtestConfig config, final TransferDeadline deadline) {
+        if (config != null) {
+            return new ConvergenceMonitor(deadline, config.isConvergenceEnabled(), config.getConvergenceWindowSamples(),
+                    config.getConvergenceMaxCoefficientOfVariation(), config.getConvergenceConsecutiveWindows());
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void accept(final double sample) {
+        if (!enabled || isConverged()) {
+            return;
+        }
+        window[count % window.length] = sample;
+        count++;
+        if (count < window.length) {
+            return;
+        }
+        if (ThroughputStatistics.coefficientOfVariation(window) <= maxCoefficientOfVariation) {
+            stableWindows++;
+        } else {
+            stableWindows = 0;
+        }
+        if (stableWindows >= consecutiveWindows) {
+            convergedAt = System.currentTimeMillis();
+            convergedRateInMbps = Arrays.stream(window).average().orElseThrow();
+            deadline.stop();
+        }
+    }
+
+    public TransferDeadline getDeadline() {
+        return deadline;
+    }
+
+    public boolean isConverged() {
+        return convergedAt > 0;
+    }
+
+    // Bytes saved are estimated from the window rate at convergence over the time left until the original timeout.
+    void applyTo(final TransferTestResult result, final long endTime) {
+        final long timeoutTime = deadline.getTimeoutTime();
+        if (isConverged()) {
+            final long timeSavedInMs = timeoutTime > 0 ? Math.max(0L, timeoutTime - convergedAt) : 0L;
+            result.setStopReason(TransferStopReason.CONVERGED);
+            result.setTimeSavedInMs(timeSavedInMs);
+            result.setBytesSaved(Math.round(convergedRateInMbps * timeSavedInMs * BYTES_PER_MEGABIT_MILLISECOND));
+        } else {
+            result.setStopReason(timeoutTime > 0 && endTime <= timeoutTime ? TransferStopReason.COMPLETED : TransferStopReason.TIMEOUT);
+            result.setTimeSavedInMs(0L);
+            result.setBytesSaved(0L);
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+
+import java.util.function.LongConsumer;
+
+@FunctionalInterface
+public interface DownloadEngine {
+    TransferTestResult download(String urlString, TransferDeadline deadline, LongConsumer progress) throws ServerRequestException;
+
+    default TransferTestResult download(final String urlString, final long timeoutTime) throws ServerRequestException {
+        return download(urlString, TransferDeadline.of(timeoutTime), bytes -> {
+        });
+    }
+
+    // whether a download can continue on a connection left by an earlier one, which then skips the slow-start warmup
+    default boolean reusesConnections() {
+        return true;
+    }
+}
@@ -1,9 +1,11 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.model.DownloadSetting;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
 import at.bernhardangerer.speedtestclient.util.Callback;
+import at.bernhardangerer.speedtestclient.util.ThroughputListener;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,14 +16,53 @@ public final class DownloadService extends AbstractTransferService {
 
     public static TransferTestResult testDownload(final String serverUrl, final DownloadSetting settings, final Callback callback)
             throws InterruptedException, MissingResultException {
-        if (serverUrl != null && settings != null && callback != null) {
+        return testDownload(serverUrl, settings, SpeedtestConfig.getDefault(), callback);
+    }
+
+    public static TransferTestResult testDownload(final String serverUrl, final DownloadSetting settings, final SpeedtestConfig config,
+                                                  final Callback callback)
+            throws InterruptedException, MissingResultException {
+        return testDownload(serverUrl, settings, config, TransferExecutors.shared(), callback);
+    }
+
+    public static TransferTestResult testDownload(final String serverUrl, final DownloadSetting settings, final SpeedtestConfig config,
+                                                  final TransferExecutor executor, final Callback callback)
+            throws InterruptedException, MissingResultException {
+        return testDownload(serverUrl, settings, config, executor, callback, ThroughputListener.NONE);
+    }
+
+    public static TransferTestResult testDownload(final String serverUrl, final DownloadSetting settings, final SpeedtestConfig config,
+                                                  final TransferExecutor executor, final Callback callback,
+                                                  final ThroughputListener throughputListener)
+            throws InterruptedException, MissingResultException {
+        if (serverUrl != null && settings != null && config != null && executor != null && callback != null
+                && throughputListener != null) {
             final List<String> urls = generateUrls(serverUrl, settings.getThreadsPerUrl());
             final long timeoutTime = System.currentTimeMillis() + settings.getTestLength() * 1000L;
+            final DownloadEngine engine = createEngine(config);
+            final ConvergenceMonitor monitor = ConvergenceMonitor.create(config, TransferDeadline.of(timeoutTime));
+            final ConnectionRamp ramp = ConnectionRamp.create(config, monitor.getDeadline(), settings.getThreadsPerUrl() * 2);
+            final ThroughputSampler sampler = createSampler(config, settings.getTestLength(), monitor.andThen(ramp), throughputListener);
+            final MeasurementWindow window = MeasurementWindow.create(config, engine.reusesConnections());
             final List<Callable<TransferTestResult>> callables = new ArrayList<>();
             for (String url : urls) {
-                callables.add(new DownloadTask(url, timeoutTime, callback));
+                callables.add(window.track(sampler, progress -> new DownloadTask(url, monitor.getDeadline(), callback, engine, progress)));
             }
-            return testTransfer(callables, settings.getThreadsPerUrl() * 2);
+            final TransferTestResult result = testTransfer(callables, executor, sampler, monitor, ramp);
+            window.applyTo(result);
+            return result;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static DownloadEngine createEngine(final SpeedtestConfig config) {
+        if (config != null && config.getDownloadEngine() != null) {
+            return switch (config.getDownloadEngine()) {
+                case STREAM -> new StreamDownloadEngine(config.getDownloadMaxBufferSize());
+                case NIO -> new NioDownloadEngine(config.getDownloadMaxBufferSize());
+                case HTTP2 -> new Http2TransferEngine(config.getDownloadMaxBufferSize());
+            };
         } else {
             throw new IllegalArgumentException();
         }
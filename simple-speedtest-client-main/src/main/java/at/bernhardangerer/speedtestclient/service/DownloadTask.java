@@ -1,27 +1,63 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.TransferTaskEvent;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
 import at.bernhardangerer.speedtestclient.util.Callback;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 public final class DownloadTask implements Callable<TransferTestResult> {
     private final String url;
-    private final long timeoutTime;
+    private final TransferDeadline deadline;
     private final Callback callback;
+    private final DownloadEngine engine;
+    private final LongConsumer progress;
 
     public DownloadTask(final String url, final long timeoutTime, final Callback callback) {
+        this(url, timeoutTime, callback, new StreamDownloadEngine(SpeedtestConfig.getDefault().getDownloadMaxBufferSize()));
+    }
+
+    public DownloadTask(final String url, final long timeoutTime, final Callback callback, final DownloadEngine engine) {
+        this(url, TransferDeadline.of(timeoutTime), callback, engine, bytes -> {
+        });
+    }
+
+    public DownloadTask(final String url, final TransferDeadline deadline, final Callback callback, final DownloadEngine engine,
+                        final LongConsumer progress) {
         this.url = url;
-        this.timeoutTime = timeoutTime;
+        this.deadline = deadline;
         this.callback = callback;
+        this.engine = engine;
+        this.progress = progress;
     }
 
     @Override
     public TransferTestResult call() throws ServerRequestException {
-        final TransferTestResult result = HttpGetClient.partialGetDownloadData(url, timeoutTime);
-        callback.execute();
-        return result;
+        if (deadline.isStopped()) {
+            return null;
+        }
+        final TransferTaskEvent event = new TransferTaskEvent();
+        event.begin();
+        // a failed transfer has no result, so its bytes are counted on the way while a recording has the event enabled
+        final AtomicLong transferred = new AtomicLong();
+        final LongConsumer counted = event.isEnabled() ? bytes -> {
+            transferred.addAndGet(bytes);
+            progress.accept(bytes);
+        } : progress;
+        TransferTestResult result = null;
+        try {
+            result = engine.download(url, deadline, counted);
+            callback.execute();
+            return result;
+        } finally {
+            final boolean succeeded = result != null;
+            event.complete(TransferTaskEvent.DOWNLOAD, url, succeeded && result.getBytes() != null ? result.getBytes() : transferred.get(),
+                    succeeded);
+        }
     }
 
 }
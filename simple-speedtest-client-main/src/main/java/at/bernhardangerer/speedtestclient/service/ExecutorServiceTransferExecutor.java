@@ -0,0 +1,76 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// only an owned executor service is shut down with this executor
+final class ExecutorServiceTransferExecutor implements TransferExecutor {
+    private final ExecutorService executorService;
+    private final boolean owned;
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+    ExecutorServiceTransferExecutor(final ExecutorService executorService, final boolean owned) {
+        if (executorService != null) {
+            this.executorService = executorService;
+            this.owned = owned;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(final List<? extends Callable<T>> tasks, final int parallelism) throws InterruptedException {
+        if (tasks != null && parallelism > 0) {
+            if (isShutdown()) {
+                throw new RejectedExecutionException("Transfer executor has been shut down");
+            }
+            final CompletionService<T> completionService = new ExecutorCompletionService<>(executorService);
+            final List<Future<T>> futures = new ArrayList<>(tasks.size());
+            int completed = 0;
+            try {
+                while (completed < tasks.size()) {
+                    while (futures.size() < tasks.size() && futures.size() - completed < parallelism) {
+                        futures.add(completionService.submit(tasks.get(futures.size())));
+                    }
+                    completionService.take();
+                    completed++;
+                }
+                return futures;
+            } catch (InterruptedException | RejectedExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (shutdown.compareAndSet(false, true) && owned) {
+            executorService.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (owned) {
+            return executorService.awaitTermination(timeout, unit);
+        }
+        return isShutdown();
+    }
+
+}
@@ -0,0 +1,106 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.model.HistoryRecord;
+import at.bernhardangerer.speedtestclient.model.HistoryRollup;
+import at.bernhardangerer.speedtestclient.util.Constant;
+import at.bernhardangerer.speedtestclient.util.CsvUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public final class HistoryPrinter {
+    private static final String NOT_MEASURED = "-";
+
+    private HistoryPrinter() {
+    }
+
+    // records or rollups as a JSON array
+    public static void printJson(final List<?> entries) {
+        if (isEmptyOrNull(entries)) {
+            return;
+        }
+        try {
+            final ObjectMapper objectMapper = new ObjectMapper();
+            objectMapper.registerModule(new JavaTimeModule());
+            objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(entries));
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to serialize history to JSON: " + e.getMessage());
+        }
+    }
+
+    public static void printRecordsCsv(final List<HistoryRecord> records, final String delimiter) {
+        if (isEmptyOrNull(records)) {
+            return;
+        }
+        final String finalDelimiter = delimiter != null && !delimiter.isEmpty() ? delimiter : Constant.COMMA;
+
+        final List<String> keys = Arrays.asList("startTime", "durationMs", "serverId", "latencyMs", "latencyP50Ms", "latencyP90Ms",
+                "latencyP99Ms", "latencyJitterMs", "downloadMbps", "downloadBytes", "uploadMbps", "uploadBytes");
+        System.out.println(CsvUtil.joinStrings(keys, finalDelimiter));
+
+        for (final HistoryRecord r : records) {
+            final List<Object> unformattedValues = Arrays.asList(r.getStartTime(), r.getDurationInMs(), r.getServerId(),
+                    r.getLatencyInMs(), r.getLatencyP50InMs(), r.getLatencyP90InMs(), r.getLatencyP99InMs(), r.getLatencyJitterInMs(),
+                    r.getDownloadRateInMbps(), r.getDownloadBytes(), r.getUploadRateInMbps(), r.getUploadBytes());
+            final List<String> formattedValues = CsvUtil.formatCsvValues(unformattedValues, finalDelimiter);
+            System.out.println(CsvUtil.joinStrings(formattedValues, finalDelimiter));
+        }
+    }
+
+    public static void printRollupsCsv(final List<HistoryRollup> rollups, final String delimiter) {
+        if (isEmptyOrNull(rollups)) {
+            return;
+        }
+        final String finalDelimiter = delimiter != null && !delimiter.isEmpty() ? delimiter : Constant.COMMA;
+
+        final List<String> keys = Arrays.asList("periodStart", "count", "downloadAvgMbps", "downloadMinMbps", "downloadMaxMbps",
+                "uploadAvgMbps", "uploadMinMbps", "uploadMaxMbps", "latencyAvgMs", "latencyMaxMs");
+        System.out.println(CsvUtil.joinStrings(keys, finalDelimiter));
+
+        for (final HistoryRollup r : rollups) {
+            final List<Object> unformattedValues = Arrays.asList(r.getPeriodStart(), r.getCount(), r.getDownloadAvgInMbps(),
+                    r.getDownloadMinInMbps(), r.getDownloadMaxInMbps(), r.getUploadAvgInMbps(), r.getUploadMinInMbps(),
+                    r.getUploadMaxInMbps(), r.getLatencyAvgInMs(), r.getLatencyMaxInMs());
+            final List<String> formattedValues = CsvUtil.formatCsvValues(unformattedValues, finalDelimiter);
+            System.out.println(CsvUtil.joinStrings(formattedValues, finalDelimiter));
+        }
+    }
+
+    public static void printRecordsHumanReadable(final List<HistoryRecord> records) {
+        if (isEmptyOrNull(records)) {
+            return;
+        }
+        records.forEach(entry -> System.out.printf(Locale.US, "%s  Latency: %s ms  Download: %s Mbit/s  Upload: %s Mbit/s%n",
+                entry.getStartTime(), format(entry.getLatencyInMs()), format(entry.getDownloadRateInMbps()),
+                format(entry.getUploadRateInMbps())));
+    }
+
+    public static void printRollupsHumanReadable(final List<HistoryRollup> rollups) {
+        if (isEmptyOrNull(rollups)) {
+            return;
+        }
+        rollups.forEach(entry -> System.out.printf(Locale.US,
+                "%s  Tests: %d  Latency: %s ms  Download: %s Mbit/s (%s - %s)  Upload: %s Mbit/s (%s - %s)%n",
+                entry.getPeriodStart(), entry.getCount(), format(entry.getLatencyAvgInMs()),
+                format(entry.getDownloadAvgInMbps()), format(entry.getDownloadMinInMbps()), format(entry.getDownloadMaxInMbps()),
+                format(entry.getUploadAvgInMbps()), format(entry.getUploadMinInMbps()), format(entry.getUploadMaxInMbps())));
+    }
+
+    private static String format(final Double value) {
+        return value != null ? String.format(Locale.US, "%.2f", value) : NOT_MEASURED;
+    }
+
+    private static boolean isEmptyOrNull(final List<?> list) {
+        if (list == null || list.isEmpty()) {
+            System.err.println("No speedtest results in the history for this range.");
+            return true;
+        }
+        return false;
+    }
+}
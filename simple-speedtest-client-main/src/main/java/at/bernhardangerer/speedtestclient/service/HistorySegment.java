@@ -0,0 +1,148 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 64 byte header, then 48 byte records; a record is written before the count is raised
+final class HistorySegment implements AutoCloseable {
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 48;
+    static final int FIELDS = RECORD_SIZE / Integer.BYTES;
+    // slots within a record; START is the offset from the base timestamp, the others are HistoryStore fields
+    static final int START = 0;
+    // marks a figure the speedtest did not measure
+    static final int MISSING = Integer.MIN_VALUE;
+    private static final int MAGIC = 0x53544831;
+    private static final short VERSION = 1;
+    private static final int VERSION_OFFSET = 4;
+    private static final int RECORD_SIZE_OFFSET = 6;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int BASE_OFFSET = 16;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long baseEpochMs;
+
+    private HistorySegment(final MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.capacity = buffer.getInt(CAPACITY_OFFSET);
+        this.baseEpochMs = buffer.getLong(BASE_OFFSET);
+    }
+
+    static HistorySegment create(final Path file, final int capacity, final long baseEpochMs) throws IOException {
+        if (file != null && capacity > 0) {
+            final MappedByteBuffer buffer = map(file, (long) HEADER_SIZE + (long) capacity * RECORD_SIZE,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer.putShort(VERSION_OFFSET, VERSION);
+            buffer.putShort(RECORD_SIZE_OFFSET, (short) RECORD_SIZE);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putLong(BASE_OFFSET, baseEpochMs);
+            // written last, a segment without its magic number is ignored when the store is opened
+            buffer.putInt(0, MAGIC);
+            return new HistorySegment(buffer);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static HistorySegment open(final Path file) throws IOException {
+        if (file != null) {
+            final MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException(String.format("History segment \"%s\" is truncated", file));
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getShort(VERSION_OFFSET) != VERSION
+                    || buffer.getShort(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+                throw new IOException(String.format("\"%s\" is not a history segment of version %d", file, VERSION));
+            }
+            final int capacity = buffer.getInt(CAPACITY_OFFSET);
+            final int count = buffer.getInt(COUNT_OFFSET);
+            if (capacity <= 0 || count < 0 || count > capacity || buffer.capacity() < HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+                throw new IOException(String.format("History segment \"%s\" is corrupt", file));
+            }
+            return new HistorySegment(buffer);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    int size() {
+        return buffer.getInt(COUNT_OFFSET);
+    }
+
+    long getFirstEpochMs() {
+        return epochMsAt(0);
+    }
+
+    long getLastEpochMs() {
+        return epochMsAt(size() - 1);
+    }
+
+    // a record fits if there is room, it does not go back in time and its offset from the base fits into 32 bits
+    boolean canAppend(final long epochMs) {
+        final int size = size();
+        return size < capacity && epochMs >= (size == 0 ? baseEpochMs : getLastEpochMs())
+                && epochMs - baseEpochMs <= Integer.MAX_VALUE;
+    }
+
+    void append(final long epochMs, final int[] fields) {
+        if (fields != null && fields.length == FIELDS && canAppend(epochMs)) {
+            final int size = size();
+            final int position = HEADER_SIZE + size * RECORD_SIZE;
+            buffer.putInt(position, (int) (epochMs - baseEpochMs));
+            for (int field = START + 1; field < FIELDS; field++) {
+                buffer.putInt(position + field * Integer.BYTES, fields[field]);
+            }
+            buffer.putInt(COUNT_OFFSET, size + 1);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    long epochMsAt(final int index) {
+        return baseEpochMs + fieldAt(index, START);
+    }
+
+    int fieldAt(final int index, final int field) {
+        return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE + field * Integer.BYTES);
+    }
+
+    // index of the first record that starts at or after the given time, or size() if there is none
+    int lowerBound(final long epochMs) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (epochMsAt(middle) < epochMs) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // writes the records to the file; until then they only survive a crash of the process, not of the machine
+    @Override
+    public void close() {
+        buffer.force();
+    }
+
+    private static MappedByteBuffer map(final Path file, final long size, final StandardOpenOption... options) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+}
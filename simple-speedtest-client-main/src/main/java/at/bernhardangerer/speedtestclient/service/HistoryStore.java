@@ -0,0 +1,331 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.model.HistoryRecord;
+import at.bernhardangerer.speedtestclient.model.HistoryRollup;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.RollupPeriod;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// segment headers serve as the index; appends from several processes are serialized with a file lock
+public final class HistoryStore implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(HistoryStore.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("history-(\\d{6})\\.seg");
+    private static final String LOCK_FILE = "history.lock";
+    // the file lock is held per process, so the stores of this process take turns first
+    private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
+    private static final double MICROS_PER_MILLI = 1000d;
+    private static final double KBITS_PER_MBIT = 1000d;
+    private static final double BYTES_PER_KIB = 1024d;
+    private static final int DURATION = 1;
+    private static final int SERVER_ID = 2;
+    private static final int LATENCY = 3;
+    private static final int LATENCY_P50 = 4;
+    private static final int LATENCY_P90 = 5;
+    private static final int LATENCY_P99 = 6;
+    private static final int LATENCY_JITTER = 7;
+    private static final int DOWNLOAD_RATE = 8;
+    private static final int DOWNLOAD_KIB = 9;
+    private static final int UPLOAD_RATE = 10;
+    private static final int UPLOAD_KIB = 11;
+    private final Path directory;
+    private final int segmentCapacity;
+    private final ZoneId zone;
+    private final FileChannel lockChannel;
+    private final List<HistorySegment> segments = new ArrayList<>();
+    private int nextSequence = 1;
+
+    private HistoryStore(final Path directory, final int segmentCapacity, final ZoneId zone, final FileChannel lockChannel) {
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.zone = zone;
+        this.lockChannel = lockChannel;
+    }
+
+    public static HistoryStore open(final SpeedtestConfig config) throws IOException {
+        if (config != null) {
+            return open(config.getHistoryDirectory(), config.getHistorySegmentRecords(), ZoneId.systemDefault());
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static HistoryStore open(final Path directory, final int segmentCapacity, final ZoneId zone) throws IOException {
+        if (directory != null && segmentCapacity > 0 && zone != null) {
+            Files.createDirectories(directory);
+            final FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            final HistoryStore store = new HistoryStore(directory, segmentCapacity, zone, lockChannel);
+            PROCESS_LOCK.lock();
+            try (FileLock fileLock = lockChannel.lock()) {
+                store.openNewSegments();
+            } catch (IOException e) {
+                lockChannel.close();
+                throw e;
+            } finally {
+                PROCESS_LOCK.unlock();
+            }
+            return store;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public synchronized void append(final SpeedtestResult result) throws IOException {
+        if (result != null && result.getStartTime() != null) {
+            final long epochMs = toEpochMs(result.getStartTime());
+            PROCESS_LOCK.lock();
+            try (FileLock fileLock = lockChannel.lock()) {
+                // another process may have started a segment since the last append
+                openNewSegments();
+                HistorySegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (segment == null || !segment.canAppend(epochMs)) {
+                    if (segment != null) {
+                        segment.close();
+                    }
+                    segment = HistorySegment.create(directory.resolve(String.format("history-%06d.seg", nextSequence)),
+                            segmentCapacity, epochMs);
+                    nextSequence++;
+                    segments.add(segment);
+                }
+                segment.append(epochMs, encode(result));
+            } finally {
+                PROCESS_LOCK.unlock();
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // records that started within [from, until) in time order; a null bound leaves that side open
+    public synchronized List<HistoryRecord> query(final LocalDateTime from, final LocalDateTime until) {
+        final long fromMs = from != null ? toEpochMs(from) : Long.MIN_VALUE;
+        final long toMs = until != null ? toEpochMs(until) : Long.MAX_VALUE;
+        final List<HistoryRecord> records = new ArrayList<>();
+        for (final HistorySegment segment : segments) {
+            if (overlaps(segment, fromMs, toMs)) {
+                final int size = segment.size();
+                for (int index = segment.lowerBound(fromMs); index < size && segment.epochMsAt(index) < toMs; index++) {
+                    records.add(decode(segment, index));
+                }
+            }
+        }
+        // segments are only out of order after a clock change
+        records.sort(Comparator.comparing(HistoryRecord::getStartTime));
+        return records;
+    }
+
+    // one rollup per hour or day of the local time zone that contains records within [from, until), in time order
+    public synchronized List<HistoryRollup> rollup(final LocalDateTime from, final LocalDateTime until, final RollupPeriod period) {
+        if (period != null) {
+            final long fromMs = from != null ? toEpochMs(from) : Long.MIN_VALUE;
+            final long toMs = until != null ? toEpochMs(until) : Long.MAX_VALUE;
+            final Map<LocalDateTime, PeriodAccumulator> periods = new TreeMap<>();
+            for (final HistorySegment segment : segments) {
+                if (overlaps(segment, fromMs, toMs)) {
+                    final int size = segment.size();
+                    PeriodAccumulator current = null;
+                    for (int index = segment.lowerBound(fromMs); index < size && segment.epochMsAt(index) < toMs; index++) {
+                        final long epochMs = segment.epochMsAt(index);
+                        // the period only changes every hour or day, so it is rarely looked up
+                        if (current == null || epochMs < current.startMs || epochMs >= current.endMs) {
+                            final LocalDateTime periodStart = period.startOf(toLocalDateTime(epochMs));
+                            current = periods.computeIfAbsent(periodStart, start ->
+                                    new PeriodAccumulator(start, toEpochMs(start), toEpochMs(period.next(start))));
+                        }
+                        current.add(segment, index);
+                    }
+                }
+            }
+            return periods.values().stream().map(PeriodAccumulator::toRollup).toList();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public synchronized int size() {
+        return segments.stream().mapToInt(HistorySegment::size).sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.forEach(HistorySegment::close);
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    // opens the segments from nextSequence on; must be called under the file lock, segments that cannot be read are skipped
+    private void openNewSegments() throws IOException {
+        final SortedMap<Integer, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                final Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches() && Integer.parseInt(matcher.group(1)) >= nextSequence) {
+                    files.put(Integer.parseInt(matcher.group(1)), path);
+                }
+            });
+        }
+        for (final Path file : files.values()) {
+            try {
+                segments.add(HistorySegment.open(file));
+            } catch (IOException e) {
+                logger.error("Skipping history segment: {}", e.getMessage());
+            }
+        }
+        if (!files.isEmpty()) {
+            nextSequence = files.lastKey() + 1;
+        }
+    }
+
+    private long toEpochMs(final LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(final long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), zone);
+    }
+
+    private static boolean overlaps(final HistorySegment segment, final long fromMs, final long toMs) {
+        return segment.size() > 0 && segment.getLastEpochMs() >= fromMs && segment.getFirstEpochMs() < toMs;
+    }
+
+    private static int[] encode(final SpeedtestResult result) {
+        final int[] fields = new int[HistorySegment.FIELDS];
+        fields[DURATION] = result.getEndTime() != null
+                ? toInt(Duration.between(result.getStartTime(), result.getEndTime()).toMillis(), 1) : HistorySegment.MISSING;
+        fields[SERVER_ID] = result.getServer() != null && result.getServer().getId() != null
+                ? result.getServer().getId() : HistorySegment.MISSING;
+        final LatencyTestResult latency = result.getLatency();
+        fields[LATENCY] = latency != null ? toInt(latency.getLatency(), MICROS_PER_MILLI) : HistorySegment.MISSING;
+        fields[LATENCY_P50] = latency != null ? toInt(latency.getP50InMs(), MICROS_PER_MILLI) : HistorySegment.MISSING;
+        fields[LATENCY_P90] = latency != null ? toInt(latency.getP90InMs(), MICROS_PER_MILLI) : HistorySegment.MISSING;
+        fields[LATENCY_P99] = latency != null ? toInt(latency.getP99InMs(), MICROS_PER_MILLI) : HistorySegment.MISSING;
+        fields[LATENCY_JITTER] = latency != null ? toInt(latency.getJitterInMs(), MICROS_PER_MILLI) : HistorySegment.MISSING;
+        encode(result.getDownload(), fields, DOWNLOAD_RATE, DOWNLOAD_KIB);
+        encode(result.getUpload(), fields, UPLOAD_RATE, UPLOAD_KIB);
+        return fields;
+    }
+
+    private static void encode(final TransferTestResult transfer, final int[] fields, final int rate, final int kib) {
+        fields[rate] = transfer != null ? toInt(transfer.getRateInMbps(), KBITS_PER_MBIT) : HistorySegment.MISSING;
+        fields[kib] = transfer != null && transfer.getBytes() != null
+                ? toInt(transfer.getBytes() / BYTES_PER_KIB, 1) : HistorySegment.MISSING;
+    }
+
+    // fixed point with the given scale, saturating instead of overflowing; null and NaN are missing
+    private static int toInt(final Number value, final double scale) {
+        if (value == null || Double.isNaN(value.doubleValue())) {
+            return HistorySegment.MISSING;
+        }
+        final long scaled = Math.round(value.doubleValue() * scale);
+        return (int) Math.max(HistorySegment.MISSING + 1L, Math.min(Integer.MAX_VALUE, scaled));
+    }
+
+    private HistoryRecord decode(final HistorySegment segment, final int index) {
+        final int serverId = segment.fieldAt(index, SERVER_ID);
+        return new HistoryRecord(toLocalDateTime(segment.epochMsAt(index)), toLong(segment, index, DURATION, 1),
+                serverId != HistorySegment.MISSING ? serverId : null,
+                toDouble(segment, index, LATENCY, MICROS_PER_MILLI), toDouble(segment, index, LATENCY_P50, MICROS_PER_MILLI),
+                toDouble(segment, index, LATENCY_P90, MICROS_PER_MILLI), toDouble(segment, index, LATENCY_P99, MICROS_PER_MILLI),
+                toDouble(segment, index, LATENCY_JITTER, MICROS_PER_MILLI),
+                toDouble(segment, index, DOWNLOAD_RATE, KBITS_PER_MBIT), toLong(segment, index, DOWNLOAD_KIB, BYTES_PER_KIB),
+                toDouble(segment, index, UPLOAD_RATE, KBITS_PER_MBIT), toLong(segment, index, UPLOAD_KIB, BYTES_PER_KIB));
+    }
+
+    private static Double toDouble(final HistorySegment segment, final int index, final int field, final double scale) {
+        final int value = segment.fieldAt(index, field);
+        return value != HistorySegment.MISSING ? value / scale : null;
+    }
+
+    private static Long toLong(final HistorySegment segment, final int index, final int field, final double scale) {
+        final int value = segment.fieldAt(index, field);
+        return value != HistorySegment.MISSING ? (long) (value * scale) : null;
+    }
+
+    private static final class PeriodAccumulator {
+        private final LocalDateTime periodStart;
+        private final long startMs;
+        private final long endMs;
+        private final Statistic download = new Statistic();
+        private final Statistic upload = new Statistic();
+        private final Statistic latency = new Statistic();
+        private long count;
+
+        PeriodAccumulator(final LocalDateTime periodStart, final long startMs, final long endMs) {
+            this.periodStart = periodStart;
+            this.startMs = startMs;
+            this.endMs = endMs;
+        }
+
+        void add(final HistorySegment segment, final int index) {
+            count++;
+            download.add(segment.fieldAt(index, DOWNLOAD_RATE));
+            upload.add(segment.fieldAt(index, UPLOAD_RATE));
+            latency.add(segment.fieldAt(index, LATENCY));
+        }
+
+        HistoryRollup toRollup() {
+            return new HistoryRollup(periodStart, count,
+                    download.average(KBITS_PER_MBIT), download.min(KBITS_PER_MBIT), download.max(KBITS_PER_MBIT),
+                    upload.average(KBITS_PER_MBIT), upload.min(KBITS_PER_MBIT), upload.max(KBITS_PER_MBIT),
+                    latency.average(MICROS_PER_MILLI), latency.max(MICROS_PER_MILLI));
+        }
+    }
+
+    // sum, minimum and maximum of the fixed-point values that are not missing
+    private static final class Statistic {
+        private long count;
+        private long sum;
+        private int min = Integer.MAX_VALUE;
+        private int max = HistorySegment.MISSING;
+
+        void add(final int value) {
+            if (value != HistorySegment.MISSING) {
+                count++;
+                sum = sum + value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+
+        Double average(final double scale) {
+            return count > 0 ? sum / (double) count / scale : null;
+        }
+
+        Double min(final double scale) {
+            return count > 0 ? min / scale : null;
+        }
+
+        Double max(final double scale) {
+            return count > 0 ? max / scale : null;
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.UnaryOperator;
+
+// a server failing HTTP/2 before any body bytes is retried over HTTP/1.1 and kept on it once that succeeds
+public final class Http2TransferEngine implements DownloadEngine, UploadEngine {
+    private static final Logger logger = LogManager.getLogger(Http2TransferEngine.class);
+    private static final int ERROR_STATUS = 400;
+    private final HttpClient client;
+    private final int bufferSize;
+    private final Set<String> http11Authorities = ConcurrentHashMap.newKeySet();
+
+    public Http2TransferEngine(final int bufferSize) {
+        this(SharedClientHolder.CLIENT, bufferSize);
+    }
+
+    Http2TransferEngine(final HttpClient client, final int bufferSize) {
+        if (client != null && bufferSize > 0) {
+            this.client = client;
+            this.bufferSize = bufferSize;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static HttpClient createClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public TransferTestResult download(final String urlString, final TransferDeadline deadline, final LongConsumer progress)
+            throws ServerRequestException {
+        if (urlString != null && deadline != null && progress != null) {
+            final URI uri = toUri(urlString);
+            final AtomicLong transferred = new AtomicLong();
+            final LongConsumer counted = counting(transferred, progress);
+            final long startTime = System.currentTimeMillis();
+            final HttpResponse<Long> response = send(uri, HttpRequest.Builder::GET, responseInfo ->
+                    responseInfo.statusCode() >= ERROR_STATUS
+                            ? HttpResponse.BodySubscribers.replacing(0L) : new ByteCountingBodySubscriber(deadline, counted), transferred);
+            return new TransferTestResult(response.body(), System.currentTimeMillis() - startTime);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public TransferTestResult upload(final String urlString, final TransferDeadline deadline, final UploadBody body,
+                                     final LongConsumer progress)
+            throws ServerRequestException {
+        if (urlString != null && deadline != null && body != null && progress != null) {
+            final URI uri = toUri(urlString);
+            final AtomicLong transferred = new AtomicLong();
+            final ChunkedBodyPublisher publisher = new ChunkedBodyPublisher(body, bufferSize, deadline, counting(transferred, progress));
+            final long startTime = System.currentTimeMillis();
+            send(uri, builder -> builder.POST(HttpRequest.BodyPublishers.fromPublisher(publisher)),
+                    HttpResponse.BodyHandlers.discarding(), transferred);
+            return new TransferTestResult(publisher.getBytesSent(), System.currentTimeMillis() - startTime);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // transferred counts the body bytes of the request; a failed HTTP/2 attempt is only repeated while it is still 0
+    private <T> HttpResponse<T> send(final URI uri, final UnaryOperator<HttpRequest.Builder> method,
+                                     final HttpResponse.BodyHandler<T> handler, final AtomicLong transferred)
+            throws ServerRequestException {
+        final String authority = uri.getAuthority();
+        try {
+            if (http11Authorities.contains(authority)) {
+                return checkStatus(sendOnce(uri, method, handler, HttpClient.Version.HTTP_1_1));
+            }
+            try {
+                return checkStatus(sendOnce(uri, method, handler, HttpClient.Version.HTTP_2));
+            } catch (IOException e) {
+                if (transferred.get() > 0 || !isNegotiationFailure(e)) {
+                    throw e;
+                }
+                logger.debug("HTTP/2 request to \"{}\" failed, falling back to HTTP/1.1: {}", authority, e.getMessage());
+                final HttpResponse<T> response = sendOnce(uri, method, handler, HttpClient.Version.HTTP_1_1);
+                http11Authorities.add(authority);
+                return checkStatus(response);
+            }
+        } catch (IOException e) {
+            throw new ServerRequestException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerRequestException(e);
+        }
+    }
+
+    private <T> HttpResponse<T> sendOnce(final URI uri, final UnaryOperator<HttpRequest.Builder> method,
+                                         final HttpResponse.BodyHandler<T> handler, final HttpClient.Version version)
+            throws IOException, InterruptedException {
+        final HttpRequest request = method.apply(HttpRequest.newBuilder(uri))
+                .version(version)
+                .header("User-Agent", AbstractHttpClient.USER_AGENT)
+                .header("Cache-Control", AbstractHttpClient.NO_CACHE)
+                .build();
+        return client.send(request, handler);
+    }
+
+    // Refused connections and timeouts fail the same way over HTTP/1.1, so they are no reason to fall back
+    private static boolean isNegotiationFailure(final IOException exception) {
+        return !(exception instanceof ConnectException) && !(exception instanceof HttpTimeoutException);
+    }
+
+    private static LongConsumer counting(final AtomicLong transferred, final LongConsumer progress) {
+        return bytes -> {
+            transferred.addAndGet(bytes);
+            progress.accept(bytes);
+        };
+    }
+
+    private static <T> HttpResponse<T> checkStatus(final HttpResponse<T> response) throws ServerRequestException {
+        if (response.statusCode() >= ERROR_STATUS) {
+            throw new ServerRequestException("Server returned HTTP response code: " + response.statusCode()
+                    + " for URL: " + response.uri());
+        }
+        return response;
+    }
+
+    private static URI toUri(final String urlString) throws ServerRequestException {
+        try {
+            return new URI(urlString);
+        } catch (URISyntaxException e) {
+            throw new ServerRequestException(e);
+        }
+    }
+
+    private static final class SharedClientHolder {
+        private static final HttpClient CLIENT = createClient();
+    }
+
+}
@@ -0,0 +1,269 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// a stale entry is still served when the server is unreachable or its body is rejected; bodies are cached once parsed
+public final class HttpCache {
+    private static final Logger logger = LogManager.getLogger(HttpCache.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_NAME_BYTES = 16;
+    private static final String GET = "GET";
+    private static final String SUFFIX = ".cache";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String STALE_ENTRY = "Using stale cache entry for {}: {}";
+    private static final String UNPARSABLE_ENTRY = "Ignoring unparsable cache entry for {}: {}";
+    private static final String UNWRITABLE_FILE = "Unable to write cache file {}: {}";
+    private final Path directory;
+
+    public HttpCache(final Path directory) {
+        if (directory != null) {
+            this.directory = directory;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public <T> T get(final String urlString, final Duration ttl, final BodyReader<T> reader)
+            throws ServerRequestException, ParsingException {
+        if (urlString != null && ttl != null && !ttl.isNegative() && reader != null) {
+            final Path file = directory.resolve(fileName(urlString));
+            CacheEntry cached = readEntry(file, urlString);
+            final long now = System.currentTimeMillis();
+            if (cached != null && now - cached.fetchedAt < ttl.toMillis()) {
+                try {
+                    return readBody(file, urlString, reader);
+                } catch (IOException | ParsingException e) {
+                    logger.debug(UNPARSABLE_ENTRY, urlString, e.getMessage());
+                    cached = null;
+                }
+            }
+            try {
+                return fetch(urlString, file, cached, now, reader);
+            } catch (IOException e) {
+                if (cached == null) {
+                    throw new ServerRequestException(e);
+                }
+                logger.warn(STALE_ENTRY, urlString, e.getMessage());
+            } catch (ParsingException e) {
+                if (cached == null) {
+                    throw e;
+                }
+                logger.warn(STALE_ENTRY, urlString, e.getMessage());
+            }
+            try {
+                return readBody(file, urlString, reader);
+            } catch (IOException e) {
+                throw new ServerRequestException(e);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // the body of an entry younger than the TTL, without any network access; null if there is none the reader accepts
+    public <T> T getFresh(final String urlString, final Duration ttl, final BodyReader<T> reader) {
+        if (urlString != null && ttl != null && !ttl.isNegative() && reader != null) {
+            final Path file = directory.resolve(fileName(urlString));
+            final CacheEntry cached = readEntry(file, urlString);
+            if (cached != null && System.currentTimeMillis() - cached.fetchedAt < ttl.toMillis()) {
+                try {
+                    return readBody(file, urlString, reader);
+                } catch (IOException | ParsingException e) {
+                    logger.debug(UNPARSABLE_ENTRY, urlString, e.getMessage());
+                }
+            }
+            return null;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static String fileName(final String urlString) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(urlString.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, FILE_NAME_BYTES) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // a 304 keeps the cached body, the validators of the cached entry are sent along
+    private static <T> T fetch(final String urlString, final Path file, final CacheEntry cached, final long now,
+                               final BodyReader<T> reader) throws IOException, ParsingException {
+        final HttpURLConnection conn = AbstractHttpClient.createConnection(new URL(urlString), GET);
+        if (cached != null && !cached.etag.isEmpty()) {
+            conn.setRequestProperty("If-None-Match", cached.etag);
+        }
+        if (cached != null && !cached.lastModified.isEmpty()) {
+            conn.setRequestProperty("If-Modified-Since", cached.lastModified);
+        }
+        final boolean notModified = cached != null && conn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+        final CacheEntry fetched = notModified ? new CacheEntry(urlString, now, cached.etag, cached.lastModified)
+                : new CacheEntry(urlString, now, headerOrEmpty(conn, ETAG), headerOrEmpty(conn, LAST_MODIFIED));
+        try (InputStream body = notModified ? openBody(file, urlString) : conn.getInputStream()) {
+            final Path temp = createTempFile(file);
+            return temp != null ? readThrough(body, temp, file, fetched, reader) : reader.read(body);
+        }
+    }
+
+    // the body is written to a temporary entry while it is parsed, which only replaces the cached one once the reader accepted it
+    private static <T> T readThrough(final InputStream body, final Path temp, final Path file, final CacheEntry entry,
+                                     final BodyReader<T> reader) throws IOException, ParsingException {
+        boolean committed = false;
+        try {
+            final T result;
+            try (InputStream tee = new TeeInputStream(body, openEntry(temp, entry), true)) {
+                // readers may close their stream when done, the rest of the body still belongs to the entry
+                result = reader.read(CloseShieldInputStream.wrap(tee));
+                IOUtils.consume(tee);
+            }
+            committed = commit(temp, file);
+            return result;
+        } finally {
+            if (!committed) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    private static String headerOrEmpty(final HttpURLConnection conn, final String name) {
+        final String value = conn.getHeaderField(name);
+        return value != null ? value : "";
+    }
+
+    // a missing, unreadable or foreign file is treated as a cache miss
+    private static CacheEntry readEntry(final Path file, final String urlString) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(IOUtils.buffer(Files.newInputStream(file)))) {
+            return readHeader(input, urlString);
+        } catch (IOException e) {
+            logger.debug("Ignoring unreadable cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static CacheEntry readHeader(final DataInputStream input, final String urlString) throws IOException {
+        if (input.readInt() != FORMAT_VERSION || !urlString.equals(input.readUTF())) {
+            return null;
+        }
+        return new CacheEntry(urlString, input.readLong(), input.readUTF(), input.readUTF());
+    }
+
+    private static <T> T readBody(final Path file, final String urlString, final BodyReader<T> reader)
+            throws IOException, ParsingException {
+        try (InputStream body = openBody(file, urlString)) {
+            return reader.read(body);
+        }
+    }
+
+    // the header is checked again, as the file may have been replaced since it was first read
+    private static InputStream openBody(final Path file, final String urlString) throws IOException {
+        final DataInputStream input = new DataInputStream(IOUtils.buffer(Files.newInputStream(file)));
+        try {
+            if (readHeader(input, urlString) == null) {
+                throw new IOException("Cache file replaced: " + file);
+            }
+            return new GZIPInputStream(input);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    private static OutputStream openEntry(final Path temp, final CacheEntry entry) throws IOException {
+        final DataOutputStream out = new DataOutputStream(IOUtils.buffer(Files.newOutputStream(temp)));
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(entry.url);
+            out.writeLong(entry.fetchedAt);
+            out.writeUTF(entry.etag);
+            out.writeUTF(entry.lastModified);
+            return new GZIPOutputStream(out);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    // without a writable cache directory the body is still parsed, just not cached
+    private static Path createTempFile(final Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            return Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        } catch (IOException e) {
+            logger.warn(UNWRITABLE_FILE, file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean commit(final Path temp, final Path file) {
+        try {
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn(UNWRITABLE_FILE, file, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(final Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            logger.debug("Unable to delete temporary cache file {}: {}", temp, e.getMessage());
+        }
+    }
+
+    private static final class CacheEntry {
+        private final String url;
+        private final long fetchedAt;
+        private final String etag;
+        private final String lastModified;
+
+        CacheEntry(final String url, final long fetchedAt, final String etag, final String lastModified) {
+            this.url = url;
+            this.fetchedAt = fetchedAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    // parses a response body as it is streamed, throwing for a body that must not be cached
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws IOException, ParsingException;
+    }
+
+}
@@ -1,42 +1,68 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.HttpRequestEvent;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
-import at.bernhardangerer.speedtestclient.util.Util;
 import org.apache.commons.io.IOUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.Objects;
+import java.util.function.LongConsumer;
 
 public final class HttpGetClient extends AbstractHttpClient {
     private static final String GET = "GET";
 
     public static TransferTestResult partialGetDownloadData(final String urlString, final long timeoutTime) throws ServerRequestException {
-        if (urlString != null) {
-            int bytesReceived = 0;
+        return partialGetDownloadData(urlString, timeoutTime, SpeedtestConfig.getDefault().getDownloadMaxBufferSize());
+    }
+
+    public static TransferTestResult partialGetDownloadData(final String urlString, final long timeoutTime, final int maxBufferSize)
+            throws ServerRequestException {
+        return partialGetDownloadData(urlString, timeoutTime, maxBufferSize, bytes -> {
+        });
+    }
+
+    public static TransferTestResult partialGetDownloadData(final String urlString, final long timeoutTime, final int maxBufferSize,
+                                                            final LongConsumer progress)
+            throws ServerRequestException {
+        return partialGetDownloadData(urlString, TransferDeadline.of(timeoutTime), maxBufferSize, progress);
+    }
+
+    public static TransferTestResult partialGetDownloadData(final String urlString, final TransferDeadline deadline,
+                                                            final int maxBufferSize, final LongConsumer progress)
+            throws ServerRequestException {
+        if (urlString != null && deadline != null && maxBufferSize > 0 && progress != null) {
+            long bytesReceived = 0;
+            boolean succeeded = false;
+            final HttpRequestEvent event = new HttpRequestEvent();
+            event.begin();
             try {
                 final HttpURLConnection conn = createConnection(new URL(urlString), GET);
                 final long startTime = System.currentTimeMillis();
                 try (InputStream is = conn.getInputStream()) {
-                    final byte[] buffer =
-                            new byte[Integer.parseInt(Objects.requireNonNull(Util.getConfigProperty("Download.maxBufferSize")))];
+                    final byte[] buffer = new byte[maxBufferSize];
                     int bytesRead = 1;
                     while (bytesRead > 0) {
-                        if (timeoutTime > 0 && System.currentTimeMillis() > timeoutTime) {
+                        if (deadline.isReached()) {
                             break;
                         }
                         bytesRead = is.read(buffer);
                         if (bytesRead > 0) {
                             bytesReceived = bytesReceived + bytesRead;
+                            progress.accept(bytesRead);
                         }
                     }
+                    succeeded = true;
                     return new TransferTestResult(bytesReceived, System.currentTimeMillis() - startTime);
                 }
             } catch (IOException e) {
                 throw new ServerRequestException(e);
+            } finally {
+                event.complete(GET, urlString, bytesReceived, succeeded);
             }
         } else {
             throw new IllegalArgumentException();
@@ -45,11 +71,31 @@ public final class HttpGetClient extends AbstractHttpClient {
 
     public static byte[] get(final String urlString) throws ServerRequestException {
         if (urlString != null) {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            boolean succeeded = false;
+            final HttpRequestEvent event = new HttpRequestEvent();
+            event.begin();
             try {
                 final HttpURLConnection conn = createConnection(new URL(urlString), GET);
                 try (InputStream is = conn.getInputStream()) {
-                    return IOUtils.toByteArray(is);
+                    IOUtils.copy(is, body);
                 }
+                succeeded = true;
+                return body.toByteArray();
+            } catch (IOException e) {
+                throw new ServerRequestException(e);
+            } finally {
+                event.complete(GET, urlString, body.size(), succeeded);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static InputStream openStream(final String urlString) throws ServerRequestException {
+        if (urlString != null) {
+            try {
+                return createConnection(new URL(urlString), GET).getInputStream();
             } catch (IOException e) {
                 throw new ServerRequestException(e);
             }
@@ -1,12 +1,12 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.HttpRequestEvent;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
-import at.bernhardangerer.speedtestclient.util.Util;
 import org.apache.commons.io.IOUtils;
 
 import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -14,8 +14,9 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
+import java.util.function.LongConsumer;
 
 public final class HttpPostClient extends AbstractHttpClient {
     public static final String CONTENT_LENGTH = "Content-Length";
@@ -26,38 +27,60 @@ public final class HttpPostClient extends AbstractHttpClient {
 
     public static TransferTestResult partialPostUploadData(final String urlString, final long timeoutTime, final String dataString)
             throws ServerRequestException {
-        if (urlString != null && dataString != null) {
-            final int maxBufferSize = Integer.parseInt(Objects.requireNonNull(Util.getConfigProperty("Upload.maxBufferSize")));
-            int bytesSent = 0;
-            try (InputStream is = new ByteArrayInputStream(dataString.getBytes())) {
+        return partialPostUploadData(urlString, timeoutTime, dataString, SpeedtestConfig.getDefault().getUploadMaxBufferSize());
+    }
+
+    public static TransferTestResult partialPostUploadData(final String urlString, final long timeoutTime, final String dataString,
+                                                           final int maxBufferSize)
+            throws ServerRequestException {
+        return partialPostUploadData(urlString, timeoutTime, dataString, maxBufferSize, bytes -> {
+        });
+    }
+
+    public static TransferTestResult partialPostUploadData(final String urlString, final long timeoutTime, final String dataString,
+                                                           final int maxBufferSize, final LongConsumer progress)
+            throws ServerRequestException {
+        final UploadBody body = dataString != null ? UploadBody.of(UploadPayload.wrap(dataString)) : null;
+        return partialPostUploadData(urlString, TransferDeadline.of(timeoutTime), body, maxBufferSize, progress);
+    }
+
+    // The body is streamed through a single reused chunk buffer, so memory use does not depend on the body length.
+    public static TransferTestResult partialPostUploadData(final String urlString, final TransferDeadline deadline,
+                                                           final UploadBody body, final int maxBufferSize, final LongConsumer progress)
+            throws ServerRequestException {
+        if (urlString != null && deadline != null && body != null && maxBufferSize > 0 && progress != null) {
+            long bytesSent = 0;
+            boolean succeeded = false;
+            final HttpRequestEvent event = new HttpRequestEvent();
+            event.begin();
+            try {
                 final HttpURLConnection conn = createConnection(new URL(urlString), POST);
                 conn.setChunkedStreamingMode(maxBufferSize);
                 conn.setDoOutput(true);
-                conn.setRequestProperty(CONTENT_LENGTH, Integer.toString(dataString.length()));
+                conn.setRequestProperty(CONTENT_LENGTH, Integer.toString(body.length()));
                 final long startTime = System.currentTimeMillis();
                 final DataOutputStream dos = new DataOutputStream(conn.getOutputStream());
 
-                int bytesAvailable = is.available();
-                int bufferSize = Math.min(bytesAvailable, maxBufferSize);
-                final byte[] buffer = new byte[bufferSize];
-                int bytesRead = 1;
-                while (bytesRead > 0) {
-                    if (timeoutTime > 0 && System.currentTimeMillis() > timeoutTime) {
+                final ByteBuffer buffer = ByteBuffer.allocate(Math.min(body.length(), maxBufferSize));
+                while (bytesSent < body.length()) {
+                    if (deadline.isReached()) {
                         break;
                     }
-                    dos.write(buffer, 0, bufferSize);
-                    bytesAvailable = is.available();
-                    bufferSize = Math.min(bytesAvailable, maxBufferSize);
-                    bytesRead = is.read(buffer, 0, bufferSize);
-                    if (bytesRead > 0) {
-                        bytesSent = bytesSent + bytesRead;
-                    }
+                    buffer.clear();
+                    body.read(bytesSent, buffer);
+                    final int bytesRead = buffer.position();
+                    dos.write(buffer.array(), 0, bytesRead);
+                    bytesSent = bytesSent + bytesRead;
+                    progress.accept(bytesRead);
                 }
                 dos.flush();
                 dos.close();
+                succeeded = true;
                 return new TransferTestResult(bytesSent, System.currentTimeMillis() - startTime);
             } catch (IOException e) {
                 throw new ServerRequestException(e);
+            } finally {
+                event.complete(POST, urlString, bytesSent, succeeded);
             }
         } else {
             throw new IllegalArgumentException();
@@ -67,6 +90,10 @@ public final class HttpPostClient extends AbstractHttpClient {
     @SuppressWarnings("checkstyle:NestedTryDepth")
     public static String postBodyWithSharedData(final String urlString, final String encodedBody) throws ServerRequestException {
         if (urlString != null && encodedBody != null) {
+            long bytesSent = 0;
+            boolean succeeded = false;
+            final HttpRequestEvent event = new HttpRequestEvent();
+            event.begin();
             try {
                 final HttpURLConnection conn = createConnection(new URL(urlString), POST);
                 conn.setDoOutput(true);
@@ -77,12 +104,17 @@ public final class HttpPostClient extends AbstractHttpClient {
                      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
                     writer.write(encodedBody);
                     writer.flush();
+                    bytesSent = encodedBody.length();
                     try (InputStream is = conn.getInputStream()) {
-                        return IOUtils.toString(is, StandardCharsets.UTF_8);
+                        final String response = IOUtils.toString(is, StandardCharsets.UTF_8);
+                        succeeded = true;
+                        return response;
                     }
                 }
             } catch (IOException e) {
                 throw new ServerRequestException(e);
+            } finally {
+                event.complete(POST, urlString, bytesSent, succeeded);
             }
         } else {
             throw new IllegalArgumentException();
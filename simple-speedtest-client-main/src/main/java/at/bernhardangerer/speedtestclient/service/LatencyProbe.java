@@ -0,0 +1,136 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.HttpRequestEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// DNS and the TCP connect are timed separately, so neither ends up in the HTTP round-trip time
+public final class LatencyProbe implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final String GET = "GET";
+    private final InetSocketAddress address;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final List<Long> connectTimesInNanos = new ArrayList<>();
+    private SocketChannel channel;
+
+    public LatencyProbe(final URL url) throws ServerRequestException {
+        if (url != null) {
+            final int port = url.getPort() > 0 ? url.getPort() : url.getDefaultPort();
+            address = new InetSocketAddress(url.getHost(), port);
+            if (address.isUnresolved()) {
+                throw new ServerRequestException("Unable to resolve host " + url.getHost());
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // returns the request/response round trip in nanoseconds or -1 if the body differs from the expected one
+    public long probe(final URL url, final byte[] expectedBody) throws ServerRequestException {
+        if (url != null && expectedBody != null) {
+            final boolean reused = channel != null;
+            try {
+                return exchange(url, expectedBody);
+            } catch (IOException e) {
+                closeChannel();
+                if (!reused) {
+                    throw new ServerRequestException(e);
+                }
+            }
+            // the server dropped the idle connection, so retry once on a fresh one
+            try {
+                return exchange(url, expectedBody);
+            } catch (IOException e) {
+                closeChannel();
+                throw new ServerRequestException(e);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public List<Long> getConnectTimesInNanos() {
+        return List.copyOf(connectTimesInNanos);
+    }
+
+    @Override
+    public void close() {
+        closeChannel();
+    }
+
+    private long exchange(final URL url, final byte[] expectedBody) throws IOException {
+        if (channel == null) {
+            connect();
+        }
+        final ByteBuffer request = ByteBuffer.wrap(NioDownloadEngine.createRequest(url, true));
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        final long startTime = System.nanoTime();
+        final long contentLength;
+        final long roundTrip;
+        boolean succeeded = false;
+        try {
+            channel.write(request);
+            contentLength = NioDownloadEngine.readHeader(channel, buffer);
+            body.write(buffer.array(), buffer.position(), buffer.remaining());
+            while (contentLength < 0 || body.size() < contentLength) {
+                buffer.clear();
+                final int bytesRead = channel.read(buffer);
+                if (bytesRead < 0) {
+                    if (contentLength >= 0) {
+                        throw new IOException("Connection closed before end of response body");
+                    }
+                    break;
+                }
+                body.write(buffer.array(), 0, bytesRead);
+            }
+            roundTrip = System.nanoTime() - startTime;
+            succeeded = true;
+        } finally {
+            event.complete(GET, url.toString(), body.size(), succeeded);
+        }
+        if (contentLength < 0) {
+            // without a content length the body ends with the connection
+            closeChannel();
+        }
+        return Arrays.equals(body.toByteArray(), expectedBody) ? roundTrip : -1;
+    }
+
+    private void connect() throws IOException {
+        final SocketChannel opened = SocketChannel.open();
+        try {
+            opened.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            final long startTime = System.nanoTime();
+            opened.connect(address);
+            connectTimesInNanos.add(System.nanoTime() - startTime);
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        channel = opened;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+            channel = null;
+        }
+    }
+
+}
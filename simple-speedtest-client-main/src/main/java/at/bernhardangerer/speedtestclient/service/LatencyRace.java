@@ -0,0 +1,219 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.util.LatencyHistogram;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ends once one server's 95% t-interval lies below the lower bound of every other candidate
+public final class LatencyRace {
+    private static final Logger logger = LogManager.getLogger(LatencyRace.class);
+    // two-sided 95% quantiles of the Student-t distribution for 1 to 30 degrees of freedom
+    private static final double[] T_95 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042,
+    };
+    private static final double Z_95 = 1.96;
+    private static final long NOT_STARTED = -1;
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private final List<Lane> lanes = new ArrayList<>();
+    private final int minSamples;
+    private final long startTime = System.nanoTime();
+    private final AtomicInteger running = new AtomicInteger();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private final LatencyListener listener;
+
+    private LatencyRace(final int minSamples, final LatencyListener listener) {
+        this.minSamples = minSamples;
+        this.listener = listener;
+    }
+
+    public static Map<Server, LatencyTestResult> run(final Map<Server, Double> serverMap, final SpeedtestConfig config) {
+        return run(serverMap, config, LatencyListener.NONE);
+    }
+
+    public static Map<Server, LatencyTestResult> run(final Map<Server, Double> serverMap, final SpeedtestConfig config,
+                                                     final LatencyListener listener) {
+        if (serverMap != null && config != null && listener != null) {
+            final LatencyRace race = new LatencyRace(config.getLatencyRaceMinSamples(), listener);
+            for (final Entry<Server, Double> entry : serverMap.entrySet()) {
+                if (entry != null && entry.getKey() != null) {
+                    race.lanes.add(new Lane(entry.getKey(), entry.getValue()));
+                }
+            }
+            race.running.set(race.lanes.size());
+            if (race.lanes.isEmpty()) {
+                race.finished.complete(null);
+            }
+            final ExecutorService executor = TransferExecutors.newVirtualThreadPerTaskExecutor();
+            try {
+                for (final Lane lane : race.lanes) {
+                    executor.execute(() -> race.runLane(lane, config.getLatencyTestsPerServer()));
+                }
+                race.finished.completeOnTimeout(null, config.getLatencyRaceTimeoutInMs(), TimeUnit.MILLISECONDS).join();
+            } finally {
+                // interrupts blocked probes, which closes their channels
+                executor.shutdownNow();
+            }
+            return race.results();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private void runLane(final Lane lane, final int limit) {
+        try {
+            final LatencyTestResult result = LatencyService.probeLatency(lane.server.getUrl(), limit, lane.distance,
+                    () -> markConnecting(lane), () -> markCounting(lane), roundTrip -> {
+                        listener.onRoundTrip(lane.server, roundTrip);
+                        return addRoundTrip(lane, roundTrip);
+                    });
+            synchronized (this) {
+                lane.result = result;
+            }
+        } catch (ServerRequestException | MissingResultException e) {
+            if (!finished.isDone()) {
+                logger.error(e.getMessage(), e);
+            }
+        } finally {
+            synchronized (this) {
+                lane.done = true;
+            }
+            if (running.decrementAndGet() == 0) {
+                finished.complete(null);
+            }
+        }
+    }
+
+    private synchronized void markConnecting(final Lane lane) {
+        lane.connectTime = System.nanoTime();
+    }
+
+    private synchronized void markCounting(final Lane lane) {
+        lane.lastEventTime = System.nanoTime();
+    }
+
+    private synchronized boolean addRoundTrip(final Lane lane, final long roundTrip) {
+        final long now = System.nanoTime();
+        lane.add(roundTrip, now);
+        if (!finished.isDone() && isDecided(now)) {
+            finished.complete(null);
+        }
+        return !finished.isDone();
+    }
+
+    private boolean isDecided(final long now) {
+        Lane leader = null;
+        for (final Lane lane : lanes) {
+            if (lane.roundTrips.getCount() >= minSamples && (leader == null || lane.mean() < leader.mean())) {
+                leader = lane;
+            }
+        }
+        if (leader == null) {
+            return false;
+        }
+        final double upperBound = leader.mean() + leader.margin();
+        for (final Lane lane : lanes) {
+            if (lane != leader && lowerBound(lane, now) <= upperBound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a lane still waiting for its next counted response cannot be faster than the time it has been waiting;
+    // before that, the TCP connect and the warm-up exchange take at least one round trip each, DNS is not counted
+    private double lowerBound(final Lane lane, final long now) {
+        if (lane.roundTrips.getCount() >= minSamples) {
+            return lane.mean() - lane.margin();
+        }
+        final double pending;
+        if (lane.done) {
+            pending = Double.POSITIVE_INFINITY;
+        } else if (lane.lastEventTime != NOT_STARTED) {
+            pending = now - lane.lastEventTime;
+        } else if (lane.connectTime != NOT_STARTED) {
+            pending = (now - lane.connectTime) / 2d;
+        } else {
+            pending = 0;
+        }
+        return lane.roundTrips.getCount() > 0 ? Math.min(pending, lane.roundTrips.getMin()) : pending;
+    }
+
+    static double quantile95(final long degreesOfFreedom) {
+        if (degreesOfFreedom > 0) {
+            return degreesOfFreedom <= T_95.length ? T_95[(int) degreesOfFreedom - 1] : Z_95;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private synchronized Map<Server, LatencyTestResult> results() {
+        final Map<Server, LatencyTestResult> results = new HashMap<>();
+        for (final Lane lane : lanes) {
+            if (lane.result != null) {
+                results.put(lane.server, lane.result);
+            } else if (lane.roundTrips.getCount() > 0) {
+                final double latency = lane.mean() / NANOS_PER_MILLI;
+                final LatencyTestResult result = new LatencyTestResult(latency, lane.distance);
+                result.setHttpRttInMs(latency);
+                lane.roundTrips.applyTo(result);
+                results.put(lane.server, result);
+            } else {
+                logger.warn("No latency response from {} within {} ms", lane.server.getUrl(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            }
+        }
+        return results;
+    }
+
+    private static final class Lane {
+        private final Server server;
+        private final Double distance;
+        private final LatencyHistogram roundTrips = new LatencyHistogram();
+        private long connectTime = NOT_STARTED;
+        private long lastEventTime = NOT_STARTED;
+        private boolean done;
+        private LatencyTestResult result;
+
+        Lane(final Server server, final Double distance) {
+            this.server = server;
+            this.distance = distance;
+        }
+
+        void add(final long roundTrip, final long now) {
+            roundTrips.recordValue(roundTrip);
+            lastEventTime = now;
+        }
+
+        double mean() {
+            return roundTrips.getMean();
+        }
+
+        // half width of the confidence interval of the mean, unbounded for a single sample
+        double margin() {
+            final long count = roundTrips.getCount();
+            if (count < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return quantile95(count - 1) * roundTrips.getStandardDeviation() / Math.sqrt(count);
+        }
+    }
+
+}
@@ -1,26 +1,31 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.LatencyTestEvent;
+import at.bernhardangerer.speedtestclient.metrics.SpeedtestMetrics;
 import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
 import at.bernhardangerer.speedtestclient.model.Server;
-import at.bernhardangerer.speedtestclient.util.Util;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import at.bernhardangerer.speedtestclient.util.LatencyHistogram;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.function.LongPredicate;
 
 public final class LatencyService {
-    private static final Logger logger = LogManager.getLogger(LatencyService.class);
-    private static final String TEST_FILE = "/latency.txt?x=";
-    private static final String EXPECTED_BODY = "test=test\n";
+    static final String TEST_FILE = "/latency.txt?x=";
+    static final String EXPECTED_BODY = "test=test\n";
+    private static final String HTTP = "http";
+    private static final double NANOS_PER_MILLI = 1_000_000d;
 
     private LatencyService() {
     }
@@ -28,6 +33,8 @@ public final class LatencyService {
     public static List<Long> testLatency(final String serverUrl, final int limit) throws ServerRequestException {
         if (serverUrl != null && limit > 0) {
             final List<Long> latencies = new ArrayList<>();
+            final LatencyTestEvent event = new LatencyTestEvent();
+            event.begin();
             for (int iter = 0; iter < limit; iter++) {
                 final String testUrl = serverUrl + TEST_FILE + System.currentTimeMillis();
                 final long startTimestamp = System.currentTimeMillis();
@@ -37,26 +44,104 @@ public final class LatencyService {
                     latencies.add(totalTime / 2);
                 }
             }
+            event.complete(serverUrl, latencies.size(), limit - latencies.size());
             return latencies;
         } else {
             throw new IllegalArgumentException();
         }
     }
 
-    public static Map<Server, LatencyTestResult> findServerLatencies(final Map<Double, Server> serverMap) throws MissingResultException {
-        if (serverMap != null && !serverMap.isEmpty()) {
-            final int testsPerServer = Integer.parseInt(Objects.requireNonNull(Util.getConfigProperty("Latency.testsPerServer.maxNumber")));
-            final Map<Server, LatencyTestResult> results = new HashMap<>();
-            for (final Entry<Double, Server> entry : serverMap.entrySet()) {
-                if (entry != null) {
-                    try {
-                        results.put(entry.getValue(), new LatencyTestResult(calculateAverage(
-                                testLatency(entry.getValue().getUrl(), testsPerServer)), entry.getKey()));
-                    } catch (ServerRequestException | MissingResultException e) {
-                        logger.error(e.getMessage(), e);
+    public static LatencyTestResult probeLatency(final String serverUrl, final int limit, final Double distance)
+            throws ServerRequestException, MissingResultException {
+        return probeLatency(serverUrl, limit, distance, () -> {
+        }, () -> {
+        }, roundTrip -> true);
+    }
+
+    // onRoundTrip receives every valid round trip in nanoseconds and returns false to stop probing early
+    // onConnecting runs once the host is resolved, onCounting right before the first request whose round trip is counted
+    public static LatencyTestResult probeLatency(final String serverUrl, final int limit, final Double distance,
+                                                 final Runnable onConnecting, final Runnable onCounting,
+                                                 final LongPredicate onRoundTrip)
+            throws ServerRequestException, MissingResultException {
+        if (serverUrl != null && limit > 0 && onConnecting != null && onCounting != null && onRoundTrip != null) {
+            final URL url = toUrl(serverUrl + TEST_FILE);
+            final String server = url.getAuthority();
+            final SpeedtestMetrics metrics = SpeedtestMetrics.shared();
+            final byte[] expectedBody = EXPECTED_BODY.getBytes(StandardCharsets.UTF_8);
+            final LatencyHistogram roundTrips = new LatencyHistogram();
+            final List<Long> connectTimes = new ArrayList<>();
+            final LatencyTestEvent event = new LatencyTestEvent();
+            event.begin();
+            if (isPlainHttp(url)) {
+                try (LatencyProbe probe = new LatencyProbe(url)) {
+                    onConnecting.run();
+                    // the first exchange only warms up the connection and is not counted
+                    probe.probe(toUrl(serverUrl + TEST_FILE + System.nanoTime()), expectedBody);
+                    onCounting.run();
+                    for (int iter = 0; iter < limit; iter++) {
+                        final long roundTrip = probe.probe(toUrl(serverUrl + TEST_FILE + System.nanoTime()), expectedBody);
+                        if (roundTrip >= 0) {
+                            roundTrips.recordValue(roundTrip);
+                            metrics.recordRoundTrip(server, roundTrip);
+                            if (!onRoundTrip.test(roundTrip)) {
+                                break;
+                            }
+                        } else {
+                            roundTrips.recordLoss();
+                            metrics.recordLostProbe(server);
+                        }
+                    }
+                    connectTimes.addAll(probe.getConnectTimesInNanos());
+                }
+            } else {
+                onConnecting.run();
+                onCounting.run();
+                for (int iter = 0; iter < limit; iter++) {
+                    final long startTime = System.nanoTime();
+                    final byte[] bytes = HttpGetClient.get(serverUrl + TEST_FILE + System.nanoTime());
+                    final long roundTrip = System.nanoTime() - startTime;
+                    if (bytes != null && Arrays.equals(bytes, expectedBody)) {
+                        roundTrips.recordValue(roundTrip);
+                        metrics.recordRoundTrip(server, roundTrip);
+                        if (!onRoundTrip.test(roundTrip)) {
+                            break;
+                        }
+                    } else {
+                        roundTrips.recordLoss();
+                        metrics.recordLostProbe(server);
                     }
                 }
             }
+            event.complete(serverUrl, roundTrips.getCount(), roundTrips.getLossCount());
+            if (roundTrips.getCount() == 0) {
+                throw new MissingResultException("No valid latency response from " + serverUrl);
+            }
+            final double httpRtt = roundTrips.getMean() / NANOS_PER_MILLI;
+            final LatencyTestResult result = new LatencyTestResult(httpRtt, distance);
+            result.setConnectRttInMs(connectTimes.isEmpty() ? null : calculateAverage(connectTimes) / NANOS_PER_MILLI);
+            result.setHttpRttInMs(httpRtt);
+            roundTrips.applyTo(result);
+            return result;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static Map<Server, LatencyTestResult> findServerLatencies(final Map<Server, Double> serverMap) throws MissingResultException {
+        return findServerLatencies(serverMap, SpeedtestConfig.getDefault());
+    }
+
+    public static Map<Server, LatencyTestResult> findServerLatencies(final Map<Server, Double> serverMap, final SpeedtestConfig config)
+            throws MissingResultException {
+        return findServerLatencies(serverMap, config, LatencyListener.NONE);
+    }
+
+    public static Map<Server, LatencyTestResult> findServerLatencies(final Map<Server, Double> serverMap, final SpeedtestConfig config,
+                                                                     final LatencyListener listener)
+            throws MissingResultException {
+        if (serverMap != null && !serverMap.isEmpty() && config != null && listener != null) {
+            final Map<Server, LatencyTestResult> results = LatencyRace.run(serverMap, config, listener);
             if (!results.isEmpty()) {
                 return results;
             } else {
@@ -67,9 +152,20 @@ public final class LatencyService {
         }
     }
 
-    public static Map.Entry<Server, LatencyTestResult> getFastestServer(final Map<Double, Server> serverMap) throws MissingResultException {
-        if (serverMap != null && !serverMap.isEmpty()) {
-            return findServerLatencies(serverMap).entrySet().stream()
+    public static Map.Entry<Server, LatencyTestResult> getFastestServer(final Map<Server, Double> serverMap) throws MissingResultException {
+        return getFastestServer(serverMap, SpeedtestConfig.getDefault());
+    }
+
+    public static Map.Entry<Server, LatencyTestResult> getFastestServer(final Map<Server, Double> serverMap, final SpeedtestConfig config)
+            throws MissingResultException {
+        return getFastestServer(serverMap, config, LatencyListener.NONE);
+    }
+
+    public static Map.Entry<Server, LatencyTestResult> getFastestServer(final Map<Server, Double> serverMap, final SpeedtestConfig config,
+                                                                        final LatencyListener listener)
+            throws MissingResultException {
+        if (serverMap != null && !serverMap.isEmpty() && config != null && listener != null) {
+            return findServerLatencies(serverMap, config, listener).entrySet().stream()
                     .min(Comparator.comparing(entry -> entry.getValue().getLatency()))
                     .orElseThrow(MissingResultException::new);
         } else {
@@ -95,4 +191,17 @@ public final class LatencyService {
             throw new IllegalArgumentException();
         }
     }
+
+    // LatencyProbe only speaks plaintext HTTP/1.1, every other scheme goes through HttpGetClient
+    static boolean isPlainHttp(final URL url) {
+        return HTTP.equalsIgnoreCase(url.getProtocol());
+    }
+
+    static URL toUrl(final String urlString) throws ServerRequestException {
+        try {
+            return new URL(urlString);
+        } catch (MalformedURLException e) {
+            throw new ServerRequestException(e);
+        }
+    }
 }
@@ -0,0 +1,162 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.ResponsivenessResult;
+import at.bernhardangerer.speedtestclient.util.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// responsiveness is reported in round trips per minute at the median loaded round-trip time
+public final class LoadedLatencyMonitor implements Closeable {
+    private static final Logger logger = LogManager.getLogger(LoadedLatencyMonitor.class);
+    private static final double MILLIS_PER_MINUTE = 60_000d;
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final double MEDIAN = 50d;
+    private static final long JOIN_TIMEOUT_MS = 1000L;
+    private final String serverUrl;
+    private final URL url;
+    private final long intervalInMs;
+    private final LatencyHistogram loaded = new LatencyHistogram();
+    private final LongConsumer listener;
+    private final Thread thread;
+    private LatencyHistogram phase;
+
+    private LoadedLatencyMonitor(final String serverUrl, final long intervalInMs, final LongConsumer listener)
+            throws ServerRequestException {
+        this.serverUrl = serverUrl;
+        this.url = LatencyService.toUrl(serverUrl + LatencyService.TEST_FILE);
+        this.intervalInMs = intervalInMs;
+        this.listener = listener;
+        this.thread = new Thread(this::run, "speedtest-loaded-latency");
+        this.thread.setDaemon(true);
+    }
+
+    public static LoadedLatencyMonitor start(final String serverUrl, final long intervalInMs) throws ServerRequestException {
+        return start(serverUrl, intervalInMs, roundTrip -> {
+        });
+    }
+
+    // the listener sees every valid loaded round trip in nanoseconds on the probing thread
+    public static LoadedLatencyMonitor start(final String serverUrl, final long intervalInMs, final LongConsumer listener)
+            throws ServerRequestException {
+        if (serverUrl != null && intervalInMs > 0 && listener != null) {
+            final LoadedLatencyMonitor monitor = new LoadedLatencyMonitor(serverUrl, intervalInMs, listener);
+            monitor.thread.start();
+            return monitor;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public synchronized void beginPhase() {
+        phase = new LatencyHistogram();
+    }
+
+    // returns the loaded latency of the phase or null if no probe completed
+    public synchronized LatencyTestResult endPhase() {
+        final LatencyHistogram ended = phase;
+        phase = null;
+        if (ended == null || ended.getCount() == 0 && ended.getLossCount() == 0) {
+            return null;
+        }
+        final LatencyTestResult result = new LatencyTestResult();
+        if (ended.getCount() > 0) {
+            result.setLatency(ended.getMean() / NANOS_PER_MILLI);
+            result.setHttpRttInMs(result.getLatency());
+        }
+        ended.applyTo(result);
+        return result;
+    }
+
+    public synchronized void applyTo(final ResponsivenessResult result) {
+        if (result != null) {
+            if (loaded.getCount() > 0) {
+                result.setRpm(MILLIS_PER_MINUTE / (loaded.getValueAtPercentile(MEDIAN) / NANOS_PER_MILLI));
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            thread.join(JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        final byte[] expectedBody = LatencyService.EXPECTED_BODY.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (LatencyService.isPlainHttp(url)) {
+                try (LatencyProbe probe = new LatencyProbe(url)) {
+                    probeWhileRunning(() -> probe.probe(LatencyService.toUrl(url.toString() + System.nanoTime()), expectedBody));
+                }
+            } else {
+                probeWhileRunning(() -> probeWithHttpGet(expectedBody));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ServerRequestException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    private void probeWhileRunning(final Probe probe) throws InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (isPhaseActive()) {
+                try {
+                    addRoundTrip(probe.roundTrip());
+                } catch (ServerRequestException e) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        logger.debug("Loaded latency probe to {} failed: {}", serverUrl, e.getMessage());
+                        addRoundTrip(-1);
+                    }
+                }
+            }
+            Thread.sleep(intervalInMs);
+        }
+    }
+
+    private long probeWithHttpGet(final byte[] expectedBody) throws ServerRequestException {
+        final long startTime = System.nanoTime();
+        final byte[] bytes = HttpGetClient.get(url.toString() + System.nanoTime());
+        final long roundTrip = System.nanoTime() - startTime;
+        return bytes != null && Arrays.equals(bytes, expectedBody) ? roundTrip : -1;
+    }
+
+    private synchronized boolean isPhaseActive() {
+        return phase != null;
+    }
+
+    private synchronized void addRoundTrip(final long roundTrip) {
+        if (phase == null) {
+            return;
+        }
+        if (roundTrip >= 0) {
+            phase.recordValue(roundTrip);
+            loaded.recordValue(roundTrip);
+            listener.accept(roundTrip);
+        } else {
+            phase.recordLoss();
+            loaded.recordLoss();
+        }
+    }
+
+    // returns the round trip in nanoseconds or -1 for an invalid response
+    @FunctionalInterface
+    private interface Probe {
+        long roundTrip() throws ServerRequestException;
+    }
+
+}
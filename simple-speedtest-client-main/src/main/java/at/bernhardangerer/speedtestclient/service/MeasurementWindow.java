@@ -0,0 +1,197 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import at.bernhardangerer.speedtestclient.util.ThroughputStatistics;
+import at.bernhardangerer.speedtestclient.util.Util;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+// leaves out handshake and slow-start, either by a per-connection warmup or a threshold of the stable rate
+public final class MeasurementWindow {
+    private static final double PERCENT = 100.0;
+    private static final double BYTES_PER_MEGABIT_MILLISECOND = 125.0;
+    private final MeasurementWindowMode mode;
+    private final long warmupInNanos;
+    private final double threshold;
+    private final boolean reusesConnections;
+    private final Queue<ConnectionWindow> connections = new ConcurrentLinkedQueue<>();
+    private final Queue<ConnectionWindow> idleConnections = new ConcurrentLinkedQueue<>();
+
+    public MeasurementWindow(final MeasurementWindowMode mode, final long warmupInMs, final int thresholdPercent) {
+        this(mode, warmupInMs, thresholdPercent, true);
+    }
+
+    public MeasurementWindow(final MeasurementWindowMode mode, final long warmupInMs, final int thresholdPercent,
+                             final boolean reusesConnections) {
+        if (mode != null && warmupInMs >= 0 && thresholdPercent > 0 && thresholdPercent <= PERCENT) {
+            this.mode = mode;
+            this.warmupInNanos = TimeUnit.MILLISECONDS.toNanos(warmupInMs);
+            this.threshold = thresholdPercent / PERCENT;
+            this.reusesConnections = reusesConnections;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static MeasurementWindow create(final SpeedtestConfig config, final boolean reusesConnections) {
+        if (config != null) {
+            return new MeasurementWindow(config.getWindowMode(), config.getWindowWarmupInMs(), config.getWindowThresholdPercent(),
+                    reusesConnections);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // Hands the task its windowed progress consumer; only needed in WARMUP mode. Like a keep-alive connection, the window
+    // of a finished task is continued by the next task without another warmup, unless the engine connects for every task.
+    public Callable<TransferTestResult> track(final LongConsumer progress,
+                                              final Function<LongConsumer, Callable<TransferTestResult>> task) {
+        if (progress != null && task != null) {
+            if (mode != MeasurementWindowMode.WARMUP) {
+                return task.apply(progress);
+            }
+            final TaskWindow taskWindow = new TaskWindow(progress);
+            final Callable<TransferTestResult> callable = task.apply(taskWindow);
+            return () -> {
+                try {
+                    return callable.call();
+                } finally {
+                    taskWindow.release();
+                }
+            };
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public MeasurementWindowMode getMode() {
+        return mode;
+    }
+
+    // Expects the raw figures, samples and stream count to be set already.
+    public void applyTo(final TransferTestResult result) {
+        if (result != null) {
+            if (mode == MeasurementWindowMode.WARMUP) {
+                applyWarmup(result);
+            } else if (mode == MeasurementWindowMode.THRESHOLD) {
+                applyThreshold(result);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private void applyWarmup(final TransferTestResult result) {
+        long bytes = 0;
+        long nanos = 0;
+        for (final ConnectionWindow connection : connections) {
+            bytes += connection.getWindowedBytes();
+            nanos += connection.getWindowedNanos();
+        }
+        final int streams = result.getStreams() != null ? result.getStreams() : 1;
+        final long durationInMs = TimeUnit.NANOSECONDS.toMillis(nanos / streams);
+        setWindowed(result, bytes, durationInMs);
+    }
+
+    private void applyThreshold(final TransferTestResult result) {
+        final List<Double> samples = result.getSamplesInMbps();
+        if (samples == null || samples.isEmpty() || result.getSampleIntervalInMs() == null) {
+            return;
+        }
+        final double[] values = samples.stream().mapToDouble(Double::doubleValue).toArray();
+        final double eventualRate = ThroughputStatistics.stableRate(values);
+        int start = 0;
+        while (start < values.length - 1 && values[start] < eventualRate * threshold) {
+            start++;
+        }
+        double sum = 0;
+        for (int index = start; index < values.length; index++) {
+            sum += values[index];
+        }
+        final long durationInMs = (values.length - start) * result.getSampleIntervalInMs();
+        setWindowed(result, Math.round(sum * result.getSampleIntervalInMs() * BYTES_PER_MEGABIT_MILLISECOND), durationInMs);
+        result.setWindowStartInMs(start * result.getSampleIntervalInMs());
+    }
+
+    private void setWindowed(final TransferTestResult result, final long bytes, final long durationInMs) {
+        result.setWindowMode(mode);
+        result.setWindowedBytes(bytes);
+        result.setWindowedDurationInMs(durationInMs);
+        result.setWindowedRateInMbps(durationInMs > 0 ? Util.calculateMbps(bytes, durationInMs) : 0.0);
+    }
+
+    private ConnectionWindow acquire() {
+        final ConnectionWindow idle = reusesConnections ? idleConnections.poll() : null;
+        if (idle != null) {
+            return idle;
+        }
+        final ConnectionWindow connection = new ConnectionWindow(warmupInNanos);
+        connections.add(connection);
+        return connection;
+    }
+
+    // The connection window is only taken on the first byte, so a task waiting for its start holds none.
+    private final class TaskWindow implements LongConsumer {
+        private final LongConsumer progress;
+        private ConnectionWindow connection;
+
+        TaskWindow(final LongConsumer progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(final long value) {
+            if (connection == null) {
+                connection = acquire();
+            }
+            connection.accept(value);
+            progress.accept(value);
+        }
+
+        void release() {
+            if (connection != null && reusesConnections) {
+                idleConnections.offer(connection);
+            }
+        }
+    }
+
+    // Written by one transfer task at a time, handed on through the idle queue and read after the phase has completed.
+    private static final class ConnectionWindow implements LongConsumer {
+        private final long warmupInNanos;
+        private long windowStartNanos;
+        private long lastByteNanos;
+        private long windowedBytes;
+
+        ConnectionWindow(final long warmupInNanos) {
+            this.warmupInNanos = warmupInNanos;
+        }
+
+        @Override
+        public void accept(final long value) {
+            final long now = System.nanoTime();
+            if (windowStartNanos == 0) {
+                windowStartNanos = now + warmupInNanos;
+            } else if (now > windowStartNanos) {
+                windowedBytes += value;
+                lastByteNanos = now;
+            }
+        }
+
+        long getWindowedBytes() {
+            return windowedBytes;
+        }
+
+        long getWindowedNanos() {
+            return lastByteNanos > windowStartNanos ? lastByteNanos - windowStartNanos : 0L;
+        }
+    }
+
+}
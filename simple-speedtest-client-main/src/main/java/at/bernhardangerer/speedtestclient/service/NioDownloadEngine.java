@@ -0,0 +1,187 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongConsumer;
+
+// the body is counted in a pooled direct buffer and never copied onto the heap; non-http URLs use HttpGetClient
+public final class NioDownloadEngine extends AbstractHttpClient implements DownloadEngine {
+    private static final String HTTP = "http";
+    private static final String CRLF = "\r\n";
+    private static final byte[] HEADER_END = CRLF.repeat(2).getBytes(StandardCharsets.US_ASCII);
+    private static final String CONTENT_LENGTH = "content-length:";
+    private static final String TRANSFER_ENCODING = "transfer-encoding:";
+    private static final String CHUNKED = "chunked";
+    private static final int MIN_BUFFER_SIZE = 8192;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_MULT_CHOICE = 300;
+    private final int bufferSize;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public NioDownloadEngine(final int bufferSize) {
+        if (bufferSize > 0) {
+            this.bufferSize = Math.max(bufferSize, MIN_BUFFER_SIZE);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public TransferTestResult download(final String urlString, final TransferDeadline deadline, final LongConsumer progress)
+            throws ServerRequestException {
+        if (urlString != null && deadline != null && progress != null) {
+            try {
+                final URL url = new URL(urlString);
+                if (!HTTP.equalsIgnoreCase(url.getProtocol())) {
+                    return HttpGetClient.partialGetDownloadData(urlString, deadline, bufferSize, progress);
+                }
+                final ByteBuffer buffer = acquireBuffer();
+                try {
+                    return transfer(url, deadline, buffer, progress);
+                } catch (ChunkedResponseException e) {
+                    // nothing has been counted yet, HttpURLConnection decodes the chunk framing
+                    return HttpGetClient.partialGetDownloadData(urlString, deadline, bufferSize, progress);
+                } finally {
+                    buffers.offer(buffer);
+                }
+            } catch (IOException e) {
+                throw new ServerRequestException(e);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private TransferTestResult transfer(final URL url, final TransferDeadline deadline, final ByteBuffer buffer,
+                                        final LongConsumer progress)
+            throws IOException {
+        final int port = url.getPort() > 0 ? url.getPort() : url.getDefaultPort();
+        final long startTime = System.currentTimeMillis();
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(url.getHost(), port))) {
+            channel.write(ByteBuffer.wrap(createRequest(url)));
+            final long contentLength = readHeader(channel, buffer);
+            long bytesReceived = buffer.remaining();
+            progress.accept(bytesReceived);
+            while (contentLength < 0 || bytesReceived < contentLength) {
+                if (deadline.isReached()) {
+                    break;
+                }
+                buffer.clear();
+                final int bytesRead = channel.read(buffer);
+                if (bytesRead < 0) {
+                    break;
+                }
+                bytesReceived = bytesReceived + bytesRead;
+                progress.accept(bytesRead);
+            }
+            return new TransferTestResult(bytesReceived, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    // every download opens its own connection
+    @Override
+    public boolean reusesConnections() {
+        return false;
+    }
+
+    static byte[] createRequest(final URL url) {
+        return createRequest(url, false);
+    }
+
+    static byte[] createRequest(final URL url, final boolean keepAlive) {
+        final String path = url.getFile().isEmpty() ? "/" : url.getFile();
+        final String host = url.getPort() > 0 ? url.getHost() + ":" + url.getPort() : url.getHost();
+        return ("GET " + path + " HTTP/1.1" + CRLF
+                + "Host: " + host + CRLF
+                + "User-Agent: " + USER_AGENT + CRLF
+                + "Cache-Control: " + NO_CACHE + CRLF
+                + "Connection: " + (keepAlive ? "keep-alive" : "close") + CRLF + CRLF).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // leaves the buffer positioned at the first body byte and returns the content length or -1 if there is none
+    static long readHeader(final SocketChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int headerEnd = -1;
+        int scanned = 0;
+        while (headerEnd < 0) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Response header exceeds buffer size of " + buffer.capacity() + " bytes");
+            }
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Connection closed before end of response header");
+            }
+            headerEnd = indexOfHeaderEnd(buffer, scanned);
+            scanned = Math.max(0, buffer.position() - HEADER_END.length);
+        }
+        final byte[] header = new byte[headerEnd];
+        buffer.get(0, header);
+        buffer.flip();
+        buffer.position(headerEnd + HEADER_END.length);
+        return parseHeader(new String(header, StandardCharsets.ISO_8859_1));
+    }
+
+    private static int indexOfHeaderEnd(final ByteBuffer buffer, final int from) {
+        for (int index = from; index + HEADER_END.length <= buffer.position(); index++) {
+            boolean match = true;
+            for (int offset = 0; offset < HEADER_END.length && match; offset++) {
+                match = buffer.get(index + offset) == HEADER_END[offset];
+            }
+            if (match) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    static long parseHeader(final String header) throws IOException {
+        final String[] lines = header.split(CRLF);
+        final String[] statusLine = lines[0].split(" ");
+        if (statusLine.length < 2) {
+            throw new IOException("Invalid status line: " + lines[0]);
+        }
+        final long status = parseNumber(statusLine[1], lines[0]);
+        if (status < HTTP_OK || status >= HTTP_MULT_CHOICE) {
+            throw new IOException("Server returned HTTP response code: " + status);
+        }
+        long contentLength = -1;
+        for (int index = 1; index < lines.length; index++) {
+            final String line = lines[index].toLowerCase(Locale.ROOT);
+            if (line.startsWith(TRANSFER_ENCODING) && line.contains(CHUNKED)) {
+                throw new ChunkedResponseException();
+            } else if (line.startsWith(CONTENT_LENGTH)) {
+                contentLength = parseNumber(line.substring(CONTENT_LENGTH.length()).trim(), lines[index]);
+            }
+        }
+        return contentLength;
+    }
+
+    private static long parseNumber(final String value, final String line) throws IOException {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid header line: " + line, e);
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        final ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    static final class ChunkedResponseException extends IOException {
+        ChunkedResponseException() {
+            super("Chunked response body");
+        }
+    }
+
+}
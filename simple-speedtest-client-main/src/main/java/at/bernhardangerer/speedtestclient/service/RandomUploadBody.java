@@ -0,0 +1,70 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// every 8-byte word is the SplitMix64 output for its index, so any position is computed without shared state
+public final class RandomUploadBody implements UploadBody {
+    private static final byte[] PREFIX = "content1=".getBytes(StandardCharsets.US_ASCII);
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_MULTIPLIER_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_MULTIPLIER_2 = 0x94D049BB133111EBL;
+    private static final int WORD_SHIFT = 3;
+    private static final long WORD_MASK = Long.BYTES - 1;
+    private final int length;
+    private final long seed;
+
+    public RandomUploadBody(final int length, final long seed) {
+        if (length > 0) {
+            this.length = length;
+            this.seed = seed;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void read(final long position, final ByteBuffer target) {
+        if (position < 0 || target == null) {
+            throw new IllegalArgumentException();
+        }
+        final long end = Math.min(length, position + target.remaining());
+        long current = position;
+        while (current < end && (current < PREFIX.length || (current & WORD_MASK) != 0)) {
+            target.put(byteAt(current));
+            current++;
+        }
+        final ByteOrder order = target.order();
+        target.order(ByteOrder.LITTLE_ENDIAN);
+        while (end - current >= Long.BYTES) {
+            target.putLong(word(current >>> WORD_SHIFT));
+            current += Long.BYTES;
+        }
+        target.order(order);
+        while (current < end) {
+            target.put(byteAt(current));
+            current++;
+        }
+    }
+
+    private byte byteAt(final long position) {
+        return position < PREFIX.length
+                ? PREFIX[(int) position]
+                : (byte) (word(position >>> WORD_SHIFT) >>> ((position & WORD_MASK) << WORD_SHIFT));
+    }
+
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private long word(final long index) {
+        long mixed = seed + (index + 1) * GOLDEN_GAMMA;
+        mixed = (mixed ^ (mixed >>> 30)) * MIX_MULTIPLIER_1;
+        mixed = (mixed ^ (mixed >>> 27)) * MIX_MULTIPLIER_2;
+        return mixed ^ (mixed >>> 31);
+    }
+
+}
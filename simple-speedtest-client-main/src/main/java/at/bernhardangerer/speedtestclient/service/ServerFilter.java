@@ -0,0 +1,45 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.util.Locale;
+
+// country matches the ISO code or the name, sponsor as a substring; both ignore case and * accepts every server
+public final class ServerFilter {
+    public static final String ANY_VALUE = "*";
+    public static final ServerFilter ANY = new ServerFilter(ANY_VALUE, ANY_VALUE);
+    private final String country;
+    private final String sponsor;
+
+    private ServerFilter(final String country, final String sponsor) {
+        this.country = country;
+        this.sponsor = sponsor;
+    }
+
+    public static ServerFilter of(final String country, final String sponsor) {
+        if (country != null && !country.isBlank() && sponsor != null && !sponsor.isBlank()) {
+            return new ServerFilter(normalize(country), normalize(sponsor));
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public boolean acceptsAll() {
+        return ANY_VALUE.equals(country) && ANY_VALUE.equals(sponsor);
+    }
+
+    public boolean matches(final String countryName, final String countryCode, final String sponsorName) {
+        return matchesCountry(countryName, countryCode) && matchesSponsor(sponsorName);
+    }
+
+    private boolean matchesCountry(final String countryName, final String countryCode) {
+        return ANY_VALUE.equals(country) || country.equals(normalize(countryCode)) || country.equals(normalize(countryName));
+    }
+
+    private boolean matchesSponsor(final String sponsorName) {
+        return ANY_VALUE.equals(sponsor) || sponsorName != null && normalize(sponsorName).contains(sponsor);
+    }
+
+    private static String normalize(final String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+}
@@ -0,0 +1,229 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.util.HaversineDistances;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// 3-d tree over the unit vectors of the distance kernel; the haversine grows with great-circle distance, so only results are converted
+public final class ServerIndex {
+    private static final int DIMENSIONS = HaversineDistances.DIMENSIONS;
+    private static final double CHORD_PER_HAVERSINE = 4;
+    // widens the radius search so rounding never drops a server right on the boundary; results are filtered exactly
+    private static final double RADIUS_TOLERANCE = 1e-9;
+    private final List<Server> servers;
+    private final Map<String, Server> serversByHost = new HashMap<>();
+    private final Server[] located;
+    private final HaversineDistances positions;
+    private final double[][] coordinates = new double[DIMENSIONS][];
+    private final int[] tree;
+
+    public ServerIndex(final List<Server> servers) {
+        if (servers != null) {
+            this.servers = List.copyOf(servers);
+            final List<Server> withCoordinates = new ArrayList<>();
+            for (final Server server : this.servers) {
+                if (server.getHost() != null) {
+                    serversByHost.putIfAbsent(server.getHost(), server);
+                }
+                if (server.getLat() != null && server.getLon() != null) {
+                    withCoordinates.add(server);
+                }
+            }
+            located = withCoordinates.toArray(new Server[0]);
+            final double[] lats = new double[located.length];
+            final double[] lons = new double[located.length];
+            tree = new int[located.length];
+            for (int index = 0; index < located.length; index++) {
+                lats[index] = located[index].getLat();
+                lons[index] = located[index].getLon();
+                tree[index] = index;
+            }
+            positions = new HaversineDistances(lats, lons);
+            for (int axis = 0; axis < DIMENSIONS; axis++) {
+                coordinates[axis] = positions.coordinates(axis);
+            }
+            build(0, located.length, 0);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // the whole catalog in its original order
+    public List<Server> getServers() {
+        return servers;
+    }
+
+    public Server findByHost(final String host) {
+        return host != null ? serversByHost.get(host.trim()) : null;
+    }
+
+    // the limit servers closest to the given position with their distances, in ascending distance
+    public Map<Server, Double> findNearest(final double lat, final double lon, final int limit, final DistanceUnit distanceUnit) {
+        if (limit > 0 && distanceUnit != null) {
+            final NearestSearch search = new NearestSearch(HaversineDistances.toUnitVector(lat, lon), limit);
+            search.visit(0, located.length, 0);
+            final List<Neighbour> neighbours = new ArrayList<>(search.heap);
+            neighbours.sort(Neighbour.CLOSEST_FIRST);
+            return toDistances(neighbours, distanceUnit, Double.POSITIVE_INFINITY);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // every server within the given distance of the position, in ascending distance
+    public Map<Server, Double> findWithinRadius(final double lat, final double lon, final double radius, final DistanceUnit distanceUnit) {
+        if (radius >= 0 && distanceUnit != null) {
+            final double maxHaversine = HaversineDistances.toHaversine(radius, distanceUnit);
+            final RadiusSearch search = new RadiusSearch(HaversineDistances.toUnitVector(lat, lon), maxHaversine * (1 + RADIUS_TOLERANCE));
+            search.visit(0, located.length, 0);
+            search.matches.sort(Neighbour.CLOSEST_FIRST);
+            return toDistances(search.matches, distanceUnit, radius);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private Map<Server, Double> toDistances(final List<Neighbour> neighbours, final DistanceUnit distanceUnit, final double maxDistance) {
+        final Map<Server, Double> distances = new LinkedHashMap<>();
+        for (final Neighbour neighbour : neighbours) {
+            final double distance = HaversineDistances.toDistance(neighbour.haversine, distanceUnit);
+            if (distance <= maxDistance) {
+                distances.putIfAbsent(located[neighbour.index], distance);
+            }
+        }
+        return distances;
+    }
+
+    // arranges tree[first, last) so that the median on the axis of this depth sits in the middle, then recurses
+    private void build(final int first, final int last, final int depth) {
+        if (last - first > 1) {
+            final int middle = (first + last) >>> 1;
+            select(first, last, middle, coordinates[depth % DIMENSIONS]);
+            build(first, middle, depth + 1);
+            build(middle + 1, last, depth + 1);
+        }
+    }
+
+    // quickselect: afterwards tree[nth] holds the nth smallest value, smaller or equal ones before and larger or equal ones after it
+    private void select(final int first, final int last, final int nth, final double[] values) {
+        int left = first;
+        int right = last - 1;
+        while (left < right) {
+            final double pivot = values[tree[(left + right) >>> 1]];
+            int lower = left;
+            int upper = right;
+            while (lower <= upper) {
+                while (values[tree[lower]] < pivot) {
+                    lower++;
+                }
+                while (values[tree[upper]] > pivot) {
+                    upper--;
+                }
+                if (lower <= upper) {
+                    final int swap = tree[lower];
+                    tree[lower++] = tree[upper];
+                    tree[upper--] = swap;
+                }
+            }
+            if (nth <= upper) {
+                right = upper;
+            } else if (nth >= lower) {
+                left = lower;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // the squared distance to a splitting plane, compared against haversines, which are a quarter of the squared chord
+    private static double planeHaversine(final double delta) {
+        return delta * delta / CHORD_PER_HAVERSINE;
+    }
+
+    private static final class Neighbour {
+        private static final Comparator<Neighbour> CLOSEST_FIRST =
+                Comparator.<Neighbour>comparingDouble(neighbour -> neighbour.haversine).thenComparingInt(neighbour -> neighbour.index);
+        private final int index;
+        private final double haversine;
+
+        Neighbour(final int index, final double haversine) {
+            this.index = index;
+            this.haversine = haversine;
+        }
+    }
+
+    private final class NearestSearch {
+        private final double[] query;
+        private final int limit;
+        private final PriorityQueue<Neighbour> heap;
+
+        NearestSearch(final double[] query, final int limit) {
+            this.query = query;
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, Neighbour.CLOSEST_FIRST.reversed());
+        }
+
+        void visit(final int first, final int last, final int depth) {
+            if (first >= last) {
+                return;
+            }
+            final int middle = (first + last) >>> 1;
+            final int node = tree[middle];
+            final Neighbour candidate = new Neighbour(node, positions.haversineTo(query, node));
+            if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (Neighbour.CLOSEST_FIRST.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+            final int axis = depth % DIMENSIONS;
+            final double delta = query[axis] - coordinates[axis][node];
+            visit(delta < 0 ? first : middle + 1, delta < 0 ? middle : last, depth + 1);
+            // the far side can only hold a closer server, or an equidistant one earlier in the catalog, if the splitting plane is
+            // not farther away than the current worst neighbour
+            if (heap.size() < limit || planeHaversine(delta) <= heap.peek().haversine) {
+                visit(delta < 0 ? middle + 1 : first, delta < 0 ? last : middle, depth + 1);
+            }
+        }
+    }
+
+    private final class RadiusSearch {
+        private final double[] query;
+        private final double maxHaversine;
+        private final List<Neighbour> matches = new ArrayList<>();
+
+        RadiusSearch(final double[] query, final double maxHaversine) {
+            this.query = query;
+            this.maxHaversine = maxHaversine;
+        }
+
+        void visit(final int first, final int last, final int depth) {
+            if (first >= last) {
+                return;
+            }
+            final int middle = (first + last) >>> 1;
+            final int node = tree[middle];
+            final double haversine = positions.haversineTo(query, node);
+            if (haversine <= maxHaversine) {
+                matches.add(new Neighbour(node, haversine));
+            }
+            final int axis = depth % DIMENSIONS;
+            final double delta = query[axis] - coordinates[axis][node];
+            if (delta < 0 || planeHaversine(delta) <= maxHaversine) {
+                visit(first, middle, depth + 1);
+            }
+            if (delta >= 0 || planeHaversine(delta) <= maxHaversine) {
+                visit(middle + 1, last, depth + 1);
+            }
+        }
+    }
+
+}
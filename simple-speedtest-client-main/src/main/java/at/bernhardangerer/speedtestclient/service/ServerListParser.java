@@ -0,0 +1,178 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.util.HaversineDistances;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// servers rejected by the filter, or too far away for the closest selection, are never materialized
+public final class ServerListParser {
+    private static final String SERVER = "server";
+    private static final String LAT = "lat";
+    private static final String LON = "lon";
+    private static final String COUNTRY = "country";
+    private static final String COUNTRY_CODE = "cc";
+    private static final String SPONSOR = "sponsor";
+
+    private ServerListParser() {
+    }
+
+    // every server accepted by the filter, in document order
+    public static List<Server> parse(final InputStream inputStream, final ServerFilter filter) throws ParsingException {
+        if (inputStream != null && filter != null) {
+            final List<Server> servers = new ArrayList<>();
+            readServers(inputStream, filter, reader -> servers.add(toServer(reader)));
+            return servers;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // the limit servers closest to the position with their distances, kept in a bounded max-heap while parsing and returned in
+    // ascending distance; equidistant servers are ordered by their position in the document
+    public static Map<Server, Double> parseClosest(final InputStream inputStream, final ServerFilter filter, final double lat,
+                                                   final double lon, final int limit, final DistanceUnit distanceUnit)
+            throws ParsingException {
+        if (inputStream != null && filter != null && limit > 0 && distanceUnit != null) {
+            final ClosestSelection selection = new ClosestSelection(lat, lon, limit);
+            readServers(inputStream, filter, selection::offer);
+            return selection.toDistances(distanceUnit);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static void readServers(final InputStream inputStream, final ServerFilter filter, final ServerHandler handler)
+            throws ParsingException {
+        try {
+            final XMLStreamReader reader = FactoryHolder.FACTORY.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && SERVER.equals(reader.getLocalName())
+                            && (filter.acceptsAll() || filter.matches(attribute(reader, COUNTRY), attribute(reader, COUNTRY_CODE),
+                            attribute(reader, SPONSOR)))) {
+                        handler.accept(reader);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new ParsingException(e);
+        }
+    }
+
+    private static Server toServer(final XMLStreamReader reader) {
+        return new Server(attribute(reader, "url"), parseDouble(attribute(reader, LAT)), parseDouble(attribute(reader, LON)),
+                attribute(reader, "name"), attribute(reader, COUNTRY), attribute(reader, COUNTRY_CODE), attribute(reader, SPONSOR),
+                parseInteger(attribute(reader, "id")), attribute(reader, "host"));
+    }
+
+    private static String attribute(final XMLStreamReader reader, final String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    // malformed numbers are dropped like the JAXB mapping does
+    private static Double parseDouble(final String value) {
+        try {
+            return value != null ? Double.valueOf(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseInteger(final String value) {
+        try {
+            return value != null ? Integer.valueOf(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ServerHandler {
+        void accept(XMLStreamReader reader);
+    }
+
+    private static final class ClosestSelection {
+        private final double lat;
+        private final double lon;
+        private final int limit;
+        private final PriorityQueue<Candidate> heap;
+        private long order;
+
+        ClosestSelection(final double lat, final double lon, final int limit) {
+            this.lat = lat;
+            this.lon = lon;
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, Candidate.FARTHEST_FIRST);
+        }
+
+        void offer(final XMLStreamReader reader) {
+            final Double serverLat = parseDouble(attribute(reader, LAT));
+            final Double serverLon = parseDouble(attribute(reader, LON));
+            if (serverLat == null || serverLon == null) {
+                return;
+            }
+            // the haversine grows with the distance, so it ranks the servers without converting every one of them
+            final double haversine = HaversineDistances.haversine(lat, lon, serverLat, serverLon);
+            // a later server only displaces a farther one, so on equal distance the one seen first stays
+            if (heap.size() < limit || haversine < heap.peek().haversine) {
+                heap.add(new Candidate(haversine, order, toServer(reader)));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+            order++;
+        }
+
+        Map<Server, Double> toDistances(final DistanceUnit distanceUnit) {
+            final List<Candidate> candidates = new ArrayList<>(heap);
+            candidates.sort(Candidate.FARTHEST_FIRST.reversed());
+            final Map<Server, Double> closestServers = new LinkedHashMap<>();
+            for (final Candidate candidate : candidates) {
+                closestServers.putIfAbsent(candidate.server, HaversineDistances.toDistance(candidate.haversine, distanceUnit));
+            }
+            return closestServers;
+        }
+    }
+
+    private static final class Candidate {
+        private static final Comparator<Candidate> FARTHEST_FIRST = Comparator.<Candidate>comparingDouble(candidate -> candidate.haversine)
+                .thenComparingLong(candidate -> candidate.order).reversed();
+        private final double haversine;
+        private final long order;
+        private final Server server;
+
+        Candidate(final double haversine, final long order, final Server server) {
+            this.haversine = haversine;
+            this.order = order;
+            this.server = server;
+        }
+    }
+
+    private static final class FactoryHolder {
+        private static final XMLInputFactory FACTORY = createFactory();
+
+        // the server list never needs a DTD, so entity expansion is switched off entirely
+        private static XMLInputFactory createFactory() {
+            final XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            return factory;
+        }
+    }
+
+}
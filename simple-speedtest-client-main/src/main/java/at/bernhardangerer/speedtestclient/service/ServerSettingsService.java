@@ -1,54 +1,44 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.exception.ParsingException;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
-import at.bernhardangerer.speedtestclient.exception.UnsupportedUnitException;
+import at.bernhardangerer.speedtestclient.jfr.ServerListRequestEvent;
 import at.bernhardangerer.speedtestclient.model.Server;
-import at.bernhardangerer.speedtestclient.model.ServerSetting;
 import at.bernhardangerer.speedtestclient.type.DistanceUnit;
-import at.bernhardangerer.speedtestclient.util.Util;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Unmarshaller;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 public final class ServerSettingsService {
     private static final Logger logger = LogManager.getLogger(ServerSettingsService.class);
-    private static final Set<String> SERVER_URLS = new HashSet<>(Arrays.asList(
+    private static final List<String> SERVER_URLS = List.of(
             "https://www.speedtest.net/speedtest-servers-static.php", "http://c.speedtest.net/speedtest-servers-static.php",
-            "https://www.speedtest.net/speedtest-servers.php", "http://c.speedtest.net/speedtest-servers.php"));
+            "https://www.speedtest.net/speedtest-servers.php", "http://c.speedtest.net/speedtest-servers.php");
+    private static final String EMPTY_CLOSEST_SERVERS = "Empty list for limited closest servers";
 
     private ServerSettingsService() {
     }
 
     static List<Server> getServersFromXml(final byte[] bytes) throws ParsingException, MissingResultException {
         if (bytes != null) {
-            try (InputStream is = new ByteArrayInputStream(bytes)) {
-                final JAXBContext jaxbContext = JAXBContext.newInstance(ServerSetting.class);
-                final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-                final ServerSetting serverSetting = (ServerSetting) jaxbUnmarshaller.unmarshal(is);
-                if (serverSetting != null && serverSetting.getServers() != null && serverSetting.getServers().getServerList() != null) {
-                    return serverSetting.getServers().getServerList();
-                } else {
-                    throw new MissingResultException("Missing server list result");
-                }
-            } catch (IOException | JAXBException e) {
-                throw new ParsingException(e);
+            final List<Server> servers = ServerListParser.parse(new ByteArrayInputStream(bytes), ServerFilter.ANY);
+            if (!servers.isEmpty()) {
+                return servers;
+            } else {
+                throw new MissingResultException("Missing server list result");
             }
         } else {
             throw new IllegalArgumentException();
@@ -56,22 +46,33 @@ public final class ServerSettingsService {
     }
 
     public static List<Server> requestServerList(final int threadsPerUrl) throws MissingResultException {
-        if (threadsPerUrl > 0) {
-            final List<Server> servers = SERVER_URLS.stream()
-                    .map(url -> {
-                        try {
-                            final byte[] bytes = HttpGetClient.get(String.format("%s?threads=%d", url, threadsPerUrl));
-                            return getServersFromXml(bytes);
-                        } catch (ParsingException | MissingResultException | ServerRequestException e) {
-                            logger.error(e.getMessage(), e);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toList());
+        return requestServerList(threadsPerUrl, SpeedtestConfig.getDefault());
+    }
+
+    public static List<Server> requestServerList(final int threadsPerUrl, final SpeedtestConfig config) throws MissingResultException {
+        if (threadsPerUrl > 0 && config != null) {
+            return requestServerList(toUrls(threadsPerUrl), config);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // fetches all endpoints concurrently and keeps the first occurrence of every server id, in endpoint order
+    static List<Server> requestServerList(final List<String> urls, final SpeedtestConfig config) throws MissingResultException {
+        if (urls != null && config != null) {
+            final ServerListRequestEvent event = new ServerListRequestEvent();
+            event.begin();
+            final ServerFilter filter = toFilter(config);
+            final Map<Object, Server> servers = new LinkedHashMap<>();
+            final List<List<Server>> endpointResults = fetchAll(urls, config, body -> ServerListParser.parse(body, filter), List.of());
+            for (final List<Server> endpointServers : endpointResults) {
+                for (final Server server : endpointServers) {
+                    servers.putIfAbsent(toKey(server), server);
+                }
+            }
+            event.complete(urls.size(), servers.size());
             if (!servers.isEmpty()) {
-                return servers;
+                return new ArrayList<>(servers.values());
             } else {
                 throw new MissingResultException("Empty server list");
             }
@@ -80,27 +81,107 @@ public final class ServerSettingsService {
         }
     }
 
-    public static Map<Double, Server> findClosestServers(final double lat, final double lon, final int limit,
+    // for callers that know the client position already; only the closest servers of every list are materialized
+    public static Map<Server, Double> requestClosestServers(final int threadsPerUrl, final double lat, final double lon,
+                                                            final SpeedtestConfig config) throws MissingResultException {
+        if (threadsPerUrl > 0 && config != null && config.getDistanceUnit() != null) {
+            return requestClosestServers(toUrls(threadsPerUrl), lat, lon, config);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // every endpoint only keeps its own closest servers while parsing, the merged candidates are cut to the limit again
+    static Map<Server, Double> requestClosestServers(final List<String> urls, final double lat, final double lon,
+                                                     final SpeedtestConfig config) throws MissingResultException {
+        if (urls != null && config != null && config.getDistanceUnit() != null) {
+            final ServerListRequestEvent event = new ServerListRequestEvent();
+            event.begin();
+            final ServerFilter filter = toFilter(config);
+            final int limit = config.getClosestServersMaxNumber();
+            final Map<Object, Map.Entry<Server, Double>> candidates = new LinkedHashMap<>();
+            final List<Map<Server, Double>> endpointResults = fetchAll(urls, config,
+                    body -> ServerListParser.parseClosest(body, filter, lat, lon, limit, config.getDistanceUnit()), Map.of());
+            for (final Map<Server, Double> endpointServers : endpointResults) {
+                for (final Map.Entry<Server, Double> entry : endpointServers.entrySet()) {
+                    candidates.putIfAbsent(toKey(entry.getKey()), entry);
+                }
+            }
+            event.complete(urls.size(), candidates.size());
+            // the sort is stable, so equidistant servers keep endpoint and document order
+            final Map<Server, Double> closestServers = candidates.values().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(limit)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (distance1, distance2) -> distance1,
+                            LinkedHashMap::new));
+            if (!closestServers.isEmpty()) {
+                return closestServers;
+            } else {
+                throw new MissingResultException(EMPTY_CLOSEST_SERVERS);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static List<String> toUrls(final int threadsPerUrl) {
+        return SERVER_URLS.stream()
+                .map(url -> String.format("%s?threads=%d", url, threadsPerUrl))
+                .collect(Collectors.toList());
+    }
+
+    private static ServerFilter toFilter(final SpeedtestConfig config) {
+        return ServerFilter.of(config.getServerFilterCountry(), config.getServerFilterSponsor());
+    }
+
+    private static Object toKey(final Server server) {
+        return server.getId() != null ? server.getId() : server.getUrl();
+    }
+
+    // results are returned in endpoint order, an endpoint that cannot be fetched or parsed contributes the fallback
+    private static <T> List<T> fetchAll(final List<String> urls, final SpeedtestConfig config, final HttpCache.BodyReader<T> reader,
+                                        final T fallback) {
+        final HttpCache cache = config.isCacheEnabled() ? new HttpCache(config.getCacheDirectory()) : null;
+        final Duration ttl = Duration.ofMinutes(config.getServerListCacheTtlInMinutes());
+        final ExecutorService executor = TransferExecutors.newVirtualThreadPerTaskExecutor();
+        try {
+            final List<CompletableFuture<T>> futures = urls.stream()
+                    .map(url -> CompletableFuture.supplyAsync(() -> fetch(url, cache, ttl, reader, fallback), executor))
+                    .collect(Collectors.toList());
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // the response is parsed straight from the connection; with a cache it is copied into the cache file as it is parsed
+    private static <T> T fetch(final String url, final HttpCache cache, final Duration ttl, final HttpCache.BodyReader<T> reader,
+                               final T fallback) {
+        if (cache != null) {
+            try {
+                return cache.get(url, ttl, reader);
+            } catch (ParsingException | ServerRequestException e) {
+                logger.error(e.getMessage(), e);
+                return fallback;
+            }
+        }
+        try (InputStream inputStream = HttpGetClient.openStream(url)) {
+            return reader.read(inputStream);
+        } catch (IOException | ParsingException | ServerRequestException e) {
+            logger.error(e.getMessage(), e);
+            return fallback;
+        }
+    }
+
+    public static Map<Server, Double> findClosestServers(final double lat, final double lon, final int limit,
                                                          final DistanceUnit distanceUnit, final List<Server> serverList)
             throws MissingResultException {
         if (limit > 0 && distanceUnit != null && serverList != null && !serverList.isEmpty()) {
-            final Map<Double, Server> closestServers = serverList.stream()
-                    .collect(Collectors.toMap(
-                            server -> {
-                                try {
-                                    return Util.calculateDistance(lat, lon, server.getLat(), server.getLon(), distanceUnit);
-                                } catch (UnsupportedUnitException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            },
-                            server -> server, (server1, server2) -> server1, TreeMap::new));
-            final Map<Double, Server> limitedClosestServers = closestServers.entrySet().stream()
-                    .limit(limit)
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            if (!limitedClosestServers.isEmpty()) {
-                return limitedClosestServers;
+            final Map<Server, Double> closestServers = new ServerIndex(serverList).findNearest(lat, lon, limit, distanceUnit);
+            if (!closestServers.isEmpty()) {
+                return closestServers;
             } else {
-                throw new MissingResultException("Empty list for limited closest servers");
+                throw new MissingResultException(EMPTY_CLOSEST_SERVERS);
             }
         } else {
             throw new IllegalArgumentException();
@@ -1,21 +1,35 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.exception.ParsingException;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
 import at.bernhardangerer.speedtestclient.model.ConfigSetting;
+import at.bernhardangerer.speedtestclient.model.HistoryRecord;
+import at.bernhardangerer.speedtestclient.model.HistoryRollup;
 import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
 import at.bernhardangerer.speedtestclient.type.OutputFormat;
+import at.bernhardangerer.speedtestclient.type.RollupPeriod;
 import at.bernhardangerer.speedtestclient.util.Constant;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
 
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.DEDICATED_SERVER_HOST;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HISTORY_QUERY;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HISTORY_ROLLUP;
 
 public final class SpeedtestCliService {
+    private static final String TIME_SEPARATOR = "T";
 
     private SpeedtestCliService() {
     }
@@ -25,11 +39,23 @@ public final class SpeedtestCliService {
                 && !cmd.getParsedOptionValue(optionName).toString().trim().isEmpty();
     }
 
+    public static Map<String, String> getConfigOverrides(final CommandLine cmd, final String optionName) {
+        if (cmd != null && optionName != null) {
+            if (!cmd.hasOption(optionName)) {
+                return Map.of();
+            }
+            final Properties properties = cmd.getOptionProperties(optionName);
+            return properties.stringPropertyNames().stream()
+                    .collect(Collectors.toMap(key -> key.trim(), key -> properties.getProperty(key).trim()));
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
     public static void processListServerHostsOption(final OutputFormat outputFormat)
             throws MissingResultException, ServerRequestException, ParsingException {
         final ConfigSetting configSetting = ConfigSettingsService.requestSetting();
-        final List<Server> serverHostList =
-                ServerSettingsService.requestServerList(configSetting.getDownload().getThreadsPerUrl());
+        final List<Server> serverHostList = requestServerIndex(configSetting).getServers();
         switch (outputFormat) {
             case JSON: {
                 ServerHostListPrinter.printJson(serverHostList);
@@ -72,18 +98,89 @@ public final class SpeedtestCliService {
         }
     }
 
+    // prints one result of a series: JSON as one line per result and the CSV header only before the first result
+    public static void processStreamedSpeedtestResult(final SpeedtestResult speedtestResult, final OutputFormat outputFormat,
+                                                      final boolean first) {
+        switch (outputFormat) {
+            case JSON: {
+                SpeedtestResultPrinter.printJson(speedtestResult, false);
+                break;
+            }
+            case CSV: {
+                SpeedtestResultPrinter.printCsv(speedtestResult, Constant.COMMA, first);
+                break;
+            }
+            default: processSpeedtestResult(speedtestResult, outputFormat);
+        }
+        System.out.flush();
+    }
+
+    // prints the recorded results within the requested range, or their rollups if a period is given
+    public static void processHistoryOptions(final CommandLine cmd, final SpeedtestConfig config, final OutputFormat outputFormat)
+            throws ParseException, IOException {
+        if (outputFormat == OutputFormat.XML) {
+            throw new IllegalArgumentException("The history is not available in XML format");
+        }
+        LocalDateTime from = null;
+        LocalDateTime until = null;
+        if (isValidOptionAndOptionValue(cmd, HISTORY_QUERY)) {
+            final String range = cmd.getParsedOptionValue(HISTORY_QUERY).toString().trim();
+            final int separator = range.indexOf('/');
+            from = parseHistoryTime(separator >= 0 ? range.substring(0, separator) : range, false);
+            // a single date selects that day, a single date-time everything from then on
+            until = separator >= 0 ? parseHistoryTime(range.substring(separator + 1), true)
+                    : range.contains(TIME_SEPARATOR) ? null : parseHistoryTime(range, true);
+        }
+        final RollupPeriod period = isValidOptionAndOptionValue(cmd, HISTORY_ROLLUP)
+                ? RollupPeriod.fromString(cmd.getParsedOptionValue(HISTORY_ROLLUP).toString()) : null;
+
+        try (HistoryStore store = HistoryStore.open(config)) {
+            if (period != null) {
+                final List<HistoryRollup> rollups = store.rollup(from, until, period);
+                switch (outputFormat) {
+                    case JSON -> HistoryPrinter.printJson(rollups);
+                    case CSV -> HistoryPrinter.printRollupsCsv(rollups, Constant.COMMA);
+                    default -> HistoryPrinter.printRollupsHumanReadable(rollups);
+                }
+            } else {
+                final List<HistoryRecord> records = store.query(from, until);
+                switch (outputFormat) {
+                    case JSON -> HistoryPrinter.printJson(records);
+                    case CSV -> HistoryPrinter.printRecordsCsv(records, Constant.COMMA);
+                    default -> HistoryPrinter.printRecordsHumanReadable(records);
+                }
+            }
+        }
+    }
+
+    // an ISO date or date-time; a date as the upper bound includes the whole day, a blank value leaves the bound open
+    public static LocalDateTime parseHistoryTime(final String value, final boolean upperBound) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.contains(TIME_SEPARATOR)) {
+                return LocalDateTime.parse(value.trim());
+            }
+            final LocalDate date = LocalDate.parse(value.trim());
+            return upperBound ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid history time: " + value.trim(), e);
+        }
+    }
+
     public static Server getDedicatedServer(final CommandLine cmd)
             throws MissingResultException, ServerRequestException, ParsingException {
         final ConfigSetting configSetting = ConfigSettingsService.requestSetting();
-        final List<Server> serverHostList =
-                ServerSettingsService.requestServerList(configSetting.getDownload().getThreadsPerUrl());
-        return serverHostList.stream().filter(server -> {
-            try {
-                return cmd.getParsedOptionValue(DEDICATED_SERVER_HOST).toString().trim().equals(server.getHost());
-            } catch (ParseException e) {
-                throw new RuntimeException(e);
-            }
-        }).findFirst().orElse(null);
+        try {
+            return requestServerIndex(configSetting).findByHost(cmd.getParsedOptionValue(DEDICATED_SERVER_HOST).toString());
+        } catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ServerIndex requestServerIndex(final ConfigSetting configSetting) throws MissingResultException {
+        return new ServerIndex(ServerSettingsService.requestServerList(configSetting.getDownload().getThreadsPerUrl()));
     }
 
 }
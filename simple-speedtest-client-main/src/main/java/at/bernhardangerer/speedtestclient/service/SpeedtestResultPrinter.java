@@ -2,6 +2,7 @@ package at.bernhardangerer.speedtestclient.service;
 
 import at.bernhardangerer.speedtestclient.model.Client;
 import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.ResponsivenessResult;
 import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
@@ -17,6 +18,8 @@ import jakarta.xml.bind.Marshaller;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 public final class SpeedtestResultPrinter {
 
@@ -24,6 +27,11 @@ public final class SpeedtestResultPrinter {
     }
 
     public static void printJson(final SpeedtestResult speedtestResult) {
+        printJson(speedtestResult, true);
+    }
+
+    // without pretty printing every result is a single line, as in a stream of results
+    public static void printJson(final SpeedtestResult speedtestResult, final boolean pretty) {
         if (speedtestResult == null) {
             return;
         }
@@ -31,7 +39,8 @@ public final class SpeedtestResultPrinter {
             final ObjectMapper objectMapper = new ObjectMapper();
             objectMapper.registerModule(new JavaTimeModule());
             objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-            System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(speedtestResult));
+            System.out.println((pretty ? objectMapper.writerWithDefaultPrettyPrinter() : objectMapper.writer())
+                    .writeValueAsString(speedtestResult));
         } catch (JsonProcessingException e) {
             System.err.println("Failed to serialize speedtestResult to JSON: " + e.getMessage());
         }
@@ -52,6 +61,11 @@ public final class SpeedtestResultPrinter {
     }
 
     public static void printCsv(final SpeedtestResult speedtestResult, final String delimiter) {
+        printCsv(speedtestResult, delimiter, true);
+    }
+
+    // without the header line, for every result of a stream but the first
+    public static void printCsv(final SpeedtestResult speedtestResult, final String delimiter, final boolean header) {
         if (speedtestResult == null) {
             return;
         }
@@ -59,9 +73,18 @@ public final class SpeedtestResultPrinter {
 
         final List<String> keys = Arrays.asList("startTime", "endTime", "clientIp", "clientLat", "clientLon",
                 "clientIsp", "clientIspRating", "clientCountry", "serverId", "serverCity", "serverHost", "serverCountry",
-                "serverLat", "serverLon", "serverSponsor", "serverUrl", "latencyMs", "distanceKm", "downloadMbps",
-                "downloadBytes", "downloadDurationMs", "uploadMbps", "uploadBytes", "uploadDurationMs", "shareUrl");
-        System.out.println(CsvUtil.joinStrings(keys, finalDelimiter));
+                "serverLat", "serverLon", "serverSponsor", "serverUrl", "latencyMs", "distanceKm", "latencyConnectMs",
+                "latencyHttpMs", "latencyMinMs", "latencyP50Ms", "latencyP90Ms", "latencyP99Ms", "latencyMaxMs", "latencyJitterMs",
+                "latencyLoss", "downloadMbps", "downloadBytes", "downloadDurationMs", "downloadPeakMbps",
+                "downloadMedianMbps", "downloadStableMbps", "downloadSamplesMbps", "downloadStopReason", "downloadBytesSaved",
+                "downloadStreams", "downloadWindowedMbps",
+                "uploadMbps", "uploadBytes", "uploadDurationMs", "uploadPeakMbps", "uploadMedianMbps", "uploadStableMbps",
+                "uploadSamplesMbps", "uploadStopReason", "uploadBytesSaved", "uploadStreams", "uploadWindowedMbps",
+                "idleLatencyMs", "downloadLoadedLatencyMs", "downloadLoadedP90Ms", "downloadLoadedJitterMs", "uploadLoadedLatencyMs",
+                "uploadLoadedP90Ms", "uploadLoadedJitterMs", "responsivenessRpm", "timeToFirstByteMs", "shareUrl");
+        if (header) {
+            System.out.println(CsvUtil.joinStrings(keys, finalDelimiter));
+        }
 
         final List<Object> unformattedValues = createCsvValueList(speedtestResult);
         final List<String> formattedValues = CsvUtil.formatCsvValues(unformattedValues, finalDelimiter);
@@ -74,6 +97,9 @@ public final class SpeedtestResultPrinter {
         final LatencyTestResult l = speedtestResult.getLatency();
         final TransferTestResult d = speedtestResult.getDownload();
         final TransferTestResult u = speedtestResult.getUpload();
+        final ResponsivenessResult r = speedtestResult.getResponsiveness();
+        final LatencyTestResult rd = r != null ? r.getDownload() : null;
+        final LatencyTestResult ru = r != null ? r.getUpload() : null;
 
         return Arrays.asList(
                 speedtestResult.getStartTime(),
@@ -94,14 +120,57 @@ public final class SpeedtestResultPrinter {
                 s != null ? s.getUrl() : null,
                 l != null ? l.getLatency() : null,
                 l != null ? l.getDistance() : null,
+                l != null ? l.getConnectRttInMs() : null,
+                l != null ? l.getHttpRttInMs() : null,
+                l != null ? l.getMinInMs() : null,
+                l != null ? l.getP50InMs() : null,
+                l != null ? l.getP90InMs() : null,
+                l != null ? l.getP99InMs() : null,
+                l != null ? l.getMaxInMs() : null,
+                l != null ? l.getJitterInMs() : null,
+                l != null ? l.getLossCount() : null,
                 d != null ? d.getRateInMbps() : null,
                 d != null ? d.getBytes() : null,
                 d != null ? d.getDurationInMs() : null,
+                d != null ? d.getPeakRateInMbps() : null,
+                d != null ? d.getMedianRateInMbps() : null,
+                d != null ? d.getStableRateInMbps() : null,
+                d != null ? formatSamples(d.getSamplesInMbps()) : null,
+                d != null ? d.getStopReason() : null,
+                d != null ? d.getBytesSaved() : null,
+                d != null ? d.getStreams() : null,
+                d != null ? d.getWindowedRateInMbps() : null,
                 u != null ? u.getRateInMbps() : null,
                 u != null ? u.getBytes() : null,
                 u != null ? u.getDurationInMs() : null,
+                u != null ? u.getPeakRateInMbps() : null,
+                u != null ? u.getMedianRateInMbps() : null,
+                u != null ? u.getStableRateInMbps() : null,
+                u != null ? formatSamples(u.getSamplesInMbps()) : null,
+                u != null ? u.getStopReason() : null,
+                u != null ? u.getBytesSaved() : null,
+                u != null ? u.getStreams() : null,
+                u != null ? u.getWindowedRateInMbps() : null,
+                r != null ? r.getIdleLatencyInMs() : null,
+                rd != null ? rd.getLatency() : null,
+                rd != null ? rd.getP90InMs() : null,
+                rd != null ? rd.getJitterInMs() : null,
+                ru != null ? ru.getLatency() : null,
+                ru != null ? ru.getP90InMs() : null,
+                ru != null ? ru.getJitterInMs() : null,
+                r != null ? r.getRpm() : null,
+                speedtestResult.getTimeToFirstByteInMs(),
                 speedtestResult.getShareUrl()
         );
     }
 
+    private static String formatSamples(final List<Double> samples) {
+        if (samples == null) {
+            return null;
+        }
+        return samples.stream()
+                .map(sample -> String.format(Locale.US, "%.3f", sample))
+                .collect(Collectors.joining(Constant.SPACE));
+    }
+
 }
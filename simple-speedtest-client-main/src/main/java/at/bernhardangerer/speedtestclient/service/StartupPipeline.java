@@ -0,0 +1,220 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.model.Client;
+import at.bernhardangerer.speedtestclient.model.ConfigSetting;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+// config and server list are requested in parallel, probing starts as soon as the candidates are known; with a known client
+// position only the closest servers of the lists are parsed
+public final class StartupPipeline {
+    // the server list endpoints only take threadsPerUrl as a query parameter, so speedtest.net's usual value is used
+    // instead of waiting for the configuration
+    static final int DEFAULT_THREADS_PER_URL = 4;
+    private final CompletableFuture<ConfigSetting> configSetting;
+    private final CompletableFuture<Map<Server, Double>> closestServers;
+    private final CompletableFuture<Map.Entry<Server, LatencyTestResult>> fastestServer;
+    private final boolean selectingServer;
+    private final long startNanos;
+
+    private StartupPipeline(final CompletableFuture<ConfigSetting> configSetting,
+                            final CompletableFuture<Map<Server, Double>> closestServers,
+                            final CompletableFuture<Map.Entry<Server, LatencyTestResult>> fastestServer, final boolean selectingServer,
+                            final long startNanos) {
+        this.configSetting = configSetting;
+        this.closestServers = closestServers;
+        this.fastestServer = fastestServer;
+        this.selectingServer = selectingServer;
+        this.startNanos = startNanos;
+    }
+
+    public static StartupPipeline start(final SpeedtestConfig config, final Server dedicatedServer) {
+        return start(config, dedicatedServer, LatencyListener.NONE);
+    }
+
+    public static StartupPipeline start(final SpeedtestConfig config, final Server dedicatedServer, final LatencyListener listener) {
+        return start(config, dedicatedServer, null, listener);
+    }
+
+    // knownSetting is a configuration from an earlier run; without one a fresh cached configuration is used, if there is one
+    public static StartupPipeline start(final SpeedtestConfig config, final Server dedicatedServer, final ConfigSetting knownSetting,
+                                        final LatencyListener listener) {
+        return start(config, dedicatedServer, knownSetting, listener, Steps.SERVICES);
+    }
+
+    static StartupPipeline start(final SpeedtestConfig config, final Server dedicatedServer, final ConfigSetting knownSetting,
+                                 final LatencyListener listener, final Steps steps) {
+        if (config != null && config.getDistanceUnit() != null && listener != null && steps != null) {
+            final long startNanos = System.nanoTime();
+            final ExecutorService executor = TransferExecutors.newVirtualThreadPerTaskExecutor();
+            final CompletableFuture<ConfigSetting> configSetting = supply(() -> steps.requestSetting(config), executor);
+            final CompletableFuture<Map<Server, Double>> closestServers;
+            final Client knownClient = dedicatedServer == null ? clientOf(knownSetting != null ? knownSetting : steps.cachedSetting(config))
+                    : null;
+            if (knownClient != null) {
+                final CompletableFuture<Map<Server, Double>> knownClosest = supply(() -> steps.requestClosestServers(config,
+                        knownClient.getLat(), knownClient.getLon()), executor);
+                // a client that moved since gets its closest servers again, which the cache usually serves without a request
+                closestServers = configSetting.thenCombine(knownClosest, (setting, candidates) -> isAt(setting.getClient(), knownClient)
+                        ? candidates : call(() -> steps.requestClosestServers(config, setting.getClient().getLat(),
+                        setting.getClient().getLon())));
+            } else {
+                final CompletableFuture<List<Server>> serverList = dedicatedServer == null
+                        ? supply(() -> steps.requestServerList(config), executor)
+                        : CompletableFuture.completedFuture(List.of(dedicatedServer));
+                closestServers = configSetting
+                        .thenCombine(serverList, (setting, servers) -> call(() -> ServerSettingsService.findClosestServers(
+                                setting.getClient().getLat(), setting.getClient().getLon(), config.getClosestServersMaxNumber(),
+                                config.getDistanceUnit(), servers)));
+            }
+            final CompletableFuture<Map.Entry<Server, LatencyTestResult>> fastestServer = closestServers
+                    .thenApplyAsync(candidates -> call(() -> steps.getFastestServer(candidates, config, listener)), executor);
+            fastestServer.whenComplete((result, throwable) -> executor.shutdown());
+            return new StartupPipeline(configSetting, closestServers, fastestServer, dedicatedServer == null, startNanos);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // a startup whose configuration and server are already known, nothing is requested
+    public static StartupPipeline completed(final ConfigSetting configSetting, final Map.Entry<Server, LatencyTestResult> fastestServer) {
+        return completed(configSetting, fastestServer, System.nanoTime());
+    }
+
+    // startNanos is when the caller began to check or select the server, from System.nanoTime()
+    public static StartupPipeline completed(final ConfigSetting configSetting, final Map.Entry<Server, LatencyTestResult> fastestServer,
+                                            final long startNanos) {
+        if (configSetting != null && fastestServer != null) {
+            final Map<Server, Double> closestServers =
+                    Collections.singletonMap(fastestServer.getKey(), fastestServer.getValue().getDistance());
+            return new StartupPipeline(CompletableFuture.completedFuture(configSetting), CompletableFuture.completedFuture(closestServers),
+                    CompletableFuture.completedFuture(fastestServer), false, startNanos);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public CompletableFuture<ConfigSetting> getConfigSetting() {
+        return configSetting;
+    }
+
+    // the candidates probed for the fastest server with their distances, in ascending distance
+    public CompletableFuture<Map<Server, Double>> getClosestServers() {
+        return closestServers;
+    }
+
+    public CompletableFuture<Map.Entry<Server, LatencyTestResult>> getFastestServer() {
+        return fastestServer;
+    }
+
+    // whether the fastest server is selected from the server list rather than given
+    public boolean isSelectingServer() {
+        return selectingServer;
+    }
+
+    // System.nanoTime() when the startup began, so the server selection can be timed from there
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    // waits for a step and rethrows its original failure
+    public static <T> T await(final CompletableFuture<T> future) throws Exception {
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static Client clientOf(final ConfigSetting setting) {
+        return setting != null && setting.getClient() != null && setting.getClient().getLat() != null
+                && setting.getClient().getLon() != null ? setting.getClient() : null;
+    }
+
+    private static boolean isAt(final Client client, final Client knownClient) {
+        return client != null && Objects.equals(client.getLat(), knownClient.getLat())
+                && Objects.equals(client.getLon(), knownClient.getLon());
+    }
+
+    private static <T> CompletableFuture<T> supply(final Step<T> step, final ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> call(step), executor);
+    }
+
+    private static <T> T call(final Step<T> step) {
+        try {
+            return step.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // the requests the pipeline is made of, replaceable for tests
+    interface Steps {
+        Steps SERVICES = new ServiceSteps();
+
+        ConfigSetting requestSetting(SpeedtestConfig config) throws Exception;
+
+        ConfigSetting cachedSetting(SpeedtestConfig config);
+
+        List<Server> requestServerList(SpeedtestConfig config) throws Exception;
+
+        Map<Server, Double> requestClosestServers(SpeedtestConfig config, double lat, double lon) throws Exception;
+
+        Map.Entry<Server, LatencyTestResult> getFastestServer(Map<Server, Double> closestServers, SpeedtestConfig config,
+                                                              LatencyListener listener) throws Exception;
+    }
+
+    private static final class ServiceSteps implements Steps {
+        @Override
+        public ConfigSetting requestSetting(final SpeedtestConfig config) throws Exception {
+            return ConfigSettingsService.requestSetting(config);
+        }
+
+        @Override
+        public ConfigSetting cachedSetting(final SpeedtestConfig config) {
+            return ConfigSettingsService.cachedSetting(config);
+        }
+
+        @Override
+        public List<Server> requestServerList(final SpeedtestConfig config) throws MissingResultException {
+            return ServerSettingsService.requestServerList(DEFAULT_THREADS_PER_URL, config);
+        }
+
+        @Override
+        public Map<Server, Double> requestClosestServers(final SpeedtestConfig config, final double lat, final double lon)
+                throws MissingResultException {
+            return ServerSettingsService.requestClosestServers(DEFAULT_THREADS_PER_URL, lat, lon, config);
+        }
+
+        @Override
+        public Map.Entry<Server, LatencyTestResult> getFastestServer(final Map<Server, Double> closestServers,
+                                                                     final SpeedtestConfig config, final LatencyListener listener)
+                throws MissingResultException {
+            return LatencyService.getFastestServer(closestServers, config, listener);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step<T> {
+        T call() throws Exception;
+    }
+
+}
@@ -0,0 +1,25 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+
+import java.util.function.LongConsumer;
+
+public final class StreamDownloadEngine implements DownloadEngine {
+    private final int bufferSize;
+
+    public StreamDownloadEngine(final int bufferSize) {
+        if (bufferSize > 0) {
+            this.bufferSize = bufferSize;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public TransferTestResult download(final String urlString, final TransferDeadline deadline, final LongConsumer progress)
+            throws ServerRequestException {
+        return HttpGetClient.partialGetDownloadData(urlString, deadline, bufferSize, progress);
+    }
+
+}
@@ -0,0 +1,26 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+
+import java.util.function.LongConsumer;
+
+public final class StreamUploadEngine implements UploadEngine {
+    private final int bufferSize;
+
+    public StreamUploadEngine(final int bufferSize) {
+        if (bufferSize > 0) {
+            this.bufferSize = bufferSize;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public TransferTestResult upload(final String urlString, final TransferDeadline deadline, final UploadBody body,
+                                     final LongConsumer progress)
+            throws ServerRequestException {
+        return HttpPostClient.partialPostUploadData(urlString, deadline, body, bufferSize, progress);
+    }
+
+}
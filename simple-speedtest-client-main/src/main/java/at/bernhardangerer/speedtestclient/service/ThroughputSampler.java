@@ -0,0 +1,135 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.util.ThroughputListener;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongConsumer;
+
+// the scheduler thread is the only writer of the sample ring; a trailing interval under half a sample is dropped
+public final class ThroughputSampler implements LongConsumer {
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final int BITS_PER_BYTE = 8;
+    private static final long NO_FIRST_BYTE = Long.MIN_VALUE;
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong firstByteNanos = new AtomicLong(NO_FIRST_BYTE);
+    private final long intervalInMs;
+    private final double[] ring;
+    private final DoubleConsumer listener;
+    private final ThroughputListener sampleListener;
+    private int count;
+    private long lastBytes;
+    private long lastNanos;
+    private long startNanos;
+    private ScheduledFuture<?> future;
+
+    public ThroughputSampler(final long intervalInMs, final int capacity) {
+        this(intervalInMs, capacity, sample -> {
+        });
+    }
+
+    public ThroughputSampler(final long intervalInMs, final int capacity, final DoubleConsumer listener) {
+        this(intervalInMs, capacity, listener, ThroughputListener.NONE);
+    }
+
+    public ThroughputSampler(final long intervalInMs, final int capacity, final DoubleConsumer listener,
+                             final ThroughputListener sampleListener) {
+        if (intervalInMs > 0 && capacity > 0 && listener != null && sampleListener != null) {
+            this.intervalInMs = intervalInMs;
+            this.ring = new double[capacity];
+            this.listener = listener;
+            this.sampleListener = sampleListener;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void accept(final long value) {
+        bytes.add(value);
+        // a plain read on the hot path, the timestamp is only written once
+        if (value > 0 && firstByteNanos.get() == NO_FIRST_BYTE) {
+            firstByteNanos.compareAndSet(NO_FIRST_BYTE, System.nanoTime());
+        }
+    }
+
+    public long getIntervalInMs() {
+        return intervalInMs;
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    // null until the sampler was started and the first byte arrived
+    public synchronized Long getTimeToFirstByteInMs() {
+        final long firstByte = firstByteNanos.get();
+        return future != null && firstByte != NO_FIRST_BYTE
+                ? TimeUnit.NANOSECONDS.toMillis(Math.max(0, firstByte - startNanos)) : null;
+    }
+
+    public synchronized void start() {
+        if (future == null) {
+            lastNanos = System.nanoTime();
+            startNanos = lastNanos;
+            lastBytes = bytes.sum();
+            future = SchedulerHolder.SCHEDULER.scheduleAtFixedRate(() -> sample(false), intervalInMs, intervalInMs, TimeUnit.MILLISECONDS);
+        } else {
+            throw new IllegalStateException("Sampler already started");
+        }
+    }
+
+    // Runs the final sample on the scheduler thread, so it is ordered after any in-flight one.
+    public synchronized void stop() throws InterruptedException {
+        if (future != null && !future.isCancelled()) {
+            future.cancel(false);
+            try {
+                SchedulerHolder.SCHEDULER.submit(() -> sample(true)).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    public double[] getSamplesInMbps() {
+        final int size = Math.min(count, ring.length);
+        final double[] samples = new double[size];
+        final int first = count - size;
+        for (int index = 0; index < size; index++) {
+            samples[index] = ring[(first + index) % ring.length];
+        }
+        return samples;
+    }
+
+    private void sample(final boolean last) {
+        final long nowNanos = System.nanoTime();
+        final long totalBytes = bytes.sum();
+        final long elapsedNanos = nowNanos - lastNanos;
+        if (!last || elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(intervalInMs) / 2) {
+            final double sample = (totalBytes - lastBytes) * BITS_PER_BYTE / (elapsedNanos / NANOS_PER_MICRO);
+            ring[count % ring.length] = sample;
+            count++;
+            if (!last) {
+                listener.accept(sample);
+                sampleListener.onSample(totalBytes - lastBytes, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sample);
+            }
+        }
+        lastNanos = nowNanos;
+        lastBytes = totalBytes;
+    }
+
+    private static final class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "speedtest-throughput-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -0,0 +1,34 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// timeout in epoch ms (0 for none) that stop() can bring forward
+public final class TransferDeadline {
+    private final long timeoutTime;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private TransferDeadline(final long timeoutTime) {
+        this.timeoutTime = timeoutTime;
+    }
+
+    public static TransferDeadline of(final long timeoutTime) {
+        return new TransferDeadline(timeoutTime);
+    }
+
+    public long getTimeoutTime() {
+        return timeoutTime;
+    }
+
+    public boolean isReached() {
+        return stopped.get() || timeoutTime > 0 && System.currentTimeMillis() > timeoutTime;
+    }
+
+    public boolean isStopped() {
+        return stopped.get();
+    }
+
+    public void stop() {
+        stopped.set(true);
+    }
+
+}
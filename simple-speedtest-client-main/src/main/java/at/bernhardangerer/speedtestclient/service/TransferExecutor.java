@@ -0,0 +1,23 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public interface TransferExecutor extends AutoCloseable {
+
+    <T> List<Future<T>> invokeAll(List<? extends Callable<T>> tasks, int parallelism) throws InterruptedException;
+
+    void shutdown();
+
+    boolean isShutdown();
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+
+    @Override
+    default void close() {
+        shutdown();
+    }
+
+}
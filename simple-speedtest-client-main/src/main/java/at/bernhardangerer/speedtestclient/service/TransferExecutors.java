@@ -0,0 +1,84 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class TransferExecutors {
+    private static final Logger logger = LogManager.getLogger(TransferExecutors.class);
+    private static final int SHARED_POOL_SIZE = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+    private static final String THREAD_NAME_PREFIX = "speedtest-transfer-";
+    private static final String VIRTUAL_THREAD_FACTORY_METHOD = "newVirtualThreadPerTaskExecutor";
+
+    private TransferExecutors() {
+    }
+
+    // One virtual thread per task on Java 21+, a cached pool of daemon platform threads on older runtimes.
+    public static TransferExecutor virtualThreadPerTask() {
+        return new ExecutorServiceTransferExecutor(newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    public static TransferExecutor boundedPool(final int maxThreads) {
+        if (maxThreads > 0) {
+            return new ExecutorServiceTransferExecutor(newBoundedPool(maxThreads, THREAD_NAME_PREFIX), true);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // Borrowed view of the JVM-wide bounded pool; shutting it down never affects the pool or other views.
+    public static TransferExecutor shared() {
+        return new ExecutorServiceTransferExecutor(SharedPoolHolder.POOL, false);
+    }
+
+    public static TransferExecutor fromExecutorService(final ExecutorService executorService, final boolean shutdownOnClose) {
+        return new ExecutorServiceTransferExecutor(executorService, shutdownOnClose);
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod(VIRTUAL_THREAD_FACTORY_METHOD);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_FACTORY_METHOD).invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            logger.debug("Virtual threads are not available, using platform threads: {}", e.toString());
+            return Executors.newCachedThreadPool(daemonThreadFactory(THREAD_NAME_PREFIX));
+        }
+    }
+
+    static ThreadPoolExecutor newBoundedPool(final int maxThreads, final String namePrefix) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory(namePrefix));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class SharedPoolHolder {
+        private static final ExecutorService POOL = newBoundedPool(SHARED_POOL_SIZE, "speedtest-shared-transfer-");
+    }
+
+}
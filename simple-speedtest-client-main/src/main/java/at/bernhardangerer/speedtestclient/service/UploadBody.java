@@ -0,0 +1,44 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.nio.ByteBuffer;
+
+// stateless by position, so one instance serves any number of connections
+public interface UploadBody {
+
+    int length();
+
+    // Writes the bytes from the given position on into the target until it is full or the body ends.
+    void read(long position, ByteBuffer target);
+
+    // Returns a buffer the caller may hand off; bodies backed by memory return a slice instead of a copy.
+    default ByteBuffer chunk(final long position, final int chunkLength) {
+        final ByteBuffer chunk = ByteBuffer.allocate(chunkLength);
+        read(position, chunk);
+        return chunk.flip();
+    }
+
+    static UploadBody of(final ByteBuffer payload) {
+        if (payload != null) {
+            final ByteBuffer data = payload.slice().asReadOnlyBuffer();
+            return new UploadBody() {
+                @Override
+                public int length() {
+                    return data.limit();
+                }
+
+                @Override
+                public void read(final long position, final ByteBuffer target) {
+                    target.put(chunk(position, Math.min(target.remaining(), data.limit() - (int) position)));
+                }
+
+                @Override
+                public ByteBuffer chunk(final long position, final int chunkLength) {
+                    return data.slice((int) position, chunkLength);
+                }
+            };
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+}
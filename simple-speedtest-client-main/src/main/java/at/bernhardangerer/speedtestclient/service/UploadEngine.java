@@ -0,0 +1,19 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+
+import java.util.function.LongConsumer;
+
+@FunctionalInterface
+public interface UploadEngine {
+    TransferTestResult upload(String urlString, TransferDeadline deadline, UploadBody body, LongConsumer progress)
+            throws ServerRequestException;
+
+    default TransferTestResult upload(final String urlString, final long timeoutTime, final String dataString)
+            throws ServerRequestException {
+        final UploadBody body = dataString != null ? UploadBody.of(UploadPayload.wrap(dataString)) : null;
+        return upload(urlString, TransferDeadline.of(timeoutTime), body, bytes -> {
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// content equals UploadService.generateDataString; every task sends a prefix slice of the one direct buffer
+public final class UploadPayload {
+    public static final int MAX_SIZE = Arrays.stream(UploadService.SIZES).max().orElseThrow();
+    private static final byte[] PREFIX = "content1=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private UploadPayload() {
+    }
+
+    public static ByteBuffer slice(final int size) {
+        if (size > 0 && size <= MAX_SIZE) {
+            return PayloadHolder.PAYLOAD.slice(0, size);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static ByteBuffer wrap(final String dataString) {
+        if (dataString != null) {
+            return ByteBuffer.wrap(dataString.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static ByteBuffer allocate(final int size) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        final int prefixLength = Math.min(PREFIX.length, size);
+        buffer.put(PREFIX, 0, prefixLength);
+        while (buffer.hasRemaining()) {
+            buffer.put(CHARS, 0, Math.min(CHARS.length, buffer.remaining()));
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private static final class PayloadHolder {
+        private static final ByteBuffer PAYLOAD = allocate(MAX_SIZE);
+    }
+
+}
@@ -1,24 +1,47 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
 import at.bernhardangerer.speedtestclient.model.UploadSetting;
 import at.bernhardangerer.speedtestclient.util.Callback;
+import at.bernhardangerer.speedtestclient.util.ThroughputListener;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
 
 public final class UploadService extends AbstractTransferService {
-    private static final int[] SIZES = new int[]{32768, 65536, 131072, 262144, 524288, 1048576, 7340032};
+    static final int[] SIZES = new int[]{32768, 65536, 131072, 262144, 524288, 1048576, 7340032};
     private static final String CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     private static final String CONTENT = "content1=";
 
     public static TransferTestResult testUpload(final String serverUrl, final UploadSetting settings, final int threads,
                                                 final Callback callback)
             throws InterruptedException, MissingResultException {
-        if (serverUrl != null && settings != null && callback != null) {
+        return testUpload(serverUrl, settings, threads, SpeedtestConfig.getDefault(), callback);
+    }
+
+    public static TransferTestResult testUpload(final String serverUrl, final UploadSetting settings, final int threads,
+                                                final SpeedtestConfig config, final Callback callback)
+            throws InterruptedException, MissingResultException {
+        return testUpload(serverUrl, settings, threads, config, TransferExecutors.shared(), callback);
+    }
+
+    public static TransferTestResult testUpload(final String serverUrl, final UploadSetting settings, final int threads,
+                                                final SpeedtestConfig config, final TransferExecutor executor, final Callback callback)
+            throws InterruptedException, MissingResultException {
+        return testUpload(serverUrl, settings, threads, config, executor, callback, ThroughputListener.NONE);
+    }
+
+    public static TransferTestResult testUpload(final String serverUrl, final UploadSetting settings, final int threads,
+                                                final SpeedtestConfig config, final TransferExecutor executor, final Callback callback,
+                                                final ThroughputListener throughputListener)
+            throws InterruptedException, MissingResultException {
+        if (serverUrl != null && settings != null && config != null && executor != null && callback != null
+                && throughputListener != null) {
             final int[] uploadSizes = Arrays.copyOfRange(SIZES, settings.getRatio() - 1, SIZES.length);
             final int uploadCount = (int) Math.ceil((double) settings.getMaxChunkCount() / (double) uploadSizes.length);
             final List<Integer> sizeList = new ArrayList<>();
@@ -28,11 +51,41 @@ public final class UploadService extends AbstractTransferService {
                 }
             }
             final long timeoutTime = System.currentTimeMillis() + settings.getTestLength() * 1000L;
+            final UploadEngine engine = createEngine(config);
+            final ConvergenceMonitor monitor = ConvergenceMonitor.create(config, TransferDeadline.of(timeoutTime));
+            final ConnectionRamp ramp = ConnectionRamp.create(config, monitor.getDeadline(), threads);
+            final ThroughputSampler sampler = createSampler(config, settings.getTestLength(), monitor.andThen(ramp), throughputListener);
+            final MeasurementWindow window = MeasurementWindow.create(config, true);
             final List<Callable<TransferTestResult>> callables = new ArrayList<>();
             for (int size : sizeList) {
-                callables.add(new UploadTask(serverUrl, timeoutTime, generateDataString(size), callback));
+                callables.add(window.track(sampler, progress -> new UploadTask(serverUrl, monitor.getDeadline(), createBody(config, size),
+                        callback, engine, progress)));
             }
-            return testTransfer(callables, threads);
+            final TransferTestResult result = testTransfer(callables, executor, sampler, monitor, ramp);
+            window.applyTo(result);
+            return result;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static UploadEngine createEngine(final SpeedtestConfig config) {
+        if (config != null && config.getUploadEngine() != null) {
+            return switch (config.getUploadEngine()) {
+                case STREAM -> new StreamUploadEngine(config.getUploadMaxBufferSize());
+                case HTTP2 -> new Http2TransferEngine(config.getUploadMaxBufferSize());
+            };
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static UploadBody createBody(final SpeedtestConfig config, final int size) {
+        if (config != null && config.getUploadPayload() != null) {
+            return switch (config.getUploadPayload()) {
+                case RANDOM -> new RandomUploadBody(size, ThreadLocalRandom.current().nextLong());
+                case PATTERN -> UploadBody.of(UploadPayload.slice(size));
+            };
         } else {
             throw new IllegalArgumentException();
         }
@@ -1,29 +1,66 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.TransferTaskEvent;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
 import at.bernhardangerer.speedtestclient.util.Callback;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 public final class UploadTask implements Callable<TransferTestResult> {
     private final String url;
-    private final long timeoutTime;
-    private final String dataString;
+    private final TransferDeadline deadline;
+    private final UploadBody body;
     private final Callback callback;
+    private final UploadEngine engine;
+    private final LongConsumer progress;
 
     public UploadTask(final String url, final long timeoutTime, final String dataString, final Callback callback) {
+        this(url, timeoutTime, dataString, callback, new StreamUploadEngine(SpeedtestConfig.getDefault().getUploadMaxBufferSize()));
+    }
+
+    public UploadTask(final String url, final long timeoutTime, final String dataString, final Callback callback,
+                      final UploadEngine engine) {
+        this(url, TransferDeadline.of(timeoutTime), UploadBody.of(UploadPayload.wrap(dataString)), callback, engine, bytes -> {
+        });
+    }
+
+    public UploadTask(final String url, final TransferDeadline deadline, final UploadBody body, final Callback callback,
+                      final UploadEngine engine, final LongConsumer progress) {
         this.url = url;
-        this.timeoutTime = timeoutTime;
-        this.dataString = dataString;
+        this.deadline = deadline;
+        this.body = body;
         this.callback = callback;
+        this.engine = engine;
+        this.progress = progress;
     }
 
     @Override
     public TransferTestResult call() throws ServerRequestException {
-        final TransferTestResult result = HttpPostClient.partialPostUploadData(url, timeoutTime, dataString);
-        callback.execute();
-        return result;
+        if (deadline.isStopped()) {
+            return null;
+        }
+        final TransferTaskEvent event = new TransferTaskEvent();
+        event.begin();
+        // a failed transfer has no result, so its bytes are counted on the way while a recording has the event enabled
+        final AtomicLong transferred = new AtomicLong();
+        final LongConsumer counted = event.isEnabled() ? bytes -> {
+            transferred.addAndGet(bytes);
+            progress.accept(bytes);
+        } : progress;
+        TransferTestResult result = null;
+        try {
+            result = engine.upload(url, deadline, body, counted);
+            callback.execute();
+            return result;
+        } finally {
+            final boolean succeeded = result != null;
+            event.complete(TransferTaskEvent.UPLOAD, url, succeeded && result.getBytes() != null ? result.getBytes() : transferred.get(),
+                    succeeded);
+        }
     }
 
 }
@@ -0,0 +1,23 @@
+package at.bernhardangerer.speedtestclient.type;
+
+import lombok.Getter;
+
+@Getter
+public enum DownloadEngineType {
+    STREAM,
+    NIO,
+    HTTP2;
+
+    public static DownloadEngineType fromString(final String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Invalid download engine");
+        }
+
+        return switch (value.trim().toLowerCase()) {
+            case "stream" -> STREAM;
+            case "nio" -> NIO;
+            case "http2" -> HTTP2;
+            default -> throw new IllegalArgumentException("Unknown download engine: " + value);
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package at.bernhardangerer.speedtestclient.type;
+
+import lombok.Getter;
+
+@Getter
+public enum MeasurementWindowMode {
+    NONE,
+    WARMUP,
+    THRESHOLD;
+
+    public static MeasurementWindowMode fromString(final String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Invalid measurement window mode");
+        }
+
+        return switch (value.trim().toLowerCase()) {
+            case "none" -> NONE;
+            case "warmup" -> WARMUP;
+            case "threshold" -> THRESHOLD;
+            default -> throw new IllegalArgumentException("Unknown measurement window mode: " + value);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package at.bernhardangerer.speedtestclient.type;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+public enum RollupPeriod {
+    HOURLY,
+    DAILY;
+
+    public static RollupPeriod fromString(final String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Invalid rollup period");
+        }
+
+        return switch (value.trim().toLowerCase()) {
+            case "hourly" -> HOURLY;
+            case "daily" -> DAILY;
+            default -> throw new IllegalArgumentException("Unknown rollup period: " + value);
+        };
+    }
+
+    // start of the period that contains the given time
+    public LocalDateTime startOf(final LocalDateTime time) {
+        return switch (this) {
+            case HOURLY -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAILY -> time.truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+
+    public LocalDateTime next(final LocalDateTime periodStart) {
+        return switch (this) {
+            case HOURLY -> periodStart.plusHours(1);
+            case DAILY -> periodStart.plusDays(1);
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package at.bernhardangerer.speedtestclient.type;
+
+public enum SpeedtestPhase {
+    SERVER_SELECTION,
+    DOWNLOAD,
+    UPLOAD
+}
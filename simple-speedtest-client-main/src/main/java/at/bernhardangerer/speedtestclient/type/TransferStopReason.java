@@ -0,0 +1,7 @@
+package at.bernhardangerer.speedtestclient.type;
+
+public enum TransferStopReason {
+    TIMEOUT,
+    COMPLETED,
+    CONVERGED
+}
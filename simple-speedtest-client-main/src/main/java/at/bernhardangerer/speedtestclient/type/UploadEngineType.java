@@ -0,0 +1,21 @@
+package at.bernhardangerer.speedtestclient.type;
+
+import lombok.Getter;
+
+@Getter
+public enum UploadEngineType {
+    STREAM,
+    HTTP2;
+
+    public static UploadEngineType fromString(final String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Invalid upload engine");
+        }
+
+        return switch (value.trim().toLowerCase()) {
+            case "stream" -> STREAM;
+            case "http2" -> HTTP2;
+            default -> throw new IllegalArgumentException("Unknown upload engine: " + value);
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package at.bernhardangerer.speedtestclient.type;
+
+import lombok.Getter;
+
+@Getter
+public enum UploadPayloadType {
+    RANDOM,
+    PATTERN;
+
+    public static UploadPayloadType fromString(final String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Invalid upload payload");
+        }
+
+        return switch (value.trim().toLowerCase()) {
+            case "random" -> RANDOM;
+            case "pattern" -> PATTERN;
+            default -> throw new IllegalArgumentException("Unknown upload payload: " + value);
+        };
+    }
+}
@@ -17,8 +17,17 @@ public final class CommandLineUtil {
     public static final String DEDICATED_SERVER_HOST = "dedicatedServerHost";
     public static final String LIST_SERVER_HOSTS = "listServerHosts";
     public static final String OUTPUT_FORMAT = "outputFormat";
+    public static final String CONFIG = "config";
+    public static final String DAEMON = "daemon";
+    public static final String HISTORY_QUERY = "historyQuery";
+    public static final String HISTORY_ROLLUP = "historyRollup";
+    public static final String FLIGHT_RECORDING = "flightRecording";
     public static final String HOST = "HOST";
     public static final String FORMAT = "FORMAT";
+    public static final String KEY_VALUE = "KEY=VALUE";
+    public static final String RANGE = "RANGE";
+    public static final String PERIOD = "PERIOD";
+    public static final String FILE = "FILE";
 
     private CommandLineUtil() {
     }
@@ -48,6 +57,20 @@ public final class CommandLineUtil {
                 json    — machine-readable JSON format
                 xml     — machine-readable XML format
                 csv     — comma-separated values format"""));
+        options.addOption(createOption("d", DAEMON, null, "Keep running and repeat the tests every Daemon.intervalSeconds"));
+        options.addOption(createOption("hq", HISTORY_QUERY, RANGE,
+                "Print the recorded results within FROM/TO, e.g. 2025-06-01/2025-06-07T12:00 (either side may be omitted)"));
+        options.addOption(createOption("hr", HISTORY_ROLLUP, PERIOD,
+                "Print hourly or daily aggregates of the recorded results (within --historyQuery if given)"));
+        options.addOption(createOption("fr", FLIGHT_RECORDING, FILE,
+                "Record the run with Java Flight Recorder, including the speedtest events, to the given .jfr file"));
+        options.addOption(Option.builder("c")
+                .longOpt(CONFIG)
+                .argName(KEY_VALUE)
+                .desc("Override a configuration property, e.g. Download.engine=nio (repeatable)")
+                .numberOfArgs(2)
+                .valueSeparator('=')
+                .get());
         return options;
     }
 
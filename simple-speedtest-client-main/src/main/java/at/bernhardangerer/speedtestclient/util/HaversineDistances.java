@@ -0,0 +1,141 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+
+// the haversine is a quarter of the squared chord, which stays exact for nearby positions
+public final class HaversineDistances {
+    public static final int DIMENSIONS = 3;
+    // same earth model as Util.calculateDistance: 60 nautical miles of 1.1515 statute miles per degree
+    private static final double MILES_PER_RADIAN = 60 * 1.1515 * 180 / Math.PI;
+    private static final double KILOMETERS_PER_MILE = 1.609344;
+    private static final double NAUTICAL_MILES_PER_MILE = 0.8684;
+    private static final double QUARTER = 0.25;
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int Z = 2;
+    private final double[] unitX;
+    private final double[] unitY;
+    private final double[] unitZ;
+
+    public HaversineDistances(final double[] lats, final double[] lons) {
+        if (lats != null && lons != null && lats.length == lons.length) {
+            unitX = new double[lats.length];
+            unitY = new double[lats.length];
+            unitZ = new double[lats.length];
+            for (int index = 0; index < lats.length; index++) {
+                final double[] vector = toUnitVector(lats[index], lons[index]);
+                unitX[index] = vector[X];
+                unitY[index] = vector[Y];
+                unitZ[index] = vector[Z];
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public int size() {
+        return unitX.length;
+    }
+
+    // the precomputed unit vector components of all positions on one axis, for spatial indexes built on top; not to be modified
+    public double[] coordinates(final int axis) {
+        return switch (axis) {
+            case X -> unitX;
+            case Y -> unitY;
+            case Z -> unitZ;
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    // haversine of the central angle between a unit vector and one position
+    public double haversineTo(final double[] unitVector, final int index) {
+        final double deltaX = unitX[index] - unitVector[X];
+        final double deltaY = unitY[index] - unitVector[Y];
+        final double deltaZ = unitZ[index] - unitVector[Z];
+        return (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ) * QUARTER;
+    }
+
+    // haversine of the central angle to every position; grows with the distance, so it is enough for ranking
+    public void haversinesFrom(final double lat, final double lon, final double[] haversines) {
+        if (haversines != null && haversines.length >= unitX.length) {
+            final double[] query = toUnitVector(lat, lon);
+            final double queryX = query[X];
+            final double queryY = query[Y];
+            final double queryZ = query[Z];
+            for (int index = 0; index < unitX.length; index++) {
+                final double deltaX = unitX[index] - queryX;
+                final double deltaY = unitY[index] - queryY;
+                final double deltaZ = unitZ[index] - queryZ;
+                haversines[index] = (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ) * QUARTER;
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public void distancesFrom(final double lat, final double lon, final DistanceUnit distanceUnit, final double[] distances) {
+        if (distanceUnit != null) {
+            haversinesFrom(lat, lon, distances);
+            final double diameter = 2 * earthRadius(distanceUnit);
+            for (int index = 0; index < unitX.length; index++) {
+                distances[index] = diameter * Math.asin(Math.sqrt(Math.min(1, distances[index])));
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public double[] distancesFrom(final double lat, final double lon, final DistanceUnit distanceUnit) {
+        final double[] distances = new double[unitX.length];
+        distancesFrom(lat, lon, distanceUnit, distances);
+        return distances;
+    }
+
+    public static double[] toUnitVector(final double lat, final double lon) {
+        final double latRadians = Math.toRadians(lat);
+        final double lonRadians = Math.toRadians(lon);
+        final double cosLat = Math.cos(latRadians);
+        return new double[]{cosLat * Math.cos(lonRadians), cosLat * Math.sin(lonRadians), Math.sin(latRadians)};
+    }
+
+    // haversine of the central angle between two positions, for one-off pairs
+    public static double haversine(final double lat1, final double lon1, final double lat2, final double lon2) {
+        final double latRadians1 = Math.toRadians(lat1);
+        final double latRadians2 = Math.toRadians(lat2);
+        final double sinHalfDeltaLat = Math.sin((latRadians2 - latRadians1) / 2);
+        final double sinHalfDeltaLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        return sinHalfDeltaLat * sinHalfDeltaLat + Math.cos(latRadians1) * Math.cos(latRadians2) * sinHalfDeltaLon * sinHalfDeltaLon;
+    }
+
+    public static double toDistance(final double haversine, final DistanceUnit distanceUnit) {
+        if (haversine >= 0 && distanceUnit != null) {
+            return 2 * earthRadius(distanceUnit) * Math.asin(Math.sqrt(Math.min(1, haversine)));
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // inverse of toDistance; distances beyond half the circumference map to the antipode
+    public static double toHaversine(final double distance, final DistanceUnit distanceUnit) {
+        if (distance >= 0 && distanceUnit != null) {
+            final double halfAngle = Math.min(Math.PI / 2, distance / earthRadius(distanceUnit) / 2);
+            final double sine = Math.sin(halfAngle);
+            return sine * sine;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static double earthRadius(final DistanceUnit distanceUnit) {
+        if (distanceUnit != null) {
+            return switch (distanceUnit) {
+                case MILE -> MILES_PER_RADIAN;
+                case KILOMETER -> MILES_PER_RADIAN * KILOMETERS_PER_MILE;
+                case NAUTICAL_MILE -> MILES_PER_RADIAN * NAUTICAL_MILES_PER_MILE;
+            };
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+}
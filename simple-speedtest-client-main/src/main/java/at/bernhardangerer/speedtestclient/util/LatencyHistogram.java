@@ -0,0 +1,141 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+
+// log-linear buckets keep the percentile error below 1%; not thread-safe
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_SHIFT = Long.SIZE - SUB_BUCKET_BITS;
+    private static final double PERCENT = 100d;
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private final long[] counts = new long[SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF];
+    private long count;
+    private long lossCount;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double sum;
+    private double sumOfSquares;
+    private long lastValue = -1;
+    private double sumOfDeltas;
+
+    public void recordValue(final long value) {
+        if (value >= 0) {
+            counts[indexOf(value)]++;
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum = sum + value;
+            sumOfSquares = sumOfSquares + (double) value * value;
+            if (lastValue >= 0) {
+                sumOfDeltas = sumOfDeltas + Math.abs(value - lastValue);
+            }
+            lastValue = value;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public void recordLoss() {
+        lossCount++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getLossCount() {
+        return lossCount;
+    }
+
+    public long getMin() {
+        return count > 0 ? min : 0;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    public double getStandardDeviation() {
+        if (count < 2) {
+            return 0;
+        }
+        final double mean = getMean();
+        return Math.sqrt(Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1)));
+    }
+
+    public double getJitter() {
+        return count > 1 ? sumOfDeltas / (count - 1) : 0;
+    }
+
+    // midpoint of the bucket holding the given percentile, clamped to the exact min and max
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile >= 0 && percentile <= PERCENT) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(percentile / PERCENT * count));
+            long seen = 0;
+            for (int index = 0; index < counts.length; index++) {
+                seen = seen + counts[index];
+                if (seen >= rank) {
+                    final long lowest = lowestValueAt(index);
+                    final long midpoint = lowest + (highestValueAt(index) - lowest) / 2;
+                    return Math.min(max, Math.max(min, midpoint));
+                }
+            }
+            return max;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public void applyTo(final LatencyTestResult result) {
+        if (result != null) {
+            if (count > 0) {
+                result.setMinInMs(min / NANOS_PER_MILLI);
+                result.setP50InMs(getValueAtPercentile(50) / NANOS_PER_MILLI);
+                result.setP90InMs(getValueAtPercentile(90) / NANOS_PER_MILLI);
+                result.setP99InMs(getValueAtPercentile(99) / NANOS_PER_MILLI);
+                result.setMaxInMs(max / NANOS_PER_MILLI);
+                result.setJitterInMs(getJitter() / NANOS_PER_MILLI);
+            }
+            result.setLossCount(lossCount);
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + subBucket - SUB_BUCKET_HALF;
+    }
+
+    static long lowestValueAt(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return subBucket << shift;
+    }
+
+    static long highestValueAt(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        return lowestValueAt(index) + (1L << shift) - 1;
+    }
+
+}
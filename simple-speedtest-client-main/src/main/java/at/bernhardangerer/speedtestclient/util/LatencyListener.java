@@ -0,0 +1,12 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import at.bernhardangerer.speedtestclient.model.Server;
+
+// receives every valid latency probe round trip, possibly from several probing threads at once
+@FunctionalInterface
+public interface LatencyListener {
+    LatencyListener NONE = (server, roundTripInNanos) -> {
+    };
+
+    void onRoundTrip(Server server, long roundTripInNanos);
+}
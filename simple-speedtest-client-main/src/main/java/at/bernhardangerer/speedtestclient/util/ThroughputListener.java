@@ -0,0 +1,10 @@
+package at.bernhardangerer.speedtestclient.util;
+
+// receives every full-interval throughput sample of a transfer phase on the sampler thread
+@FunctionalInterface
+public interface ThroughputListener {
+    ThroughputListener NONE = (bytes, intervalInMs, rateInMbps) -> {
+    };
+
+    void onSample(long bytes, long intervalInMs, double rateInMbps);
+}
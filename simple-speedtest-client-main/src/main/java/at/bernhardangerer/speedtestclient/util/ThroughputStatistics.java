@@ -0,0 +1,57 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import java.util.Arrays;
+
+// stable rate: mean after discarding the slowest 30% and the fastest 10% of the samples
+public final class ThroughputStatistics {
+    private static final double STABLE_LOWER_CUT = 0.3;
+    private static final double STABLE_UPPER_CUT = 0.1;
+
+    private ThroughputStatistics() {
+    }
+
+    public static double peak(final double[] samples) {
+        if (samples != null && samples.length > 0) {
+            return Arrays.stream(samples).max().orElseThrow();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static double median(final double[] samples) {
+        if (samples != null && samples.length > 0) {
+            final double[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            final int middle = sorted.length / 2;
+            return sorted.length % 2 == 0 ? (sorted[middle - 1] + sorted[middle]) / 2 : sorted[middle];
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static double coefficientOfVariation(final double[] samples) {
+        if (samples != null && samples.length > 0) {
+            final double mean = Arrays.stream(samples).average().orElseThrow();
+            if (mean <= 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            final double variance = Arrays.stream(samples).map(sample -> (sample - mean) * (sample - mean)).sum() / samples.length;
+            return Math.sqrt(variance) / mean;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public static double stableRate(final double[] samples) {
+        if (samples != null && samples.length > 0) {
+            final double[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            final int from = (int) Math.floor(sorted.length * STABLE_LOWER_CUT);
+            final int to = Math.max(from + 1, sorted.length - (int) Math.floor(sorted.length * STABLE_UPPER_CUT));
+            return Arrays.stream(sorted, from, to).average().orElseThrow();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+}
@@ -68,24 +68,33 @@ public final class Util {
     }
 
     @SuppressWarnings("checkstyle:MagicNumber")
-    public static double calculateMbps(final int bytes, final long timeInMs) {
+    public static double calculateMbps(final long bytes, final long timeInMs) {
         return (bytes * 8.0) / (timeInMs * 1000.0);
     }
 
     public static String getConfigProperty(final String key) {
         if (key != null) {
-            final String resource = "config.properties";
-            try (InputStream is = Util.class.getClassLoader().getResourceAsStream(resource)) {
-                final Properties prop = new Properties();
-                prop.load(is);
-                return prop.getProperty(key);
-            } catch (Exception e) {
-                logger.error("Loading key \"{}\" from property file \"" + resource + "\" was not possible!", key, e);
-                return null;
-            }
+            final Properties prop = ConfigPropertiesHolder.PROPERTIES;
+            return prop != null ? prop.getProperty(key) : null;
         } else {
             throw new IllegalArgumentException();
         }
     }
 
+    private static Properties loadConfigProperties() {
+        final String resource = "config.properties";
+        try (InputStream is = Util.class.getClassLoader().getResourceAsStream(resource)) {
+            final Properties prop = new Properties();
+            prop.load(is);
+            return prop;
+        } catch (Exception e) {
+            logger.error("Loading property file \"" + resource + "\" was not possible!", e);
+            return null;
+        }
+    }
+
+    private static final class ConfigPropertiesHolder {
+        private static final Properties PROPERTIES = loadConfigProperties();
+    }
+
 }
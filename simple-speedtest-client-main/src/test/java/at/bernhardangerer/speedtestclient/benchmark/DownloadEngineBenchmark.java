@@ -0,0 +1,107 @@
+package at.bernhardangerer.speedtestclient.benchmark;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.service.DownloadEngine;
+import at.bernhardangerer.speedtestclient.service.NioDownloadEngine;
+import at.bernhardangerer.speedtestclient.service.StreamDownloadEngine;
+import at.bernhardangerer.speedtestclient.type.DownloadEngineType;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+// also reports the downloaded bytes per CPU-second of the downloading thread
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings({"checkstyle:VisibilityModifier", "checkstyle:DesignForExtension"})
+public class DownloadEngineBenchmark {
+    private static final int PAYLOAD_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 10240;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    @Param({"STREAM", "NIO"})
+    public DownloadEngineType engineType;
+
+    private HttpServer server;
+    private DownloadEngine engine;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final byte[] payload = new byte[PAYLOAD_SIZE];
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/random4000x4000.jpg", exchange -> {
+            exchange.sendResponseHeaders(200, PAYLOAD_SIZE);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(payload);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/random4000x4000.jpg";
+        engine = engineType == DownloadEngineType.NIO ? new NioDownloadEngine(BUFFER_SIZE) : new StreamDownloadEngine(BUFFER_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public TransferTestResult download(final CpuCounters counters) throws ServerRequestException {
+        final long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        final TransferTestResult result = engine.download(url, 0);
+        counters.cpuNanos += THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart;
+        counters.bytes += result.getBytes();
+        return result;
+    }
+
+    @SuppressWarnings({"checkstyle:UncommentedMain", "checkstyle:MagicNumber"})
+    public static void main(final String[] args) throws RunnerException {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(DownloadEngineBenchmark.class.getSimpleName())
+                .build()).run();
+        for (final RunResult result : results) {
+            final double bytes = result.getSecondaryResults().get("bytes").getScore();
+            final double cpuNanos = result.getSecondaryResults().get("cpuNanos").getScore();
+            System.out.printf("%s: %,.0f bytes per CPU-second%n", result.getParams().getParam("engineType"),
+                    bytes / (cpuNanos / 1_000_000_000d));
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CpuCounters {
+        public long bytes;
+        public long cpuNanos;
+    }
+
+}
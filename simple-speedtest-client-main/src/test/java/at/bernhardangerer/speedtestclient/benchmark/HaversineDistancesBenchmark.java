@@ -0,0 +1,91 @@
+package at.bernhardangerer.speedtestclient.benchmark;
+
+import at.bernhardangerer.speedtestclient.exception.UnsupportedUnitException;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.util.HaversineDistances;
+import at.bernhardangerer.speedtestclient.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// the haversine variant only ranks, as the closest-server search does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings({"checkstyle:VisibilityModifier", "checkstyle:DesignForExtension", "checkstyle:MagicNumber"})
+public class HaversineDistancesBenchmark {
+    private static final double CLIENT_LAT = 48.2;
+    private static final double CLIENT_LON = 16.37;
+
+    @Param({"1000", "10000", "100000"})
+    public int serverCount;
+
+    private double[] lats;
+    private double[] lons;
+    private double[] results;
+    private HaversineDistances haversineDistances;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(1L);
+        lats = new double[serverCount];
+        lons = new double[serverCount];
+        for (int index = 0; index < serverCount; index++) {
+            lats[index] = random.nextDouble() * 180 - 90;
+            lons[index] = random.nextDouble() * 360 - 180;
+        }
+        results = new double[serverCount];
+        haversineDistances = new HaversineDistances(lats, lons);
+    }
+
+    @Benchmark
+    public double[] utilDistances() throws UnsupportedUnitException {
+        for (int index = 0; index < serverCount; index++) {
+            results[index] = Util.calculateDistance(CLIENT_LAT, CLIENT_LON, lats[index], lons[index], DistanceUnit.KILOMETER);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public double[] soaDistances() {
+        haversineDistances.distancesFrom(CLIENT_LAT, CLIENT_LON, DistanceUnit.KILOMETER, results);
+        return results;
+    }
+
+    @Benchmark
+    public double[] soaHaversines() {
+        haversineDistances.haversinesFrom(CLIENT_LAT, CLIENT_LON, results);
+        return results;
+    }
+
+    @SuppressWarnings("checkstyle:UncommentedMain")
+    public static void main(final String[] args) throws RunnerException {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(HaversineDistancesBenchmark.class.getSimpleName())
+                .build()).run();
+        for (final RunResult result : results) {
+            System.out.printf("%s (%s servers): %,.1f us%n", result.getParams().getBenchmark(),
+                    result.getParams().getParam("serverCount"), result.getPrimaryResult().getScore());
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package at.bernhardangerer.speedtestclient.benchmark;
+
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.model.ServerSetting;
+import at.bernhardangerer.speedtestclient.service.ServerFilter;
+import at.bernhardangerer.speedtestclient.service.ServerListParser;
+import at.bernhardangerer.speedtestclient.service.ServerSettingsService;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// also reports the bytes allocated per parse
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings({"checkstyle:VisibilityModifier", "checkstyle:DesignForExtension", "checkstyle:MagicNumber"})
+public class ServerListParserBenchmark {
+    private static final double CLIENT_LAT = 48.2;
+    private static final double CLIENT_LON = 16.37;
+    private static final int CLOSEST_SERVERS = 5;
+
+    @Param("10000")
+    public int serverCount;
+
+    private byte[] document;
+    private JAXBContext context;
+
+    @Setup
+    public void setup() throws JAXBException {
+        final Random random = new Random(1L);
+        final StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<settings>\n<servers>\n");
+        for (int id = 1; id <= serverCount; id++) {
+            xml.append(String.format(Locale.ROOT, "<server url=\"http://speedtest%1$d.example.net:8080/speedtest/upload.php\" "
+                            + "lat=\"%2$.4f\" lon=\"%3$.4f\" name=\"City %1$d\" country=\"Country %4$d\" cc=\"C%4$d\" "
+                            + "sponsor=\"Sponsor %1$d\" id=\"%1$d\" host=\"speedtest%1$d.example.net:8080\" />\n",
+                    id, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, id % 200));
+        }
+        document = xml.append("</servers>\n</settings>").toString().getBytes(StandardCharsets.UTF_8);
+        context = JAXBContext.newInstance(ServerSetting.class);
+    }
+
+    @Benchmark
+    public List<Server> jaxbAll() throws JAXBException {
+        final ServerSetting setting = (ServerSetting) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(document));
+        return setting.getServers().getServerList();
+    }
+
+    @Benchmark
+    public Map<Server, Double> jaxbClosest() throws JAXBException, MissingResultException {
+        return ServerSettingsService.findClosestServers(CLIENT_LAT, CLIENT_LON, CLOSEST_SERVERS, DistanceUnit.KILOMETER, jaxbAll());
+    }
+
+    @Benchmark
+    public List<Server> staxAll() throws ParsingException {
+        return ServerListParser.parse(new ByteArrayInputStream(document), ServerFilter.ANY);
+    }
+
+    // the path taken once the client position is known, which never holds more than the closest servers
+    @Benchmark
+    public Map<Server, Double> staxClosest() throws ParsingException {
+        return ServerListParser.parseClosest(new ByteArrayInputStream(document), ServerFilter.ANY, CLIENT_LAT, CLIENT_LON, CLOSEST_SERVERS,
+                DistanceUnit.KILOMETER);
+    }
+
+    @SuppressWarnings("checkstyle:UncommentedMain")
+    public static void main(final String[] args) throws RunnerException {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(ServerListParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+        for (final RunResult result : results) {
+            final Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf("%s: %,.2f ms, %,.0f KiB allocated%n", result.getParams().getBenchmark(),
+                    result.getPrimaryResult().getScore(), allocation != null ? allocation.getScore() / 1024 : Double.NaN);
+        }
+    }
+
+}
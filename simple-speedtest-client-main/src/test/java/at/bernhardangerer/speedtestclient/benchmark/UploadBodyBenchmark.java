@@ -0,0 +1,78 @@
+package at.bernhardangerer.speedtestclient.benchmark;
+
+import at.bernhardangerer.speedtestclient.service.RandomUploadBody;
+import at.bernhardangerer.speedtestclient.service.UploadBody;
+import at.bernhardangerer.speedtestclient.service.UploadPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+// reports the single-core fill rate in Gbit/s
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+@SuppressWarnings({"checkstyle:VisibilityModifier", "checkstyle:DesignForExtension"})
+public class UploadBodyBenchmark {
+    private static final int BODY_SIZE = UploadPayload.MAX_SIZE;
+
+    @Param({"RANDOM", "PATTERN"})
+    public String payload;
+
+    @Param({"10240", "65536"})
+    public int chunkSize;
+
+    private UploadBody body;
+    private ByteBuffer buffer;
+    private long position;
+
+    @Setup
+    public void setup() {
+        body = "RANDOM".equals(payload) ? new RandomUploadBody(BODY_SIZE, 1L) : UploadBody.of(UploadPayload.slice(BODY_SIZE));
+        buffer = ByteBuffer.allocate(chunkSize);
+    }
+
+    @Benchmark
+    public ByteBuffer fillChunk() {
+        if (position + chunkSize > BODY_SIZE) {
+            position = 0;
+        }
+        buffer.clear();
+        body.read(position, buffer);
+        position += chunkSize;
+        return buffer;
+    }
+
+    @SuppressWarnings({"checkstyle:UncommentedMain", "checkstyle:MagicNumber"})
+    public static void main(final String[] args) throws RunnerException {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(UploadBodyBenchmark.class.getSimpleName())
+                .build()).run();
+        for (final RunResult result : results) {
+            final int size = Integer.parseInt(result.getParams().getParam("chunkSize"));
+            System.out.printf("%s/%d: %,.1f Gbit/s%n", result.getParams().getParam("payload"), size,
+                    result.getPrimaryResult().getScore() * size * 8 / 1e9);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package at.bernhardangerer.speedtestclient.config;
+
+import at.bernhardangerer.speedtestclient.exception.ConfigurationException;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.type.DownloadEngineType;
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import at.bernhardangerer.speedtestclient.type.UploadEngineType;
+import at.bernhardangerer.speedtestclient.type.UploadPayloadType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class SpeedtestConfigLoaderTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void loadDefaults() throws ConfigurationException {
+        final SpeedtestConfig config = SpeedtestConfigLoader.parse(
+                SpeedtestConfigLoader.resolve(null, new Properties(), Map.of(), Map.of()));
+        assertEquals(DistanceUnit.KILOMETER, config.getDistanceUnit());
+        assertEquals(10240, config.getDownloadMaxBufferSize());
+        assertEquals(DownloadEngineType.STREAM, config.getDownloadEngine());
+        assertEquals(10240, config.getUploadMaxBufferSize());
+        assertEquals(UploadEngineType.STREAM, config.getUploadEngine());
+        assertEquals(UploadPayloadType.RANDOM, config.getUploadPayload());
+        assertEquals(100L, config.getSampleIntervalInMs());
+        assertFalse(config.isConvergenceEnabled());
+        assertEquals(10, config.getConvergenceWindowSamples());
+        assertEquals(0.05, config.getConvergenceMaxCoefficientOfVariation());
+        assertEquals(5, config.getConvergenceConsecutiveWindows());
+        assertFalse(config.isRampEnabled());
+        assertEquals(2, config.getRampInitialStreams());
+        assertEquals(32, config.getRampMaxStreams());
+        assertEquals(0.1, config.getRampMinGain());
+        assertEquals(5, config.getRampStepSamples());
+        assertEquals(MeasurementWindowMode.THRESHOLD, config.getWindowMode());
+        assertEquals(1000L, config.getWindowWarmupInMs());
+        assertEquals(80, config.getWindowThresholdPercent());
+        assertEquals(3, config.getLatencyTestsPerServer());
+        assertEquals(3000L, config.getLatencyRaceTimeoutInMs());
+        assertEquals(2, config.getLatencyRaceMinSamples());
+        assertFalse(config.isLoadedLatencyEnabled());
+        assertEquals(100L, config.getLoadedLatencyIntervalInMs());
+        assertEquals(5, config.getClosestServersMaxNumber());
+        assertEquals("*", config.getServerFilterCountry());
+        assertEquals("*", config.getServerFilterSponsor());
+        assertTrue(config.isCacheEnabled());
+        assertEquals(Path.of(System.getProperty("user.home"), ".cache", "simple-speedtest-client"), config.getCacheDirectory());
+        assertEquals(1440L, config.getServerListCacheTtlInMinutes());
+        assertEquals(60L, config.getConfigCacheTtlInMinutes());
+        assertEquals(300L, config.getDaemonIntervalInSeconds());
+        assertEquals(30L, config.getDaemonJitterInSeconds());
+        assertEquals(50, config.getDaemonLatencyDriftPercent());
+        assertFalse(config.isHistoryEnabled());
+        assertEquals(Path.of(System.getProperty("user.home"), ".local", "share", "simple-speedtest-client", "history"),
+                config.getHistoryDirectory());
+        assertEquals(8192, config.getHistorySegmentRecords());
+        assertFalse(config.isMetricsEnabled());
+        assertEquals("127.0.0.1", config.getMetricsBindAddress());
+        assertEquals(9464, config.getMetricsPort());
+    }
+
+    @Test
+    public void getDefaultIsLoadedOnce() {
+        assertSame(SpeedtestConfig.getDefault(), SpeedtestConfig.getDefault());
+    }
+
+    @Test
+    public void loadLayersInOrder() throws IOException, ConfigurationException {
+        final Path file = tempDir.resolve("speedtest.properties");
+        Files.writeString(file, "Download.maxBufferSize = 2048\nUpload.maxBufferSize = 2048\nClosestServers.maxNumber = 7\n",
+                StandardCharsets.UTF_8);
+        final Properties systemProperties = new Properties();
+        systemProperties.setProperty("speedtest.Upload.maxBufferSize", "4096");
+        systemProperties.setProperty("speedtest.Latency.testsPerServer.maxNumber", "4");
+        final Map<String, String> environment = Map.of("SPEEDTEST_LATENCY_TESTSPERSERVER_MAXNUMBER", "6",
+                "SPEEDTEST_DOWNLOAD_ENGINE", "nio");
+        final Map<String, String> overrides = Map.of("DistanceUnit.default", "mi", "Upload.engine", "http2");
+
+        final SpeedtestConfig config = SpeedtestConfigLoader.parse(
+                SpeedtestConfigLoader.resolve(file, systemProperties, environment, overrides));
+        assertEquals(DistanceUnit.MILE, config.getDistanceUnit());
+        assertEquals(2048, config.getDownloadMaxBufferSize());
+        assertEquals(DownloadEngineType.NIO, config.getDownloadEngine());
+        assertEquals(4096, config.getUploadMaxBufferSize());
+        assertEquals(UploadEngineType.HTTP2, config.getUploadEngine());
+        assertEquals(6, config.getLatencyTestsPerServer());
+        assertEquals(7, config.getClosestServersMaxNumber());
+    }
+
+    @Test
+    public void toEnvironmentName() {
+        assertEquals("SPEEDTEST_DOWNLOAD_MAXBUFFERSIZE", SpeedtestConfigLoader.toEnvironmentName("Download.maxBufferSize"));
+    }
+
+    @Test
+    public void loadUnknownKey() {
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Download.maxBuffer", "1")));
+    }
+
+    @Test
+    public void loadInvalidValues() {
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Download.maxBufferSize", "abc")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Upload.maxBufferSize", "0")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Download.engine", "ftp")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("DistanceUnit.default", "")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Transfer.convergence.enabled", "yes")));
+        assertThrows(ConfigurationException.class,
+                () -> SpeedtestConfigLoader.load(null, Map.of("Transfer.convergence.maxCoefficientOfVariation", "-0.1")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Transfer.window.warmupMs", "-1")));
+        assertThrows(ConfigurationException.class,
+                () -> SpeedtestConfigLoader.load(null, Map.of("Transfer.window.thresholdPercent", "101")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Daemon.intervalSeconds", "0")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Daemon.jitterSeconds", "-1")));
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(null, Map.of("Metrics.port", "65536")));
+    }
+
+    @Test
+    public void loadMissingFile() {
+        assertThrows(ConfigurationException.class, () -> SpeedtestConfigLoader.load(tempDir.resolve("missing.properties"), Map.of()));
+    }
+
+    @Test
+    public void loadInvalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> SpeedtestConfigLoader.load(null, null));
+    }
+
+    @Test
+    public void watcherReload() throws IOException, ConfigurationException {
+        final Path file = tempDir.resolve("speedtest.properties");
+        Files.writeString(file, "Download.engine = stream\n", StandardCharsets.UTF_8);
+        try (SpeedtestConfigWatcher watcher = SpeedtestConfigWatcher.watch(file, Map.of(), config -> { })) {
+            assertEquals(DownloadEngineType.STREAM, watcher.getConfig().getDownloadEngine());
+
+            Files.writeString(file, "Download.engine = nio\n", StandardCharsets.UTF_8);
+            assertTrue(watcher.reload());
+            assertEquals(DownloadEngineType.NIO, watcher.getConfig().getDownloadEngine());
+
+            Files.writeString(file, "Download.engine = ftp\n", StandardCharsets.UTF_8);
+            assertFalse(watcher.reload());
+            assertEquals(DownloadEngineType.NIO, watcher.getConfig().getDownloadEngine());
+        }
+    }
+}
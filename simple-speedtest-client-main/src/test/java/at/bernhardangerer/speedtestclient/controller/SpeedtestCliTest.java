@@ -1,11 +1,15 @@
 package at.bernhardangerer.speedtestclient.controller;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.fixture.ServerFixture;
+import at.bernhardangerer.speedtestclient.fixture.SpeedtestResultFixture;
 import at.bernhardangerer.speedtestclient.model.ConfigSetting;
 import at.bernhardangerer.speedtestclient.model.DownloadSetting;
+import at.bernhardangerer.speedtestclient.model.HistoryRecord;
 import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
 import at.bernhardangerer.speedtestclient.service.ConfigSettingsService;
+import at.bernhardangerer.speedtestclient.service.HistoryStore;
 import at.bernhardangerer.speedtestclient.service.ServerSettingsService;
 import at.bernhardangerer.speedtestclient.service.SpeedtestCliService;
 import at.bernhardangerer.speedtestclient.service.SpeedtestResultPrinter;
@@ -13,27 +17,46 @@ import at.bernhardangerer.speedtestclient.type.OutputFormat;
 import at.bernhardangerer.speedtestclient.util.CommandLineUtil;
 import at.bernhardangerer.speedtestclient.util.Constant;
 import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -78,6 +101,21 @@ class SpeedtestCliTest {
         });
     }
 
+    @Test
+    void flightRecordingOptionShouldWriteTheRecording(@TempDir final Path tempDir) throws ParseException {
+        final Path file = tempDir.resolve("run.jfr");
+        final String[] args = {"--listServerHosts", "--flightRecording", file.toString()};
+        final CommandLine cmd = setupCommandLineMock(null);
+        when(cmd.hasOption(CommandLineUtil.FLIGHT_RECORDING)).thenReturn(true);
+        when(cmd.getParsedOptionValue(CommandLineUtil.FLIGHT_RECORDING)).thenReturn(file.toString());
+
+        withCommonStaticMocks(args, cmd, ServerFixture.createList(), () -> {
+            SpeedtestCli.main(args);
+            assertTrue(errContent.toString().isEmpty());
+            assertThat(file).isNotEmptyFile();
+        });
+    }
+
     @Test
     void testListServerHostsOptionWithConsoleOutput() throws ParseException {
         final String[] args = {"--listServerHosts", "--outputFormat console"};
@@ -227,7 +265,7 @@ class SpeedtestCliTest {
                     .thenReturn(List.of(mockServer1, mockServer2));
 
             final ArgumentCaptor<Server> serverCaptor = ArgumentCaptor.forClass(Server.class);
-            controllerMock.when(() -> SpeedtestController.runSpeedTest(any(), anyBoolean(), anyBoolean(), anyBoolean(),
+            controllerMock.when(() -> SpeedtestController.runSpeedTest(any(SpeedtestConfig.class), anyBoolean(), anyBoolean(), anyBoolean(),
                             anyBoolean(), serverCaptor.capture()))
                     .thenAnswer(invocation -> null);
 
@@ -243,7 +281,8 @@ class SpeedtestCliTest {
             assertEquals("server1.example.com", capturedServer.getHost());
 
             controllerMock.verify(() ->
-                    SpeedtestController.runSpeedTest(any(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any()), times(1));
+                    SpeedtestController.runSpeedTest(any(SpeedtestConfig.class), anyBoolean(), anyBoolean(), anyBoolean(),
+                            anyBoolean(), any()), times(1));
         }
     }
 
@@ -285,7 +324,8 @@ class SpeedtestCliTest {
             assertTrue(error.contains("The provided host is not in the list of valid server hosts!"));
 
             controllerMock.verify(() ->
-                    SpeedtestController.runSpeedTest(any(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any()), never());
+                    SpeedtestController.runSpeedTest(any(SpeedtestConfig.class), anyBoolean(), anyBoolean(), anyBoolean(),
+                            anyBoolean(), any()), never());
         }
     }
 
@@ -333,6 +373,104 @@ class SpeedtestCliTest {
         }
     }
 
+    @Test
+    void shouldParseHistoryTimes() {
+        assertEquals(LocalDateTime.of(2025, 6, 1, 0, 0), SpeedtestCliService.parseHistoryTime("2025-06-01", false));
+        assertEquals(LocalDateTime.of(2025, 6, 2, 0, 0), SpeedtestCliService.parseHistoryTime("2025-06-01", true));
+        assertEquals(LocalDateTime.of(2025, 6, 1, 8, 30), SpeedtestCliService.parseHistoryTime(" 2025-06-01T08:30", true));
+        assertNull(SpeedtestCliService.parseHistoryTime(" ", false));
+        assertThrows(IllegalArgumentException.class, () -> SpeedtestCliService.parseHistoryTime("yesterday", false));
+    }
+
+    @Test
+    void shouldPrintHistoryOfTheQueriedDay(@TempDir final Path directory) throws Exception {
+        final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().historyDirectory(directory).build();
+        final SpeedtestResult result = SpeedtestResultFixture.create();
+        try (HistoryStore store = HistoryStore.open(config)) {
+            store.append(result);
+            final SpeedtestResult nextDay = SpeedtestResultFixture.create();
+            nextDay.setStartTime(result.getStartTime().plusDays(1));
+            store.append(nextDay);
+        }
+        final CommandLine cmd = new DefaultParser().parse(CommandLineUtil.createOptions(),
+                new String[] {"--historyQuery", "2025-07-28", "--outputFormat", "csv"});
+
+        SpeedtestCliService.processHistoryOptions(cmd, config, OutputFormat.CSV);
+
+        assertThat(outContent.toString()).isEqualToNormalizingNewlines("""
+                startTime,durationMs,serverId,latencyMs,latencyP50Ms,latencyP90Ms,latencyP99Ms,latencyJitterMs,\
+                downloadMbps,downloadBytes,uploadMbps,uploadBytes
+                2025-07-28T18:40:20,30000,%d,12.300000,12.200000,12.800000,13.100000,0.400000,94.250000,11799552,\
+                26.480000,3300352
+                """.formatted(result.getServer().getId()));
+    }
+
+    @Test
+    void oneShotRunShouldAppendTheResultToTheHistory(@TempDir final Path directory) throws Exception {
+        final String[] args = {"--outputFormat", "csv", "-c", "History.enabled=true", "-c", "History.directory=" + directory};
+        final SpeedtestResult result = SpeedtestResultFixture.create();
+
+        try (MockedStatic<SpeedtestController> controllerMock = mockStatic(SpeedtestController.class)) {
+            controllerMock.when(() -> SpeedtestController.runSpeedTest(any(SpeedtestConfig.class), eq(true), eq(true), eq(false),
+                    eq(false), isNull())).thenReturn(result);
+
+            SpeedtestCli.main(args);
+        }
+
+        assertTrue(errContent.toString().isEmpty());
+        assertThat(outContent.toString()).startsWith("startTime,");
+        try (HistoryStore store = HistoryStore.open(SpeedtestConfig.getDefault().toBuilder().historyDirectory(directory).build())) {
+            assertEquals(List.of(result.getStartTime()), store.query(null, null).stream().map(HistoryRecord::getStartTime).toList());
+        }
+    }
+
+    @Test
+    void daemonShouldHandEveryResultToTheOutputHistoryAndMetrics(@TempDir final Path directory) throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final String[] args = {"--daemon", "--outputFormat", "csv", "-c", "History.enabled=true", "-c", "History.directory=" + directory,
+            "-c", "Metrics.enabled=true", "-c", "Metrics.port=" + port};
+        final SpeedtestResult first = SpeedtestResultFixture.create();
+        final SpeedtestResult second = SpeedtestResultFixture.create();
+        second.setStartTime(first.getStartTime().plusMinutes(5));
+        final List<Integer> scrapes = new ArrayList<>();
+
+        try (MockedConstruction<SpeedtestDaemon> daemons = mockConstruction(SpeedtestDaemon.class, (daemon, context) ->
+                doAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    final Consumer<SpeedtestResult> sink = (Consumer<SpeedtestResult>) context.arguments().get(6);
+                    sink.accept(first);
+                    sink.accept(second);
+                    scrapes.add(HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/metrics"))
+                            .build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+                    return null;
+                }).when(daemon).run())) {
+            SpeedtestCli.main(args);
+
+            assertEquals(1, daemons.constructed().size());
+        }
+
+        assertTrue(errContent.toString().isEmpty());
+        assertEquals(List.of(200), scrapes);
+        // the header is only printed before the first result
+        assertThat(outContent.toString().lines()).hasSize(3).first().asString().startsWith("startTime,");
+        try (HistoryStore store = HistoryStore.open(SpeedtestConfig.getDefault().toBuilder().historyDirectory(directory).build())) {
+            assertEquals(2, store.size());
+        }
+        // the metrics endpoint is closed with the daemon
+        assertThrows(ConnectException.class, () -> new Socket(InetAddress.getLoopbackAddress(), port).close());
+    }
+
+    @Test
+    void shouldRejectHistoryInXmlFormat() {
+        final CommandLine cmd = mock(CommandLine.class);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                SpeedtestCliService.processHistoryOptions(cmd, SpeedtestConfig.getDefault(), OutputFormat.XML));
+    }
+
     private void withCommonStaticMocks(final String[] args, final CommandLine cmd, final List<Server> servers, final Runnable testLogic) {
         final ConfigSetting mockConfig = mock(ConfigSetting.class);
         final DownloadSetting mockDownload = mock(DownloadSetting.class);
@@ -354,7 +492,8 @@ class SpeedtestCliTest {
             testLogic.run();
 
             controllerMock.verify(() ->
-                    SpeedtestController.runSpeedTest(any(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any()), never());
+                    SpeedtestController.runSpeedTest(any(SpeedtestConfig.class), anyBoolean(), anyBoolean(), anyBoolean(),
+                            anyBoolean(), any()), never());
         }
     }
 
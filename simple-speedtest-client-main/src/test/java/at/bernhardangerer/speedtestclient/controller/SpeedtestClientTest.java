@@ -0,0 +1,184 @@
+package at.bernhardangerer.speedtestclient.controller;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.event.PhaseFinishedEvent;
+import at.bernhardangerer.speedtestclient.event.PhaseStartedEvent;
+import at.bernhardangerer.speedtestclient.event.SpeedtestEvent;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.SpeedtestException;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeedtestClientTest {
+    private static final SpeedtestConfig CONFIG = SpeedtestConfig.getDefault();
+
+    @Test
+    void runShouldCompleteWithResultAndPublishEvents() throws Exception {
+        final SpeedtestResult expected = new SpeedtestResult();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        try (SpeedtestClient client = new SpeedtestClient(CONFIG, (config, testDownload, testUpload, generateShareUrl, dedicatedServer,
+                                                                   listener) -> {
+            listener.accept(new PhaseStartedEvent(SpeedtestPhase.DOWNLOAD));
+            listener.accept(new PhaseFinishedEvent(SpeedtestPhase.DOWNLOAD, null));
+            return expected;
+        })) {
+            client.getEvents().subscribe(subscriber);
+
+            assertSame(expected, client.run().get(5, TimeUnit.SECONDS));
+            assertFalse(client.isRunning());
+        }
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(new PhaseStartedEvent(SpeedtestPhase.DOWNLOAD), new PhaseFinishedEvent(SpeedtestPhase.DOWNLOAD, null)),
+                subscriber.events);
+    }
+
+    @Test
+    void secondRunShouldWaitForTheFirst() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        try (SpeedtestClient client = new SpeedtestClient(CONFIG, (config, testDownload, testUpload, generateShareUrl, dedicatedServer,
+                                                                   listener) -> {
+            awaitQuietly(release);
+            return new SpeedtestResult();
+        })) {
+            final CompletableFuture<SpeedtestResult> first = client.run();
+
+            assertTrue(client.isRunning());
+            assertThrows(IllegalStateException.class, client::run);
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            // the client is free again as soon as the previous future completed
+            first.thenCompose(result -> client.run(true, false, false, null)).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void failedRunShouldCompleteExceptionally() {
+        final SpeedtestException failure = new SpeedtestException(new MissingResultException("Empty server list"));
+        try (SpeedtestClient client = new SpeedtestClient(CONFIG, (config, testDownload, testUpload, generateShareUrl, dedicatedServer,
+                                                                   listener) -> {
+            throw failure;
+        })) {
+            final ExecutionException exception = assertThrows(ExecutionException.class, () -> client.run().get(5, TimeUnit.SECONDS));
+            assertSame(failure, exception.getCause());
+        }
+    }
+
+    @Test
+    void cancelShouldInterruptTheRun() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        try (SpeedtestClient client = new SpeedtestClient(CONFIG, (config, testDownload, testUpload, generateShareUrl, dedicatedServer,
+                                                                   listener) -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return new SpeedtestResult();
+        })) {
+            final CompletableFuture<SpeedtestResult> result = client.run();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            result.cancel(true);
+
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void runCancelledBeforeItStartedShouldNotBlockTheNext() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        // keeps the only thread busy, so the first run stays queued until it is cancelled
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        final SpeedtestResult expected = new SpeedtestResult();
+        try (SpeedtestClient client = new SpeedtestClient(CONFIG, (config, testDownload, testUpload, generateShareUrl, dedicatedServer,
+                                                                   listener) -> expected, executor)) {
+            client.run().cancel(true);
+
+            assertFalse(client.isRunning());
+            final CompletableFuture<SpeedtestResult> next = client.run();
+            release.countDown();
+            assertSame(expected, next.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closedClientShouldRejectRuns() throws InterruptedException {
+        final SpeedtestClient client = new SpeedtestClient(CONFIG);
+        client.close();
+
+        assertThrows(IllegalStateException.class, client::run);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        client.getEvents().subscribe(subscriber);
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void invalidParameter() {
+        final SpeedtestClient.Runner runner = (config, testDownload, testUpload, generateShareUrl, dedicatedServer, listener) -> null;
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestClient(null));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestClient(CONFIG.toBuilder().distanceUnit(null).build()));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestClient(CONFIG, null));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestClient(CONFIG, runner, null));
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<SpeedtestEvent> {
+        private final List<SpeedtestEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final SpeedtestEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+}
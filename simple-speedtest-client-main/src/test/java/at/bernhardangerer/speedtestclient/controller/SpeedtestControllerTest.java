@@ -1,5 +1,12 @@
 package at.bernhardangerer.speedtestclient.controller;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.event.LatencySampleEvent;
+import at.bernhardangerer.speedtestclient.event.PhaseFinishedEvent;
+import at.bernhardangerer.speedtestclient.event.PhaseStartedEvent;
+import at.bernhardangerer.speedtestclient.event.ServerChosenEvent;
+import at.bernhardangerer.speedtestclient.event.SpeedtestEvent;
+import at.bernhardangerer.speedtestclient.event.ThroughputSampleEvent;
 import at.bernhardangerer.speedtestclient.exception.SpeedtestException;
 import at.bernhardangerer.speedtestclient.model.Client;
 import at.bernhardangerer.speedtestclient.model.ConfigSetting;
@@ -9,14 +16,14 @@ import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
 import at.bernhardangerer.speedtestclient.model.UploadSetting;
-import at.bernhardangerer.speedtestclient.service.ConfigSettingsService;
 import at.bernhardangerer.speedtestclient.service.DownloadService;
-import at.bernhardangerer.speedtestclient.service.LatencyService;
-import at.bernhardangerer.speedtestclient.service.ServerSettingsService;
 import at.bernhardangerer.speedtestclient.service.ShareUrlService;
+import at.bernhardangerer.speedtestclient.service.StartupPipeline;
 import at.bernhardangerer.speedtestclient.service.UploadService;
 import at.bernhardangerer.speedtestclient.type.DistanceUnit;
-import at.bernhardangerer.speedtestclient.util.Util;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
+import at.bernhardangerer.speedtestclient.util.ThroughputListener;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,20 +32,24 @@ import org.mockito.Mockito;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -91,6 +102,7 @@ public final class SpeedtestControllerTest {
 
         downloadResult = mock(TransferTestResult.class);
         when(downloadResult.getRateInMbps()).thenReturn(50.0);
+        when(downloadResult.getTimeToFirstByteInMs()).thenReturn(15L);
 
         uploadResult = mock(TransferTestResult.class);
         when(uploadResult.getRateInMbps()).thenReturn(20.0);
@@ -103,32 +115,29 @@ public final class SpeedtestControllerTest {
 
     @Test
     public void testRunSpeedTestSuccessful() throws Exception {
+        final StartupPipeline startup = mock(StartupPipeline.class);
+        when(startup.getConfigSetting()).thenReturn(CompletableFuture.completedFuture(configSetting));
+        when(startup.getFastestServer()).thenReturn(CompletableFuture.completedFuture(Map.entry(server, latencyResult)));
+        when(startup.isSelectingServer()).thenReturn(true);
+        // like a daemon run that probed its server for two seconds before the transfers
+        when(startup.getStartNanos()).thenReturn(System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
         try (
-                MockedStatic<ConfigSettingsService> configSettingsMock = Mockito.mockStatic(ConfigSettingsService.class);
-                MockedStatic<ServerSettingsService> serverSettingsMock = Mockito.mockStatic(ServerSettingsService.class);
-                MockedStatic<LatencyService> latencyMock = Mockito.mockStatic(LatencyService.class);
+                MockedStatic<StartupPipeline> startupMock = Mockito.mockStatic(StartupPipeline.class, Mockito.CALLS_REAL_METHODS);
                 MockedStatic<DownloadService> downloadMock = Mockito.mockStatic(DownloadService.class);
                 MockedStatic<UploadService> uploadMock = Mockito.mockStatic(UploadService.class);
-                MockedStatic<ShareUrlService> shareMock = Mockito.mockStatic(ShareUrlService.class);
-                MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class)
+                MockedStatic<ShareUrlService> shareMock = Mockito.mockStatic(ShareUrlService.class)
         ) {
-            configSettingsMock.when(ConfigSettingsService::requestSetting).thenReturn(configSetting);
-            serverSettingsMock.when(() -> ServerSettingsService.requestServerList(4)).thenReturn(List.of(server));
-            serverSettingsMock.when(() ->
-                            ServerSettingsService.findClosestServers(eq(40.0), eq(-74.0), anyInt(), eq(DistanceUnit.KILOMETER), anyList()))
-                    .thenReturn(Map.of(12.3, server));
-            latencyMock.when(() -> LatencyService.getFastestServer(anyMap()))
-                    .thenReturn(Map.entry(server, latencyResult));
-            downloadMock.when(() -> DownloadService.testDownload(any(), eq(downloadSetting), any()))
-                    .thenReturn(downloadResult);
-            uploadMock.when(() -> UploadService.testUpload(any(), eq(uploadSetting), anyInt(), any()))
-                    .thenReturn(uploadResult);
+            startupMock.when(() -> StartupPipeline.start(any(SpeedtestConfig.class), isNull(), any(LatencyListener.class)))
+                    .thenReturn(startup);
+            downloadMock.when(() -> DownloadService.testDownload(any(), eq(downloadSetting), any(SpeedtestConfig.class), any(), any(),
+                    any())).thenReturn(downloadResult);
+            uploadMock.when(() -> UploadService.testUpload(any(), eq(uploadSetting), anyInt(), any(SpeedtestConfig.class), any(), any(),
+                    any())).thenReturn(uploadResult);
             shareMock.when(() -> ShareUrlService.createShareUrl(anyInt(), anyDouble(), anyDouble(), anyDouble()))
                     .thenReturn("http://share.url");
 
-            utilMock.when(() -> Util.getConfigProperty("ClosestServers.maxNumber")).thenReturn("3");
-
-            final SpeedtestResult result = SpeedtestController.runSpeedTest(DistanceUnit.KILOMETER, true, true, true, true, null);
+            final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().closestServersMaxNumber(3).build();
+            final SpeedtestResult result = SpeedtestController.runSpeedTest(config, true, true, true, true, null);
 
             assertNotNull(result);
             assertEquals(client, result.getClient());
@@ -137,11 +146,13 @@ public final class SpeedtestControllerTest {
             assertEquals(downloadResult, result.getDownload());
             assertEquals(uploadResult, result.getUpload());
             assertEquals("http://share.url", result.getShareUrl());
+            assertTrue(result.getTimeToFirstByteInMs() >= 2015);
+            assertTrue(result.getStartTime().isBefore(LocalDateTime.now().minusSeconds(1)));
 
             final String expectedOutput = """
                     Retrieving speedtest.net configuration...
-                    Testing from Test ISP (127.0.0.1, AT)...
                     Retrieving speedtest.net server list...
+                    Testing from Test ISP (127.0.0.1, AT)...
                     Selecting best server based on ping...
                     Hosted by Test Sponsor (Test Server, AT) [12.30 km]: 10.50 ms
                     Testing download speed
@@ -154,18 +165,66 @@ public final class SpeedtestControllerTest {
         }
     }
 
+    @Test
+    public void testRunSpeedTestShouldPublishEvents() throws Exception {
+        final StartupPipeline startup = mock(StartupPipeline.class);
+        when(startup.getConfigSetting()).thenReturn(CompletableFuture.completedFuture(configSetting));
+        when(startup.getFastestServer()).thenReturn(CompletableFuture.completedFuture(Map.entry(server, latencyResult)));
+        when(startup.getStartNanos()).thenReturn(System.nanoTime());
+        try (
+                MockedStatic<StartupPipeline> startupMock = Mockito.mockStatic(StartupPipeline.class, Mockito.CALLS_REAL_METHODS);
+                MockedStatic<DownloadService> downloadMock = Mockito.mockStatic(DownloadService.class)
+        ) {
+            startupMock.when(() -> StartupPipeline.start(any(SpeedtestConfig.class), isNull(), any(LatencyListener.class)))
+                    .thenAnswer(invocation -> {
+                        invocation.<LatencyListener>getArgument(2).onRoundTrip(server, 11_000_000L);
+                        return startup;
+                    });
+            downloadMock.when(() -> DownloadService.testDownload(any(), eq(downloadSetting), any(SpeedtestConfig.class), any(), any(),
+                    any())).thenAnswer(invocation -> {
+                        invocation.<ThroughputListener>getArgument(5).onSample(125_000L, 100L, 10.0);
+                        return downloadResult;
+                    });
+            final List<SpeedtestEvent> events = new ArrayList<>();
+
+            SpeedtestController.runSpeedTest(SpeedtestConfig.getDefault(), true, false, false, false, null, events::add);
+
+            assertEquals(List.of(
+                    new PhaseStartedEvent(SpeedtestPhase.SERVER_SELECTION),
+                    new LatencySampleEvent(SpeedtestPhase.SERVER_SELECTION, server, 11.0),
+                    new ServerChosenEvent(server, latencyResult),
+                    new PhaseFinishedEvent(SpeedtestPhase.SERVER_SELECTION, null),
+                    new PhaseStartedEvent(SpeedtestPhase.DOWNLOAD),
+                    new ThroughputSampleEvent(SpeedtestPhase.DOWNLOAD, 125_000L, 100L, 10.0),
+                    new PhaseFinishedEvent(SpeedtestPhase.DOWNLOAD, downloadResult)), events);
+        }
+    }
+
     @Test
     public void testRunSpeedTestInvalidDistanceUnit() {
         assertThrows(IllegalArgumentException.class,
-                () -> SpeedtestController.runSpeedTest(null, true, true, true, false, null));
+                () -> SpeedtestController.runSpeedTest((DistanceUnit) null, true, true, true, false, null));
+    }
+
+    @Test
+    public void testRunSpeedTestInvalidConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SpeedtestController.runSpeedTest((SpeedtestConfig) null, true, true, true, false, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> SpeedtestController.runSpeedTest(SpeedtestConfig.getDefault().toBuilder().distanceUnit(null).build(),
+                        true, true, true, false, null));
     }
 
     @Test
     public void testRunSpeedTestExceptionHandling() {
-        try (MockedStatic<ConfigSettingsService> configSettingsMock = Mockito.mockStatic(ConfigSettingsService.class)) {
-            configSettingsMock.when(ConfigSettingsService::requestSetting).thenThrow(new RuntimeException("Failure"));
-            assertThrows(SpeedtestException.class,
+        final StartupPipeline startup = mock(StartupPipeline.class);
+        when(startup.getConfigSetting()).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Failure")));
+        try (MockedStatic<StartupPipeline> startupMock = Mockito.mockStatic(StartupPipeline.class, Mockito.CALLS_REAL_METHODS)) {
+            startupMock.when(() -> StartupPipeline.start(any(SpeedtestConfig.class), isNull(), any(LatencyListener.class)))
+                    .thenReturn(startup);
+            final SpeedtestException exception = assertThrows(SpeedtestException.class,
                     () -> SpeedtestController.runSpeedTest(DistanceUnit.KILOMETER, true, false, false, false, null));
+            assertEquals("Failure", exception.getCause().getMessage());
         }
     }
 }
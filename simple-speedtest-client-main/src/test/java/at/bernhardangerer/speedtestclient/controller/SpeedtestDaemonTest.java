@@ -0,0 +1,213 @@
+package at.bernhardangerer.speedtestclient.controller;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.SpeedtestException;
+import at.bernhardangerer.speedtestclient.metrics.SpeedtestMetrics;
+import at.bernhardangerer.speedtestclient.model.ConfigSetting;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.service.LatencyService;
+import at.bernhardangerer.speedtestclient.service.StartupPipeline;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+class SpeedtestDaemonTest {
+    private static final SpeedtestConfig CONFIG = SpeedtestConfig.getDefault().toBuilder()
+            .daemonIntervalInSeconds(300).daemonJitterInSeconds(0).daemonLatencyDriftPercent(50).build();
+
+    private final ConfigSetting configSetting = new ConfigSetting();
+    private final Server nearest = server(1);
+    private final Server other = server(2);
+    private final Map<Server, Double> closestServers = new LinkedHashMap<>();
+    private final List<SpeedtestResult> results = new ArrayList<>();
+    private StartupPipeline startup;
+
+    @BeforeEach
+    void setUp() {
+        closestServers.put(nearest, 1.5);
+        closestServers.put(other, 3.0);
+        startup = mock(StartupPipeline.class);
+        when(startup.getConfigSetting()).thenReturn(CompletableFuture.completedFuture(configSetting));
+        when(startup.getClosestServers()).thenReturn(CompletableFuture.completedFuture(closestServers));
+        when(startup.getFastestServer()).thenReturn(CompletableFuture.completedFuture(Map.entry(nearest, latency(10.0, 1.5))));
+    }
+
+    @Test
+    void warmRunShouldOnlyProbeTheChosenServer() throws Exception {
+        try (MockedStatic<StartupPipeline> startupMock = mockStartup();
+             MockedStatic<LatencyService> latencyMock = Mockito.mockStatic(LatencyService.class);
+             MockedStatic<SpeedtestController> controllerMock = Mockito.mockStatic(SpeedtestController.class)) {
+            latencyMock.when(() -> LatencyService.probeLatency(eq(nearest.getUrl()), anyInt(), eq(1.5))).thenReturn(latency(14.0, 1.5));
+            final ArgumentCaptor<StartupPipeline> startups = ArgumentCaptor.forClass(StartupPipeline.class);
+            controllerMock.when(() -> SpeedtestController.runSpeedTest(startups.capture(), eq(CONFIG), anyBoolean(), anyBoolean(),
+                    anyBoolean(), anyBoolean(), any())).thenAnswer(invocation -> new SpeedtestResult());
+
+            final SpeedtestDaemon daemon = new SpeedtestDaemon(CONFIG, true, true, false, false, null, results::add);
+            daemon.runOnce();
+            final long warmStartNanos = System.nanoTime();
+            daemon.runOnce();
+
+            startupMock.verify(() -> StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE), times(1));
+            latencyMock.verify(() -> LatencyService.getFastestServer(any(), any(SpeedtestConfig.class)), never());
+            // the probe of the warm run is part of its server selection
+            assertTrue(startups.getAllValues().get(1).getStartNanos() >= warmStartNanos);
+            assertSame(startup, startups.getAllValues().get(0));
+            final Map.Entry<Server, LatencyTestResult> warm = StartupPipeline.await(startups.getAllValues().get(1).getFastestServer());
+            assertSame(nearest, warm.getKey());
+            assertEquals(14.0, warm.getValue().getLatency());
+            assertSame(configSetting, StartupPipeline.await(startups.getAllValues().get(1).getConfigSetting()));
+            assertEquals(2, results.size());
+        }
+    }
+
+    @Test
+    void driftedLatencyShouldSelectTheServerAgain() throws Exception {
+        try (MockedStatic<StartupPipeline> startupMock = mockStartup();
+             MockedStatic<LatencyService> latencyMock = Mockito.mockStatic(LatencyService.class);
+             MockedStatic<SpeedtestController> controllerMock = Mockito.mockStatic(SpeedtestController.class)) {
+            latencyMock.when(() -> LatencyService.probeLatency(anyString(), anyInt(), anyDouble())).thenReturn(latency(16.0, 1.5));
+            latencyMock.when(() -> LatencyService.getFastestServer(closestServers, CONFIG))
+                    .thenReturn(Map.entry(other, latency(12.0, 3.0)));
+            final ArgumentCaptor<StartupPipeline> startups = ArgumentCaptor.forClass(StartupPipeline.class);
+            controllerMock.when(() -> SpeedtestController.runSpeedTest(startups.capture(), eq(CONFIG), anyBoolean(), anyBoolean(),
+                    anyBoolean(), anyBoolean(), any())).thenAnswer(invocation -> new SpeedtestResult());
+
+            final SpeedtestDaemon daemon = new SpeedtestDaemon(CONFIG, true, true, false, false, null, results::add);
+            daemon.runOnce();
+            daemon.runOnce();
+
+            latencyMock.verify(() -> LatencyService.getFastestServer(closestServers, CONFIG), times(1));
+            assertSame(other, StartupPipeline.await(startups.getAllValues().get(1).getFastestServer()).getKey());
+            startupMock.verify(() -> StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE), times(1));
+        }
+    }
+
+    @Test
+    void failedRunShouldStartTheNextOneFromScratch() {
+        try (MockedStatic<StartupPipeline> startupMock = mockStartup();
+             MockedStatic<LatencyService> latencyMock = Mockito.mockStatic(LatencyService.class);
+             MockedStatic<SpeedtestController> controllerMock = Mockito.mockStatic(SpeedtestController.class)) {
+            controllerMock.when(() -> SpeedtestController.runSpeedTest(any(StartupPipeline.class), eq(CONFIG), anyBoolean(), anyBoolean(),
+                    anyBoolean(), anyBoolean(), any())).thenThrow(new SpeedtestException(new IllegalStateException("Failure")));
+
+            final SpeedtestDaemon daemon = new SpeedtestDaemon(CONFIG, true, true, false, false, null, results::add);
+            assertNull(daemon.runOnce());
+            assertNull(daemon.runOnce());
+
+            // only the position of the last configuration is kept for the next startup
+            startupMock.verify(() -> StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE), times(1));
+            startupMock.verify(() -> StartupPipeline.start(CONFIG, null, configSetting, LatencyListener.NONE), times(1));
+            latencyMock.verify(() -> LatencyService.probeLatency(anyString(), anyInt(), any()), never());
+            assertEquals(0, results.size());
+        }
+    }
+
+    @Test
+    void failedStartupShouldBeRecordedAsServerSelectionFailure() {
+        when(startup.getFastestServer()).thenReturn(CompletableFuture.failedFuture(new MissingResultException("No server")));
+        try (MockedStatic<StartupPipeline> startupMock = mockStartup();
+             MockedStatic<SpeedtestController> controllerMock = Mockito.mockStatic(SpeedtestController.class)) {
+            final long failuresBefore = serverSelectionFailures();
+
+            assertNull(new SpeedtestDaemon(CONFIG, true, true, false, false, null, results::add).runOnce());
+
+            assertEquals(failuresBefore + 1, serverSelectionFailures());
+            controllerMock.verifyNoInteractions();
+        }
+    }
+
+    @Test
+    void closeShouldEndTheSchedule() {
+        try (MockedStatic<StartupPipeline> startupMock = mockStartup();
+             MockedStatic<SpeedtestController> controllerMock = Mockito.mockStatic(SpeedtestController.class)) {
+            controllerMock.when(() -> SpeedtestController.runSpeedTest(any(StartupPipeline.class), any(SpeedtestConfig.class), anyBoolean(),
+                    anyBoolean(), anyBoolean(), anyBoolean(), any())).thenAnswer(invocation -> new SpeedtestResult());
+            final List<SpeedtestDaemon> daemons = new ArrayList<>();
+            final SpeedtestDaemon daemon = new SpeedtestDaemon(CONFIG, true, true, false, false, null, result -> {
+                results.add(result);
+                // like a shutdown hook, close is called from another thread while the daemon runs
+                new Thread(daemons.get(0)::close).start();
+            });
+            daemons.add(daemon);
+
+            // the next run would only start after five minutes
+            assertTimeout(Duration.ofSeconds(10), daemon::run);
+            assertEquals(1, results.size());
+            assertThrows(IllegalStateException.class, daemon::run);
+        }
+    }
+
+    @Test
+    void delayShouldBeMeasuredFromTheStartOfTheRun() {
+        assertEquals(300_000L, SpeedtestDaemon.delayInMs(300_000, 30_000, 0, 0));
+        assertEquals(305_000L, SpeedtestDaemon.delayInMs(300_000, 30_000, 10_000, 0.5));
+        assertEquals(0L, SpeedtestDaemon.delayInMs(300_000, 0, 400_000, 0.9));
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestDaemon(null, true, true, false, false, null, results::add));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestDaemon(CONFIG, true, true, false, false, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestDaemon(CONFIG.toBuilder().daemonIntervalInSeconds(0).build(),
+                true, true, false, false, null, results::add));
+    }
+
+    // only the cold start is stubbed, so the daemon never requests the real configuration and server list
+    private MockedStatic<StartupPipeline> mockStartup() {
+        final MockedStatic<StartupPipeline> startupMock = Mockito.mockStatic(StartupPipeline.class);
+        startupMock.when(() -> StartupPipeline.start(any(SpeedtestConfig.class), isNull(), any(), any(LatencyListener.class)))
+                .thenReturn(startup);
+        startupMock.when(() -> StartupPipeline.await(any())).thenCallRealMethod();
+        startupMock.when(() -> StartupPipeline.completed(any(), any(), anyLong())).thenCallRealMethod();
+        return startupMock;
+    }
+
+    // the registry is shared with every other run in this JVM
+    private static long serverSelectionFailures() {
+        final String prefix = "speedtest_failures_total{phase=\"server_selection\",server=\"\"} ";
+        return SpeedtestMetrics.shared().write(false).lines().filter(line -> line.startsWith(prefix))
+                .mapToLong(line -> Long.parseLong(line.substring(prefix.length()))).sum();
+    }
+
+    private static Server server(final int id) {
+        return new Server("http://host" + id + ":8080/speedtest/upload.php", 48.2, 16.37, "City", "Country", "CC", "Sponsor", id,
+                "host" + id + ":8080");
+    }
+
+    private static LatencyTestResult latency(final double latency, final double distance) {
+        return new LatencyTestResult(latency, distance);
+    }
+
+}
@@ -0,0 +1,201 @@
+package at.bernhardangerer.speedtestclient.event;
+
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeedtestEventPublisherTest {
+    private static final Executor DIRECT = Runnable::run;
+    private static final SpeedtestEvent STARTED = new PhaseStartedEvent(SpeedtestPhase.DOWNLOAD);
+    private static final SpeedtestEvent FINISHED = new PhaseFinishedEvent(SpeedtestPhase.DOWNLOAD, null);
+
+    @Test
+    void eventsShouldOnlyBeDeliveredOnDemand() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        publisher.subscribe(subscriber);
+
+        publisher.publish(STARTED);
+        publisher.publish(sample(1));
+        publisher.publish(FINISHED);
+        assertEquals(List.of(STARTED, sample(1)), subscriber.events);
+
+        subscriber.subscription.request(1);
+        publisher.close();
+        assertEquals(List.of(STARTED, sample(1), FINISHED), subscriber.events);
+        assertTrue(subscriber.completed);
+        assertFalse(publisher.hasSubscribers());
+    }
+
+    @Test
+    void fullQueueShouldDropTheOldestSamples() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT, 3);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        publisher.publish(STARTED);
+        publisher.publish(sample(1));
+        publisher.publish(sample(2));
+        publisher.publish(sample(3));
+        publisher.publish(FINISHED);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(STARTED, sample(3), FINISHED), subscriber.events);
+    }
+
+    @Test
+    void lifecycleEventsShouldNeverBeDropped() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT, 1);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        publisher.publish(STARTED);
+        publisher.publish(sample(1));
+        publisher.publish(FINISHED);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(STARTED, FINISHED), subscriber.events);
+    }
+
+    @Test
+    void slowSubscriberShouldNotBlockThePublisher() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<SpeedtestEvent> received = new ArrayList<>();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(final SpeedtestEvent item) {
+                awaitQuietly(release);
+                received.add(item);
+            }
+        };
+        try (SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(executor, 16)) {
+            publisher.subscribe(subscriber);
+            for (int count = 0; count < 100_000; count++) {
+                publisher.publish(sample(count));
+            }
+            publisher.publish(FINISHED);
+            release.countDown();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(subscriber.completed);
+        assertTrue(received.size() <= 17, String.valueOf(received.size()));
+        assertEquals(FINISHED, received.get(received.size() - 1));
+        assertEquals(sample(99_999), received.get(received.size() - 2));
+    }
+
+    @Test
+    void nonPositiveRequestShouldFailTheSubscription() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        publisher.publish(STARTED);
+
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertTrue(subscriber.events.isEmpty());
+        assertFalse(publisher.hasSubscribers());
+    }
+
+    @Test
+    void cancelledSubscriberShouldReceiveNothing() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.cancel();
+        publisher.publish(STARTED);
+        publisher.close();
+
+        assertTrue(subscriber.events.isEmpty());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void subscriberAfterCloseShouldCompleteImmediately() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT);
+        publisher.close();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1);
+
+        publisher.subscribe(subscriber);
+        publisher.publish(STARTED);
+
+        assertTrue(subscriber.completed);
+        assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test
+    void invalidParameter() {
+        final SpeedtestEventPublisher publisher = new SpeedtestEventPublisher(DIRECT);
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestEventPublisher(null));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedtestEventPublisher(DIRECT, 0));
+        assertThrows(IllegalArgumentException.class, () -> publisher.publish(null));
+        assertThrows(NullPointerException.class, () -> publisher.subscribe(null));
+    }
+
+    private static SpeedtestEvent sample(final long bytes) {
+        return new ThroughputSampleEvent(SpeedtestPhase.DOWNLOAD, bytes, 100L, bytes * 8 / 100_000d);
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<SpeedtestEvent> {
+        private final long initialRequest;
+        private final List<SpeedtestEvent> events = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        RecordingSubscriber(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(final SpeedtestEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+}
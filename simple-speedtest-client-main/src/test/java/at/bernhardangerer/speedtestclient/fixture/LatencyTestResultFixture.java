@@ -8,6 +8,16 @@ public final class LatencyTestResultFixture {
     }
 
     public static LatencyTestResult create() {
-        return new LatencyTestResult(12.3, 34.7);
+        final LatencyTestResult result = new LatencyTestResult(12.3, 34.7);
+        result.setConnectRttInMs(11.85);
+        result.setHttpRttInMs(12.3);
+        result.setMinInMs(11.9);
+        result.setP50InMs(12.2);
+        result.setP90InMs(12.8);
+        result.setP99InMs(13.1);
+        result.setMaxInMs(13.1);
+        result.setJitterInMs(0.4);
+        result.setLossCount(1L);
+        return result;
     }
 }
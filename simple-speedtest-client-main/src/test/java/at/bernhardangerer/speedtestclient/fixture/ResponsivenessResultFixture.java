@@ -0,0 +1,29 @@
+package at.bernhardangerer.speedtestclient.fixture;
+
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.ResponsivenessResult;
+
+public final class ResponsivenessResultFixture {
+
+    private ResponsivenessResultFixture() {
+    }
+
+    public static ResponsivenessResult create() {
+        final LatencyTestResult download = new LatencyTestResult();
+        download.setLatency(48.5);
+        download.setHttpRttInMs(48.5);
+        download.setMinInMs(20.1);
+        download.setP50InMs(45.0);
+        download.setP90InMs(80.2);
+        download.setP99InMs(95.4);
+        download.setMaxInMs(96.0);
+        download.setJitterInMs(9.8);
+        download.setLossCount(0L);
+
+        final ResponsivenessResult result = new ResponsivenessResult();
+        result.setIdleLatencyInMs(12.3);
+        result.setDownload(download);
+        result.setRpm(1333.3);
+        return result;
+    }
+}
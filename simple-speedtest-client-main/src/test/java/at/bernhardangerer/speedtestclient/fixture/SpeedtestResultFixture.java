@@ -18,6 +18,8 @@ public final class SpeedtestResultFixture {
         result.setLatency(LatencyTestResultFixture.create());
         result.setDownload(TransferTestResultFixture.createDownload());
         result.setUpload(TransferTestResultFixture.createUpload());
+        result.setResponsiveness(ResponsivenessResultFixture.create());
+        result.setTimeToFirstByteInMs(412L);
         result.setShareUrl("http://share.url");
 
         return result;
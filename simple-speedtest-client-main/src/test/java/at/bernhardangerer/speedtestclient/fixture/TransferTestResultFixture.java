@@ -1,6 +1,11 @@
 package at.bernhardangerer.speedtestclient.fixture;
 
+import at.bernhardangerer.speedtestclient.model.RampStep;
 import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import at.bernhardangerer.speedtestclient.type.TransferStopReason;
+
+import java.util.List;
 
 public final class TransferTestResultFixture {
 
@@ -8,10 +13,27 @@ public final class TransferTestResultFixture {
     }
 
     public static TransferTestResult createDownload() {
-        return new TransferTestResult(94.25, 11800000, 15000L);
+        final TransferTestResult result = new TransferTestResult(94.25, 11800000L, 15000L);
+        result.setSampleIntervalInMs(100L);
+        result.setSamplesInMbps(List.of(80.5, 95.0, 97.25));
+        result.setPeakRateInMbps(97.25);
+        result.setMedianRateInMbps(95.0);
+        result.setStableRateInMbps(96.125);
+        result.setStopReason(TransferStopReason.CONVERGED);
+        result.setTimeSavedInMs(5000L);
+        result.setBytesSaved(58906250L);
+        result.setStreams(4);
+        result.setRampTrace(List.of(new RampStep(2, 60.0), new RampStep(4, 94.0), new RampStep(8, 95.0)));
+        result.setWindowMode(MeasurementWindowMode.THRESHOLD);
+        result.setWindowStartInMs(100L);
+        result.setWindowedRateInMbps(96.125);
+        result.setWindowedBytes(2403125L);
+        result.setWindowedDurationInMs(200L);
+        result.setTimeToFirstByteInMs(180L);
+        return result;
     }
 
     public static TransferTestResult createUpload() {
-        return new TransferTestResult(26.48, 3300000, 10000L);
+        return new TransferTestResult(26.48, 3300000L, 10000L);
     }
 }
@@ -0,0 +1,158 @@
+package at.bernhardangerer.speedtestclient.jfr;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.service.DownloadTask;
+import at.bernhardangerer.speedtestclient.service.HttpGetClient;
+import at.bernhardangerer.speedtestclient.service.LatencyService;
+import at.bernhardangerer.speedtestclient.service.TransferDeadline;
+import at.bernhardangerer.speedtestclient.service.UploadBody;
+import at.bernhardangerer.speedtestclient.service.UploadTask;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingTest {
+
+    private static final byte[] BODY = "test=test\n".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    private Path tempDir;
+    private HttpServer server;
+    private String serverUrl;
+    private String url;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/latency.txt", exchange -> {
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(BODY);
+            }
+        });
+        server.start();
+        serverUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        url = serverUrl + "/latency.txt";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void recordingShouldWriteTheSpeedtestEvents() throws Exception {
+        final Path file = tempDir.resolve("run.jfr");
+        try (FlightRecording recording = FlightRecording.start(file)) {
+            HttpGetClient.get(url);
+            new DownloadTask(url, TransferDeadline.of(Long.MAX_VALUE), () -> {
+            }, (urlString, deadline, progress) -> new TransferTestResult(1024L, 5L), bytes -> {
+            }).call();
+            new UploadTask(url, TransferDeadline.of(Long.MAX_VALUE), UploadBody.of(ByteBuffer.wrap(BODY)), () -> {
+            }, (urlString, deadline, body, progress) -> new TransferTestResult(7L, 5L), bytes -> {
+            }).call();
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith(FlightRecording.PREFIX))
+                .collect(Collectors.toList());
+        assertThat(events).hasSize(3);
+
+        final RecordedEvent request = events.get(0);
+        assertEquals(FlightRecording.PREFIX + "HttpRequest", request.getEventType().getName());
+        assertEquals("GET", request.getString("method"));
+        assertEquals(url, request.getString("url"));
+        assertEquals(BODY.length, request.getLong("bytes"));
+        assertTrue(request.getBoolean("succeeded"));
+        assertEquals(Thread.currentThread().getName(), request.getThread().getJavaName());
+        assertFalse(request.getDuration().isNegative());
+
+        final RecordedEvent transfer = events.get(1);
+        assertEquals(FlightRecording.PREFIX + "TransferTask", transfer.getEventType().getName());
+        assertEquals(TransferTaskEvent.DOWNLOAD, transfer.getString("direction"));
+        assertEquals(1024L, transfer.getLong("bytes"));
+        assertTrue(transfer.getBoolean("succeeded"));
+        assertEquals(TransferTaskEvent.UPLOAD, events.get(2).getString("direction"));
+        assertEquals(7L, events.get(2).getLong("bytes"));
+    }
+
+    @Test
+    void recordingShouldWriteFailedRequestsAndTransfers() throws Exception {
+        final Path file = tempDir.resolve("failed.jfr");
+        try (FlightRecording recording = FlightRecording.start(file)) {
+            assertThrows(ServerRequestException.class, () -> HttpGetClient.get(serverUrl + "/missing.txt"));
+            assertThrows(ServerRequestException.class, () -> new DownloadTask(url, TransferDeadline.of(Long.MAX_VALUE), () -> {
+            }, (urlString, deadline, progress) -> {
+                progress.accept(512L);
+                throw new ServerRequestException("Connection reset");
+            }, bytes -> {
+            }).call());
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith(FlightRecording.PREFIX))
+                .collect(Collectors.toList());
+        assertThat(events).hasSize(2);
+        assertEquals(serverUrl + "/missing.txt", events.get(0).getString("url"));
+        assertFalse(events.get(0).getBoolean("succeeded"));
+        assertEquals(FlightRecording.PREFIX + "TransferTask", events.get(1).getEventType().getName());
+        assertEquals(512L, events.get(1).getLong("bytes"));
+        assertFalse(events.get(1).getBoolean("succeeded"));
+    }
+
+    @Test
+    void latencyProbingShouldRecordEveryExchange() throws Exception {
+        final Path file = tempDir.resolve("latency.jfr");
+        try (FlightRecording recording = FlightRecording.start(file)) {
+            LatencyService.probeLatency(serverUrl, 3, 1.5);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        // the warm-up exchange is recorded as well, but not counted as a sample
+        assertThat(events.stream().filter(event -> event.getEventType().getName().equals(FlightRecording.PREFIX + "HttpRequest")))
+                .hasSize(4)
+                .allSatisfy(event -> assertThat(event.getString("url")).startsWith(url));
+        final RecordedEvent latency = events.stream()
+                .filter(event -> event.getEventType().getName().equals(FlightRecording.PREFIX + "LatencyTest"))
+                .findFirst().orElseThrow();
+        assertEquals(serverUrl, latency.getString("url"));
+        assertEquals(3L, latency.getLong("samples"));
+        assertEquals(0L, latency.getLong("losses"));
+    }
+
+    @Test
+    void eventsShouldStayDisabledWithoutRecording() {
+        final HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        event.complete("GET", url, BODY.length, true);
+
+        assertFalse(event.isEnabled());
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> FlightRecording.start(null));
+    }
+
+}
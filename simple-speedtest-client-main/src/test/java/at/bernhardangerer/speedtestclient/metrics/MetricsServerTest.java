@@ -0,0 +1,72 @@
+package at.bernhardangerer.speedtestclient.metrics;
+
+import at.bernhardangerer.speedtestclient.fixture.SpeedtestResultFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricsServerTest {
+
+    private final SpeedtestMetrics metrics = new SpeedtestMetrics();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MetricsServer server;
+    private URI uri;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        metrics.recordSuccess(SpeedtestResultFixture.create());
+        server = MetricsServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), metrics);
+        uri = URI.create("http://127.0.0.1:" + server.getPort() + MetricsServer.PATH);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void scrapeShouldReturnThePrometheusTextFormat() throws Exception {
+        final HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(MetricsServer.TEXT_CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(null));
+        assertThat(response.body()).contains("speedtest_download_mbps{").contains("speedtest_runs_total{outcome=\"success\"} 1\n");
+    }
+
+    @Test
+    void scrapeShouldNegotiateOpenMetrics() throws Exception {
+        final HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Accept", "application/openmetrics-text;version=1.0.0,text/plain;version=0.0.4;q=0.5")
+                .build();
+        final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(MetricsServer.OPEN_METRICS_CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(null));
+        assertThat(response.body()).endsWith("# EOF\n");
+    }
+
+    @Test
+    void otherMethodsShouldBeRejected() throws Exception {
+        final HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString("")).build();
+
+        assertEquals(405, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> MetricsServer.start(null));
+        assertThrows(IllegalArgumentException.class, () -> MetricsServer.start(null, metrics));
+    }
+
+}
@@ -0,0 +1,110 @@
+package at.bernhardangerer.speedtestclient.metrics;
+
+import at.bernhardangerer.speedtestclient.fixture.ServerFixture;
+import at.bernhardangerer.speedtestclient.fixture.SpeedtestResultFixture;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.type.SpeedtestPhase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpeedtestMetricsTest {
+
+    private final SpeedtestMetrics metrics = new SpeedtestMetrics();
+
+    @Test
+    void successShouldReplaceTheLastRunGauges() {
+        final SpeedtestResult first = SpeedtestResultFixture.create();
+        final SpeedtestResult second = SpeedtestResultFixture.create();
+        second.getDownload().setRateInMbps(50.5);
+        second.setUpload(null);
+
+        metrics.recordSuccess(first);
+        metrics.recordSuccess(second);
+
+        final String host = first.getServer().getHost();
+        assertThat(metrics.write(false))
+                .contains("# TYPE speedtest_download_mbps gauge\nspeedtest_download_mbps{server=\"" + host + "\"} 50.5\n")
+                .contains("speedtest_download_bytes{server=\"" + host + "\"} 1.18E7\n")
+                .contains("speedtest_latency_p90_ms{server=\"" + host + "\"} 12.8\n")
+                .contains("speedtest_jitter_ms{server=\"" + host + "\"} 0.4\n")
+                .contains("# TYPE speedtest_runs_total counter\nspeedtest_runs_total{outcome=\"success\"} 2\n")
+                .doesNotContain("speedtest_upload_mbps")
+                .doesNotContain("# EOF");
+    }
+
+    @Test
+    void failureShouldBeCountedByPhaseAndServer() {
+        metrics.recordFailure(SpeedtestPhase.SERVER_SELECTION, null);
+        metrics.recordFailure(SpeedtestPhase.UPLOAD, ServerFixture.create());
+        metrics.recordFailure(SpeedtestPhase.UPLOAD, ServerFixture.create());
+
+        assertThat(metrics.write(false))
+                .contains("speedtest_runs_total{outcome=\"failure\"} 3\n")
+                .contains("speedtest_failures_total{phase=\"server_selection\",server=\"\"} 1\n")
+                .contains("speedtest_failures_total{phase=\"upload\",server=\"" + ServerFixture.create().getHost() + "\"} 2\n")
+                .doesNotContain("speedtest_download_mbps");
+    }
+
+    @Test
+    void histogramShouldCountCumulativeBuckets() {
+        metrics.recordPhaseDuration(SpeedtestPhase.DOWNLOAD, TimeUnit.MILLISECONDS.toNanos(800));
+        metrics.recordPhaseDuration(SpeedtestPhase.DOWNLOAD, TimeUnit.SECONDS.toNanos(12));
+        metrics.recordPhaseDuration(SpeedtestPhase.DOWNLOAD, TimeUnit.SECONDS.toNanos(90));
+
+        assertThat(metrics.write(false))
+                .contains("# TYPE speedtest_phase_duration_seconds histogram\n")
+                .contains("speedtest_phase_duration_seconds_bucket{phase=\"download\",le=\"0.5\"} 0\n")
+                .contains("speedtest_phase_duration_seconds_bucket{phase=\"download\",le=\"1.0\"} 1\n")
+                .contains("speedtest_phase_duration_seconds_bucket{phase=\"download\",le=\"15.0\"} 2\n")
+                .contains("speedtest_phase_duration_seconds_bucket{phase=\"download\",le=\"60.0\"} 2\n")
+                .contains("speedtest_phase_duration_seconds_bucket{phase=\"download\",le=\"+Inf\"} 3\n")
+                .contains("speedtest_phase_duration_seconds_sum{phase=\"download\"} 102.8\n")
+                .contains("speedtest_phase_duration_seconds_count{phase=\"download\"} 3\n");
+    }
+
+    @Test
+    void concurrentRecordingShouldNotLoseUpdates() {
+        IntStream.range(0, 10_000).parallel().forEach(index -> {
+            metrics.recordRoundTrip("host:8080", TimeUnit.MILLISECONDS.toNanos(index % 20));
+            metrics.recordTransfer(10, 1, 0);
+        });
+
+        assertThat(metrics.write(false))
+                .contains("speedtest_latency_round_trip_seconds_count{server=\"host:8080\"} 10000\n")
+                .contains("speedtest_transferred_bytes_total 100000\n")
+                .contains("speedtest_transfer_streams_total{outcome=\"completed\"} 10000\n");
+    }
+
+    @Test
+    void openMetricsShouldNameCounterFamiliesWithoutSuffix() {
+        metrics.recordLostProbe("quote\"host");
+
+        final String exposition = metrics.write(true);
+        assertThat(exposition)
+                .contains("# TYPE speedtest_latency_lost_probes counter\n")
+                .contains("speedtest_latency_lost_probes_total{server=\"quote\\\"host\"} 1\n")
+                .endsWith("# EOF\n");
+    }
+
+    @Test
+    void formatShouldUsePrometheusSpecialValues() {
+        assertEquals("+Inf", SpeedtestMetrics.format(Double.POSITIVE_INFINITY));
+        assertEquals("NaN", SpeedtestMetrics.format(Double.NaN));
+        assertEquals("0.25", SpeedtestMetrics.format(0.25));
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> metrics.recordSuccess(null));
+        assertThrows(IllegalArgumentException.class, () -> metrics.recordFailure(null, null));
+        assertThrows(IllegalArgumentException.class, () -> metrics.recordPhaseDuration(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Histogram());
+    }
+
+}
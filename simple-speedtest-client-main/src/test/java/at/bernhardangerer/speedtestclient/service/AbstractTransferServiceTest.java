@@ -1,8 +1,19 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings("checkstyle:AbstractClassName")
 class AbstractTransferServiceTest {
@@ -10,6 +21,69 @@ class AbstractTransferServiceTest {
     @Test
     public void testTransferInvalidParameter() {
         assertThrows(IllegalArgumentException.class, () -> AbstractTransferService.testTransfer(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> AbstractTransferService.testTransfer(List.of(() -> null), 1, null));
+    }
+
+    @Test
+    public void testTransferWithExecutor() throws InterruptedException, MissingResultException {
+        final List<Callable<TransferTestResult>> callables = List.of(
+                () -> new TransferTestResult(1000L, 100L), () -> new TransferTestResult(3000L, 100L));
+        try (TransferExecutor executor = TransferExecutors.boundedPool(2)) {
+            final TransferTestResult result = AbstractTransferService.testTransfer(callables, 2, executor);
+            assertEquals(4000, result.getBytes());
+            assertEquals(100L, result.getDurationInMs());
+        }
+    }
+
+    @Test
+    public void testTransferAggregatesMultiGigabitFlows() throws InterruptedException, MissingResultException {
+        // 10 streams at 3 Gbit/s for 15 s: 30 Gbit/s in aggregate, each stream alone beyond the int range.
+        final int streams = 10;
+        final long bytesPerStream = 5_625_000_000L;
+        final LongAdder sampledBytes = new LongAdder();
+        final ThroughputSampler sampler = new ThroughputSampler(10, 1000, sample -> {
+        }, (bytes, intervalInMs, rateInMbps) -> sampledBytes.add(bytes));
+        final List<Callable<TransferTestResult>> callables = new ArrayList<>();
+        for (int index = 0; index < streams; index++) {
+            callables.add(() -> {
+                sampler.accept(bytesPerStream);
+                // keeps the bytes out of the trailing partial interval, which is not passed to listeners
+                Thread.sleep(50);
+                return new TransferTestResult(bytesPerStream, 15_000L);
+            });
+        }
+        try (TransferExecutor executor = TransferExecutors.boundedPool(streams)) {
+            final TransferTestResult result = AbstractTransferService.testTransfer(callables, streams, executor, sampler);
+            assertEquals(56_250_000_000L, result.getBytes());
+            assertEquals(15_000L, result.getDurationInMs());
+            assertEquals(30_000.0, result.getRateInMbps(), 1e-6);
+            assertFalse(result.getSamplesInMbps().isEmpty());
+            assertTrue(result.getSamplesInMbps().stream().allMatch(sample -> sample >= 0));
+            // 450 Gbit within well under 15 s
+            assertTrue(result.getPeakRateInMbps() > 30_000.0);
+        }
+        assertEquals(56_250_000_000L, sampler.getBytes());
+        assertEquals(56_250_000_000L, sampledBytes.sum());
+    }
+
+    @Test
+    public void testTransferWithSampler() throws InterruptedException, MissingResultException {
+        final ThroughputSampler sampler = new ThroughputSampler(10, 100);
+        final List<Callable<TransferTestResult>> callables = List.of(() -> {
+            for (int index = 0; index < 10; index++) {
+                sampler.accept(1000);
+                Thread.sleep(10);
+            }
+            return new TransferTestResult(10000L, 100L);
+        });
+        final TransferTestResult result = AbstractTransferService.testTransfer(callables, 1, TransferExecutors.shared(), sampler);
+
+        assertEquals(10L, result.getSampleIntervalInMs());
+        assertFalse(result.getSamplesInMbps().isEmpty());
+        assertEquals(result.getSamplesInMbps().stream().mapToDouble(Double::doubleValue).max().orElseThrow(),
+                result.getPeakRateInMbps());
+        assertNotNull(result.getMedianRateInMbps());
+        assertNotNull(result.getStableRateInMbps());
     }
 
 }
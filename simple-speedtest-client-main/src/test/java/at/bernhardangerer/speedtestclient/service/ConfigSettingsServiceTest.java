@@ -1,9 +1,25 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.jfr.FlightRecording;
 import at.bernhardangerer.speedtestclient.model.ConfigSetting;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -49,4 +65,44 @@ public final class ConfigSettingsServiceTest {
         assertThrows(IllegalArgumentException.class, () -> ConfigSettingsService.getSettingFromXml(null));
     }
 
+    @Test
+    public void requestSettingShouldUseCache(@TempDir final Path directory)
+            throws IOException, MissingResultException, ServerRequestException, ParsingException {
+        final byte[] body = """
+                <settings><client ip="37.19.195.144" lat="48.1936" lon="16.3726" country="AT"/></settings>""".getBytes();
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/speedtest-config.php", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        try {
+            final String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/speedtest-config.php";
+            final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().cacheDirectory(directory).build();
+            final Path file = directory.resolve("config.jfr");
+
+            try (FlightRecording recording = FlightRecording.start(file)) {
+                Assertions.assertEquals("37.19.195.144", ConfigSettingsService.requestSetting(url, config).getClient().getIpAddress());
+                Assertions.assertEquals("37.19.195.144", ConfigSettingsService.requestSetting(url, config).getClient().getIpAddress());
+                Assertions.assertEquals(1, requests.get());
+
+                ConfigSettingsService.requestSetting(url, config.toBuilder().cacheEnabled(false).build());
+                Assertions.assertEquals(2, requests.get());
+            }
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("at.bernhardangerer.speedtestclient.ConfigRequest"))
+                    .toList();
+            Assertions.assertEquals(List.of(true, true, false), events.stream().map(event -> event.getBoolean("cacheEnabled")).toList());
+            Assertions.assertTrue(events.stream().allMatch(event -> url.equals(event.getString("url"))
+                    && event.getLong("bytes") == body.length));
+        } finally {
+            server.stop(0);
+        }
+    }
+
 }
@@ -0,0 +1,111 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.model.RampStep;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionRampTest {
+    private static final long TIMEOUT_IN_MS = 60_000L;
+
+    @Test
+    void rampDoublesUntilTheGainFallsBelowTheThreshold() {
+        final ConnectionRamp ramp = new ConnectionRamp(TransferDeadline.of(0), true, 2, 32, 0.1, 2);
+
+        ramp.accept(40.0);
+        ramp.accept(40.0);
+        assertEquals(4, ramp.getStreams());
+        ramp.accept(80.0);
+        ramp.accept(80.0);
+        assertEquals(8, ramp.getStreams());
+        ramp.accept(84.0);
+        ramp.accept(84.0);
+        assertEquals(4, ramp.getStreams());
+        ramp.accept(200.0);
+        ramp.accept(200.0);
+        assertEquals(4, ramp.getStreams());
+
+        assertEquals(List.of(new RampStep(2, 40.0), new RampStep(4, 80.0), new RampStep(8, 84.0)), ramp.getTrace());
+    }
+
+    @Test
+    void rampHoldsAtTheMaximum() {
+        final ConnectionRamp ramp = new ConnectionRamp(TransferDeadline.of(0), true, 2, 3, 0.1, 1);
+
+        ramp.accept(10.0);
+        ramp.accept(20.0);
+        ramp.accept(40.0);
+
+        assertEquals(3, ramp.getStreams());
+        assertEquals(List.of(new RampStep(2, 10.0), new RampStep(3, 20.0)), ramp.getTrace());
+    }
+
+    @Test
+    void limitGatesConcurrency() throws InterruptedException, MissingResultException {
+        final ConnectionRamp ramp = new ConnectionRamp(TransferDeadline.of(System.currentTimeMillis() + TIMEOUT_IN_MS), true, 2, 8,
+                0.1, 1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Callable<TransferTestResult>> callables = new ArrayList<>();
+        for (int index = 0; index < 16; index++) {
+            callables.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return new TransferTestResult(1000L, 5L);
+            });
+        }
+
+        try (TransferExecutor executor = TransferExecutors.boundedPool(8)) {
+            final TransferTestResult result = AbstractTransferService.testTransfer(callables, executor, new ThroughputSampler(10, 100),
+                    new ConvergenceMonitor(TransferDeadline.of(0), false, 2, 0.05, 2), ramp);
+            assertEquals(16000, result.getBytes());
+            assertEquals(2, result.getStreams());
+            assertTrue(result.getDurationInMs() > 0);
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void disabledRampKeepsTheFixedStreamCount() {
+        final ConnectionRamp ramp = ConnectionRamp.create(SpeedtestConfig.getDefault(), TransferDeadline.of(0), 6);
+        final List<Callable<TransferTestResult>> callables = List.of(() -> null);
+
+        ramp.accept(10.0);
+        ramp.accept(100.0);
+
+        assertFalse(ramp.isEnabled());
+        assertSame(callables, ramp.limit(callables));
+        assertEquals(6, ramp.getMaxStreams());
+        assertEquals(6, ramp.getStreams());
+        final TransferTestResult result = new TransferTestResult(1000L, 10L);
+        ramp.applyTo(result);
+        assertEquals(6, result.getStreams());
+        assertNull(result.getRampTrace());
+    }
+
+    @Test
+    void invalidParameter() {
+        final TransferDeadline deadline = TransferDeadline.of(0);
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionRamp(null, true, 2, 8, 0.1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionRamp(deadline, true, 0, 8, 0.1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionRamp(deadline, true, 2, 8, -0.1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionRamp(deadline, true, 2, 8, 0.1, 0));
+        assertThrows(IllegalArgumentException.class, () -> ConnectionRamp.create(null, deadline, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionRamp(deadline, true, 2, 8, 0.1, 1).limit(null));
+    }
+
+}
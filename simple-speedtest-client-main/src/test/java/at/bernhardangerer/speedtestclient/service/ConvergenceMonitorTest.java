@@ -0,0 +1,82 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.TransferStopReason;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConvergenceMonitorTest {
+    private static final long TIMEOUT_IN_MS = 60_000L;
+
+    @Test
+    void stableSamplesStopTheDeadline() {
+        final TransferDeadline deadline = TransferDeadline.of(System.currentTimeMillis() + TIMEOUT_IN_MS);
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(deadline, true, 4, 0.05, 3);
+
+        for (int sample = 0; sample < 5; sample++) {
+            monitor.accept(100.0 + sample % 2);
+        }
+        assertFalse(monitor.isConverged());
+        assertFalse(deadline.isReached());
+
+        monitor.accept(100.0);
+        assertTrue(monitor.isConverged());
+        assertTrue(deadline.isStopped());
+        assertTrue(deadline.isReached());
+
+        final TransferTestResult result = new TransferTestResult(100_000L, 1000L);
+        monitor.applyTo(result, System.currentTimeMillis());
+        assertEquals(TransferStopReason.CONVERGED, result.getStopReason());
+        assertTrue(result.getTimeSavedInMs() > 0 && result.getTimeSavedInMs() <= TIMEOUT_IN_MS);
+        assertTrue(result.getBytesSaved() > 0);
+    }
+
+    @Test
+    void noisySamplesResetTheStableWindowCount() {
+        final TransferDeadline deadline = TransferDeadline.of(0);
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(deadline, true, 2, 0.05, 2);
+
+        monitor.accept(100.0);
+        monitor.accept(100.0);
+        monitor.accept(10.0);
+        monitor.accept(100.0);
+
+        assertFalse(monitor.isConverged());
+        assertFalse(deadline.isReached());
+    }
+
+    @Test
+    void disabledMonitorOnlyReportsTheStopReason() {
+        final long timeoutTime = System.currentTimeMillis() + TIMEOUT_IN_MS;
+        final ConvergenceMonitor monitor = ConvergenceMonitor.create(SpeedtestConfig.getDefault(), TransferDeadline.of(timeoutTime));
+        for (int sample = 0; sample < 100; sample++) {
+            monitor.accept(100.0);
+        }
+        assertFalse(monitor.isConverged());
+
+        final TransferTestResult completed = new TransferTestResult(100_000L, 1000L);
+        monitor.applyTo(completed, timeoutTime);
+        assertEquals(TransferStopReason.COMPLETED, completed.getStopReason());
+        assertEquals(0L, completed.getBytesSaved());
+
+        final TransferTestResult timedOut = new TransferTestResult(100_000L, 1000L);
+        monitor.applyTo(timedOut, timeoutTime + 1);
+        assertEquals(TransferStopReason.TIMEOUT, timedOut.getStopReason());
+    }
+
+    @Test
+    void invalidParameter() {
+        final TransferDeadline deadline = TransferDeadline.of(0);
+        assertThrows(IllegalArgumentException.class, () -> new ConvergenceMonitor(null, true, 2, 0.05, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ConvergenceMonitor(deadline, true, 0, 0.05, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ConvergenceMonitor(deadline, true, 2, 0.0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ConvergenceMonitor(deadline, true, 2, 0.05, 0));
+        assertThrows(IllegalArgumentException.class, () -> ConvergenceMonitor.create(null, deadline));
+    }
+
+}
@@ -0,0 +1,214 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.fixture.SpeedtestResultFixture;
+import at.bernhardangerer.speedtestclient.model.HistoryRecord;
+import at.bernhardangerer.speedtestclient.model.HistoryRollup;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.SpeedtestResult;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.RollupPeriod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryStoreTest {
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final LocalDateTime START = LocalDateTime.of(2025, 7, 28, 10, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void appendedResultShouldBeReadBackAfterReopening() throws IOException {
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            store.append(SpeedtestResultFixture.create());
+        }
+
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            final List<HistoryRecord> records = store.query(null, null);
+            assertEquals(1, records.size());
+            final HistoryRecord stored = records.get(0);
+            assertEquals(LocalDateTime.of(2025, 7, 28, 18, 40, 20), stored.getStartTime());
+            assertEquals(30_000L, stored.getDurationInMs());
+            assertEquals(SpeedtestResultFixture.create().getServer().getId(), stored.getServerId());
+            assertEquals(12.3, stored.getLatencyInMs());
+            assertEquals(12.2, stored.getLatencyP50InMs());
+            assertEquals(12.8, stored.getLatencyP90InMs());
+            assertEquals(13.1, stored.getLatencyP99InMs());
+            assertEquals(0.4, stored.getLatencyJitterInMs());
+            assertEquals(94.25, stored.getDownloadRateInMbps());
+            // byte counts are kept in KiB
+            assertEquals(11_523L * 1024, stored.getDownloadBytes());
+            assertEquals(26.48, stored.getUploadRateInMbps());
+        }
+    }
+
+    @Test
+    void figuresThatWereNotMeasuredShouldStayMissing() throws IOException {
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            store.append(result(START, null, null));
+
+            final HistoryRecord stored = store.query(null, null).get(0);
+            assertNull(stored.getDurationInMs());
+            assertNull(stored.getServerId());
+            assertNull(stored.getLatencyInMs());
+            assertNull(stored.getDownloadRateInMbps());
+            assertNull(stored.getDownloadBytes());
+            assertNull(stored.getUploadRateInMbps());
+        }
+    }
+
+    @Test
+    void queryShouldReturnTheHalfOpenRange() throws IOException {
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            for (int hour = 0; hour < 6; hour++) {
+                store.append(result(START.plusHours(hour), 100.0 + hour, 10.0));
+            }
+
+            final List<HistoryRecord> records = store.query(START.plusHours(1), START.plusHours(3));
+            assertEquals(2, records.size());
+            assertEquals(START.plusHours(1), records.get(0).getStartTime());
+            assertEquals(START.plusHours(2), records.get(1).getStartTime());
+            assertEquals(4, store.query(START.plusHours(2), null).size());
+            assertEquals(1, store.query(null, START.plusMinutes(1)).size());
+            assertTrue(store.query(START.plusDays(1), null).isEmpty());
+        }
+    }
+
+    @Test
+    void fullSegmentShouldBeRotated() throws IOException {
+        try (HistoryStore store = HistoryStore.open(directory, 2, ZONE)) {
+            for (int minute = 0; minute < 5; minute++) {
+                store.append(result(START.plusMinutes(minute), 100.0, 10.0));
+            }
+            assertEquals(3, segmentCount());
+            assertEquals(2, store.query(START.plusMinutes(1), START.plusMinutes(3)).size());
+        }
+
+        try (HistoryStore store = HistoryStore.open(directory, 2, ZONE)) {
+            store.append(result(START.plusMinutes(5), 100.0, 10.0));
+            assertEquals(3, segmentCount());
+            assertEquals(6, store.size());
+            store.append(result(START.plusMinutes(6), 100.0, 10.0));
+            assertEquals(4, segmentCount());
+            assertEquals(START.plusMinutes(6), store.query(null, null).get(6).getStartTime());
+        }
+    }
+
+    @Test
+    void storesSharingTheDirectoryShouldTakeTurns() throws IOException {
+        try (HistoryStore first = HistoryStore.open(directory, 2, ZONE);
+             HistoryStore second = HistoryStore.open(directory, 2, ZONE)) {
+            for (int minute = 0; minute < 5; minute++) {
+                (minute % 2 == 0 ? first : second).append(result(START.plusMinutes(minute), 100.0, 10.0));
+            }
+            assertEquals(3, segmentCount());
+        }
+
+        try (HistoryStore store = HistoryStore.open(directory, 2, ZONE)) {
+            final List<HistoryRecord> records = store.query(null, null);
+            assertEquals(5, records.size());
+            for (int minute = 0; minute < 5; minute++) {
+                assertEquals(START.plusMinutes(minute), records.get(minute).getStartTime());
+            }
+        }
+    }
+
+    @Test
+    void resultBeforeTheLastShouldStartAnotherSegment() throws IOException {
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            store.append(result(START.plusHours(1), 100.0, 10.0));
+            store.append(result(START, 50.0, 5.0));
+
+            assertEquals(2, segmentCount());
+            final List<HistoryRecord> records = store.query(null, null);
+            assertEquals(START, records.get(0).getStartTime());
+            assertEquals(START.plusHours(1), records.get(1).getStartTime());
+        }
+    }
+
+    @Test
+    void rollupShouldAggregatePerPeriod() throws IOException {
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            store.append(result(START.plusMinutes(10), 100.0, 20.0));
+            store.append(result(START.plusMinutes(40), 50.0, null));
+            store.append(result(START.plusMinutes(65), 80.0, 10.0));
+
+            final List<HistoryRollup> hourly = store.rollup(null, null, RollupPeriod.HOURLY);
+            assertEquals(2, hourly.size());
+            final HistoryRollup first = hourly.get(0);
+            assertEquals(START, first.getPeriodStart());
+            assertEquals(2, first.getCount());
+            assertEquals(75.0, first.getDownloadAvgInMbps());
+            assertEquals(50.0, first.getDownloadMinInMbps());
+            assertEquals(100.0, first.getDownloadMaxInMbps());
+            assertEquals(20.0, first.getUploadAvgInMbps());
+            assertEquals(START.plusHours(1), hourly.get(1).getPeriodStart());
+            assertEquals(1, hourly.get(1).getCount());
+
+            final List<HistoryRollup> daily = store.rollup(null, null, RollupPeriod.DAILY);
+            assertEquals(1, daily.size());
+            assertEquals(START.toLocalDate().atStartOfDay(), daily.get(0).getPeriodStart());
+            assertEquals(3, daily.get(0).getCount());
+            assertEquals(15.0, daily.get(0).getUploadAvgInMbps());
+
+            assertEquals(1, store.rollup(START.plusMinutes(30), START.plusHours(1), RollupPeriod.DAILY).get(0).getCount());
+        }
+    }
+
+    @Test
+    void unreadableSegmentShouldBeSkipped() throws IOException {
+        Files.write(directory.resolve("history-000001.seg"), new byte[] {1, 2, 3});
+
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            assertEquals(0, store.size());
+            store.append(result(START, 100.0, 10.0));
+            assertTrue(Files.exists(directory.resolve("history-000002.seg")));
+            assertEquals(1, store.query(null, null).size());
+        }
+    }
+
+    @Test
+    void invalidParameter() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> HistoryStore.open(null, 16, ZONE));
+        assertThrows(IllegalArgumentException.class, () -> HistoryStore.open(directory, 0, ZONE));
+        assertThrows(IllegalArgumentException.class, () -> HistoryStore.open(directory, 16, null));
+        try (HistoryStore store = HistoryStore.open(directory, 16, ZONE)) {
+            assertThrows(IllegalArgumentException.class, () -> store.append(null));
+            assertThrows(IllegalArgumentException.class, () -> store.append(new SpeedtestResult()));
+            assertThrows(IllegalArgumentException.class, () -> store.rollup(null, null, null));
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static SpeedtestResult result(final LocalDateTime startTime, final Double download, final Double upload) {
+        final SpeedtestResult result = new SpeedtestResult();
+        result.setStartTime(startTime);
+        if (download != null) {
+            result.setLatency(new LatencyTestResult(12.5, 3.0));
+            result.setDownload(new TransferTestResult(download, 1_000_000L, 10_000L));
+        }
+        if (upload != null) {
+            result.setUpload(new TransferTestResult(upload, 500_000L, 10_000L));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,191 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Http2TransferEngineTest {
+    private static final int PAYLOAD_SIZE = 1_000_000;
+
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicInteger truncatedRequests = new AtomicInteger();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/random350x350.jpg", exchange -> {
+            exchange.sendResponseHeaders(200, PAYLOAD_SIZE);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(new byte[PAYLOAD_SIZE]);
+            }
+        });
+        server.createContext("/upload.php", exchange -> {
+            try (InputStream is = exchange.getRequestBody()) {
+                uploadedBytes.addAndGet(is.transferTo(OutputStream.nullOutputStream()));
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/truncated.jpg", exchange -> {
+            truncatedRequests.incrementAndGet();
+            exchange.sendResponseHeaders(200, PAYLOAD_SIZE);
+            final OutputStream os = exchange.getResponseBody();
+            os.write(new byte[PAYLOAD_SIZE / 2]);
+            os.flush();
+            throw new IOException("Connection dropped");
+        });
+        server.createContext("/missing.jpg", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadShouldFallBackToHttp11AndCountWholeBody() throws ServerRequestException {
+        final Http2TransferEngine engine = new Http2TransferEngine(Http2TransferEngine.createClient(), 10240);
+        final TransferTestResult result = engine.download(baseUrl + "/random350x350.jpg", 0);
+        final TransferTestResult reusedResult = engine.download(baseUrl + "/random350x350.jpg", 0);
+
+        assertEquals(PAYLOAD_SIZE, result.getBytes());
+        assertEquals(PAYLOAD_SIZE, reusedResult.getBytes());
+        assertTrue(result.getDurationInMs() >= 0);
+    }
+
+    @Test
+    void downloadShouldNotRepeatTransferThatBrokeOffMidBody() {
+        final AtomicLong progress = new AtomicLong();
+        final Http2TransferEngine engine = new Http2TransferEngine(Http2TransferEngine.createClient(), 10240);
+
+        assertThrows(ServerRequestException.class,
+                () -> engine.download(baseUrl + "/truncated.jpg", TransferDeadline.of(0), progress::addAndGet));
+        assertEquals(1, truncatedRequests.get());
+        assertTrue(progress.get() <= PAYLOAD_SIZE / 2);
+    }
+
+    @Test
+    void downloadShouldStopAtTimeout() throws ServerRequestException {
+        final TransferTestResult result = new Http2TransferEngine(10240).download(baseUrl + "/random350x350.jpg", 1);
+
+        assertTrue(result.getBytes() < PAYLOAD_SIZE);
+    }
+
+    @Test
+    void downloadShouldFailOnErrorStatus() {
+        assertThrows(ServerRequestException.class, () -> new Http2TransferEngine(10240).download(baseUrl + "/missing.jpg", 0));
+    }
+
+    @Test
+    void uploadShouldSendWholeBodyInChunks() throws ServerRequestException {
+        final String dataString = UploadService.generateDataString(100_000);
+        final TransferTestResult result = new Http2TransferEngine(1000).upload(baseUrl + "/upload.php", 0, dataString);
+
+        assertEquals(dataString.length(), result.getBytes());
+        assertEquals(dataString.length(), uploadedBytes.get());
+    }
+
+    @Test
+    void uploadShouldSendSharedPayloadSliceWithBothEngines() throws ServerRequestException, InterruptedException {
+        final ByteBuffer payload = UploadPayload.slice(100_000);
+        final UploadBody body = UploadBody.of(payload);
+        final TransferTestResult http2Result = new Http2TransferEngine(1000)
+                .upload(baseUrl + "/upload.php", TransferDeadline.of(0), body, bytes -> {
+                });
+        final TransferTestResult streamResult = new StreamUploadEngine(1000)
+                .upload(baseUrl + "/upload.php", TransferDeadline.of(0), body, bytes -> {
+                });
+
+        assertEquals(100_000, http2Result.getBytes());
+        assertEquals(100_000, streamResult.getBytes());
+        // The stream engine does not wait for the response, so the server may still be reading the body.
+        for (int attempt = 0; attempt < 100 && uploadedBytes.get() < 200_000; attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(200_000, uploadedBytes.get());
+        assertEquals(0, payload.position());
+    }
+
+    @Test
+    void uploadShouldStreamRandomBody() throws ServerRequestException, InterruptedException {
+        final RandomUploadBody body = new RandomUploadBody(250_000, 42L);
+        final TransferTestResult http2Result = new Http2TransferEngine(1000)
+                .upload(baseUrl + "/upload.php", TransferDeadline.of(0), body, bytes -> {
+                });
+        final TransferTestResult streamResult = new StreamUploadEngine(1000)
+                .upload(baseUrl + "/upload.php", TransferDeadline.of(0), body, bytes -> {
+                });
+
+        assertEquals(250_000, http2Result.getBytes());
+        assertEquals(250_000, streamResult.getBytes());
+        for (int attempt = 0; attempt < 100 && uploadedBytes.get() < 500_000; attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(500_000, uploadedBytes.get());
+    }
+
+    @Test
+    void uploadShouldStopAtTimeout() throws ServerRequestException {
+        final TransferTestResult result = new Http2TransferEngine(1000)
+                .upload(baseUrl + "/upload.php", 1, UploadService.generateDataString(100_000));
+
+        assertEquals(0, result.getBytes());
+    }
+
+    @Test
+    void bodySubscriberShouldCountBeyondIntRange() throws Exception {
+        final AtomicLong progress = new AtomicLong();
+        final ByteCountingBodySubscriber subscriber = new ByteCountingBodySubscriber(TransferDeadline.of(0), progress::addAndGet);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long count) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        final List<ByteBuffer> batch = Collections.nCopies(1024, ByteBuffer.allocate(1 << 20));
+        for (int index = 0; index < 3; index++) {
+            subscriber.onNext(batch);
+        }
+        subscriber.onComplete();
+
+        assertEquals(3L << 30, subscriber.getBody().toCompletableFuture().get());
+        assertEquals(3L << 30, progress.get());
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new Http2TransferEngine(0));
+        assertThrows(IllegalArgumentException.class, () -> new Http2TransferEngine(10240).download(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Http2TransferEngine(10240).upload(baseUrl, 0, null));
+    }
+
+}
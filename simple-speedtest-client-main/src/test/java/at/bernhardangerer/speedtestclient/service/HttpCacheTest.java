@@ -0,0 +1,196 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpCacheTest {
+    private static final byte[] BODY = "<settings><servers/></settings>".repeat(100).getBytes(StandardCharsets.UTF_8);
+    private static final String ETAG = "\"v1\"";
+    private static final byte[] ERROR_PAGE = "<html>Service unavailable</html>".getBytes(StandardCharsets.UTF_8);
+    private static final HttpCache.BodyReader<byte[]> RAW = IOUtils::toByteArray;
+    // accepts nothing but the expected server list, like a parser rejecting an error page
+    private static final HttpCache.BodyReader<byte[]> STRICT = body -> {
+        final byte[] bytes = IOUtils.toByteArray(body);
+        if (!Arrays.equals(BODY, bytes)) {
+            throw new ParsingException(new IllegalStateException("Unexpected body"));
+        }
+        return bytes;
+    };
+    private static final int PREFIX_LENGTH = 10;
+    // stops early, like a parser that has found what it was looking for
+    private static final HttpCache.BodyReader<byte[]> PREFIX = body -> body.readNBytes(PREFIX_LENGTH);
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private HttpServer server;
+    private String url;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/servers.php", this::respond);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/servers.php?threads=4";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void respond(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (failing.get()) {
+            exchange.sendResponseHeaders(200, ERROR_PAGE.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(ERROR_PAGE);
+            }
+            return;
+        }
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.sendResponseHeaders(200, BODY.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(BODY);
+        }
+    }
+
+    @Test
+    void freshEntryShouldSkipNetwork() throws ServerRequestException, ParsingException, IOException {
+        final HttpCache cache = new HttpCache(directory);
+
+        assertArrayEquals(BODY, cache.get(url, Duration.ofHours(1), RAW));
+        assertArrayEquals(BODY, cache.get(url, Duration.ofHours(1), RAW));
+        assertArrayEquals(BODY, new HttpCache(directory).get(url, Duration.ofHours(1), RAW));
+
+        assertEquals(1, requests.get());
+        assertTrue(Files.size(directory.resolve(HttpCache.fileName(url))) < BODY.length);
+    }
+
+    @Test
+    void expiredEntryShouldBeRevalidated() throws ServerRequestException, ParsingException {
+        final HttpCache cache = new HttpCache(directory);
+
+        assertArrayEquals(BODY, cache.get(url, Duration.ZERO, RAW));
+        assertArrayEquals(BODY, cache.get(url, Duration.ZERO, RAW));
+
+        assertEquals(2, requests.get());
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    void staleEntryShouldBeServedWhenServerIsDown() throws ServerRequestException, ParsingException {
+        final HttpCache cache = new HttpCache(directory);
+        cache.get(url, Duration.ZERO, RAW);
+        server.stop(0);
+
+        assertArrayEquals(BODY, cache.get(url, Duration.ZERO, RAW));
+    }
+
+    @Test
+    void rejectedBodyShouldNotBeCached() throws ServerRequestException, ParsingException {
+        failing.set(true);
+        final HttpCache cache = new HttpCache(directory);
+
+        assertThrows(ParsingException.class, () -> cache.get(url, Duration.ofHours(1), STRICT));
+        assertFalse(Files.exists(directory.resolve(HttpCache.fileName(url))));
+
+        failing.set(false);
+        assertArrayEquals(BODY, cache.get(url, Duration.ofHours(1), STRICT));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void rejectedBodyShouldFallBackToStaleEntry() throws ServerRequestException, ParsingException {
+        final HttpCache cache = new HttpCache(directory);
+        cache.get(url, Duration.ZERO, STRICT);
+        failing.set(true);
+
+        assertArrayEquals(BODY, cache.get(url, Duration.ZERO, STRICT));
+        failing.set(false);
+        assertArrayEquals(BODY, cache.get(url, Duration.ofHours(1), STRICT));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void partiallyReadBodyShouldBeCachedCompletely() throws ServerRequestException, ParsingException {
+        final HttpCache cache = new HttpCache(directory);
+
+        assertArrayEquals(Arrays.copyOf(BODY, PREFIX_LENGTH), cache.get(url, Duration.ofHours(1), PREFIX));
+        assertArrayEquals(BODY, cache.get(url, Duration.ofHours(1), RAW));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void freshEntryShouldBeReadWithoutNetwork() throws ServerRequestException, ParsingException {
+        final HttpCache cache = new HttpCache(directory);
+        assertNull(cache.getFresh(url, Duration.ofHours(1), RAW));
+
+        cache.get(url, Duration.ofHours(1), RAW);
+        server.stop(0);
+
+        assertArrayEquals(BODY, cache.getFresh(url, Duration.ofHours(1), RAW));
+        assertNull(cache.getFresh(url, Duration.ZERO, RAW));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void missingEntryShouldFailWhenServerIsDown() {
+        server.stop(0);
+
+        assertThrows(ServerRequestException.class, () -> new HttpCache(directory).get(url, Duration.ofHours(1), RAW));
+    }
+
+    @Test
+    void corruptFileShouldBeIgnored() throws ServerRequestException, ParsingException, IOException {
+        Files.write(directory.resolve(HttpCache.fileName(url)), new byte[]{1, 2, 3});
+
+        assertArrayEquals(BODY, new HttpCache(directory).get(url, Duration.ofHours(1), RAW));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new HttpCache(null));
+        assertThrows(IllegalArgumentException.class, () -> new HttpCache(directory).get(null, Duration.ZERO, RAW));
+        assertThrows(IllegalArgumentException.class, () -> new HttpCache(directory).get(url, Duration.ofMinutes(-1), RAW));
+        assertThrows(IllegalArgumentException.class, () -> new HttpCache(directory).get(url, Duration.ZERO, null));
+        assertThrows(IllegalArgumentException.class, () -> new HttpCache(directory).getFresh(url, Duration.ZERO, null));
+    }
+
+}
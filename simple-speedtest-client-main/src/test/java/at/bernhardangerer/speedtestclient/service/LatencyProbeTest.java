@@ -0,0 +1,108 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyProbeTest {
+    private static final byte[] EXPECTED_BODY = "test=test\n".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/latency.txt", exchange -> {
+            exchange.sendResponseHeaders(200, EXPECTED_BODY.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(EXPECTED_BODY);
+            }
+        });
+        server.createContext("/other.txt", exchange -> {
+            final byte[] body = "other".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void probeShouldReuseWarmConnection() throws IOException, ServerRequestException {
+        final URL url = new URL(baseUrl + "/latency.txt?x=1");
+        try (LatencyProbe probe = new LatencyProbe(url)) {
+            for (int iter = 0; iter < 5; iter++) {
+                assertTrue(probe.probe(url, EXPECTED_BODY) > 0);
+            }
+            assertEquals(1, probe.getConnectTimesInNanos().size());
+            assertTrue(probe.getConnectTimesInNanos().get(0) > 0);
+        }
+    }
+
+    @Test
+    void probeShouldRejectUnexpectedBody() throws IOException, ServerRequestException {
+        final URL url = new URL(baseUrl + "/other.txt");
+        try (LatencyProbe probe = new LatencyProbe(url)) {
+            assertEquals(-1L, probe.probe(url, EXPECTED_BODY));
+        }
+    }
+
+    @Test
+    void probeShouldReconnectAfterServerClosedConnection() throws IOException, ServerRequestException {
+        final URL url = new URL(baseUrl + "/latency.txt");
+        try (LatencyProbe probe = new LatencyProbe(url)) {
+            assertTrue(probe.probe(url, EXPECTED_BODY) > 0);
+            server.stop(0);
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), url.getPort()), 0);
+            server.createContext("/latency.txt", exchange -> {
+                exchange.sendResponseHeaders(200, EXPECTED_BODY.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(EXPECTED_BODY);
+                }
+            });
+            server.start();
+
+            assertTrue(probe.probe(url, EXPECTED_BODY) > 0);
+            assertEquals(2, probe.getConnectTimesInNanos().size());
+        }
+    }
+
+    @Test
+    void probeShouldFailWithoutServer() throws IOException, ServerRequestException {
+        final URL url = new URL(baseUrl + "/latency.txt");
+        server.stop(0);
+        try (LatencyProbe probe = new LatencyProbe(url)) {
+            assertThrows(ServerRequestException.class, () -> probe.probe(url, EXPECTED_BODY));
+        }
+    }
+
+    @Test
+    void probeInvalidParameter() throws IOException, ServerRequestException {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyProbe(null));
+        try (LatencyProbe probe = new LatencyProbe(new URL(baseUrl))) {
+            assertThrows(IllegalArgumentException.class, () -> probe.probe(null, EXPECTED_BODY));
+        }
+    }
+
+}
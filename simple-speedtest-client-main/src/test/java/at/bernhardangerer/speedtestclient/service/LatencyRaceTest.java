@@ -0,0 +1,100 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyRaceTest {
+    private static final byte[] BODY = "test=test\n".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ServerSocket blackhole;
+
+    @BeforeEach
+    void startServers() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/speedtest/latency.txt", exchange -> {
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(BODY);
+            }
+        });
+        server.start();
+        // accepts connections through the backlog but never answers a request
+        blackhole = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterEach
+    void stopServers() throws IOException {
+        server.stop(0);
+        blackhole.close();
+    }
+
+    @Test
+    void runShouldNotWaitForBlackholedServer() {
+        final Server fast = createServer("http://127.0.0.1:" + server.getAddress().getPort() + "/speedtest");
+        final Server silent = createServer("http://127.0.0.1:" + blackhole.getLocalPort() + "/speedtest");
+        final Map<Server, Double> serverMap = new LinkedHashMap<>();
+        serverMap.put(fast, 10.0);
+        serverMap.put(silent, 20.0);
+        final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().latencyRaceTimeoutInMs(10_000L).build();
+
+        final long startTime = System.currentTimeMillis();
+        final Map<Server, LatencyTestResult> results = LatencyRace.run(serverMap, config);
+
+        assertTrue(System.currentTimeMillis() - startTime < 5_000L);
+        assertEquals(1, results.size());
+        assertEquals(10.0, results.get(fast).getDistance());
+        assertTrue(results.get(fast).getHttpRttInMs() > 0);
+    }
+
+    @Test
+    void runShouldStopAtDeadline() {
+        final Server silent = createServer("http://127.0.0.1:" + blackhole.getLocalPort() + "/speedtest");
+        final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().latencyRaceTimeoutInMs(200L).build();
+
+        final long startTime = System.currentTimeMillis();
+        final Map<Server, LatencyTestResult> results = LatencyRace.run(Map.of(silent, 20.0), config);
+
+        assertTrue(System.currentTimeMillis() - startTime < 5_000L);
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void quantileShouldFollowStudentT() {
+        assertEquals(12.706, LatencyRace.quantile95(1));
+        assertEquals(2.042, LatencyRace.quantile95(30));
+        assertEquals(1.96, LatencyRace.quantile95(1000));
+        assertThrows(IllegalArgumentException.class, () -> LatencyRace.quantile95(0));
+    }
+
+    @Test
+    void runInvalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> LatencyRace.run(null, SpeedtestConfig.getDefault()));
+        assertThrows(IllegalArgumentException.class, () -> LatencyRace.run(Map.of(), null));
+    }
+
+    private static Server createServer(final String url) {
+        final Server result = new Server();
+        result.setUrl(url);
+        return result;
+    }
+
+}
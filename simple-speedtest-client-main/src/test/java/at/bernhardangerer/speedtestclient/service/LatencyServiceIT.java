@@ -24,17 +24,17 @@ public final class LatencyServiceIT {
 
     @Test
     public void findServerLatencies() throws MissingResultException {
-        final Map<Double, Server> servers = new HashMap<>();
-        servers.put(1D, new Server("http://gyor-speedtest.zt.hu:8080/speedtest/upload.php", 47.6800, 17.6500,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 1, "gyor-speedtest.zt.hu:8080"));
-        servers.put(2D, new Server("http://speedtest.zeg.tarr.hu:8080/speedtest/upload.php", 47.6900, 17.6600,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 2, "gyor-speedtest.zt.hu:8080"));
-        servers.put(3D, new Server("http://speedtest.slovanet.sk:8080/speedtest/upload.php", 47.7000, 17.6700,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 3, "gyor-speedtest.zt.hu:8080"));
-        servers.put(4D, new Server("http://speedtest.microsystem.hu:8080/speedtest/upload.php", 47.7100, 17.6800,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 4, "gyor-speedtest.zt.hu:8080"));
-        servers.put(5D, new Server("http://speedtest.szerverplex.hu:8080/speedtest/upload.php", 47.7100, 17.6900,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 5, "gyor-speedtest.zt.hu:8080"));
+        final Map<Server, Double> servers = new HashMap<>();
+        servers.put(new Server("http://gyor-speedtest.zt.hu:8080/speedtest/upload.php", 47.6800, 17.6500,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 1, "gyor-speedtest.zt.hu:8080"), 1D);
+        servers.put(new Server("http://speedtest.zeg.tarr.hu:8080/speedtest/upload.php", 47.6900, 17.6600,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 2, "gyor-speedtest.zt.hu:8080"), 2D);
+        servers.put(new Server("http://speedtest.slovanet.sk:8080/speedtest/upload.php", 47.7000, 17.6700,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 3, "gyor-speedtest.zt.hu:8080"), 3D);
+        servers.put(new Server("http://speedtest.microsystem.hu:8080/speedtest/upload.php", 47.7100, 17.6800,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 4, "gyor-speedtest.zt.hu:8080"), 4D);
+        servers.put(new Server("http://speedtest.szerverplex.hu:8080/speedtest/upload.php", 47.7100, 17.6900,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 5, "gyor-speedtest.zt.hu:8080"), 5D);
 
         final Map<Server, LatencyTestResult> result = LatencyService.findServerLatencies(servers);
         Assertions.assertNotNull(result);
@@ -44,17 +44,17 @@ public final class LatencyServiceIT {
 
     @Test
     public void getFastestServer() throws MissingResultException {
-        final Map<Double, Server> servers = new HashMap<>();
-        servers.put(1D, new Server("http://gyor-speedtest.zt.hu:8080/speedtest/upload.php", 47.6800, 17.6500,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 1, "gyor-speedtest.zt.hu:8080"));
-        servers.put(2D, new Server("http://speedtest.zeg.tarr.hu:8080/speedtest/upload.php", 47.6900, 17.6600,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 2, "gyor-speedtest.zt.hu:8080"));
-        servers.put(3D, new Server("http://speedtest.slovanet.sk:8080/speedtest/upload.php", 47.7000, 17.6700,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 3, "gyor-speedtest.zt.hu:8080"));
-        servers.put(4D, new Server("http://speedtest.microsystem.hu:8080/speedtest/upload.php", 47.7100, 17.6800,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 4, "gyor-speedtest.zt.hu:8080"));
-        servers.put(5D, new Server("http://speedtest.szerverplex.hu:8080/speedtest/upload.php", 47.7100, 17.6900,
-                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 5, "gyor-speedtest.zt.hu:8080"));
+        final Map<Server, Double> servers = new HashMap<>();
+        servers.put(new Server("http://gyor-speedtest.zt.hu:8080/speedtest/upload.php", 47.6800, 17.6500,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 1, "gyor-speedtest.zt.hu:8080"), 1D);
+        servers.put(new Server("http://speedtest.zeg.tarr.hu:8080/speedtest/upload.php", 47.6900, 17.6600,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 2, "gyor-speedtest.zt.hu:8080"), 2D);
+        servers.put(new Server("http://speedtest.slovanet.sk:8080/speedtest/upload.php", 47.7000, 17.6700,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 3, "gyor-speedtest.zt.hu:8080"), 3D);
+        servers.put(new Server("http://speedtest.microsystem.hu:8080/speedtest/upload.php", 47.7100, 17.6800,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 4, "gyor-speedtest.zt.hu:8080"), 4D);
+        servers.put(new Server("http://speedtest.szerverplex.hu:8080/speedtest/upload.php", 47.7100, 17.6900,
+                "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 5, "gyor-speedtest.zt.hu:8080"), 5D);
 
         final Map.Entry<Server, LatencyTestResult> result = LatencyService.getFastestServer(servers);
         Assertions.assertNotNull(result);
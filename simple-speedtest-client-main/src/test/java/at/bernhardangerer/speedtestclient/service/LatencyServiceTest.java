@@ -1,9 +1,17 @@
 package at.bernhardangerer.speedtestclient.service;
 
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -26,4 +34,34 @@ public final class LatencyServiceTest {
         Assertions.assertThrows(IllegalArgumentException.class, () -> LatencyService.calculateAverage(null));
     }
 
+    @Test
+    public void probeLatency() throws IOException, ServerRequestException, MissingResultException {
+        final byte[] body = "test=test\n".getBytes(StandardCharsets.UTF_8);
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/speedtest/latency.txt", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        try {
+            final String serverUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/speedtest";
+            final LatencyTestResult result = LatencyService.probeLatency(serverUrl, 3, 34.7);
+
+            Assertions.assertEquals(34.7, result.getDistance());
+            Assertions.assertTrue(result.getConnectRttInMs() > 0);
+            Assertions.assertTrue(result.getHttpRttInMs() > 0);
+            Assertions.assertEquals(result.getHttpRttInMs(), result.getLatency());
+            Assertions.assertTrue(result.getMinInMs() <= result.getP50InMs() && result.getP50InMs() <= result.getMaxInMs());
+            Assertions.assertEquals(0L, result.getLossCount());
+            Assertions.assertThrows(ServerRequestException.class, () -> LatencyService.probeLatency(serverUrl + "/missing", 3, 34.7));
+        } finally {
+            server.stop(0);
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LatencyService.probeLatency(null, 3, 34.7));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LatencyService.probeLatency("http://127.0.0.1", 0, 34.7));
+    }
+
 }
@@ -0,0 +1,128 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.ResponsivenessResult;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadedLatencyMonitorTest {
+    private static final byte[] BODY = "test=test\n".getBytes(StandardCharsets.UTF_8);
+    private static final int TLS_HANDSHAKE = 0x16;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private String serverUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/speedtest/latency.txt", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(BODY);
+            }
+        });
+        server.start();
+        serverUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/speedtest";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void monitorShouldProbeOnlyDuringPhases() throws ServerRequestException, InterruptedException {
+        try (LoadedLatencyMonitor monitor = LoadedLatencyMonitor.start(serverUrl, 10L)) {
+            Thread.sleep(100L);
+            assertEquals(0, requests.get());
+
+            monitor.beginPhase();
+            waitForRequests(3);
+            final LatencyTestResult download = monitor.endPhase();
+
+            assertNotNull(download);
+            assertTrue(download.getLatency() > 0);
+            assertTrue(download.getMinInMs() <= download.getMaxInMs());
+            assertEquals(0L, download.getLossCount());
+            assertNull(monitor.endPhase());
+
+            final ResponsivenessResult result = new ResponsivenessResult();
+            monitor.applyTo(result);
+            assertTrue(result.getRpm() > 0);
+        }
+    }
+
+    @Test
+    void monitorShouldCountFailedProbesAsLoss() throws ServerRequestException, InterruptedException {
+        server.stop(0);
+        try (LoadedLatencyMonitor monitor = LoadedLatencyMonitor.start(serverUrl, 10L)) {
+            monitor.beginPhase();
+            Thread.sleep(100L);
+            final LatencyTestResult upload = monitor.endPhase();
+
+            assertNotNull(upload);
+            assertNull(upload.getLatency());
+            assertTrue(upload.getLossCount() > 0);
+
+            final ResponsivenessResult result = new ResponsivenessResult();
+            monitor.applyTo(result);
+            assertNull(result.getRpm());
+        }
+    }
+
+    @Test
+    void monitorShouldNotProbeHttpsServerInPlaintext() throws Exception {
+        try (ServerSocket tlsServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final CompletableFuture<Integer> firstByte = CompletableFuture.supplyAsync(() -> {
+                try (Socket socket = tlsServer.accept()) {
+                    return socket.getInputStream().read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try (LoadedLatencyMonitor monitor = LoadedLatencyMonitor.start("https://127.0.0.1:" + tlsServer.getLocalPort(), 10L)) {
+                monitor.beginPhase();
+
+                // a TLS connection starts with a handshake record, a plaintext probe with "GET"
+                assertEquals(TLS_HANDSHAKE, firstByte.get(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    void startInvalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> LoadedLatencyMonitor.start(null, 10L));
+        assertThrows(IllegalArgumentException.class, () -> LoadedLatencyMonitor.start(serverUrl, 0L));
+    }
+
+    private void waitForRequests(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000L;
+        while (requests.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import at.bernhardangerer.speedtestclient.type.MeasurementWindowMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeasurementWindowTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void thresholdSkipsSamplesBelowTheEventualRate() {
+        final MeasurementWindow window = new MeasurementWindow(MeasurementWindowMode.THRESHOLD, 0, 80);
+        final TransferTestResult result = new TransferTestResult(1000L, 500L);
+        result.setSampleIntervalInMs(100L);
+        result.setSamplesInMbps(List.of(10.0, 50.0, 90.0, 100.0, 100.0, 110.0));
+
+        window.applyTo(result);
+
+        assertEquals(MeasurementWindowMode.THRESHOLD, result.getWindowMode());
+        assertEquals(200L, result.getWindowStartInMs());
+        assertEquals(400L, result.getWindowedDurationInMs());
+        assertEquals(100.0, result.getWindowedRateInMbps(), DELTA);
+        assertEquals(5_000_000L, result.getWindowedBytes());
+    }
+
+    @Test
+    void warmupExcludesTheStartOfEveryConnection() throws InterruptedException {
+        final MeasurementWindow window = new MeasurementWindow(MeasurementWindowMode.WARMUP, 20, 80);
+        final long[] raw = new long[1];
+        final List<Callable<TransferTestResult>> tasks = new ArrayList<>();
+        final LongConsumer first = start(window, bytes -> raw[0] += bytes, tasks);
+        final LongConsumer second = start(window, bytes -> raw[0] += bytes, tasks);
+
+        first.accept(1000);
+        second.accept(1000);
+        Thread.sleep(30);
+        first.accept(500);
+        second.accept(500);
+        Thread.sleep(10);
+        first.accept(500);
+
+        final TransferTestResult result = new TransferTestResult(3500L, 40L);
+        result.setStreams(2);
+        window.applyTo(result);
+
+        assertEquals(3500L, raw[0]);
+        assertEquals(MeasurementWindowMode.WARMUP, result.getWindowMode());
+        assertEquals(1500L, result.getWindowedBytes());
+        assertTrue(result.getWindowedDurationInMs() >= 5);
+        assertTrue(result.getWindowedRateInMbps() > 0);
+    }
+
+    @Test
+    void warmupIsNotRepeatedOnReusedConnection() throws Exception {
+        final MeasurementWindow window = new MeasurementWindow(MeasurementWindowMode.WARMUP, 20, 80);
+        final List<Callable<TransferTestResult>> tasks = new ArrayList<>();
+        final LongConsumer first = start(window, bytes -> {
+        }, tasks);
+        first.accept(1000);
+        Thread.sleep(30);
+        first.accept(500);
+        tasks.get(0).call();
+        // starts after the first task has finished, on its warm connection
+        start(window, bytes -> {
+        }, tasks).accept(700);
+
+        final TransferTestResult result = new TransferTestResult(2200L, 40L);
+        result.setStreams(1);
+        window.applyTo(result);
+
+        assertEquals(1200L, result.getWindowedBytes());
+    }
+
+    @Test
+    void warmupIsRepeatedForEveryTaskOfAnEngineWithoutReuse() throws Exception {
+        final MeasurementWindow window = new MeasurementWindow(MeasurementWindowMode.WARMUP, 20, 80, false);
+        final List<Callable<TransferTestResult>> tasks = new ArrayList<>();
+        final LongConsumer first = start(window, bytes -> {
+        }, tasks);
+        first.accept(1000);
+        Thread.sleep(30);
+        first.accept(500);
+        tasks.get(0).call();
+        start(window, bytes -> {
+        }, tasks).accept(700);
+
+        final TransferTestResult result = new TransferTestResult(2200L, 40L);
+        result.setStreams(1);
+        window.applyTo(result);
+
+        assertEquals(500L, result.getWindowedBytes());
+    }
+
+    @Test
+    void noneLeavesTheResultUntouched() {
+        final MeasurementWindow window = new MeasurementWindow(MeasurementWindowMode.NONE, 0, 80);
+        final LongConsumer progress = bytes -> {
+        };
+        final TransferTestResult result = new TransferTestResult(1000L, 500L);
+
+        window.applyTo(result);
+
+        final LongConsumer[] taskProgress = new LongConsumer[1];
+        window.track(progress, consumer -> {
+            taskProgress[0] = consumer;
+            return () -> null;
+        });
+        assertSame(progress, taskProgress[0]);
+        assertNull(result.getWindowMode());
+        assertNull(result.getWindowedRateInMbps());
+    }
+
+    @Test
+    void invalidParameter() {
+        final MeasurementWindow window = new MeasurementWindow(MeasurementWindowMode.WARMUP, 0, 80);
+        assertThrows(IllegalArgumentException.class, () -> new MeasurementWindow(null, 0, 80));
+        assertThrows(IllegalArgumentException.class, () -> new MeasurementWindow(MeasurementWindowMode.WARMUP, -1, 80));
+        assertThrows(IllegalArgumentException.class, () -> new MeasurementWindow(MeasurementWindowMode.THRESHOLD, 0, 101));
+        assertThrows(IllegalArgumentException.class, () -> MeasurementWindow.create(null, true));
+        assertThrows(IllegalArgumentException.class, () -> window.track(null, progress -> () -> null));
+        assertThrows(IllegalArgumentException.class, () -> window.track(bytes -> {
+        }, null));
+        assertThrows(IllegalArgumentException.class, () -> window.applyTo(null));
+    }
+
+    // the returned consumer belongs to a running task, which finishes when its callable is called
+    private static LongConsumer start(final MeasurementWindow window, final LongConsumer progress,
+                                      final List<Callable<TransferTestResult>> tasks) {
+        final LongConsumer[] taskProgress = new LongConsumer[1];
+        tasks.add(window.track(progress, consumer -> {
+            taskProgress[0] = consumer;
+            return () -> null;
+        }));
+        return taskProgress[0];
+    }
+
+}
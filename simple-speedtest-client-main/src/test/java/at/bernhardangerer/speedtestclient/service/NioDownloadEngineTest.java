@@ -0,0 +1,130 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.ServerRequestException;
+import at.bernhardangerer.speedtestclient.model.TransferTestResult;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NioDownloadEngineTest {
+    private static final int PAYLOAD_SIZE = 1_000_000;
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/random350x350.jpg", exchange -> {
+            exchange.sendResponseHeaders(200, PAYLOAD_SIZE);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(new byte[PAYLOAD_SIZE]);
+            }
+        });
+        server.createContext("/chunked.jpg", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(new byte[PAYLOAD_SIZE]);
+            }
+        });
+        server.createContext("/missing.jpg", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadShouldCountWholeBody() throws ServerRequestException {
+        final TransferTestResult result = new NioDownloadEngine(10240).download(baseUrl + "/random350x350.jpg", 0);
+
+        assertEquals(PAYLOAD_SIZE, result.getBytes());
+        assertTrue(result.getDurationInMs() >= 0);
+    }
+
+    @Test
+    void downloadShouldMatchStreamEngine() throws ServerRequestException {
+        final NioDownloadEngine nioEngine = new NioDownloadEngine(10240);
+        final TransferTestResult nioResult = nioEngine.download(baseUrl + "/random350x350.jpg", 0);
+        final TransferTestResult reusedBufferResult = nioEngine.download(baseUrl + "/random350x350.jpg", 0);
+        final TransferTestResult streamResult = new StreamDownloadEngine(10240).download(baseUrl + "/random350x350.jpg", 0);
+
+        assertEquals(streamResult.getBytes(), nioResult.getBytes());
+        assertEquals(streamResult.getBytes(), reusedBufferResult.getBytes());
+    }
+
+    @Test
+    void downloadShouldCountDecodedChunkedBody() throws ServerRequestException {
+        final TransferTestResult result = new NioDownloadEngine(10240).download(baseUrl + "/chunked.jpg", 0);
+
+        assertEquals(PAYLOAD_SIZE, result.getBytes());
+    }
+
+    @Test
+    void downloadShouldFailOnErrorStatus() {
+        assertThrows(ServerRequestException.class, () -> new NioDownloadEngine(10240).download(baseUrl + "/missing.jpg", 0));
+    }
+
+    @Test
+    void downloadInvalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new NioDownloadEngine(10240).download(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new NioDownloadEngine(0));
+    }
+
+    @Test
+    void createRequest() throws IOException {
+        final String request = new String(NioDownloadEngine.createRequest(new URL("http://speedtest.ban.at:8080/random350x350.jpg?x=1")),
+                StandardCharsets.US_ASCII);
+
+        assertTrue(request.startsWith("GET /random350x350.jpg?x=1 HTTP/1.1\r\nHost: speedtest.ban.at:8080\r\n"));
+        assertTrue(request.endsWith("Connection: close\r\n\r\n"));
+        final URL latencyUrl = new URL("http://speedtest.ban.at/latency.txt");
+        assertTrue(new String(NioDownloadEngine.createRequest(latencyUrl, true), StandardCharsets.US_ASCII)
+                .endsWith("Connection: keep-alive\r\n\r\n"));
+    }
+
+    @Test
+    void parseHeader() throws IOException {
+        assertEquals(1234L, NioDownloadEngine.parseHeader("HTTP/1.1 200 OK\r\nContent-Type: image/jpeg\r\nContent-Length: 1234"));
+        assertEquals(-1L, NioDownloadEngine.parseHeader("HTTP/1.1 200 OK\r\nConnection: close"));
+        assertThrows(NioDownloadEngine.ChunkedResponseException.class,
+                () -> NioDownloadEngine.parseHeader("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked"));
+        assertThrows(IOException.class, () -> NioDownloadEngine.parseHeader("HTTP/1.1 500 Internal Server Error"));
+        assertThrows(IOException.class, () -> NioDownloadEngine.parseHeader("HTTP/1.1 302 Found\r\nContent-Length: 10"));
+        assertThrows(IOException.class, () -> NioDownloadEngine.parseHeader("HTTP/1.1 2OO OK"));
+        assertThrows(IOException.class, () -> NioDownloadEngine.parseHeader("HTTP/1.1 200 OK\r\nContent-Length: many"));
+    }
+
+    @Test
+    void parseHeaderShouldIgnoreDefaultLocale() throws IOException {
+        final Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertEquals(1234L, NioDownloadEngine.parseHeader("HTTP/1.1 200 OK\r\nCONTENT-LENGTH: 1234"));
+            assertThrows(NioDownloadEngine.ChunkedResponseException.class,
+                    () -> NioDownloadEngine.parseHeader("HTTP/1.1 200 OK\r\nTRANSFER-ENCODING: CHUNKED"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RandomUploadBodyTest {
+    private static final int LENGTH = 1 << 20;
+
+    @Test
+    void bodyStartsWithFormPrefixAndHasTheRequestedLength() {
+        final byte[] bytes = readAll(new RandomUploadBody(LENGTH, 1L), LENGTH + 100);
+
+        assertEquals(LENGTH, bytes.length);
+        assertEquals("content1=", new String(bytes, 0, 9, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void readsFromAnyPositionAreConsistent() {
+        final RandomUploadBody body = new RandomUploadBody(LENGTH, 7L);
+        final byte[] whole = readAll(body, LENGTH);
+
+        final ByteBuffer pieces = ByteBuffer.allocate(LENGTH);
+        int position = 0;
+        for (int piece = 1; position < LENGTH; piece = piece * 3 % 1021 + 1) {
+            final ByteBuffer target = ByteBuffer.allocate(Math.min(piece, LENGTH - position));
+            body.read(position, target);
+            position += target.position();
+            pieces.put(target.flip());
+        }
+        assertArrayEquals(whole, pieces.array());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(1000);
+        body.read(12_345, direct);
+        final byte[] directBytes = new byte[1000];
+        direct.flip().get(directBytes);
+        assertArrayEquals(Arrays.copyOfRange(whole, 12_345, 13_345), directBytes);
+    }
+
+    @Test
+    void bodyIsIncompressibleAndDependsOnTheSeed() {
+        final byte[] bytes = readAll(new RandomUploadBody(LENGTH, 3L), LENGTH);
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(bytes);
+        deflater.finish();
+        final byte[] output = new byte[LENGTH * 2];
+        final int compressedLength = deflater.deflate(output);
+        deflater.end();
+
+        assertTrue(compressedLength > LENGTH * 0.99, "compressed to " + compressedLength);
+        assertFalse(Arrays.equals(bytes, readAll(new RandomUploadBody(LENGTH, 4L), LENGTH)));
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new RandomUploadBody(0, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new RandomUploadBody(10, 1L).read(-1, ByteBuffer.allocate(1)));
+        assertThrows(IllegalArgumentException.class, () -> new RandomUploadBody(10, 1L).read(0, null));
+    }
+
+    private static byte[] readAll(final UploadBody body, final int capacity) {
+        final ByteBuffer target = ByteBuffer.allocate(capacity);
+        body.read(0, target);
+        return Arrays.copyOf(target.array(), target.position());
+    }
+
+}
@@ -0,0 +1,131 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.UnsupportedUnitException;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import at.bernhardangerer.speedtestclient.util.Util;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerIndexTest {
+
+    @Test
+    void findNearestShouldMatchFullScan() throws UnsupportedUnitException {
+        final Random random = new Random(7L);
+        final List<Server> servers = randomServers(random, 2000);
+        final ServerIndex index = new ServerIndex(servers);
+        for (int query = 0; query < 50; query++) {
+            final double lat = random.nextDouble() * 180 - 90;
+            final double lon = random.nextDouble() * 360 - 180;
+            final int limit = 1 + random.nextInt(20);
+
+            final Map<Server, Double> nearest = index.findNearest(lat, lon, limit, DistanceUnit.KILOMETER);
+
+            assertEquals(fullScan(servers, lat, lon).subList(0, limit), ids(nearest));
+        }
+    }
+
+    @Test
+    void findWithinRadiusShouldMatchFullScan() throws UnsupportedUnitException {
+        final Random random = new Random(11L);
+        final List<Server> servers = randomServers(random, 2000);
+        final ServerIndex index = new ServerIndex(servers);
+        for (int query = 0; query < 50; query++) {
+            final double lat = random.nextDouble() * 180 - 90;
+            final double lon = random.nextDouble() * 360 - 180;
+            final double radius = random.nextDouble() * 2000;
+
+            final Map<Server, Double> withinRadius = index.findWithinRadius(lat, lon, radius, DistanceUnit.MILE);
+
+            final List<Integer> expected = new ArrayList<>();
+            for (final Server server : servers) {
+                if (Util.calculateDistance(lat, lon, server.getLat(), server.getLon(), DistanceUnit.MILE) <= radius) {
+                    expected.add(server.getId());
+                }
+            }
+            assertEquals(expected.stream().sorted().toList(), ids(withinRadius).stream().sorted().toList());
+            assertTrue(withinRadius.values().stream().allMatch(distance -> distance <= radius));
+        }
+    }
+
+    @Test
+    void findNearestShouldKeepEquidistantServersInCatalogOrder() {
+        final List<Server> servers = List.of(server(1, 47.70, 17.67), server(2, 47.68, 17.65), server(3, 47.70, 17.67),
+                server(4, 47.70, 17.67), server(5, 48.20, 16.37));
+        final ServerIndex index = new ServerIndex(servers);
+
+        final Map<Server, Double> nearest = index.findNearest(47.67, 17.64, 3, DistanceUnit.KILOMETER);
+
+        assertEquals(List.of(2, 1, 3), ids(nearest));
+        assertEquals(nearest.get(servers.get(0)), nearest.get(servers.get(2)));
+        assertEquals(List.of(2, 1, 3, 4, 5), ids(index.findNearest(47.67, 17.64, 10, DistanceUnit.KILOMETER)));
+    }
+
+    @Test
+    void serversWithoutCoordinatesShouldOnlyBeFoundByHost() {
+        final Server unlocated = new Server("http://host9:8080/speedtest/upload.php", null, 17.0, "City", "Country", "CC",
+                "Sponsor", 9, "host9:8080");
+        final ServerIndex index = new ServerIndex(List.of(server(1, 47.0, 17.0), unlocated));
+
+        assertEquals(List.of(1), ids(index.findNearest(47.0, 17.0, 5, DistanceUnit.KILOMETER)));
+        assertSame(unlocated, index.findByHost(" host9:8080 "));
+        assertNull(index.findByHost("unknown:8080"));
+        assertEquals(2, index.getServers().size());
+        assertTrue(new ServerIndex(List.of()).findNearest(0, 0, 1, DistanceUnit.KILOMETER).isEmpty());
+    }
+
+    @Test
+    void invalidParameter() {
+        final ServerIndex index = new ServerIndex(List.of(server(1, 47.0, 17.0)));
+        assertThrows(IllegalArgumentException.class, () -> new ServerIndex(null));
+        assertThrows(IllegalArgumentException.class, () -> index.findNearest(0, 0, 0, DistanceUnit.KILOMETER));
+        assertThrows(IllegalArgumentException.class, () -> index.findNearest(0, 0, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> index.findWithinRadius(0, 0, -1, DistanceUnit.KILOMETER));
+        assertThrows(IllegalArgumentException.class, () -> index.findWithinRadius(0, 0, 1, null));
+    }
+
+    private static List<Server> randomServers(final Random random, final int count) {
+        final List<Server> servers = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            // repeated positions check that ties survive the tree
+            if (id % 10 == 0) {
+                servers.add(server(id, servers.get(id - 2).getLat(), servers.get(id - 2).getLon()));
+            } else {
+                servers.add(server(id, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+            }
+        }
+        return servers;
+    }
+
+    private static List<Integer> fullScan(final List<Server> servers, final double lat, final double lon)
+            throws UnsupportedUnitException {
+        final List<double[]> distances = new ArrayList<>();
+        for (final Server server : servers) {
+            distances.add(new double[]{Util.calculateDistance(lat, lon, server.getLat(), server.getLon(), DistanceUnit.KILOMETER),
+                server.getId()});
+        }
+        distances.sort(Comparator.<double[]>comparingDouble(entry -> entry[0]).thenComparingDouble(entry -> entry[1]));
+        return distances.stream().map(entry -> (int) entry[1]).toList();
+    }
+
+    private static Server server(final int id, final double lat, final double lon) {
+        return new Server("http://host" + id + ":8080/speedtest/upload.php", lat, lon, "City", "Country", "CC", "Sponsor", id,
+                "host" + id + ":8080");
+    }
+
+    private static List<Integer> ids(final Map<Server, Double> servers) {
+        return servers.keySet().stream().map(Server::getId).toList();
+    }
+
+}
@@ -0,0 +1,114 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServerListParserTest {
+    private static final double GYOR_LAT = 47.68;
+    private static final double GYOR_LON = 17.65;
+    private static final double DISTANCE_TOLERANCE = 1e-9;
+    private static final String XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <settings>
+            <servers>
+            <server url="http://a:8080/speedtest/upload.php" lat="47.6800" lon="17.6500" name="Gyor" country="Hungary" cc="HU" \
+            sponsor="ZNET Telekom Zrt." id="1" host="a:8080" />
+            <server url="http://b:8080/speedtest/upload.php" lat="48.2000" lon="16.3700" name="Vienna" country="Austria" cc="AT" \
+            sponsor="Magenta Telekom" id="2" host="b:8080" />
+            <server url="http://c:8080/speedtest/upload.php" lat="47.5000" lon="19.0500" name="Budapest" country="Hungary" cc="HU" \
+            sponsor="Telekom HU" id="3" host="c:8080" />
+            <server url="http://d:8080/speedtest/upload.php" lat="47.7000" lon="17.6700" name="Gyor" country="Hungary" cc="HU" \
+            sponsor="Another ISP" id="4" host="d:8080" />
+            <server url="http://e:8080/speedtest/upload.php" lat="47.7000" lon="17.6700" name="Gyor" country="Hungary" cc="HU" \
+            sponsor="Same Place" id="5" host="e:8080" />
+            <server url="http://f:8080/speedtest/upload.php" lat="n/a" lon="17.6700" id="6" host="f:8080" />
+            </servers>
+            </settings>""";
+
+    @Test
+    void parseShouldMapAllAttributes() throws ParsingException {
+        final List<Server> servers = ServerListParser.parse(stream(XML), ServerFilter.ANY);
+
+        assertEquals(6, servers.size());
+        assertEquals(new Server("http://b:8080/speedtest/upload.php", 48.2, 16.37, "Vienna", "Austria", "AT", "Magenta Telekom", 2,
+                "b:8080"), servers.get(1));
+        assertNull(servers.get(5).getLat());
+    }
+
+    @Test
+    void parseShouldApplyCountryAndSponsorFilter() throws ParsingException {
+        assertEquals(List.of(2), ids(ServerListParser.parse(stream(XML), ServerFilter.of("at", "*"))));
+        assertEquals(List.of(1, 3, 4, 5), ids(ServerListParser.parse(stream(XML), ServerFilter.of("Hungary", "*"))));
+        assertEquals(List.of(1, 2, 3), ids(ServerListParser.parse(stream(XML), ServerFilter.of("*", "telekom"))));
+        assertEquals(List.of(3), ids(ServerListParser.parse(stream(XML), ServerFilter.of("HU", "Telekom HU"))));
+    }
+
+    @Test
+    void parseClosestShouldKeepNearestServersInDocumentOrderOnTies() throws ParsingException {
+        final Map<Server, Double> closest = ServerListParser.parseClosest(stream(XML), ServerFilter.ANY, GYOR_LAT, GYOR_LON, 2,
+                DistanceUnit.KILOMETER);
+
+        assertEquals(List.of(1, 4), ids(List.copyOf(closest.keySet())));
+        assertEquals(0.0, closest.values().iterator().next());
+    }
+
+    @Test
+    void parseClosestShouldMatchFullParse() throws ParsingException, MissingResultException {
+        final Map<Server, Double> expected = ServerSettingsService.findClosestServers(GYOR_LAT, GYOR_LON, 4, DistanceUnit.MILE,
+                ServerListParser.parse(stream(XML), ServerFilter.of("HU", "*")));
+
+        final Map<Server, Double> closest = ServerListParser.parseClosest(stream(XML), ServerFilter.of("HU", "*"), GYOR_LAT, GYOR_LON, 4,
+                DistanceUnit.MILE);
+
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(closest.keySet()));
+        expected.forEach((server, distance) -> assertEquals(distance, closest.get(server), DISTANCE_TOLERANCE));
+    }
+
+    @Test
+    void parseShouldFailOnMalformedXml() {
+        assertThrows(ParsingException.class, () -> ServerListParser.parse(stream("<settings><servers>"), ServerFilter.ANY));
+        assertThrows(ParsingException.class, () -> ServerListParser.parse(stream("no xml"), ServerFilter.ANY));
+    }
+
+    @Test
+    void parseShouldNotResolveEntities() {
+        assertThrows(ParsingException.class, () -> ServerListParser.parse(stream("""
+                <?xml version="1.0"?>
+                <!DOCTYPE settings [<!ENTITY id SYSTEM "file:///etc/hostname">]>
+                <settings><servers><server id="&id;"/></servers></settings>"""), ServerFilter.ANY));
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> ServerListParser.parse(null, ServerFilter.ANY));
+        assertThrows(IllegalArgumentException.class, () -> ServerListParser.parse(stream(XML), null));
+        assertThrows(IllegalArgumentException.class, () -> ServerListParser.parseClosest(stream(XML), ServerFilter.ANY, GYOR_LAT, GYOR_LON,
+                0, DistanceUnit.KILOMETER));
+        assertThrows(IllegalArgumentException.class, () -> ServerListParser.parseClosest(stream(XML), ServerFilter.ANY, GYOR_LAT, GYOR_LON,
+                1, null));
+        assertThrows(IllegalArgumentException.class, () -> ServerFilter.of(" ", "*"));
+        assertThrows(IllegalArgumentException.class, () -> ServerFilter.of("*", null));
+    }
+
+    private static InputStream stream(final String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Integer> ids(final List<Server> servers) {
+        return servers.stream().map(Server::getId).toList();
+    }
+
+}
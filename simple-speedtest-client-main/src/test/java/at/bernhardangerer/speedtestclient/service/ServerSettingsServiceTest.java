@@ -1,12 +1,25 @@
 package at.bernhardangerer.speedtestclient.service;
 
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
 import at.bernhardangerer.speedtestclient.exception.MissingResultException;
 import at.bernhardangerer.speedtestclient.exception.ParsingException;
+import at.bernhardangerer.speedtestclient.jfr.FlightRecording;
 import at.bernhardangerer.speedtestclient.model.Server;
 import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -60,7 +73,7 @@ public final class ServerSettingsServiceTest {
     @Test
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     public void findClosestServers() throws MissingResultException {
-        Map<Double, Server> result;
+        Map<Server, Double> result;
         final List<Server> serverList = new ArrayList<>();
         serverList.add(new Server("http://gyor-speedtest.zt.hu:8080/speedtest/upload.php", 47.6800, 17.6500,
                 "Gyor", "Hungary", "HU", "ZNET Telekom Zrt.", 1, "gyor-speedtest.zt.hu:8080"));
@@ -85,13 +98,13 @@ public final class ServerSettingsServiceTest {
         Assertions.assertNotNull(result);
         Assertions.assertFalse(result.isEmpty());
         Assertions.assertEquals(5, result.size());
-        Assertions.assertTrue(result.values().stream().allMatch(server -> server.getId() >= 1 && server.getId() <= 5));
+        Assertions.assertTrue(result.keySet().stream().allMatch(server -> server.getId() >= 1 && server.getId() <= 5));
 
         result = ServerSettingsService.findClosestServers(47.7500, 17.7300, 3, DistanceUnit.KILOMETER, serverList);
         Assertions.assertNotNull(result);
         Assertions.assertFalse(result.isEmpty());
         Assertions.assertEquals(3, result.size());
-        Assertions.assertTrue(result.values().stream().allMatch(server -> server.getId() >= 7 && server.getId() <= 9));
+        Assertions.assertTrue(result.keySet().stream().allMatch(server -> server.getId() >= 7 && server.getId() <= 9));
     }
 
     @Test
@@ -103,6 +116,87 @@ public final class ServerSettingsServiceTest {
     @Test
     public void requestServerListInvalidParameter() {
         assertThrows(IllegalArgumentException.class, () -> ServerSettingsService.requestServerList(0));
+        assertThrows(IllegalArgumentException.class, () -> ServerSettingsService.requestServerList(4, null));
+    }
+
+    @Test
+    public void requestServerListShouldMergeAndDeduplicateEndpoints(@TempDir final Path directory)
+            throws IOException, MissingResultException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/static.php", exchange -> respond(exchange, serverXml(1, 2)));
+        server.createContext("/dynamic.php", exchange -> respond(exchange, serverXml(2, 3)));
+        server.createContext("/broken.php", exchange -> respond(exchange, "no xml"));
+        server.start();
+        try {
+            final String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+            final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().cacheDirectory(directory).build();
+            final Path file = directory.resolve("servers.jfr");
+
+            final List<Server> result;
+            try (FlightRecording recording = FlightRecording.start(file)) {
+                result = ServerSettingsService.requestServerList(
+                        List.of(baseUrl + "/static.php", baseUrl + "/dynamic.php", baseUrl + "/broken.php"), config);
+            }
+
+            Assertions.assertEquals(List.of(1, 2, 3), result.stream().map(Server::getId).toList());
+            final RecordedEvent event = RecordingFile.readAllEvents(file).stream()
+                    .filter(recorded -> recorded.getEventType().getName().equals("at.bernhardangerer.speedtestclient.ServerListRequest"))
+                    .findFirst().orElseThrow();
+            Assertions.assertEquals(3, event.getInt("endpoints"));
+            Assertions.assertEquals(3, event.getInt("servers"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void requestClosestServersShouldMergeClosestOfEachEndpoint(@TempDir final Path directory)
+            throws IOException, MissingResultException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/static.php", exchange -> respond(exchange, serverXml(5, 4, 1)));
+        server.createContext("/dynamic.php", exchange -> respond(exchange, serverXml(4, 3, 2)));
+        server.start();
+        final String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        final List<String> urls = List.of(baseUrl + "/static.php", baseUrl + "/dynamic.php");
+        final SpeedtestConfig config = SpeedtestConfig.getDefault().toBuilder().closestServersMaxNumber(2).cacheDirectory(directory)
+                .build();
+        try {
+            Assertions.assertEquals(List.of(1, 2), ids(ServerSettingsService.requestClosestServers(urls, 47.1, 19.0,
+                    config.toBuilder().cacheEnabled(false).build())));
+            Assertions.assertEquals(List.of(1, 2), ids(ServerSettingsService.requestClosestServers(urls, 47.1, 19.0, config)));
+        } finally {
+            server.stop(0);
+        }
+        // the cached lists are parsed again for another position
+        Assertions.assertEquals(List.of(5, 4), ids(ServerSettingsService.requestClosestServers(urls, 47.5, 19.0, config)));
+    }
+
+    @Test
+    public void requestClosestServersInvalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> ServerSettingsService.requestClosestServers(0, 47.1, 19.0,
+                SpeedtestConfig.getDefault()));
+        assertThrows(IllegalArgumentException.class, () -> ServerSettingsService.requestClosestServers(4, 47.1, 19.0, null));
+    }
+
+    private static List<Integer> ids(final Map<Server, Double> servers) {
+        return servers.keySet().stream().map(Server::getId).toList();
+    }
+
+    private static String serverXml(final int... ids) {
+        final StringBuilder xml = new StringBuilder("<settings><servers>");
+        for (final int id : ids) {
+            xml.append("<server url=\"http://host").append(id).append(":8080/speedtest/upload.php\" lat=\"47.").append(id)
+                    .append("\" lon=\"19.0\" id=\"").append(id).append("\" host=\"host").append(id).append(":8080\"/>");
+        }
+        return xml.append("</servers></settings>").toString();
+    }
+
+    private static void respond(final HttpExchange exchange, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
     }
 
 }
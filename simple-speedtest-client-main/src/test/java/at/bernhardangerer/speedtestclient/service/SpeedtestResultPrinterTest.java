@@ -64,18 +64,87 @@ class SpeedtestResultPrinterTest {
                   },
                   "latency" : {
                     "latency" : 12.3,
-                    "distance" : 34.7
+                    "distance" : 34.7,
+                    "connectRttInMs" : 11.85,
+                    "httpRttInMs" : 12.3,
+                    "minInMs" : 11.9,
+                    "p50InMs" : 12.2,
+                    "p90InMs" : 12.8,
+                    "p99InMs" : 13.1,
+                    "maxInMs" : 13.1,
+                    "jitterInMs" : 0.4,
+                    "lossCount" : 1
                   },
                   "download" : {
                     "rateInMbps" : 94.25,
                     "bytes" : 11800000,
-                    "durationInMs" : 15000
+                    "durationInMs" : 15000,
+                    "sampleIntervalInMs" : 100,
+                    "samplesInMbps" : [ 80.5, 95.0, 97.25 ],
+                    "peakRateInMbps" : 97.25,
+                    "medianRateInMbps" : 95.0,
+                    "stableRateInMbps" : 96.125,
+                    "stopReason" : "CONVERGED",
+                    "timeSavedInMs" : 5000,
+                    "bytesSaved" : 58906250,
+                    "streams" : 4,
+                    "rampTrace" : [ {
+                      "streams" : 2,
+                      "rateInMbps" : 60.0
+                    }, {
+                      "streams" : 4,
+                      "rateInMbps" : 94.0
+                    }, {
+                      "streams" : 8,
+                      "rateInMbps" : 95.0
+                    } ],
+                    "windowMode" : "THRESHOLD",
+                    "windowStartInMs" : 100,
+                    "windowedRateInMbps" : 96.125,
+                    "windowedBytes" : 2403125,
+                    "windowedDurationInMs" : 200,
+                    "timeToFirstByteInMs" : 180
                   },
                   "upload" : {
                     "rateInMbps" : 26.48,
                     "bytes" : 3300000,
-                    "durationInMs" : 10000
+                    "durationInMs" : 10000,
+                    "sampleIntervalInMs" : null,
+                    "samplesInMbps" : null,
+                    "peakRateInMbps" : null,
+                    "medianRateInMbps" : null,
+                    "stableRateInMbps" : null,
+                    "stopReason" : null,
+                    "timeSavedInMs" : null,
+                    "bytesSaved" : null,
+                    "streams" : null,
+                    "rampTrace" : null,
+                    "windowMode" : null,
+                    "windowStartInMs" : null,
+                    "windowedRateInMbps" : null,
+                    "windowedBytes" : null,
+                    "windowedDurationInMs" : null,
+                    "timeToFirstByteInMs" : null
                   },
+                  "responsiveness" : {
+                    "idleLatencyInMs" : 12.3,
+                    "download" : {
+                      "latency" : 48.5,
+                      "distance" : null,
+                      "connectRttInMs" : null,
+                      "httpRttInMs" : 48.5,
+                      "minInMs" : 20.1,
+                      "p50InMs" : 45.0,
+                      "p90InMs" : 80.2,
+                      "p99InMs" : 95.4,
+                      "maxInMs" : 96.0,
+                      "jitterInMs" : 9.8,
+                      "lossCount" : 0
+                    },
+                    "upload" : null,
+                    "rpm" : 1333.3
+                  },
+                  "timeToFirstByteInMs" : 412,
                   "shareUrl" : "http://share.url"
                 }
                 """;
@@ -100,6 +169,8 @@ class SpeedtestResultPrinterTest {
                   "latency" : null,
                   "download" : null,
                   "upload" : null,
+                  "responsiveness" : null,
+                  "timeToFirstByteInMs" : null,
                   "shareUrl" : null
                 }
                 """;
@@ -109,6 +180,19 @@ class SpeedtestResultPrinterTest {
         assertTrue(error.isEmpty());
     }
 
+    @Test
+    void printJsonShouldOutputOneLineWhenNotPretty() {
+        SpeedtestResultPrinter.printJson(new SpeedtestResult(), false);
+
+        final String expectedResult = """
+                {"startTime":null,"endTime":null,"client":null,"server":null,"latency":null,"download":null,"upload":null,\
+                "responsiveness":null,"timeToFirstByteInMs":null,"shareUrl":null}
+                """;
+
+        assertThat(outContent.toString()).isEqualToNormalizingNewlines(expectedResult);
+        assertTrue(errContent.toString().isEmpty());
+    }
+
     @Test
     void printJsonShouldNotPrintWhenResultIsNull() {
         SpeedtestResultPrinter.printJson(null);
@@ -131,19 +215,73 @@ class SpeedtestResultPrinterTest {
                     <client ip="93.184.216.34" lat="52.52" lon="13.405" isp="ExampleISP" isprating="4.3" country="DE"/>
                     <download>
                         <bytes>11800000</bytes>
+                        <bytesSaved>58906250</bytesSaved>
                         <durationInMs>15000</durationInMs>
+                        <medianRateInMbps>95.0</medianRateInMbps>
+                        <peakRateInMbps>97.25</peakRateInMbps>
+                        <rampTrace>
+                            <rateInMbps>60.0</rateInMbps>
+                            <streams>2</streams>
+                        </rampTrace>
+                        <rampTrace>
+                            <rateInMbps>94.0</rateInMbps>
+                            <streams>4</streams>
+                        </rampTrace>
+                        <rampTrace>
+                            <rateInMbps>95.0</rateInMbps>
+                            <streams>8</streams>
+                        </rampTrace>
                         <rateInMbps>94.25</rateInMbps>
+                        <sampleIntervalInMs>100</sampleIntervalInMs>
+                        <samplesInMbps>80.5</samplesInMbps>
+                        <samplesInMbps>95.0</samplesInMbps>
+                        <samplesInMbps>97.25</samplesInMbps>
+                        <stableRateInMbps>96.125</stableRateInMbps>
+                        <stopReason>CONVERGED</stopReason>
+                        <streams>4</streams>
+                        <timeSavedInMs>5000</timeSavedInMs>
+                        <timeToFirstByteInMs>180</timeToFirstByteInMs>
+                        <windowMode>THRESHOLD</windowMode>
+                        <windowStartInMs>100</windowStartInMs>
+                        <windowedBytes>2403125</windowedBytes>
+                        <windowedDurationInMs>200</windowedDurationInMs>
+                        <windowedRateInMbps>96.125</windowedRateInMbps>
                     </download>
                     <endTime/>
                     <latency>
+                        <connectRttInMs>11.85</connectRttInMs>
                         <distance>34.7</distance>
+                        <httpRttInMs>12.3</httpRttInMs>
+                        <jitterInMs>0.4</jitterInMs>
                         <latency>12.3</latency>
+                        <lossCount>1</lossCount>
+                        <maxInMs>13.1</maxInMs>
+                        <minInMs>11.9</minInMs>
+                        <p50InMs>12.2</p50InMs>
+                        <p90InMs>12.8</p90InMs>
+                        <p99InMs>13.1</p99InMs>
                     </latency>
+                    <responsiveness>
+                        <download>
+                            <httpRttInMs>48.5</httpRttInMs>
+                            <jitterInMs>9.8</jitterInMs>
+                            <latency>48.5</latency>
+                            <lossCount>0</lossCount>
+                            <maxInMs>96.0</maxInMs>
+                            <minInMs>20.1</minInMs>
+                            <p50InMs>45.0</p50InMs>
+                            <p90InMs>80.2</p90InMs>
+                            <p99InMs>95.4</p99InMs>
+                        </download>
+                        <idleLatencyInMs>12.3</idleLatencyInMs>
+                        <rpm>1333.3</rpm>
+                    </responsiveness>
                     <server url="http://speedtest1.example.com/speedtest" \
                 lat="48.2082" lon="16.3738" name="Vienna" \
                 country="Austria" cc="AT" sponsor="ExampleNet, GmbH" id="101" host="server1.example.com"/>
                     <shareUrl>http://share.url</shareUrl>
                     <startTime/>
+                    <timeToFirstByteInMs>412</timeToFirstByteInMs>
                     <upload>
                         <bytes>3300000</bytes>
                         <durationInMs>10000</durationInMs>
@@ -192,11 +330,20 @@ class SpeedtestResultPrinterTest {
         final String expectedResult = """
                 startTime,endTime,clientIp,clientLat,clientLon,clientIsp,clientIspRating,clientCountry,serverId,\
                 serverCity,serverHost,serverCountry,serverLat,serverLon,serverSponsor,serverUrl,latencyMs,distanceKm,\
-                downloadMbps,downloadBytes,downloadDurationMs,uploadMbps,uploadBytes,uploadDurationMs,shareUrl
+                latencyConnectMs,latencyHttpMs,latencyMinMs,latencyP50Ms,latencyP90Ms,latencyP99Ms,latencyMaxMs,latencyJitterMs,\
+                latencyLoss,downloadMbps,downloadBytes,downloadDurationMs,downloadPeakMbps,\
+                downloadMedianMbps,downloadStableMbps,\
+                downloadSamplesMbps,downloadStopReason,downloadBytesSaved,downloadStreams,downloadWindowedMbps,\
+                uploadMbps,uploadBytes,uploadDurationMs,uploadPeakMbps,uploadMedianMbps,uploadStableMbps,\
+                uploadSamplesMbps,uploadStopReason,uploadBytesSaved,uploadStreams,uploadWindowedMbps,\
+                idleLatencyMs,downloadLoadedLatencyMs,downloadLoadedP90Ms,downloadLoadedJitterMs,uploadLoadedLatencyMs,\
+                uploadLoadedP90Ms,uploadLoadedJitterMs,responsivenessRpm,timeToFirstByteMs,shareUrl
                 2025-07-28T18:40:20,2025-07-28T18:40:50,93.184.216.34,52.520000,13.405000,ExampleISP,4.300000,DE,101,\
                 Vienna,server1.example.com,Austria,48.208200,16.373800,"ExampleNet, GmbH",\
-                http://speedtest1.example.com/speedtest,12.300000,34.700000,94.250000,11800000,15000,26.480000,\
-                3300000,10000,http://share.url
+                http://speedtest1.example.com/speedtest,12.300000,34.700000,11.850000,12.300000,11.900000,12.200000,\
+                12.800000,13.100000,13.100000,0.400000,1,94.250000,11800000,15000,97.250000,\
+                95.000000,96.125000,80.500 95.000 97.250,CONVERGED,58906250,4,96.125000,26.480000,3300000,10000,,,,,,,,,\
+                12.300000,48.500000,80.200000,9.800000,,,,1333.300000,412,http://share.url
                 """;
 
         assertThat(outContent.toString()).isEqualToNormalizingNewlines(expectedResult);
@@ -213,8 +360,15 @@ class SpeedtestResultPrinterTest {
         final String expectedResult = """
                 startTime,endTime,clientIp,clientLat,clientLon,clientIsp,clientIspRating,clientCountry,serverId,\
                 serverCity,serverHost,serverCountry,serverLat,serverLon,serverSponsor,serverUrl,latencyMs,distanceKm,\
-                downloadMbps,downloadBytes,downloadDurationMs,uploadMbps,uploadBytes,uploadDurationMs,shareUrl
-                ,,,,,,,,,,,,,,,,,,,,,,,,
+                latencyConnectMs,latencyHttpMs,latencyMinMs,latencyP50Ms,latencyP90Ms,latencyP99Ms,latencyMaxMs,latencyJitterMs,\
+                latencyLoss,downloadMbps,downloadBytes,downloadDurationMs,downloadPeakMbps,\
+                downloadMedianMbps,downloadStableMbps,\
+                downloadSamplesMbps,downloadStopReason,downloadBytesSaved,downloadStreams,downloadWindowedMbps,\
+                uploadMbps,uploadBytes,uploadDurationMs,uploadPeakMbps,uploadMedianMbps,uploadStableMbps,\
+                uploadSamplesMbps,uploadStopReason,uploadBytesSaved,uploadStreams,uploadWindowedMbps,\
+                idleLatencyMs,downloadLoadedLatencyMs,downloadLoadedP90Ms,downloadLoadedJitterMs,uploadLoadedLatencyMs,\
+                uploadLoadedP90Ms,uploadLoadedJitterMs,responsivenessRpm,timeToFirstByteMs,shareUrl
+                ,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,
                 """;
 
         assertThat(outContent.toString()).isEqualToNormalizingNewlines(expectedResult);
@@ -222,6 +376,14 @@ class SpeedtestResultPrinterTest {
         assertTrue(error.isEmpty());
     }
 
+    @Test
+    void printCsvShouldOmitTheHeaderWhenRequested() {
+        SpeedtestResultPrinter.printCsv(new SpeedtestResult(), Constant.COMMA, false);
+
+        assertThat(outContent.toString()).isEqualToNormalizingNewlines(",".repeat(58) + "\n");
+        assertTrue(errContent.toString().isEmpty());
+    }
+
     @Test
     void printCsvShouldNotPrintWhenResultIsNull() {
         SpeedtestResultPrinter.printCsv(null, Constant.COMMA);
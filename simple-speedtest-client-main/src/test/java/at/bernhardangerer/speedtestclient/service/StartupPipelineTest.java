@@ -0,0 +1,211 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import at.bernhardangerer.speedtestclient.config.SpeedtestConfig;
+import at.bernhardangerer.speedtestclient.exception.MissingResultException;
+import at.bernhardangerer.speedtestclient.model.Client;
+import at.bernhardangerer.speedtestclient.model.ConfigSetting;
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import at.bernhardangerer.speedtestclient.model.Server;
+import at.bernhardangerer.speedtestclient.util.LatencyListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupPipelineTest {
+    private static final SpeedtestConfig CONFIG = SpeedtestConfig.getDefault().toBuilder().closestServersMaxNumber(2).build();
+
+    @Test
+    void configAndServerListShouldBeRequestedInParallel() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final RecordingSteps steps = new RecordingSteps(() -> {
+            bothStarted.countDown();
+            // each request only finishes once the other one is running as well
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Requests did not overlap");
+            }
+        });
+
+        final StartupPipeline startup = StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE, steps);
+
+        assertEquals(48.2, StartupPipeline.await(startup.getConfigSetting()).getClient().getLat());
+        final Map.Entry<Server, LatencyTestResult> fastest = StartupPipeline.await(startup.getFastestServer());
+        assertEquals(2, fastest.getKey().getId());
+        // only the closest servers to the client are probed, nearest first
+        assertEquals(List.of(2, 1), steps.probed);
+        assertEquals(List.of(2, 1), StartupPipeline.await(startup.getClosestServers()).keySet().stream().map(Server::getId).toList());
+        assertTrue(startup.isSelectingServer());
+        assertTrue(steps.closestServerRequests.isEmpty());
+    }
+
+    @Test
+    void knownPositionShouldOnlyRequestTheClosestServers() throws Exception {
+        final RecordingSteps steps = new RecordingSteps(() -> {
+        });
+
+        final StartupPipeline startup = StartupPipeline.start(CONFIG, null, setting(48.2, 16.37), LatencyListener.NONE, steps);
+
+        assertEquals(List.of(2, 1), StartupPipeline.await(startup.getClosestServers()).keySet().stream().map(Server::getId).toList());
+        assertEquals(List.of(48.2), steps.closestServerRequests);
+        assertEquals(0, steps.serverListRequests);
+    }
+
+    @Test
+    void cachedPositionShouldOnlyRequestTheClosestServers() throws Exception {
+        final RecordingSteps steps = new RecordingSteps(() -> {
+        });
+        steps.cachedSetting = setting(48.2, 16.37);
+
+        final StartupPipeline startup = StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE, steps);
+
+        assertEquals(2, StartupPipeline.await(startup.getFastestServer()).getKey().getId());
+        assertEquals(List.of(2, 1), steps.probed);
+        assertEquals(List.of(48.2), steps.closestServerRequests);
+        assertEquals(0, steps.serverListRequests);
+    }
+
+    @Test
+    void movedClientShouldRequestTheClosestServersAgain() throws Exception {
+        final RecordingSteps steps = new RecordingSteps(() -> {
+        });
+
+        final StartupPipeline startup = StartupPipeline.start(CONFIG, null, setting(-33.9, 151.2), LatencyListener.NONE, steps);
+
+        assertEquals(List.of(2, 1), StartupPipeline.await(startup.getClosestServers()).keySet().stream().map(Server::getId).toList());
+        assertEquals(List.of(-33.9, 48.2), steps.closestServerRequests);
+        assertEquals(0, steps.serverListRequests);
+    }
+
+    @Test
+    void dedicatedServerShouldSkipTheServerList() throws Exception {
+        final RecordingSteps steps = new RecordingSteps(() -> {
+        });
+        final Server dedicated = server(9, 10.0, 10.0);
+
+        final StartupPipeline startup = StartupPipeline.start(CONFIG, dedicated, null, LatencyListener.NONE, steps);
+
+        assertSame(dedicated, StartupPipeline.await(startup.getFastestServer()).getKey());
+        assertEquals(0, steps.serverListRequests);
+        assertEquals(List.of(9), steps.probed);
+        assertFalse(startup.isSelectingServer());
+    }
+
+    @Test
+    void completedStartupShouldRequestNothing() throws Exception {
+        final ConfigSetting setting = new ConfigSetting();
+        final Server server = server(4, 48.2, 16.37);
+        final Map.Entry<Server, LatencyTestResult> fastest = Map.entry(server, new LatencyTestResult(5.0, 1.5));
+
+        final StartupPipeline startup = StartupPipeline.completed(setting, fastest, 42L);
+
+        assertEquals(42L, startup.getStartNanos());
+        assertSame(setting, StartupPipeline.await(startup.getConfigSetting()));
+        assertSame(fastest, StartupPipeline.await(startup.getFastestServer()));
+        assertEquals(Map.of(server, 1.5), StartupPipeline.await(startup.getClosestServers()));
+        assertFalse(startup.isSelectingServer());
+    }
+
+    @Test
+    void failedStepShouldFailTheDependentSteps() {
+        final RecordingSteps steps = new RecordingSteps(() -> {
+            throw new MissingResultException("Missing result for config settings request");
+        });
+
+        final StartupPipeline startup = StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE, steps);
+
+        final MissingResultException exception = assertThrows(MissingResultException.class,
+                () -> StartupPipeline.await(startup.getFastestServer()));
+        assertEquals("Missing result for config settings request", exception.getMessage());
+        assertTrue(steps.probed.isEmpty());
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> StartupPipeline.start(null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> StartupPipeline.start(CONFIG.toBuilder().distanceUnit(null).build(), null));
+        assertThrows(IllegalArgumentException.class, () -> StartupPipeline.start(CONFIG, null, null, LatencyListener.NONE, null));
+        assertThrows(IllegalArgumentException.class, () -> StartupPipeline.start(CONFIG, null, (LatencyListener) null));
+        assertThrows(IllegalArgumentException.class, () -> StartupPipeline.await(null));
+        assertThrows(IllegalArgumentException.class, () -> StartupPipeline.completed(null, null));
+    }
+
+    private static ConfigSetting setting(final double lat, final double lon) {
+        final ConfigSetting setting = new ConfigSetting();
+        final Client client = new Client();
+        client.setLat(lat);
+        client.setLon(lon);
+        setting.setClient(client);
+        return setting;
+    }
+
+    private static List<Server> servers() {
+        return List.of(server(1, 47.5, 19.05), server(2, 48.21, 16.36), server(3, -33.9, 151.2));
+    }
+
+    private static Server server(final int id, final double lat, final double lon) {
+        return new Server("http://host" + id + ":8080/speedtest/upload.php", lat, lon, "City", "Country", "CC", "Sponsor", id,
+                "host" + id + ":8080");
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void run() throws Exception;
+    }
+
+    private static final class RecordingSteps implements StartupPipeline.Steps {
+        private final Request request;
+        private final List<Integer> probed = new ArrayList<>();
+        private final List<Double> closestServerRequests = new ArrayList<>();
+        private ConfigSetting cachedSetting;
+        private int serverListRequests;
+
+        RecordingSteps(final Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public ConfigSetting requestSetting(final SpeedtestConfig config) throws Exception {
+            request.run();
+            return setting(48.2, 16.37);
+        }
+
+        @Override
+        public ConfigSetting cachedSetting(final SpeedtestConfig config) {
+            return cachedSetting;
+        }
+
+        @Override
+        public List<Server> requestServerList(final SpeedtestConfig config) throws Exception {
+            serverListRequests++;
+            request.run();
+            return servers();
+        }
+
+        @Override
+        public synchronized Map<Server, Double> requestClosestServers(final SpeedtestConfig config, final double lat, final double lon)
+                throws MissingResultException {
+            closestServerRequests.add(lat);
+            return ServerSettingsService.findClosestServers(lat, lon, config.getClosestServersMaxNumber(), config.getDistanceUnit(),
+                    servers());
+        }
+
+        @Override
+        public Map.Entry<Server, LatencyTestResult> getFastestServer(final Map<Server, Double> closestServers,
+                                                                     final SpeedtestConfig config, final LatencyListener listener) {
+            closestServers.keySet().forEach(server -> probed.add(server.getId()));
+            final Map.Entry<Server, Double> nearest = closestServers.entrySet().iterator().next();
+            return Map.entry(nearest.getKey(), new LatencyTestResult(1.0, nearest.getValue()));
+        }
+    }
+
+}
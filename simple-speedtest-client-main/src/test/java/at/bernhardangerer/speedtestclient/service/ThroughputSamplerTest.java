@@ -0,0 +1,90 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThroughputSamplerTest {
+
+    @Test
+    void samplerShouldCollectFixedIntervalSamplesFromConcurrentWorkers() throws InterruptedException {
+        final ThroughputSampler sampler = new ThroughputSampler(20, 1000);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Thread> workers = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            workers.add(new Thread(() -> {
+                while (running.get()) {
+                    sampler.accept(1000);
+                    Thread.onSpinWait();
+                }
+            }));
+        }
+        sampler.start();
+        workers.forEach(Thread::start);
+        Thread.sleep(200);
+        running.set(false);
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+        sampler.stop();
+
+        final double[] samples = sampler.getSamplesInMbps();
+        assertTrue(samples.length >= 5, "samples: " + samples.length);
+        for (final double sample : samples) {
+            assertTrue(sample >= 0);
+        }
+        assertTrue(sampler.getBytes() > 0);
+        assertEquals(20, sampler.getIntervalInMs());
+    }
+
+    @Test
+    void ringBufferShouldKeepLatestSamples() throws InterruptedException {
+        final ThroughputSampler sampler = new ThroughputSampler(5, 2);
+        sampler.start();
+        Thread.sleep(60);
+        sampler.stop();
+
+        assertEquals(2, sampler.getSamplesInMbps().length);
+        assertArrayEquals(new double[]{0.0, 0.0}, sampler.getSamplesInMbps());
+    }
+
+    @Test
+    void samplerShouldTimestampTheFirstByte() throws InterruptedException {
+        final ThroughputSampler sampler = new ThroughputSampler(100, 10);
+        sampler.accept(0);
+        assertNull(sampler.getTimeToFirstByteInMs());
+        sampler.start();
+        sampler.accept(0);
+        Thread.sleep(30);
+        sampler.accept(10);
+        Thread.sleep(30);
+        sampler.accept(10);
+        sampler.stop();
+
+        final long timeToFirstByte = sampler.getTimeToFirstByteInMs();
+        assertTrue(timeToFirstByte >= 30 && timeToFirstByte < 60, String.valueOf(timeToFirstByte));
+    }
+
+    @Test
+    void samplerShouldNotStartTwice() throws InterruptedException {
+        final ThroughputSampler sampler = new ThroughputSampler(100, 10);
+        sampler.start();
+        assertThrows(IllegalStateException.class, sampler::start);
+        sampler.stop();
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new ThroughputSampler(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ThroughputSampler(100, 0));
+    }
+
+}
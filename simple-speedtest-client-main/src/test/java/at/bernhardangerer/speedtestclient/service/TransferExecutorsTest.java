@@ -0,0 +1,115 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransferExecutorsTest {
+    private static final int TASK_COUNT = 20;
+    private static final int PARALLELISM = 3;
+
+    @Test
+    void boundedPoolShouldLimitParallelismAndKeepOrder() throws InterruptedException, ExecutionException {
+        try (TransferExecutor executor = TransferExecutors.boundedPool(8)) {
+            assertInvokeAll(executor);
+            assertInvokeAll(executor);
+        }
+    }
+
+    @Test
+    void virtualThreadPerTaskShouldLimitParallelismAndKeepOrder() throws InterruptedException, ExecutionException {
+        final TransferExecutor executor = TransferExecutors.virtualThreadPerTask();
+        assertInvokeAll(executor);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sharedShouldSurviveShutdownOfView() throws InterruptedException, ExecutionException {
+        final TransferExecutor first = TransferExecutors.shared();
+        assertInvokeAll(first);
+        first.close();
+        assertTrue(first.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> first.invokeAll(List.of(() -> 1), 1));
+
+        assertInvokeAll(TransferExecutors.shared());
+    }
+
+    @Test
+    void fromExecutorServiceShouldOnlyShutDownWhenOwned() throws InterruptedException, ExecutionException {
+        final ExecutorService borrowed = Executors.newFixedThreadPool(PARALLELISM);
+        try {
+            final TransferExecutor executor = TransferExecutors.fromExecutorService(borrowed, false);
+            assertInvokeAll(executor);
+            executor.close();
+            assertTrue(executor.awaitTermination(0, TimeUnit.SECONDS));
+            assertFalse(borrowed.isShutdown());
+        } finally {
+            borrowed.shutdownNow();
+        }
+
+        final ExecutorService owned = Executors.newFixedThreadPool(PARALLELISM);
+        final TransferExecutor executor = TransferExecutors.fromExecutorService(owned, true);
+        executor.close();
+        assertTrue(owned.isShutdown());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void invokeAllShouldKeepFailedTasks() throws InterruptedException {
+        try (TransferExecutor executor = TransferExecutors.boundedPool(2)) {
+            final List<Future<Integer>> futures = executor.invokeAll(List.of(() -> 1, () -> {
+                throw new IllegalStateException("failure");
+            }), 2);
+            assertEquals(2, futures.size());
+            assertThrows(ExecutionException.class, () -> futures.get(1).get());
+        }
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> TransferExecutors.boundedPool(0));
+        assertThrows(IllegalArgumentException.class, () -> TransferExecutors.fromExecutorService(null, true));
+        assertThrows(IllegalArgumentException.class, () -> TransferExecutors.shared().invokeAll(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> TransferExecutors.shared().invokeAll(List.of(() -> 1), 0));
+    }
+
+    private static void assertInvokeAll(final TransferExecutor executor) throws InterruptedException, ExecutionException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int index = 0; index < TASK_COUNT; index++) {
+            final int value = index;
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return value;
+            });
+        }
+
+        final List<Future<Integer>> futures = executor.invokeAll(tasks, PARALLELISM);
+
+        assertEquals(TASK_COUNT, futures.size());
+        for (int index = 0; index < TASK_COUNT; index++) {
+            assertTrue(futures.get(index).isDone());
+            assertEquals(index, futures.get(index).get());
+        }
+        assertTrue(maxRunning.get() <= PARALLELISM);
+    }
+
+}
@@ -0,0 +1,61 @@
+package at.bernhardangerer.speedtestclient.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadPayloadTest {
+
+    @Test
+    void sliceMatchesGeneratedDataString() {
+        for (final int size : new int[]{1, 9, 32768, 1048576, UploadPayload.MAX_SIZE}) {
+            final ByteBuffer slice = UploadPayload.slice(size);
+            assertEquals(size, slice.remaining());
+            assertEquals(UploadService.generateDataString(size), StandardCharsets.US_ASCII.decode(slice).toString());
+        }
+    }
+
+    @Test
+    void slicesAreReadOnlyViewsOfOneDirectBuffer() {
+        final ByteBuffer slice = UploadPayload.slice(32768);
+
+        assertTrue(slice.isDirect());
+        assertTrue(slice.isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> slice.put(0, (byte) 0));
+    }
+
+    @Test
+    void wrap() {
+        final ByteBuffer buffer = UploadPayload.wrap("content1=0123");
+
+        assertTrue(buffer.isReadOnly());
+        assertEquals("content1=0123", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    @Test
+    void bodyOfBufferReadsAndSlicesFromAnyPosition() {
+        final UploadBody body = UploadBody.of(UploadPayload.wrap("content1=0123456789"));
+        final ByteBuffer target = ByteBuffer.allocate(4);
+
+        body.read(9, target);
+
+        assertEquals(19, body.length());
+        assertEquals("0123", new String(target.array(), StandardCharsets.US_ASCII));
+        assertEquals("456", StandardCharsets.US_ASCII.decode(body.chunk(13, 3)).toString());
+        assertThrows(IllegalArgumentException.class, () -> UploadBody.of(null));
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> UploadPayload.slice(0));
+        assertThrows(IllegalArgumentException.class, () -> UploadPayload.slice(UploadPayload.MAX_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> UploadPayload.wrap(null));
+    }
+
+}
@@ -10,16 +10,26 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.CONFIG;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.DAEMON;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.DEDICATED_SERVER_HOST;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.FILE;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.FLIGHT_RECORDING;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.FORMAT;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HISTORY_QUERY;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HISTORY_ROLLUP;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.HOST;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.KEY_VALUE;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.LIST_SERVER_HOSTS;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.NO_DOWNLOAD;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.NO_UPLOAD;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.OUTPUT_FORMAT;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.PERIOD;
+import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.RANGE;
 import static at.bernhardangerer.speedtestclient.util.CommandLineUtil.SHARE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -83,13 +93,18 @@ public final class CommandLineUtilTest {
         final Options options = CommandLineUtil.createOptions();
 
         assertNotNull(options);
-        assertEquals(6, options.getOptions().size());
+        assertEquals(11, options.getOptions().size());
         assertNotNull(options.getOption("nd"));
         assertNotNull(options.getOption("nu"));
         assertNotNull(options.getOption("s"));
         assertNotNull(options.getOption("h"));
         assertNotNull(options.getOption("l"));
         assertNotNull(options.getOption("of"));
+        assertNotNull(options.getOption("c"));
+        assertNotNull(options.getOption("d"));
+        assertNotNull(options.getOption("hq"));
+        assertNotNull(options.getOption("hr"));
+        assertNotNull(options.getOption("fr"));
 
         assertEquals(NO_DOWNLOAD, options.getOption("nd").getLongOpt());
         assertEquals(NO_UPLOAD, options.getOption("nu").getLongOpt());
@@ -97,12 +112,30 @@ public final class CommandLineUtilTest {
         assertEquals(DEDICATED_SERVER_HOST, options.getOption("h").getLongOpt());
         assertEquals(LIST_SERVER_HOSTS, options.getOption("l").getLongOpt());
         assertEquals(OUTPUT_FORMAT, options.getOption("of").getLongOpt());
+        assertEquals(CONFIG, options.getOption("c").getLongOpt());
+        assertEquals(DAEMON, options.getOption("d").getLongOpt());
+        assertFalse(options.getOption("d").hasArg());
+        assertEquals(HISTORY_QUERY, options.getOption("hq").getLongOpt());
+        assertEquals(HISTORY_ROLLUP, options.getOption("hr").getLongOpt());
+        assertEquals(FLIGHT_RECORDING, options.getOption("fr").getLongOpt());
 
         assertEquals(HOST, options.getOption("h").getArgName());
         assertTrue(options.getOption("h").hasArg());
 
         assertEquals(FORMAT, options.getOption("of").getArgName());
         assertTrue(options.getOption("of").hasArg());
+
+        assertEquals(RANGE, options.getOption("hq").getArgName());
+        assertTrue(options.getOption("hq").hasArg());
+
+        assertEquals(PERIOD, options.getOption("hr").getArgName());
+        assertTrue(options.getOption("hr").hasArg());
+
+        assertEquals(FILE, options.getOption("fr").getArgName());
+        assertTrue(options.getOption("fr").hasArg());
+
+        assertEquals(KEY_VALUE, options.getOption("c").getArgName());
+        assertTrue(options.getOption("c").hasArgs());
     }
 
     @Test
@@ -132,6 +165,21 @@ public final class CommandLineUtilTest {
                                                        format                             \s
                                                        csv     — comma-separated values   \s
                                                        format                             \s
+                 -d, --daemon                         Keep running and repeat the tests   \s
+                                                       every Daemon.intervalSeconds       \s
+                 -hq, --historyQuery <RANGE>          Print the recorded results within   \s
+                                                       FROM/TO, e.g.                      \s
+                                                       2025-06-01/2025-06-07T12:00 (either\s
+                                                       side may be omitted)               \s
+                 -hr, --historyRollup <PERIOD>        Print hourly or daily aggregates of \s
+                                                       the recorded results (within       \s
+                                                       --historyQuery if given)           \s
+                 -fr, --flightRecording <FILE>        Record the run with Java Flight     \s
+                                                       Recorder, including the speedtest  \s
+                                                       events, to the given .jfr file     \s
+                 -c, --config <KEY=VALUE>             Override a configuration property,  \s
+                                                       e.g. Download.engine=nio           \s
+                                                       (repeatable)                       \s
 
                 """;
 
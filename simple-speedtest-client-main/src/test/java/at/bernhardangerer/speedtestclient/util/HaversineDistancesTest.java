@@ -0,0 +1,85 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import at.bernhardangerer.speedtestclient.exception.UnsupportedUnitException;
+import at.bernhardangerer.speedtestclient.type.DistanceUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HaversineDistancesTest {
+
+    @Test
+    void distancesShouldMatchUtil() throws UnsupportedUnitException {
+        final Random random = new Random(3L);
+        final double[] lats = new double[1000];
+        final double[] lons = new double[1000];
+        for (int index = 0; index < lats.length; index++) {
+            lats[index] = random.nextDouble() * 180 - 90;
+            lons[index] = random.nextDouble() * 360 - 180;
+        }
+        final HaversineDistances haversineDistances = new HaversineDistances(lats, lons);
+        for (final DistanceUnit unit : DistanceUnit.values()) {
+            final double[] distances = haversineDistances.distancesFrom(48.2, 16.37, unit);
+            for (int index = 0; index < lats.length; index++) {
+                final double expected = Util.calculateDistance(48.2, 16.37, lats[index], lons[index], unit);
+                assertEquals(expected, distances[index], 1e-6);
+                assertEquals(expected, HaversineDistances.toDistance(
+                        HaversineDistances.haversine(48.2, 16.37, lats[index], lons[index]), unit), 1e-6);
+            }
+        }
+        assertEquals(1000, haversineDistances.size());
+    }
+
+    @Test
+    void nearbyPositionsShouldKeepTheirDistance() {
+        // one millionth of a degree of latitude is roughly 11 cm
+        final HaversineDistances haversineDistances = new HaversineDistances(new double[]{48.2, 48.200001}, new double[]{16.37, 16.37});
+
+        final double[] distances = haversineDistances.distancesFrom(48.2, 16.37, DistanceUnit.KILOMETER);
+
+        assertEquals(0, distances[0]);
+        assertEquals(1.111e-4, distances[1], 1e-6);
+    }
+
+    @Test
+    void singlePositionShouldMatchBatch() {
+        final HaversineDistances haversineDistances = new HaversineDistances(new double[]{47.68, -33.9, 90}, new double[]{17.65, 151.2, 0});
+        final double[] query = HaversineDistances.toUnitVector(48.2, 16.37);
+        final double[] haversines = new double[haversineDistances.size()];
+
+        haversineDistances.haversinesFrom(48.2, 16.37, haversines);
+
+        for (int index = 0; index < haversines.length; index++) {
+            assertEquals(haversines[index], haversineDistances.haversineTo(query, index));
+        }
+        // the north pole is the unit vector along the last axis
+        assertEquals(1, haversineDistances.coordinates(HaversineDistances.DIMENSIONS - 1)[2]);
+        assertEquals(0, haversineDistances.haversineTo(HaversineDistances.toUnitVector(90, 0), 2));
+    }
+
+    @Test
+    void toHaversineShouldInvertToDistance() {
+        assertEquals(1234.5, HaversineDistances.toDistance(HaversineDistances.toHaversine(1234.5, DistanceUnit.MILE), DistanceUnit.MILE),
+                1e-9);
+        assertEquals(1, HaversineDistances.toHaversine(1e9, DistanceUnit.KILOMETER));
+        assertArrayEquals(new double[0], new HaversineDistances(new double[0], new double[0]).distancesFrom(0, 0, DistanceUnit.MILE));
+    }
+
+    @Test
+    void invalidParameter() {
+        final HaversineDistances haversineDistances = new HaversineDistances(new double[]{1, 2}, new double[]{1, 2});
+        assertThrows(IllegalArgumentException.class, () -> new HaversineDistances(null, new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new HaversineDistances(new double[1], new double[2]));
+        assertThrows(IllegalArgumentException.class, () -> haversineDistances.haversinesFrom(0, 0, new double[1]));
+        assertThrows(IllegalArgumentException.class, () -> haversineDistances.distancesFrom(0, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> haversineDistances.coordinates(HaversineDistances.DIMENSIONS));
+        assertThrows(IllegalArgumentException.class, () -> HaversineDistances.toDistance(-1, DistanceUnit.MILE));
+        assertThrows(IllegalArgumentException.class, () -> HaversineDistances.toHaversine(-1, DistanceUnit.MILE));
+        assertThrows(IllegalArgumentException.class, () -> HaversineDistances.earthRadius(null));
+    }
+
+}
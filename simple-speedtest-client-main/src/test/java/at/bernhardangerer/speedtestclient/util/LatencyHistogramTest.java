@@ -0,0 +1,96 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import at.bernhardangerer.speedtestclient.model.LatencyTestResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void bucketsShouldCoverValueRange() {
+        for (final long value : new long[]{0L, 1L, 127L, 128L, 129L, 255L, 256L, 12_345_678L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowestValueAt(index) <= value, String.valueOf(value));
+            assertTrue(LatencyHistogram.highestValueAt(index) >= value, String.valueOf(value));
+        }
+        assertEquals(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(255L)) + 1,
+                LatencyHistogram.lowestValueAt(LatencyHistogram.indexOf(256L)));
+    }
+
+    @Test
+    void percentilesShouldStayWithinOnePercent() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 100; millis++) {
+            histogram.recordValue(millis * 1_000_000L);
+        }
+
+        assertEquals(100L, histogram.getCount());
+        assertEquals(1_000_000L, histogram.getMin());
+        assertEquals(100_000_000L, histogram.getMax());
+        assertEquals(50_500_000d, histogram.getMean(), DELTA);
+        assertEquals(50_000_000d, histogram.getValueAtPercentile(50), 500_000d);
+        assertEquals(90_000_000d, histogram.getValueAtPercentile(90), 900_000d);
+        assertEquals(99_000_000d, histogram.getValueAtPercentile(99), 990_000d);
+        assertEquals(100_000_000L, histogram.getValueAtPercentile(100));
+        assertEquals(1_000_000d, histogram.getJitter(), DELTA);
+    }
+
+    @Test
+    void jitterShouldBeMeanAbsoluteDelta() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(10L);
+        histogram.recordValue(14L);
+        histogram.recordValue(8L);
+        histogram.recordLoss();
+
+        assertEquals(5.0, histogram.getJitter(), DELTA);
+        assertEquals(3L, histogram.getCount());
+        assertEquals(1L, histogram.getLossCount());
+        assertEquals(3.0550504633, histogram.getStandardDeviation(), 1e-9);
+    }
+
+    @Test
+    void applyToShouldSetDistribution() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(2_000_000L);
+        histogram.recordValue(4_000_000L);
+        histogram.recordLoss();
+        final LatencyTestResult result = new LatencyTestResult(3.0, 10.0);
+
+        histogram.applyTo(result);
+
+        assertEquals(2.0, result.getMinInMs(), DELTA);
+        assertEquals(4.0, result.getMaxInMs(), DELTA);
+        assertEquals(2.0, result.getP50InMs(), 0.02);
+        assertEquals(4.0, result.getP99InMs(), 0.04);
+        assertEquals(2.0, result.getJitterInMs(), DELTA);
+        assertEquals(1L, result.getLossCount());
+    }
+
+    @Test
+    void emptyHistogramShouldOnlyReportLoss() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordLoss();
+        final LatencyTestResult result = new LatencyTestResult();
+
+        histogram.applyTo(result);
+
+        assertNull(result.getMinInMs());
+        assertEquals(1L, result.getLossCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    void invalidParameter() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.recordValue(-1L));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.applyTo(null));
+    }
+
+}
@@ -0,0 +1,45 @@
+package at.bernhardangerer.speedtestclient.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThroughputStatisticsTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void peak() {
+        assertEquals(9.0, ThroughputStatistics.peak(new double[]{3.0, 9.0, 1.0}), DELTA);
+    }
+
+    @Test
+    void median() {
+        assertEquals(3.0, ThroughputStatistics.median(new double[]{9.0, 1.0, 3.0}), DELTA);
+        assertEquals(2.5, ThroughputStatistics.median(new double[]{4.0, 1.0, 2.0, 3.0}), DELTA);
+    }
+
+    @Test
+    void stableRateShouldDropSlowestAndFastestSamples() {
+        final double[] samples = {0.0, 1.0, 2.0, 50.0, 50.0, 50.0, 50.0, 50.0, 50.0, 500.0};
+
+        assertEquals(50.0, ThroughputStatistics.stableRate(samples), DELTA);
+        assertEquals(7.0, ThroughputStatistics.stableRate(new double[]{7.0}), DELTA);
+    }
+
+    @Test
+    void coefficientOfVariation() {
+        assertEquals(0.0, ThroughputStatistics.coefficientOfVariation(new double[]{5.0, 5.0, 5.0}), DELTA);
+        assertEquals(0.5, ThroughputStatistics.coefficientOfVariation(new double[]{1.0, 3.0}), DELTA);
+        assertEquals(Double.POSITIVE_INFINITY, ThroughputStatistics.coefficientOfVariation(new double[]{0.0, 0.0}), DELTA);
+    }
+
+    @Test
+    void invalidParameter() {
+        assertThrows(IllegalArgumentException.class, () -> ThroughputStatistics.peak(null));
+        assertThrows(IllegalArgumentException.class, () -> ThroughputStatistics.median(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> ThroughputStatistics.stableRate(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> ThroughputStatistics.coefficientOfVariation(null));
+    }
+
+}
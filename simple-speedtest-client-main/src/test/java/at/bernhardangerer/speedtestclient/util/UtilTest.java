@@ -28,6 +28,7 @@ public final class UtilTest {
     public void calculateMbps() {
         final double result = Util.calculateMbps(1000000, 1000L);
         assertEquals(8d, result);
+        assertEquals(25_000d, Util.calculateMbps(46_875_000_000L, 15_000L));
     }
 
     @Test